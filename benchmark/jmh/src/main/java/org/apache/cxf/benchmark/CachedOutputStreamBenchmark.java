@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.io.BufferPool;
+import org.apache.cxf.io.CachedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a message body into a CachedOutputStream and reading it back.
+ * Bodies above the default 128K threshold are spilled to a temp file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CachedOutputStreamBenchmark {
+
+    @Param({"1024", "65536", "1048576" })
+    int size;
+
+    @Param({"false", "true" })
+    boolean pooled;
+
+    @Param({"false", "true" })
+    boolean memoryMapped;
+
+    byte[] chunk = new byte[4096];
+    byte[] readBuffer = new byte[4096];
+    BufferPool bufferPool;
+
+    @Setup
+    public void setUp() {
+        for (int x = 0; x < chunk.length; x++) {
+            chunk[x] = (byte)('a' + x % 26);
+        }
+        if (pooled) {
+            bufferPool = new BufferPool();
+        }
+    }
+
+    @Benchmark
+    public long writeAndRead() throws Exception {
+        CachedOutputStream cos = new CachedOutputStream();
+        if (bufferPool != null) {
+            cos.setBufferPool(bufferPool);
+        }
+        cos.setMemoryMapped(memoryMapped);
+        try {
+            for (int written = 0; written < size; written += chunk.length) {
+                cos.write(chunk, 0, Math.min(chunk.length, size - written));
+            }
+            cos.flush();
+            long count = 0;
+            InputStream in = cos.getInputStream();
+            try {
+                int n = in.read(readBuffer);
+                while (n != -1) {
+                    count += n;
+                    n = in.read(readBuffer);
+                }
+            } finally {
+                in.close();
+            }
+            return count;
+        } finally {
+            cos.close();
+        }
+    }
+}
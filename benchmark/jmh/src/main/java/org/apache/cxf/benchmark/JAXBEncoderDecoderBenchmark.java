@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.jaxb.JAXBEncoderDecoder;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Marshalling and unmarshalling a bean through JAXBEncoderDecoder, the way
+ * the JAXB databinding does for a message part.  Marshallers are created
+ * per operation, as JAXBDataBinding does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JAXBEncoderDecoderBenchmark {
+    static final QName BOOK = new QName(BenchmarkUtils.NAMESPACE, "book");
+
+    JAXBContext context;
+    Book book;
+    byte[] marshalled;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = JAXBContext.newInstance(Book.class);
+        book = new Book(123L, "Apache CXF Web Service Development", 29.99);
+        marshalled = marshal();
+    }
+
+    @Benchmark
+    public byte[] marshal() throws Exception {
+        Marshaller marshaller = context.createMarshaller();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        JAXBEncoderDecoder.marshall(marshaller, book, null, writer);
+        writer.flush();
+        StaxUtils.close(writer);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object unmarshal() throws Exception {
+        Unmarshaller unmarshaller = context.createUnmarshaller();
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(marshalled));
+        reader.nextTag();
+        Object o = JAXBEncoderDecoder.unmarshall(unmarshaller, reader, BOOK, Book.class, true);
+        StaxUtils.close(reader);
+        return o;
+    }
+}
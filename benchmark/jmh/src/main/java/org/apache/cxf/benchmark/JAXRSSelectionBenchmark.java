@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Selecting the root resource class and the resource method for a request,
+ * as JAXRSInInterceptor does, against a small server with two root resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JAXRSSelectionBenchmark {
+
+    @Param({"GET /bookstore/books/123", "POST /bookstore/books", "GET /catalog/items/cxf/reviews" })
+    String request;
+
+    Bus bus;
+    Server server;
+    String httpMethod;
+    String path;
+    List<ClassResourceInfo> resources;
+    List<MediaType> acceptTypes;
+    Message message;
+
+    @Setup
+    public void setUp() {
+        bus = BusFactory.newInstance().createBus();
+        JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setBus(bus);
+        sf.setServiceBeans(Arrays.<Object>asList(new BookStore(), new Catalog()));
+        sf.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        sf.setAddress("local://jaxrs-selection");
+        server = sf.create();
+
+        int idx = request.indexOf(' ');
+        httpMethod = request.substring(0, idx);
+        path = request.substring(idx + 1);
+        acceptTypes = JAXRSUtils.sortMediaTypes("application/xml,*/*;q=0.8", JAXRSUtils.MEDIA_TYPE_Q_PARAM);
+
+        message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        exchange.put(Bus.class, bus);
+        exchange.put(Endpoint.class, server.getEndpoint());
+        exchange.put(Service.class, server.getEndpoint().getService());
+        resources = JAXRSUtils.getRootResources(message);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+        bus.shutdown(true);
+    }
+
+    @Benchmark
+    public Map<ClassResourceInfo, MultivaluedMap<String, String>> selectResourceClass() {
+        return JAXRSUtils.selectResourceClass(resources, path, message);
+    }
+
+    @Benchmark
+    public OperationResourceInfo findTargetMethod() {
+        Map<ClassResourceInfo, MultivaluedMap<String, String>> matched
+            = JAXRSUtils.selectResourceClass(resources, path, message);
+        return JAXRSUtils.findTargetMethod(matched, message, httpMethod,
+                                           new MetadataMap<String, String>(),
+                                           "application/xml", acceptTypes);
+    }
+
+    @Path("/bookstore")
+    public static class BookStore {
+        @GET
+        @Path("/books")
+        @Produces("application/xml")
+        public Book getBooks() {
+            return null;
+        }
+
+        @GET
+        @Path("/books/{id}")
+        @Produces("application/xml")
+        public Book getBook(@PathParam("id") long id) {
+            return null;
+        }
+
+        @POST
+        @Path("/books")
+        @Consumes("application/xml")
+        @Produces("application/xml")
+        public Book addBook(Book book) {
+            return book;
+        }
+
+        @PUT
+        @Path("/books/{id}")
+        @Consumes("application/xml")
+        public void updateBook(@PathParam("id") long id, Book book) {
+        }
+
+        @DELETE
+        @Path("/books/{id}")
+        public void deleteBook(@PathParam("id") long id) {
+        }
+
+        @GET
+        @Path("/authors/{name}")
+        @Produces("text/plain")
+        public String getAuthor(@PathParam("name") String name) {
+            return name;
+        }
+    }
+
+    @Path("/catalog")
+    public static class Catalog {
+        @GET
+        @Path("/items/{item}")
+        @Produces("application/xml")
+        public Book getItem(@PathParam("item") String item) {
+            return null;
+        }
+
+        @GET
+        @Path("/items/{item}/reviews")
+        @Produces({"application/xml", "text/plain" })
+        public String getReviews(@PathParam("item") String item) {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SOAP round trips between a JAX-WS client proxy and service over the local
+ * transport, so the complete client and server interceptor chains, the SOAP
+ * binding and JAXB databinding are measured without any network I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class LocalSoapBenchmark {
+    static final String ADDRESS = "local://cxf-benchmark/echo";
+
+    @Param({"false", "true" })
+    boolean directDispatch;
+
+    Bus bus;
+    Server server;
+    EchoService client;
+    Book book;
+
+    @Setup
+    public void setUp() {
+        bus = BusFactory.newInstance().createBus();
+
+        JaxWsServerFactoryBean sf = new JaxWsServerFactoryBean();
+        sf.setBus(bus);
+        sf.setServiceClass(EchoService.class);
+        sf.setServiceBean(new EchoServiceImpl());
+        sf.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        sf.setAddress(ADDRESS);
+        server = sf.create();
+
+        JaxWsProxyFactoryBean cf = new JaxWsProxyFactoryBean();
+        cf.setBus(bus);
+        cf.setServiceClass(EchoService.class);
+        cf.setAddress(ADDRESS);
+        client = cf.create(EchoService.class);
+        if (directDispatch) {
+            ClientProxy.getClient(client).getRequestContext().put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+        }
+        book = new Book(123L, "Apache CXF Web Service Development", 29.99);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ClientProxy.getClient(client).destroy();
+        server.destroy();
+        bus.shutdown(true);
+    }
+
+    @Benchmark
+    public String echo() {
+        return client.echo("Hello CXF");
+    }
+
+    @Benchmark
+    public Book echoBook() {
+        return client.echoBook(book);
+    }
+}
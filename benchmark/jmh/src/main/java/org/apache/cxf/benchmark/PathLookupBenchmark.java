@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.transport.http.PathTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the destination for a request path among the endpoints published on
+ * one port, with the scan DestinationRegistryImpl.checkRestfulRequest used to do
+ * and with the PathTrie it uses now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PathLookupBenchmark {
+
+    @Param({"10", "400" })
+    int endpoints;
+
+    Set<String> paths;
+    PathTrie<String> trie;
+    List<String> requests;
+    int next;
+
+    @Setup
+    public void setUp() {
+        // the destinations are kept in a ConcurrentHashMap
+        paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        trie = new PathTrie<String>();
+        requests = new ArrayList<String>();
+        for (int x = 0; x < endpoints; x++) {
+            String path = "/services/group" + (x % 20) + "/endpoint" + x;
+            paths.add(path);
+            trie.put(path, path);
+            requests.add(path + "/customers/" + x);
+        }
+    }
+
+    @Benchmark
+    public String scan() {
+        return scan(nextRequest());
+    }
+
+    @Benchmark
+    public String trie() {
+        return trie.getLongestMatch(nextRequest());
+    }
+
+    private String nextRequest() {
+        String request = requests.get(next);
+        next = (next + 1) % requests.size();
+        return request;
+    }
+
+    private String scan(String address) {
+        int len = -1;
+        String ret = null;
+        for (String path : paths) {
+            String thePath = path.length() > 1 && path.endsWith("/") 
+                ? path.substring(0, path.length() - 1) : path;
+            if ((address.equals(thePath) 
+                || "/".equals(thePath)
+                || (address.length() > thePath.length() 
+                    && address.startsWith(thePath) && address.charAt(thePath.length()) == '/'))
+                && thePath.length() > len) {
+                ret = path;
+                len = path.length();
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseChainCache;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Obtaining a chain from a PhaseChainCache and dispatching a message through
+ * it, which is what every incoming and outgoing message pays for.  The
+ * interceptors are spread over all the in phases and do next to nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PhaseInterceptorChainBenchmark {
+
+    @Param({"10", "40" })
+    int interceptors;
+
+    @Param({"false", "true" })
+    boolean compiled;
+
+    SortedSet<Phase> phases;
+    PhaseChainCache cache;
+    List<Interceptor<? extends Message>> busInterceptors;
+    List<Interceptor<? extends Message>> endpointInterceptors;
+
+    @Setup
+    public void setUp() {
+        phases = new PhaseManagerImpl().getInPhases();
+        Phase phaseArray[] = phases.toArray(new Phase[phases.size()]);
+        busInterceptors = new ArrayList<Interceptor<? extends Message>>();
+        endpointInterceptors = new ArrayList<Interceptor<? extends Message>>();
+        for (int x = 0; x < interceptors; x++) {
+            NoopInterceptor i = new NoopInterceptor("noop" + x, phaseArray[x % phaseArray.length].getName());
+            if (x % 2 == 0) {
+                busInterceptors.add(i);
+            } else {
+                endpointInterceptors.add(i);
+            }
+        }
+        cache = new PhaseChainCache();
+        cache.setCompiledChains(compiled);
+    }
+
+    @Benchmark
+    public PhaseInterceptorChain getChain() {
+        return cache.get(phases, busInterceptors, endpointInterceptors);
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        PhaseInterceptorChain chain = cache.get(phases, busInterceptors, endpointInterceptors);
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        message.setInterceptorChain(chain);
+        return chain.doIntercept(message);
+    }
+
+    static class NoopInterceptor extends AbstractPhaseInterceptor<Message> {
+        NoopInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+
+        public void handleMessage(Message message) {
+            message.get(Message.CONTENT_TYPE);
+        }
+    }
+}
@@ -61,7 +61,9 @@ public class ManagedWorkQueueList implements ManagedServiceFactory, PropertyChan
         if (queues.containsKey(queueName)) {
             queues.get(queueName).update(properties);
         } else {
-            AutomaticWorkQueueImpl wq = new AutomaticWorkQueueImpl(queueName);
+            AutomaticWorkQueueImpl wq = 
+                AutomaticWorkQueueImpl.createWorkQueue(properties.get(AutomaticWorkQueueImpl.PROPERTY_TYPE),
+                                                       queueName);
             wq.setShared(true);
             wq.update(properties);
             wq.addChangeListener(this);
@@ -40,6 +40,20 @@ public class NamespaceHandler extends NamespaceHandlerSupport {
         registerBeanDefinitionParser("workqueue",
                                      new SimpleBeanDefinitionParser(AutomaticWorkQueueImpl.class) {
 
+                @Override
+                protected Class<?> getBeanClass(Element e) {
+                    String type = e.hasAttribute(AutomaticWorkQueueImpl.PROPERTY_TYPE) 
+                        ? e.getAttribute(AutomaticWorkQueueImpl.PROPERTY_TYPE) : null;
+                    return AutomaticWorkQueueImpl.getWorkQueueClass(type);
+                }
+                
+                @Override
+                protected void mapAttribute(BeanDefinitionBuilder bean, Element e, String name, String val) {
+                    if (!AutomaticWorkQueueImpl.PROPERTY_TYPE.equals(name)) {
+                        super.mapAttribute(bean, e, name, val);
+                    }
+                }
+
                 protected void processNameAttribute(Element element,
                                                 ParserContext ctx,
                                                 BeanDefinitionBuilder bean,
@@ -78,7 +78,9 @@ public class CXFAPINamespaceHandler implements NamespaceHandler {
             //fastinfosetfeature
             return new SimpleBPBeanDefinitionParser(FastInfosetFeature.class).parse(element, context);
         } else if ("workqueue".equals(s)) {
-            return new SimpleBPBeanDefinitionParser(AutomaticWorkQueueImpl.class) {
+            String type = element.hasAttribute(AutomaticWorkQueueImpl.PROPERTY_TYPE) 
+                ? element.getAttribute(AutomaticWorkQueueImpl.PROPERTY_TYPE) : null;
+            return new SimpleBPBeanDefinitionParser(AutomaticWorkQueueImpl.getWorkQueueClass(type)) {
                 public String getId(Element element, ParserContext context) {
                     String id = element.hasAttribute("id") ? element.getAttribute("id") : null;
                     if (id == null) {
@@ -92,6 +94,13 @@ public class CXFAPINamespaceHandler implements NamespaceHandler {
                                                     MutableBeanMetadata bean, String val) {
                     bean.addProperty("name", createValue(ctx, val));
                 }
+                
+                protected void mapAttribute(MutableBeanMetadata bean, Element e, 
+                                            String name, String val, ParserContext context) {
+                    if (!AutomaticWorkQueueImpl.PROPERTY_TYPE.equals(name)) {
+                        super.mapAttribute(bean, e, name, val, context);
+                    }
+                }
             } .parse(element, context);
         }
         return null;
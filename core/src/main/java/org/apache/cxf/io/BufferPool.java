@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+
+/**
+ * A bounded pool of fixed size direct {@link ByteBuffer} slabs.  When enabled on the
+ * bus with the "bus.io.CachedOutputStream.BufferPool" property, the in-memory part of
+ * {@link CachedOutputStream} and {@link CachedWriter} is kept in slabs taken from this
+ * pool instead of a freshly allocated heap array, and the slabs are handed back once
+ * the cache is closed.
+ */
+public class BufferPool {
+    public static final String ENABLED_PROPERTY = "bus.io.CachedOutputStream.BufferPool";
+    public static final String SLAB_SIZE_PROPERTY = "bus.io.CachedOutputStream.BufferPool.SlabSize";
+    public static final String MAX_SLABS_PROPERTY = "bus.io.CachedOutputStream.BufferPool.MaxSlabs";
+    
+    public static final int DEFAULT_SLAB_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_SLABS = 1024;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(BufferPool.class);
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Queue<ByteBuffer> slabs = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong releaseCount = new AtomicLong();
+    private final AtomicLong discardCount = new AtomicLong();
+    
+    public BufferPool() {
+        this(DEFAULT_SLAB_SIZE, DEFAULT_MAX_SLABS);
+    }
+    
+    public BufferPool(int slabSize, int maxSlabs) {
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("Slab size must be positive");
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = maxSlabs;
+    }
+    
+    /**
+     * Returns the pool registered on the bus, creating and registering one if the
+     * pool has been enabled through the bus properties.
+     * @param bus the bus
+     * @return the pool or null if pooling is not enabled
+     */
+    public static BufferPool getBufferPool(Bus bus) {
+        if (bus == null) {
+            return null;
+        }
+        BufferPool pool = bus.getExtension(BufferPool.class);
+        if (pool != null) {
+            return pool;
+        }
+        Object enabled = bus.getProperty(ENABLED_PROPERTY);
+        if (enabled == null || !Boolean.valueOf(enabled.toString())) {
+            return null;
+        }
+        synchronized (bus) {
+            pool = bus.getExtension(BufferPool.class);
+            if (pool == null) {
+                pool = new BufferPool(getIntProperty(bus, SLAB_SIZE_PROPERTY, DEFAULT_SLAB_SIZE),
+                                      getIntProperty(bus, MAX_SLABS_PROPERTY, DEFAULT_MAX_SLABS));
+                bus.setExtension(pool, BufferPool.class);
+                InstrumentationManager imanager = bus.getExtension(InstrumentationManager.class);
+                if (imanager != null) {
+                    try {
+                        imanager.register(new BufferPoolMBeanWrapper(pool, bus));
+                    } catch (JMException jmex) {
+                        LOG.log(Level.WARNING , jmex.getMessage(), jmex);
+                    }
+                }
+            }
+        }
+        return pool;
+    }
+    
+    private static int getIntProperty(Bus bus, String key, int dflt) {
+        Object v = bus.getProperty(key);
+        return v == null ? dflt : Integer.parseInt(v.toString());
+    }
+    
+    /**
+     * Takes a cleared slab from the pool, allocating a new one if the pool is empty.
+     */
+    public ByteBuffer acquire() {
+        acquireCount.incrementAndGet();
+        ByteBuffer slab = slabs.poll();
+        if (slab == null) {
+            missCount.incrementAndGet();
+            return ByteBuffer.allocateDirect(slabSize);
+        }
+        pooled.decrementAndGet();
+        slab.clear();
+        return slab;
+    }
+    
+    /**
+     * Hands a slab back to the pool.  Slabs beyond the pool bound are left 
+     * for the garbage collector.
+     */
+    public void release(ByteBuffer slab) {
+        if (slab == null || slab.capacity() != slabSize || !slab.isDirect()) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxSlabs) {
+            pooled.decrementAndGet();
+            discardCount.incrementAndGet();
+            return;
+        }
+        slab.clear();
+        slabs.offer(slab);
+        releaseCount.incrementAndGet();
+    }
+    
+    public int getSlabSize() {
+        return slabSize;
+    }
+    
+    public int getMaxSlabs() {
+        return maxSlabs;
+    }
+    
+    public int getPooledSlabs() {
+        return pooled.get();
+    }
+    
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+    
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    public long getReleaseCount() {
+        return releaseCount.get();
+    }
+    
+    public long getDiscardCount() {
+        return discardCount.get();
+    }
+}
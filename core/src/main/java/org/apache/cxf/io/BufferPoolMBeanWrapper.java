@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+@ManagedResource(componentName = "BufferPool", 
+                 description = "The CXF cached stream buffer pool", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class BufferPoolMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "BufferPool";
+    
+    private BufferPool pool;
+    private Bus bus;
+    
+    public BufferPoolMBeanWrapper(BufferPool pool, Bus bus) {
+        this.pool = pool;
+        this.bus = bus;
+    }
+    
+    @ManagedAttribute(description = "The size in bytes of a pooled slab")
+    public int getSlabSize() {
+        return pool.getSlabSize();
+    }
+    
+    @ManagedAttribute(description = "The maximum number of pooled slabs")
+    public int getMaxSlabs() {
+        return pool.getMaxSlabs();
+    }
+    
+    @ManagedAttribute(description = "The number of slabs currently in the pool")
+    public int getPooledSlabs() {
+        return pool.getPooledSlabs();
+    }
+    
+    @ManagedAttribute(description = "The number of slabs requested from the pool")
+    public long getAcquireCount() {
+        return pool.getAcquireCount();
+    }
+    
+    @ManagedAttribute(description = "The number of requests that had to allocate a new slab")
+    public long getMissCount() {
+        return pool.getMissCount();
+    }
+    
+    @ManagedAttribute(description = "The number of slabs returned to the pool")
+    public long getReleaseCount() {
+        return pool.getReleaseCount();
+    }
+    
+    @ManagedAttribute(description = "The number of slabs dropped because the pool was full")
+    public long getDiscardCount() {
+        return pool.getDiscardCount();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(pool.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -32,7 +32,11 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.RandomAccessFile;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -53,6 +57,7 @@ public class CachedOutputStream extends OutputStream {
     private static int defaultThreshold;
     private static long defaultMaxSize;
     private static String defaultCipherTransformation;
+    private static boolean defaultMemoryMapped;
     static {
         
         String s = SystemPropertyAction.getPropertyOrNull("org.apache.cxf.io.CachedOutputStream.OutputDirectory");
@@ -70,9 +75,11 @@ public class CachedOutputStream extends OutputStream {
         setDefaultThreshold(-1);
         setDefaultMaxSize(-1);
         setDefaultCipherTransformation(null);
+        setDefaultMemoryMapped(null);
     }
 
     protected boolean outputLocked;
+    private boolean closed;
     protected OutputStream currentStream;
 
     private long threshold = defaultThreshold;
@@ -88,6 +95,9 @@ public class CachedOutputStream extends OutputStream {
     private boolean allowDeleteOfFile = true;
     private String cipherTransformation = defaultCipherTransformation;
     private CipherPair ciphers;
+    private BufferPool bufferPool;
+    private boolean memoryMapped = defaultMemoryMapped;
+    private MappedByteBuffer mappedBuffer;
 
     private List<CachedOutputStreamCallback> callbacks;
     
@@ -105,9 +115,10 @@ public class CachedOutputStream extends OutputStream {
 
     public CachedOutputStream(long threshold) {
         this.threshold = threshold; 
-        currentStream = new LoadingByteArrayOutputStream(2048);
-        inmem = true;
         readBusProperties();
+        currentStream = bufferPool != null 
+            ? new PooledBufferOutputStream(bufferPool) : new LoadingByteArrayOutputStream(2048);
+        inmem = true;
     }
 
     private void readBusProperties() {
@@ -125,6 +136,11 @@ public class CachedOutputStream extends OutputStream {
             if (v != null) {
                 cipherTransformation = v;
             }
+            v = getBusProperty(b, "bus.io.CachedOutputStream.MemoryMapped", null);
+            if (v != null) {
+                memoryMapped = Boolean.valueOf(v);
+            }
+            bufferPool = BufferPool.getBufferPool(b);
         }
     }
 
@@ -135,9 +151,26 @@ public class CachedOutputStream extends OutputStream {
 
     public void holdTempFile() {
         allowDeleteOfFile = false;
+        releasePooledBuffersOnLastReader(false);
     }
     public void releaseTempFileHold() {
         allowDeleteOfFile = true;
+        if (closed) {
+            releasePooledBuffersOnLastReader(true);
+        }
+    }
+    
+    /**
+     * Sets the pool used for the in-memory content.  Only effective 
+     * before anything has been written.
+     */
+    public void setBufferPool(BufferPool pool) {
+        if (inmem && totalLength == 0 && !(currentStream instanceof PipedOutputStream)) {
+            releasePooledBuffers();
+            bufferPool = pool;
+            currentStream = pool != null 
+                ? new PooledBufferOutputStream(pool) : new LoadingByteArrayOutputStream(2048);
+        }
     }
     
     public void registerCallback(CachedOutputStreamCallback cb) {
@@ -221,6 +254,23 @@ public class CachedOutputStream extends OutputStream {
         currentStream.close();
         maybeDeleteTempFile(currentStream);
         postClose();
+        closed = true;
+        if (allowDeleteOfFile) {
+            // like the temp file, the pooled buffers stay readable until the last reader is closed
+            releasePooledBuffersOnLastReader(true);
+        }
+    }
+    
+    private void releasePooledBuffers() {
+        if (currentStream instanceof PooledBufferOutputStream) {
+            ((PooledBufferOutputStream)currentStream).release();
+        }
+    }
+    
+    private void releasePooledBuffersOnLastReader(boolean release) {
+        if (currentStream instanceof PooledBufferOutputStream) {
+            ((PooledBufferOutputStream)currentStream).setReleaseOnLastReader(release);
+        }
     }
 
     public boolean equals(Object obj) {
@@ -260,6 +310,12 @@ public class CachedOutputStream extends OutputStream {
                     if (copyOldContent && byteOut.size() > 0) {
                         byteOut.writeTo(out);
                     }
+                } else if (currentStream instanceof PooledBufferOutputStream) {
+                    PooledBufferOutputStream pooledOut = (PooledBufferOutputStream) currentStream;
+                    if (copyOldContent && pooledOut.size() > 0) {
+                        pooledOut.writeTo(out);
+                    }
+                    pooledOut.release();
                 } else if (currentStream instanceof PipedOutputStream) {
                     PipedOutputStream pipeOut = (PipedOutputStream) currentStream;
                     IOUtils.copyAndCloseInput(new PipedInputStream(pipeOut), out);
@@ -280,6 +336,7 @@ public class CachedOutputStream extends OutputStream {
         }
         currentStream = out;
         outputLocked = false;
+        closed = false;
     }
 
     public static void copyStream(InputStream in, OutputStream out, int bufferSize) throws IOException {
@@ -295,9 +352,16 @@ public class CachedOutputStream extends OutputStream {
         if (inmem) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 return ((ByteArrayOutputStream)currentStream).toByteArray();
+            } else if (currentStream instanceof PooledBufferOutputStream) {
+                return ((PooledBufferOutputStream)currentStream).toByteArray();
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
+        } else if (isMapped()) {
+            ByteBuffer mapped = getMappedBuffer();
+            byte[] bytes = new byte[mapped.remaining()];
+            mapped.get(bytes);
+            return bytes;
         } else {
             // read the file
             InputStream fin = createInputStream(tempFile);
@@ -310,9 +374,13 @@ public class CachedOutputStream extends OutputStream {
         if (inmem) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 ((ByteArrayOutputStream)currentStream).writeTo(out);
+            } else if (currentStream instanceof PooledBufferOutputStream) {
+                ((PooledBufferOutputStream)currentStream).writeTo(out);
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
+        } else if (isMapped()) {
+            writeMappedCacheTo(out);
         } else {
             // read the file
             InputStream fin = createInputStream(tempFile);
@@ -320,6 +388,32 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    private void writeMappedCacheTo(OutputStream out) throws IOException {
+        if (out instanceof FileOutputStream) {
+            // let the OS copy the spilled file straight into the target file
+            FileChannel target = ((FileOutputStream)out).getChannel();
+            RandomAccessFile raf = new RandomAccessFile(tempFile, "r");
+            try {
+                FileChannel source = raf.getChannel();
+                long pos = 0;
+                long len = source.size();
+                while (pos < len) {
+                    pos += source.transferTo(pos, len - pos, target);
+                }
+            } finally {
+                raf.close();
+            }
+        } else {
+            ByteBuffer mapped = getMappedBuffer();
+            byte[] bytes = new byte[Math.min(mapped.remaining(), 64 * 1024)];
+            while (mapped.hasRemaining()) {
+                int n = Math.min(bytes.length, mapped.remaining());
+                mapped.get(bytes, 0, n);
+                out.write(bytes, 0, n);
+            }
+        }
+    }
+    
     public void writeCacheTo(StringBuilder out, long limit) throws IOException {
         writeCacheTo(out, "UTF-8", limit);
     }
@@ -340,6 +434,9 @@ public class CachedOutputStream extends OutputStream {
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 byte bytes[] = ((ByteArrayOutputStream)currentStream).toByteArray();
                 out.append(IOUtils.newStringFromBytes(bytes, charsetName, 0, (int)limit));
+            } else if (currentStream instanceof PooledBufferOutputStream) {
+                byte bytes[] = ((PooledBufferOutputStream)currentStream).toByteArray((int)limit);
+                out.append(IOUtils.newStringFromBytes(bytes, charsetName, 0, bytes.length));
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -389,6 +486,9 @@ public class CachedOutputStream extends OutputStream {
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 byte[] bytes = ((ByteArrayOutputStream)currentStream).toByteArray();
                 out.append(IOUtils.newStringFromBytes(bytes, charsetName));
+            } else if (currentStream instanceof PooledBufferOutputStream) {
+                byte[] bytes = ((PooledBufferOutputStream)currentStream).toByteArray();
+                out.append(IOUtils.newStringFromBytes(bytes, charsetName));
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -448,7 +548,9 @@ public class CachedOutputStream extends OutputStream {
         if (maxSize > 0 && totalLength > maxSize) {
             throw new CacheSizeExceededException();
         }
-        if (inmem && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
+        if (inmem && totalLength > threshold 
+            && (currentStream instanceof ByteArrayOutputStream 
+                || currentStream instanceof PooledBufferOutputStream)) {
             createFileOutputStream();
         }       
     }
@@ -484,7 +586,7 @@ public class CachedOutputStream extends OutputStream {
         if (tempFileFailed) {
             return;
         }
-        ByteArrayOutputStream bout = (ByteArrayOutputStream)currentStream;
+        OutputStream bout = currentStream;
         try {
             if (outputDir == null) {
                 tempFile = FileUtils.createTempFile("cos", "tmp");
@@ -493,7 +595,13 @@ public class CachedOutputStream extends OutputStream {
             }
             
             currentStream = createOutputStream(tempFile);
-            bout.writeTo(currentStream);
+            if (bout instanceof PooledBufferOutputStream) {
+                PooledBufferOutputStream pooledOut = (PooledBufferOutputStream)bout;
+                pooledOut.writeTo(currentStream);
+                pooledOut.release();
+            } else {
+                ((ByteArrayOutputStream)bout).writeTo(currentStream);
+            }
             inmem = false;
             streamList.add(currentStream);
         } catch (Exception ex) {
@@ -520,11 +628,17 @@ public class CachedOutputStream extends OutputStream {
                 return ((LoadingByteArrayOutputStream) currentStream).createInputStream();
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
+            } else if (currentStream instanceof PooledBufferOutputStream) {
+                return ((PooledBufferOutputStream) currentStream).createInputStream();
             } else if (currentStream instanceof PipedOutputStream) {
                 return new PipedInputStream((PipedOutputStream) currentStream);
             } else {
                 return null;
             }
+        } else if (isMapped()) {
+            InputStream mappedInputStream = new MappedFileInputStream(tempFile, getMappedBuffer());
+            streamList.add(mappedInputStream);
+            return mappedInputStream;
         } else {
             try {
                 InputStream fileInputStream = new TransferableFileInputStream(tempFile);
@@ -548,7 +662,38 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    /**
+     * Spilled content is served from a shared read-only mapping of the temp file
+     * when memory mapping is enabled, the stream is closed, the content is not 
+     * encrypted and fits into a single mapping.  Content read while the stream is
+     * still open comes from the file.
+     */
+    private boolean isMapped() {
+        return closed && memoryMapped && cipherTransformation == null 
+            && tempFile != null && totalLength <= Integer.MAX_VALUE;
+    }
+    
+    /**
+     * The temp file is mapped once, the content can't change anymore as the stream
+     * is closed.  The mapping is dropped when the temp file is deleted.
+     * 
+     * @return a new view of the mapped temp file positioned at the start
+     */
+    private synchronized ByteBuffer getMappedBuffer() throws IOException {
+        if (mappedBuffer == null) {
+            RandomAccessFile raf = new RandomAccessFile(tempFile, "r");
+            try {
+                // the mapping stays valid after the channel is closed
+                mappedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            } finally {
+                raf.close();
+            }
+        }
+        return mappedBuffer.duplicate();
+    }
+    
     private synchronized void deleteTempFile() {
+        mappedBuffer = null;
         if (tempFile != null) {
             File file = tempFile;
             tempFile = null;
@@ -587,6 +732,14 @@ public class CachedOutputStream extends OutputStream {
         this.cipherTransformation = cipherTransformation;
     }
     
+    /**
+     * Serve the readers of spilled content from a memory mapping of the temp 
+     * file once the stream is closed.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+    
     public static void setDefaultMaxSize(long l) {
         if (l == -1) {
             String s = System.getProperty("org.apache.cxf.io.CachedOutputStream.MaxSize",
@@ -613,6 +766,13 @@ public class CachedOutputStream extends OutputStream {
         }
         defaultCipherTransformation = n;
     }
+    public static void setDefaultMemoryMapped(Boolean b) {
+        if (b == null) {
+            b = Boolean.valueOf(SystemPropertyAction.getPropertyOrNull(
+                "org.apache.cxf.io.CachedOutputStream.MemoryMapped"));
+        }
+        defaultMemoryMapped = b;
+    }
 
     private OutputStream createOutputStream(File file) throws IOException {
         OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
@@ -653,6 +813,69 @@ public class CachedOutputStream extends OutputStream {
         return in;
     }
 
+    private class MappedFileInputStream extends InputStream implements Transferable {
+        private boolean closed;
+        private File sourceFile;
+        private ByteBuffer buffer;
+        
+        MappedFileInputStream(File sourceFile, ByteBuffer buffer) {
+            this.sourceFile = sourceFile;
+            this.buffer = buffer;
+        }
+        
+        public int read() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+        
+        public long skip(long n) {
+            int k = (int)Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + k);
+            return k;
+        }
+        
+        public int available() {
+            return buffer.remaining();
+        }
+        
+        public void close() throws IOException {
+            if (!closed) {
+                buffer = null;
+                maybeDeleteTempFile(this);
+            }
+            closed = true;
+        }
+
+        @Override
+        public void transferTo(File destinationFile) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            //We've cached the file so try renaming.
+            boolean transfered = sourceFile.renameTo(destinationFile);
+            if (!transfered) {
+                IOUtils.transferTo(getInputStream(), destinationFile);
+            }
+        }
+    }
+
     private class TransferableFileInputStream extends FileInputStream implements Transferable {
         private boolean closed;
         private File sourceFile;
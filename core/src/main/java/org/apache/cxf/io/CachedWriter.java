@@ -88,9 +88,11 @@ public class CachedWriter extends Writer {
     private boolean tempFileFailed;
     private File tempFile;
     private File outputDir = DEFAULT_TEMP_DIR;
+    private boolean closed;
     private boolean allowDeleteOfFile = true;
     private String cipherTransformation = defaultCipherTransformation;
     private CipherPair ciphers;
+    private BufferPool bufferPool;
 
     private List<CachedWriterCallback> callbacks;
     
@@ -115,9 +117,10 @@ public class CachedWriter extends Writer {
 
     public CachedWriter(long threshold) {
         this.threshold = threshold;
-        currentStream = new LoadingCharArrayWriter();
-        inmem = true;
         readBusProperties();
+        currentStream = bufferPool != null 
+            ? new PooledBufferWriter(bufferPool) : new LoadingCharArrayWriter();
+        inmem = true;
     }
 
     private void readBusProperties() {
@@ -135,6 +138,7 @@ public class CachedWriter extends Writer {
             if (v != null) {
                 cipherTransformation = v;
             }
+            bufferPool = BufferPool.getBufferPool(b);
         }
     }
 
@@ -145,9 +149,26 @@ public class CachedWriter extends Writer {
 
     public void holdTempFile() {
         allowDeleteOfFile = false;
+        releasePooledBuffersOnLastReader(false);
     }
     public void releaseTempFileHold() {
         allowDeleteOfFile = true;
+        if (closed) {
+            releasePooledBuffersOnLastReader(true);
+        }
+    }
+    
+    /**
+     * Sets the pool used for the in-memory content.  Only effective 
+     * before anything has been written.
+     */
+    public void setBufferPool(BufferPool pool) {
+        if (inmem && totalLength == 0) {
+            releasePooledBuffers();
+            bufferPool = pool;
+            currentStream = pool != null 
+                ? new PooledBufferWriter(pool) : new LoadingCharArrayWriter();
+        }
     }
     
     public void registerCallback(CachedWriterCallback cb) {
@@ -231,6 +252,23 @@ public class CachedWriter extends Writer {
         currentStream.close();
         maybeDeleteTempFile(currentStream);
         postClose();
+        closed = true;
+        if (allowDeleteOfFile) {
+            // like the temp file, the pooled buffers stay readable until the last reader is closed
+            releasePooledBuffersOnLastReader(true);
+        }
+    }
+    
+    private void releasePooledBuffers() {
+        if (currentStream instanceof PooledBufferWriter) {
+            ((PooledBufferWriter)currentStream).release();
+        }
+    }
+    
+    private void releasePooledBuffersOnLastReader(boolean release) {
+        if (currentStream instanceof PooledBufferWriter) {
+            ((PooledBufferWriter)currentStream).setReleaseOnLastReader(release);
+        }
     }
 
     public boolean equals(Object obj) {
@@ -270,6 +308,12 @@ public class CachedWriter extends Writer {
                     if (copyOldContent && byteOut.size() > 0) {
                         byteOut.writeTo(out);
                     }
+                } else if (currentStream instanceof PooledBufferWriter) {
+                    PooledBufferWriter pooledOut = (PooledBufferWriter) currentStream;
+                    if (copyOldContent && pooledOut.size() > 0) {
+                        pooledOut.writeTo(out);
+                    }
+                    pooledOut.release();
                 } else {
                     throw new IOException("Unknown format of currentStream");
                 }
@@ -287,6 +331,7 @@ public class CachedWriter extends Writer {
         }
         currentStream = out;
         outputLocked = false;
+        closed = false;
     }
 
 
@@ -299,6 +344,8 @@ public class CachedWriter extends Writer {
         if (inmem) {
             if (currentStream instanceof LoadingCharArrayWriter) {
                 return ((LoadingCharArrayWriter)currentStream).toCharArray();
+            } else if (currentStream instanceof PooledBufferWriter) {
+                return ((PooledBufferWriter)currentStream).toCharArray();
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -328,6 +375,8 @@ public class CachedWriter extends Writer {
         if (inmem) {
             if (currentStream instanceof LoadingCharArrayWriter) {
                 ((LoadingCharArrayWriter)currentStream).writeTo(out);
+            } else if (currentStream instanceof PooledBufferWriter) {
+                ((PooledBufferWriter)currentStream).writeTo(out);
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -363,6 +412,8 @@ public class CachedWriter extends Writer {
             if (currentStream instanceof LoadingCharArrayWriter) {
                 LoadingCharArrayWriter s = (LoadingCharArrayWriter)currentStream;
                 out.append(s.rawCharArray(), 0, (int)limit);
+            } else if (currentStream instanceof PooledBufferWriter) {
+                ((PooledBufferWriter)currentStream).writeTo(out, limit);
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -400,6 +451,9 @@ public class CachedWriter extends Writer {
             if (currentStream instanceof LoadingCharArrayWriter) {
                 LoadingCharArrayWriter lcaw = (LoadingCharArrayWriter)currentStream;
                 out.append(lcaw.rawCharArray(), 0, lcaw.size());
+            } else if (currentStream instanceof PooledBufferWriter) {
+                PooledBufferWriter pooledOut = (PooledBufferWriter)currentStream;
+                pooledOut.writeTo(out, pooledOut.size());
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -453,7 +507,9 @@ public class CachedWriter extends Writer {
         if (maxSize > 0 && totalLength > maxSize) {
             throw new CacheSizeExceededException();
         }
-        if (inmem && totalLength > threshold && currentStream instanceof LoadingCharArrayWriter) {
+        if (inmem && totalLength > threshold 
+            && (currentStream instanceof LoadingCharArrayWriter
+                || currentStream instanceof PooledBufferWriter)) {
             createFileOutputStream();
         }       
     }
@@ -472,7 +528,7 @@ public class CachedWriter extends Writer {
         if (tempFileFailed) {
             return;
         }
-        LoadingCharArrayWriter bout = (LoadingCharArrayWriter)currentStream;
+        Writer bout = currentStream;
         try {
             if (outputDir == null) {
                 tempFile = FileUtils.createTempFile("cos", "tmp");
@@ -480,7 +536,13 @@ public class CachedWriter extends Writer {
                 tempFile = FileUtils.createTempFile("cos", "tmp", outputDir, false);
             }
             currentStream = createOutputStreamWriter(tempFile);
-            bout.writeTo(currentStream);
+            if (bout instanceof PooledBufferWriter) {
+                PooledBufferWriter pooledOut = (PooledBufferWriter)bout;
+                pooledOut.writeTo(currentStream);
+                pooledOut.release();
+            } else {
+                ((LoadingCharArrayWriter)bout).writeTo(currentStream);
+            }
             inmem = false;
             streamList.add(currentStream);
         } catch (Exception ex) {
@@ -506,6 +568,8 @@ public class CachedWriter extends Writer {
             if (currentStream instanceof LoadingCharArrayWriter) {
                 LoadingCharArrayWriter lcaw = (LoadingCharArrayWriter)currentStream;
                 return new CharArrayReader(lcaw.rawCharArray(), 0, lcaw.size());
+            } else if (currentStream instanceof PooledBufferWriter) {
+                return ((PooledBufferWriter)currentStream).createReader();
             } else {
                 return null;
             }
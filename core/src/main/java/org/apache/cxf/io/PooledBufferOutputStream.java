@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory store for {@link CachedOutputStream} backed by slabs borrowed from a
+ * {@link BufferPool}.  The slabs are reference counted: the owning cache holds one 
+ * reference and every InputStream created from it holds another, so the slabs only 
+ * go back to the pool once the cache has been released and all readers are closed,
+ * or once the closed cache sees its last reader closed.
+ */
+final class PooledBufferOutputStream extends OutputStream {
+    private final BufferPool pool;
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+    private ByteBuffer current;
+    private int count;
+    private int references = 1;
+    private boolean ownerReleased;
+    private boolean releaseOnLastReader;
+    
+    PooledBufferOutputStream(BufferPool pool) {
+        this.pool = pool;
+    }
+    
+    private void ensureCapacity() throws IOException {
+        if (references == 0) {
+            throw new IOException("Pooled buffers have been released");
+        }
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire();
+            slabs.add(current);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity();
+        current.put((byte)b);
+        count++;
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureCapacity();
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+            count += n;
+        }
+    }
+    
+    /**
+     * The content stays readable after close, the slabs are only given back 
+     * by {@link #release()} or once the last reader is closed, see
+     * {@link #setReleaseOnLastReader(boolean)}.
+     */
+    @Override
+    public void close() {
+        // nothing to do
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public void writeTo(OutputStream out) throws IOException {
+        checkReadable();
+        byte[] bytes = new byte[Math.min(count, pool.getSlabSize())];
+        for (ByteBuffer slab : slabs) {
+            ByteBuffer b = readView(slab);
+            while (b.hasRemaining()) {
+                int n = Math.min(bytes.length, b.remaining());
+                b.get(bytes, 0, n);
+                out.write(bytes, 0, n);
+            }
+        }
+    }
+    
+    public byte[] toByteArray() throws IOException {
+        return toByteArray(count);
+    }
+    
+    public byte[] toByteArray(int limit) throws IOException {
+        checkReadable();
+        byte[] bytes = new byte[Math.min(limit, count)];
+        int off = 0;
+        for (ByteBuffer slab : slabs) {
+            if (off == bytes.length) {
+                break;
+            }
+            ByteBuffer b = readView(slab);
+            int n = Math.min(b.remaining(), bytes.length - off);
+            b.get(bytes, off, n);
+            off += n;
+        }
+        return bytes;
+    }
+    
+    public synchronized InputStream createInputStream() throws IOException {
+        checkReadable();
+        references++;
+        List<ByteBuffer> views = new ArrayList<ByteBuffer>(slabs.size());
+        for (ByteBuffer slab : slabs) {
+            views.add(readView(slab));
+        }
+        return new PooledBufferInputStream(views);
+    }
+    
+    /**
+     * Drops the reference held by the owning cache.
+     */
+    public synchronized void release() {
+        if (!ownerReleased) {
+            ownerReleased = true;
+            dereference();
+        }
+    }
+    
+    /**
+     * Once set, the reference held by the owning cache is dropped when the last
+     * open reader is closed, the same way a spilled temp file is deleted.  The
+     * content stays readable as long as that has not happened.
+     */
+    public synchronized void setReleaseOnLastReader(boolean release) {
+        releaseOnLastReader = release;
+    }
+    
+    private synchronized void readerClosed() {
+        dereference();
+        if (releaseOnLastReader && references == 1) {
+            release();
+        }
+    }
+    
+    private synchronized void dereference() {
+        if (--references == 0) {
+            for (ByteBuffer slab : slabs) {
+                pool.release(slab);
+            }
+            slabs.clear();
+            current = null;
+        }
+    }
+    
+    private void checkReadable() throws IOException {
+        if (references == 0) {
+            throw new IOException("Pooled buffers have been released");
+        }
+    }
+
+    private static ByteBuffer readView(ByteBuffer slab) {
+        ByteBuffer b = slab.duplicate();
+        b.flip();
+        return b;
+    }
+    
+    private class PooledBufferInputStream extends InputStream {
+        private final List<ByteBuffer> views;
+        private int index;
+        private boolean closed;
+        
+        PooledBufferInputStream(List<ByteBuffer> views) {
+            this.views = views;
+        }
+        
+        private ByteBuffer currentView() {
+            while (index < views.size()) {
+                ByteBuffer b = views.get(index);
+                if (b.hasRemaining()) {
+                    return b;
+                }
+                index++;
+            }
+            return null;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            ByteBuffer b = currentView();
+            return b == null ? -1 : b.get() & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer b = currentView();
+            if (b == null) {
+                return -1;
+            }
+            int n = Math.min(len, b.remaining());
+            b.get(bytes, off, n);
+            return n;
+        }
+        
+        @Override
+        public int available() {
+            int n = 0;
+            for (int x = index; x < views.size(); x++) {
+                n += views.get(x).remaining();
+            }
+            return n;
+        }
+        
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                readerClosed();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory store for {@link CachedWriter} backed by slabs borrowed from a
+ * {@link BufferPool}, viewed as character buffers.  Reference counted the same
+ * way as {@link PooledBufferOutputStream}.
+ */
+final class PooledBufferWriter extends Writer {
+    private final BufferPool pool;
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+    private final List<CharBuffer> chars = new ArrayList<CharBuffer>();
+    private CharBuffer current;
+    private int count;
+    private int references = 1;
+    private boolean ownerReleased;
+    private boolean releaseOnLastReader;
+    
+    PooledBufferWriter(BufferPool pool) {
+        this.pool = pool;
+    }
+    
+    private void ensureCapacity() throws IOException {
+        if (references == 0) {
+            throw new IOException("Pooled buffers have been released");
+        }
+        if (current == null || !current.hasRemaining()) {
+            ByteBuffer slab = pool.acquire();
+            current = slab.asCharBuffer();
+            slabs.add(slab);
+            chars.add(current);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureCapacity();
+            int n = Math.min(len, current.remaining());
+            current.put(cbuf, off, n);
+            off += n;
+            len -= n;
+            count += n;
+        }
+    }
+    
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+    
+    /**
+     * The content stays readable after close, the slabs are only given back 
+     * by {@link #release()} or once the last reader is closed, see
+     * {@link #setReleaseOnLastReader(boolean)}.
+     */
+    @Override
+    public void close() {
+        // nothing to do
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public void writeTo(Writer out) throws IOException {
+        checkReadable();
+        char[] buf = new char[Math.min(count, pool.getSlabSize() / 2)];
+        for (CharBuffer c : chars) {
+            CharBuffer b = readView(c);
+            while (b.hasRemaining()) {
+                int n = Math.min(buf.length, b.remaining());
+                b.get(buf, 0, n);
+                out.write(buf, 0, n);
+            }
+        }
+    }
+    
+    public void writeTo(StringBuilder out, long limit) throws IOException {
+        checkReadable();
+        long remaining = limit;
+        for (CharBuffer c : chars) {
+            if (remaining <= 0) {
+                break;
+            }
+            CharBuffer b = readView(c);
+            if (b.remaining() > remaining) {
+                b.limit(b.position() + (int)remaining);
+            }
+            remaining -= b.remaining();
+            out.append(b);
+        }
+    }
+    
+    public char[] toCharArray() throws IOException {
+        checkReadable();
+        char[] buf = new char[count];
+        int off = 0;
+        for (CharBuffer c : chars) {
+            CharBuffer b = readView(c);
+            int n = b.remaining();
+            b.get(buf, off, n);
+            off += n;
+        }
+        return buf;
+    }
+    
+    public synchronized Reader createReader() throws IOException {
+        checkReadable();
+        references++;
+        List<CharBuffer> views = new ArrayList<CharBuffer>(chars.size());
+        for (CharBuffer c : chars) {
+            views.add(readView(c));
+        }
+        return new PooledBufferReader(views);
+    }
+    
+    /**
+     * Drops the reference held by the owning cache.
+     */
+    public synchronized void release() {
+        if (!ownerReleased) {
+            ownerReleased = true;
+            dereference();
+        }
+    }
+    
+    /**
+     * Once set, the reference held by the owning cache is dropped when the last
+     * open reader is closed, the same way a spilled temp file is deleted.  The
+     * content stays readable as long as that has not happened.
+     */
+    public synchronized void setReleaseOnLastReader(boolean release) {
+        releaseOnLastReader = release;
+    }
+    
+    private synchronized void readerClosed() {
+        dereference();
+        if (releaseOnLastReader && references == 1) {
+            release();
+        }
+    }
+    
+    private synchronized void dereference() {
+        if (--references == 0) {
+            for (ByteBuffer slab : slabs) {
+                pool.release(slab);
+            }
+            slabs.clear();
+            chars.clear();
+            current = null;
+        }
+    }
+    
+    private void checkReadable() throws IOException {
+        if (references == 0) {
+            throw new IOException("Pooled buffers have been released");
+        }
+    }
+    
+    private static CharBuffer readView(CharBuffer c) {
+        CharBuffer b = c.duplicate();
+        b.flip();
+        return b;
+    }
+    
+    private class PooledBufferReader extends Reader {
+        private final List<CharBuffer> views;
+        private int index;
+        private boolean closed;
+        
+        PooledBufferReader(List<CharBuffer> views) {
+            this.views = views;
+        }
+        
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (index < views.size()) {
+                CharBuffer b = views.get(index);
+                if (b.hasRemaining()) {
+                    int n = Math.min(len, b.remaining());
+                    b.get(cbuf, off, n);
+                    return n;
+                }
+                index++;
+            }
+            return -1;
+        }
+        
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                readerClosed();
+            }
+        }
+    }
+}
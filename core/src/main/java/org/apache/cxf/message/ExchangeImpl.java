@@ -30,9 +30,9 @@ import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.Destination;
 import org.apache.cxf.transport.Session;
 
-public class ExchangeImpl extends StringMapImpl implements Exchange {
+public class ExchangeImpl extends IndexedStringMapImpl implements Exchange {
     
-    private static final long serialVersionUID = -3112077559217623594L;
+    private static final long serialVersionUID = 2784249659845191438L;
     private Destination destination;
     private boolean oneWay;
     private boolean synchronous = true;
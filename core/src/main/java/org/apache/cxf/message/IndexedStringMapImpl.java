@@ -0,0 +1,456 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.binding.Binding;
+import org.apache.cxf.endpoint.ConduitSelector;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingMessageInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.transport.Destination;
+
+/**
+ * A StringMap that stores the values of well known keys in a fixed slot per
+ * key rather than in hash map entries.  Keys that have not been registered
+ * via {@link #registerKey(String)} are kept in a small overflow HashMap that
+ * is only created when first needed.  The common Message and Exchange keys
+ * are registered by default.
+ * <p>
+ * The key to slot mapping of a map is fixed when the map is created, keys
+ * registered later on only affect maps created after the registration.
+ */
+public class IndexedStringMapImpl
+    extends AbstractMap<String, Object>
+    implements StringMap, Serializable {
+
+    private static final long serialVersionUID = 2897245218766931290L;
+
+    private static final String[] DEFAULT_KEYS = {
+        Message.PROTOCOL_HEADERS,
+        Message.CONTENT_TYPE,
+        Message.ACCEPT_CONTENT_TYPE,
+        Message.ENCODING,
+        Message.REQUESTOR_ROLE,
+        Message.INBOUND_MESSAGE,
+        Message.HTTP_REQUEST_METHOD,
+        Message.REQUEST_URI,
+        Message.REQUEST_URL,
+        Message.RESPONSE_CODE,
+        Message.ENDPOINT_ADDRESS,
+        Message.PATH_INFO,
+        Message.QUERY_STRING,
+        Message.BASE_PATH,
+        Message.ATTACHMENTS,
+        Message.PARTIAL_RESPONSE_MESSAGE,
+        Message.DECOUPLED_CHANNEL_MESSAGE,
+        Message.ONE_WAY_REQUEST,
+        Message.ROBUST_ONEWAY,
+        Message.THREAD_CONTEXT_SWITCHED,
+        Message.MTOM_ENABLED,
+        Message.SCHEMA_VALIDATION_ENABLED,
+        Message.IN_INTERCEPTORS,
+        Message.OUT_INTERCEPTORS,
+        Message.FAULT_IN_INTERCEPTORS,
+        Message.FAULT_OUT_INTERCEPTORS,
+        Message.INTERCEPTOR_PROVIDERS,
+        Message.WSDL_DESCRIPTION,
+        Message.WSDL_SERVICE,
+        Message.WSDL_PORT,
+        Message.WSDL_INTERFACE,
+        Message.WSDL_OPERATION,
+        Bus.class.getName(),
+        Service.class.getName(),
+        Endpoint.class.getName(),
+        Binding.class.getName(),
+        Destination.class.getName(),
+        ConduitSelector.class.getName(),
+        OperationInfo.class.getName(),
+        BindingOperationInfo.class.getName(),
+        MessageInfo.class.getName(),
+        BindingMessageInfo.class.getName(),
+        FaultMode.class.getName()
+    };
+
+    // marks a slot whose key is mapped to null
+    private static final Object NULL_VALUE = new Object();
+
+    private static volatile KeyIndex currentIndex = new KeyIndex(DEFAULT_KEYS);
+
+    private transient KeyIndex index;
+    private transient Object[] slots;
+    private transient int slotCount;
+    private transient Map<String, Object> overflow;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    public IndexedStringMapImpl() {
+        index = currentIndex;
+    }
+    public IndexedStringMapImpl(Map<String, Object> i) {
+        index = currentIndex;
+        if (i instanceof IndexedStringMapImpl && ((IndexedStringMapImpl)i).index == index) {
+            IndexedStringMapImpl src = (IndexedStringMapImpl)i;
+            if (src.slots != null) {
+                slots = src.slots.clone();
+            }
+            slotCount = src.slotCount;
+            if (src.overflow != null) {
+                overflow = new HashMap<String, Object>(src.overflow);
+            }
+        } else {
+            for (Map.Entry<String, Object> e : i.entrySet()) {
+                putInternal(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Registers a key that should be stored in its own slot by all maps
+     * created from now on.
+     * @param key the key
+     * @return the slot of the key
+     */
+    public static synchronized int registerKey(String key) {
+        KeyIndex idx = currentIndex;
+        int i = idx.indexOf(key);
+        if (i == -1) {
+            String keys[] = new String[idx.keys.length + 1];
+            System.arraycopy(idx.keys, 0, keys, 0, idx.keys.length);
+            keys[idx.keys.length] = key;
+            currentIndex = new KeyIndex(keys);
+            i = idx.keys.length;
+        }
+        return i;
+    }
+
+    public static boolean isRegisteredKey(String key) {
+        return currentIndex.indexOf(key) != -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<T> key) {
+        return (T)get(key.getName());
+    }
+
+    public <T> void put(Class<T> key, T value) {
+        put(key.getName(), value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key instanceof String) {
+            int i = index.indexOf((String)key);
+            if (i != -1) {
+                return slots == null ? null : unmask(slots[i]);
+            }
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key instanceof String) {
+            int i = index.indexOf((String)key);
+            if (i != -1) {
+                return slots != null && slots[i] != null;
+            }
+        }
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return putInternal(key, value);
+    }
+
+    private Object putInternal(String key, Object value) {
+        int i = key == null ? -1 : index.indexOf(key);
+        if (i != -1) {
+            if (slots == null) {
+                slots = new Object[index.keys.length];
+            }
+            Object old = slots[i];
+            slots[i] = value == null ? NULL_VALUE : value;
+            if (old == null) {
+                slotCount++;
+            }
+            return unmask(old);
+        }
+        if (overflow == null) {
+            overflow = new HashMap<String, Object>(8);
+        }
+        return overflow.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key instanceof String) {
+            int i = index.indexOf((String)key);
+            if (i != -1) {
+                return removeSlot(i);
+            }
+        }
+        return overflow == null ? null : overflow.remove(key);
+    }
+
+    private Object removeSlot(int i) {
+        if (slots == null || slots[i] == null) {
+            return null;
+        }
+        Object old = slots[i];
+        slots[i] = null;
+        slotCount--;
+        return unmask(old);
+    }
+
+    @Override
+    public int size() {
+        return overflow == null ? slotCount : slotCount + overflow.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (slots != null) {
+            Arrays.fill(slots, null);
+        }
+        slotCount = 0;
+        overflow = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private static Object unmask(Object o) {
+        return o == NULL_VALUE ? null : o;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size());
+        for (Map.Entry<String, Object> e : entrySet()) {
+            out.writeObject(e.getKey());
+            out.writeObject(e.getValue());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        index = currentIndex;
+        int size = in.readInt();
+        for (int x = 0; x < size; x++) {
+            putInternal((String)in.readObject(), in.readObject());
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+        public int size() {
+            return IndexedStringMapImpl.this.size();
+        }
+        public void clear() {
+            IndexedStringMapImpl.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        int nextSlot = -1;
+        int lastSlot = -1;
+        Iterator<Map.Entry<String, Object>> overflowIterator;
+        boolean lastFromOverflow;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            nextSlot++;
+            if (slots != null) {
+                while (nextSlot < slots.length && slots[nextSlot] == null) {
+                    nextSlot++;
+                }
+            }
+        }
+        private boolean hasNextSlot() {
+            return slots != null && nextSlot < slots.length;
+        }
+        private Iterator<Map.Entry<String, Object>> getOverflowIterator() {
+            if (overflowIterator == null && overflow != null) {
+                overflowIterator = overflow.entrySet().iterator();
+            }
+            return overflowIterator;
+        }
+
+        public boolean hasNext() {
+            if (hasNextSlot()) {
+                return true;
+            }
+            Iterator<Map.Entry<String, Object>> it = getOverflowIterator();
+            return it != null && it.hasNext();
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (hasNextSlot()) {
+                lastSlot = nextSlot;
+                lastFromOverflow = false;
+                advance();
+                return new SlotEntry(lastSlot);
+            }
+            Iterator<Map.Entry<String, Object>> it = getOverflowIterator();
+            if (it == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<String, Object> e = it.next();
+            lastSlot = -1;
+            lastFromOverflow = true;
+            return e;
+        }
+
+        public void remove() {
+            if (lastFromOverflow) {
+                overflowIterator.remove();
+                lastFromOverflow = false;
+            } else if (lastSlot != -1) {
+                removeSlot(lastSlot);
+                lastSlot = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, Object> {
+        final int slot;
+
+        SlotEntry(int i) {
+            slot = i;
+        }
+
+        public String getKey() {
+            return index.keys[slot];
+        }
+        public Object getValue() {
+            return unmask(slots[slot]);
+        }
+        public Object setValue(Object value) {
+            Object old = slots[slot];
+            if (old == null) {
+                // the entry has been removed, writing it would bring the key back uncounted
+                throw new IllegalStateException("Entry has been removed: " + getKey());
+            }
+            slots[slot] = value == null ? NULL_VALUE : value;
+            return unmask(old);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+            Object v = getValue();
+            return getKey().equals(e.getKey())
+                && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+        public int hashCode() {
+            Object v = getValue();
+            return getKey().hashCode() ^ (v == null ? 0 : v.hashCode());
+        }
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * Immutable key to slot mapping, an open addressing table that compares
+     * the interned keys by identity before falling back to equals().
+     */
+    private static final class KeyIndex {
+        final String keys[];
+        final String table[];
+        final int slotOf[];
+        final int mask;
+
+        KeyIndex(String k[]) {
+            keys = new String[k.length];
+            int size = 16;
+            while (size < k.length * 4) {
+                size <<= 1;
+            }
+            table = new String[size];
+            slotOf = new int[size];
+            mask = size - 1;
+            for (int x = 0; x < k.length; x++) {
+                keys[x] = k[x].intern();
+                int i = hash(keys[x]) & mask;
+                while (table[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = keys[x];
+                slotOf[i] = x;
+            }
+        }
+
+        int indexOf(String key) {
+            int h = hash(key);
+            int i = h & mask;
+            String k = table[i];
+            while (k != null) {
+                if (k == key || (k.hashCode() == key.hashCode() && k.equals(key))) {
+                    return slotOf[i];
+                }
+                i = (i + 1) & mask;
+                k = table[i];
+            }
+            return -1;
+        }
+
+        private static int hash(String key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -23,9 +23,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.message.Message;
 
@@ -35,9 +37,82 @@ import org.apache.cxf.message.Message;
  * phases supplied in the get() methods of this class are defined by default
  * within org.apache.cxf.phase.PhaseManagerImpl.  For an example of this class 
  * in use, check the sourcecode of org.apache.cxf.endpoint.ClientImpl.
+ * <p>
+ * Up to {@link #getMaxSize()} sorted chains are kept, one per distinct set
+ * of interceptor lists, so endpoints that alternate between several lists 
+ * (for example per-operation policy interceptors) do not rebuild the chain
+ * on every message.  ModCountCopyOnWriteArrayList providers are matched by
+ * identity and modification count, all other lists by their contents.
+ * <p>
+ * If compiled chains are enabled (either via {@link #setCompiledChains(boolean)}
+ * or the org.apache.cxf.phase.PhaseChainCache.CompiledChains system property),
+ * the cached chain is flattened into an immutable interceptor array and the
+ * chains handed out only carry a cursor over it until they are modified.
  */
 public final class PhaseChainCache {
-    AtomicReference<ChainHolder> lastData = new AtomicReference<ChainHolder>();
+    public static final String COMPILED_CHAINS_PROPERTY 
+        = "org.apache.cxf.phase.PhaseChainCache.CompiledChains";
+    public static final String MAX_SIZE_PROPERTY 
+        = "org.apache.cxf.phase.PhaseChainCache.MaxSize";
+    public static final int DEFAULT_MAX_SIZE = 16;
+    
+    private static final boolean DEFAULT_COMPILED_CHAINS 
+        = Boolean.valueOf(SystemPropertyAction.getProperty(COMPILED_CHAINS_PROPERTY, "false"));
+    private static final int DEFAULT_MAX_SIZE_VALUE = getDefaultMaxSize();
+    
+    private static final ChainHolder[] EMPTY = new ChainHolder[0];
+    
+    // most recently built chain first
+    AtomicReference<ChainHolder[]> entries = new AtomicReference<ChainHolder[]>(EMPTY);
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private boolean compiledChains = DEFAULT_COMPILED_CHAINS;
+    private int maxSize = DEFAULT_MAX_SIZE_VALUE;
+    
+    public boolean isCompiledChains() {
+        return compiledChains;
+    }
+    
+    public void setCompiledChains(boolean compiled) {
+        if (compiled != compiledChains) {
+            compiledChains = compiled;
+            clear();
+        }
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public void setMaxSize(int size) {
+        maxSize = Math.max(1, size);
+        ChainHolder[] current = entries.get();
+        if (current.length > maxSize) {
+            ChainHolder[] trimmed = new ChainHolder[maxSize];
+            System.arraycopy(current, 0, trimmed, 0, maxSize);
+            entries.compareAndSet(current, trimmed);
+        }
+    }
+    
+    /**
+     * @return the number of chains currently cached
+     */
+    public int getSize() {
+        return entries.get().length;
+    }
+    
+    public long getHitCount() {
+        return hitCount.get();
+    }
+    
+    public long getMissCount() {
+        return missCount.get();
+    }
+    
+    public void clear() {
+        entries.set(EMPTY);
+    }
     
     
     @SuppressWarnings("unchecked")
@@ -79,45 +154,106 @@ public final class PhaseChainCache {
     
     private PhaseInterceptorChain getChain(SortedSet<Phase> phaseList,
                                            List<Interceptor<? extends Message>> ... providers) {
-        ChainHolder last = lastData.get();
-        
-        if (last == null 
-            || !last.matches(providers)) {
-            
-            PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
-            List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
-                = new ArrayList<ModCountCopyOnWriteArrayList<
-                    Interceptor<? extends Message>>>(providers.length);
-            for (List<Interceptor<? extends Message>> p : providers) {
-                copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
-                chain.add(p);
+        ChainHolder current[] = entries.get();
+        for (ChainHolder holder : current) {
+            if (holder.matches(phaseList, providers)) {
+                hitCount.incrementAndGet();
+                return holder.chain.cloneChain();
             }
-            last = new ChainHolder(chain, copy);
-            lastData.set(last);
         }
+        missCount.incrementAndGet();
+        
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
+        List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
+            = new ArrayList<ModCountCopyOnWriteArrayList<
+                Interceptor<? extends Message>>>(providers.length);
+        for (List<Interceptor<? extends Message>> p : providers) {
+            copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
+            chain.add(p);
+        }
+        if (compiledChains) {
+            chain.compile();
+        }
+        ChainHolder last = new ChainHolder(phaseList, chain, providers, copy);
         
+        //losing a concurrent update only costs a rebuild later on
+        current = entries.get();
+        ChainHolder updated[] = new ChainHolder[Math.min(current.length + 1, maxSize)];
+        updated[0] = last;
+        int idx = 1;
+        for (int x = 0; x < current.length && idx < updated.length; x++) {
+            if (!current[x].isReplacedBy(last)) {
+                updated[idx++] = current[x];
+            }
+        }
+        if (idx < updated.length) {
+            ChainHolder tmp[] = new ChainHolder[idx];
+            System.arraycopy(updated, 0, tmp, 0, idx);
+            updated = tmp;
+        }
+        entries.compareAndSet(current, updated);
         
         return last.chain.cloneChain();
     }
     
+    private static int getDefaultMaxSize() {
+        String s = SystemPropertyAction.getPropertyOrNull(MAX_SIZE_PROPERTY);
+        if (s != null) {
+            try {
+                return Math.max(1, Integer.parseInt(s));
+            } catch (NumberFormatException ex) {
+                //ignore, use the default
+            }
+        }
+        return DEFAULT_MAX_SIZE;
+    }
+    
     private static class ChainHolder {
+        SortedSet<Phase> phases;
+        List<?> sources[];
         List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> lists;
         PhaseInterceptorChain chain;
         
-        ChainHolder(PhaseInterceptorChain c, 
+        ChainHolder(SortedSet<Phase> ps,
+                    PhaseInterceptorChain c, 
+                    List<?> s[],
                     List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l) {
+            phases = ps;
+            sources = s;
             lists = l;
             chain = c;
         }
         
-        boolean matches(List<Interceptor<? extends Message>> ... providers) {
+        /**
+         * An entry built from exactly the same ModCountCopyOnWriteArrayLists
+         * is stale once a newer chain for them has been built.
+         */
+        boolean isReplacedBy(ChainHolder other) {
+            if (phases != other.phases || sources.length != other.sources.length) {
+                return false;
+            }
+            for (int x = 0; x < sources.length; x++) {
+                if (sources[x] != other.sources[x]
+                    || sources[x].getClass() != ModCountCopyOnWriteArrayList.class) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        boolean matches(SortedSet<Phase> phaseList,
+                        List<Interceptor<? extends Message>> ... providers) {
+            if (phases != phaseList && !phases.equals(phaseList)) {
+                return false;
+            }
             if (lists.size() == providers.length) {
                 for (int x = 0; x < providers.length; x++) {
                     if (lists.get(x).size() != providers[x].size()) {
                         return false;
                     }
                     
-                    if (providers[x].getClass() == ModCountCopyOnWriteArrayList.class) {
+                    if (providers[x].getClass() == ModCountCopyOnWriteArrayList.class
+                        && providers[x] == sources[x]) {
                         if (((ModCountCopyOnWriteArrayList<?>)providers[x]).getModCount()
                             != lists.get(x).getModCount()) {
                             return false;
@@ -82,12 +82,16 @@ public class PhaseInterceptorChain implements InterceptorChain {
     // Note no hasBefores[] is needed because implementation adds subsequent
     // interceptors to the end of the list by default.
     private boolean hasAfters[];
+    // compiled[] is the flattened, immutable form of the chain; while it is set
+    // the holders reachable from heads/tails are shared with other chains and
+    // must be copied (see materialize()) before the chain can be modified
+    private InterceptorHolder compiled[];
 
     
     private State state;
     private Message pausedMessage;
     private MessageObserver faultObserver;
-    private PhaseInterceptorIterator iterator;
+    private ChainIterator iterator;
     private final boolean isFineLogging;
     
     // currently one chain for one request/response, use below as signal 
@@ -134,6 +138,21 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
     
+    private PhaseInterceptorChain(PhaseInterceptorChain src, InterceptorHolder flat[]) {
+        isFineLogging = LOG.isLoggable(Level.FINE);
+        
+        //only used for clone of a compiled chain
+        state = State.EXECUTING;
+        
+        //all immutable until materialize() is called, just repoint
+        nameMap = src.nameMap;
+        phases = src.phases;
+        hasAfters = src.hasAfters;
+        heads = src.heads;
+        tails = src.tails;
+        compiled = flat;
+    }
+    
     public PhaseInterceptorChain(SortedSet<Phase> ps) {
         state = State.EXECUTING;
         isFineLogging = LOG.isLoggable(Level.FINE);
@@ -198,12 +217,91 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
     
     public PhaseInterceptorChain cloneChain() {
+        InterceptorHolder flat[] = compiled;
+        if (flat != null) {
+            return new PhaseInterceptorChain(this, flat);
+        }
         return new PhaseInterceptorChain(this);
     }
     
+    /**
+     * Flattens the current interceptors into an immutable array that is shared
+     * by all chains subsequently obtained from {@link #cloneChain()}.  Cloning
+     * a compiled chain only allocates the chain and a cursor over that array;
+     * the interceptor list is copied only if the clone is later modified.
+     * Called by PhaseChainCache once the cached chain is fully built.
+     */
+    synchronized PhaseInterceptorChain compile() {
+        if (compiled == null) {
+            int count = 0;
+            PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
+            while (it.hasNext()) {
+                it.nextInterceptorHolder();
+                count++;
+            }
+            InterceptorHolder flat[] = new InterceptorHolder[count];
+            it.reset();
+            for (int x = 0; x < count; x++) {
+                flat[x] = it.nextInterceptorHolder();
+            }
+            compiled = flat;
+        }
+        return this;
+    }
+    
+    boolean isCompiled() {
+        return compiled != null;
+    }
+    
+    /**
+     * Replaces the shared, compiled interceptor list with a private linked copy
+     * so that it can be modified, carrying over the current iteration position.
+     */
+    private void materialize() {
+        InterceptorHolder flat[] = compiled;
+        if (flat == null) {
+            return;
+        }
+        compiled = null;
+        
+        int length = phases.length;
+        boolean srcAfters[] = hasAfters;
+        hasAfters = new boolean[length];
+        System.arraycopy(srcAfters, 0, hasAfters, 0, length);
+        heads = new InterceptorHolder[length];
+        tails = new InterceptorHolder[length];
+        
+        InterceptorHolder copy[] = new InterceptorHolder[flat.length];
+        InterceptorHolder last = null;
+        for (int x = 0; x < flat.length; x++) {
+            InterceptorHolder ih = new InterceptorHolder(flat[x]);
+            ih.prev = last;
+            if (last != null) {
+                last.next = ih;
+            }
+            if (heads[ih.phaseIdx] == null) {
+                heads[ih.phaseIdx] = ih;
+            }
+            tails[ih.phaseIdx] = ih;
+            copy[x] = ih;
+            last = ih;
+        }
+        
+        if (iterator != null) {
+            int cursor = ((CompiledInterceptorIterator)iterator).cursor;
+            PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
+            it.prev = cursor == 0 ? null : copy[cursor - 1];
+            iterator = it;
+        }
+    }
+    
     private void updateIterator() {
         if (iterator == null) {
-            iterator = new PhaseInterceptorIterator(heads);
+            if (compiled != null) {
+                iterator = new CompiledInterceptorIterator(compiled);
+            } else {
+                iterator = new PhaseInterceptorIterator(heads);
+            }
             outputChainToLog(false);
             //System.out.println(toString());
         }
@@ -487,6 +585,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
     public void remove(Interceptor<? extends Message> i) {
+        materialize();
         PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
         while (it.hasNext()) {
             InterceptorHolder holder = it.nextInterceptorHolder();
@@ -537,6 +636,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
     
     private void insertInterceptor(int phase, PhaseInterceptor<? extends Message> interc, boolean force) {
+        materialize();
         InterceptorHolder ih = new InterceptorHolder(interc, phase);
         if (heads[phase] == null) {
             // no interceptors yet in this phase
@@ -730,7 +830,60 @@ public class PhaseInterceptorChain implements InterceptorChain {
         this.faultObserver = faultObserver;
     }
     
-    static final class PhaseInterceptorIterator implements ListIterator<Interceptor<? extends Message>> {
+    interface ChainIterator extends ListIterator<Interceptor<? extends Message>> {
+        void reset();
+    }
+    
+    static final class CompiledInterceptorIterator implements ChainIterator {
+        final InterceptorHolder holders[];
+        int cursor;
+        
+        CompiledInterceptorIterator(InterceptorHolder h[]) {
+            holders = h;
+        }
+        
+        public void reset() {
+            cursor = 0;
+        }
+        
+        public boolean hasNext() {
+            return cursor < holders.length;
+        }
+        public Interceptor<? extends Message> next() {
+            if (cursor >= holders.length) {
+                throw new NoSuchElementException();
+            }
+            return holders[cursor++].interceptor;
+        }
+        
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+        public Interceptor<? extends Message> previous() {
+            if (cursor == 0) {
+                throw new NoSuchElementException();
+            }
+            return holders[--cursor].interceptor;
+        }
+        
+        public int nextIndex() {
+            return cursor;
+        }
+        public int previousIndex() {
+            return cursor - 1;
+        }
+        public void add(Interceptor<? extends Message> o) {
+            throw new UnsupportedOperationException();
+        }
+        public void set(Interceptor<? extends Message> o) {
+            throw new UnsupportedOperationException();
+        }
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    static final class PhaseInterceptorIterator implements ChainIterator {
         InterceptorHolder heads[];
         InterceptorHolder prev;
         InterceptorHolder first;
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A content coding which can be negotiated by the {@link GZIPOutInterceptor}
+ * and decoded by the {@link GZIPInInterceptor}.
+ */
+public interface CompressionCodec {
+
+    /**
+     * The Content-Encoding tokens handled by this codec. The first one is used
+     * unless the peer asked for one of the aliases explicitly.
+     */
+    List<String> getEncodings();
+
+    /**
+     * Returns a stream compressing everything written to it into the given
+     * stream. Closing the returned stream must close the target stream.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Returns a stream uncompressing the content of the given stream.
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
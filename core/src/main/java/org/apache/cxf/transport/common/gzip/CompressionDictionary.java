@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Adler32;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.AbstractMessageContainer;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.ws.commons.schema.XmlSchemaComplexType;
+import org.apache.ws.commons.schema.XmlSchemaElement;
+import org.apache.ws.commons.schema.XmlSchemaSequence;
+import org.apache.ws.commons.schema.XmlSchemaSequenceMember;
+
+/**
+ * A preset deflate dictionary for the messages of an endpoint. By default it
+ * is derived from the service model, i.e. the SOAP envelope and the element
+ * names of the operation messages, so a client and a service built from the
+ * same WSDL end up with the same dictionary. Its Adler-32 checksum identifies
+ * it in the {@link #HEADER} exchanged by the GZIP interceptors, a dictionary
+ * is only used if both sides have the same one.
+ * <p/>
+ * A different dictionary can be used by setting it as the
+ * <code>org.apache.cxf.transport.common.gzip.CompressionDictionary</code>
+ * property of the EndpointInfo.
+ */
+public final class CompressionDictionary {
+    public static final String HEADER = "X-CXF-Compression-Dictionary";
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private static final String PROPERTY = CompressionDictionary.class.getName();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SOAP11_ENV = "http://schemas.xmlsoap.org/soap/envelope/";
+    private static final String SOAP12_ENV = "http://www.w3.org/2003/05/soap-envelope";
+
+    private final byte[] bytes;
+    private final String id;
+    private final PresetDictionaryCodec codec;
+
+    public CompressionDictionary(byte[] dictionary) {
+        // deflate can only refer back 32k, the end of the dictionary is the nearest
+        if (dictionary.length > MAX_SIZE) {
+            byte[] b = new byte[MAX_SIZE];
+            System.arraycopy(dictionary, dictionary.length - MAX_SIZE, b, 0, MAX_SIZE);
+            dictionary = b;
+        }
+        bytes = dictionary;
+        Adler32 adler = new Adler32();
+        adler.update(bytes);
+        id = Long.toHexString(adler.getValue());
+        codec = new PresetDictionaryCodec(this);
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getSize() {
+        return bytes.length;
+    }
+
+    /**
+     * The hex encoded Adler-32 checksum of the dictionary, as also stored by
+     * zlib in streams compressed with it.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public PresetDictionaryCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Returns the dictionary of the endpoint of the message exchange, null if
+     * there is no endpoint.
+     */
+    public static CompressionDictionary getDictionary(Message message) {
+        Exchange exchange = message.getExchange();
+        Endpoint ep = exchange == null ? null : exchange.getEndpoint();
+        if (ep == null || ep.getEndpointInfo() == null) {
+            return null;
+        }
+        return getDictionary(ep.getEndpointInfo());
+    }
+
+    public static CompressionDictionary getDictionary(EndpointInfo ei) {
+        CompressionDictionary dictionary = ei.getProperty(PROPERTY, CompressionDictionary.class);
+        if (dictionary == null) {
+            // building it twice concurrently gives the same dictionary
+            dictionary = new CompressionDictionary(createDictionary(ei));
+            ei.setProperty(PROPERTY, dictionary);
+        }
+        return dictionary;
+    }
+
+    static byte[] createDictionary(EndpointInfo ei) {
+        Set<String> tokens = new LinkedHashSet<String>();
+        InterfaceInfo intf = ei.getInterface();
+        if (intf != null) {
+            List<OperationInfo> ops = new ArrayList<OperationInfo>(intf.getOperations());
+            Collections.sort(ops, new Comparator<OperationInfo>() {
+                public int compare(OperationInfo o1, OperationInfo o2) {
+                    return o1.getName().toString().compareTo(o2.getName().toString());
+                }
+            });
+            for (OperationInfo op : ops) {
+                addTokens(tokens, op.getInput());
+                addTokens(tokens, op.getOutput());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String token : tokens) {
+            sb.append(token);
+        }
+        // the envelope is in every message, so it goes last
+        BindingInfo binding = ei.getBinding();
+        String bindingId = binding == null ? null : binding.getBindingId();
+        if (bindingId != null && bindingId.contains("soap")) {
+            String env = bindingId.contains("soap12") ? SOAP12_ENV : SOAP11_ENV;
+            sb.append("<soap:Envelope xmlns:soap=\"").append(env).append("\"><soap:Body>")
+                .append("</soap:Body></soap:Envelope>");
+        }
+        return sb.toString().getBytes(UTF8);
+    }
+
+    private static void addTokens(Set<String> tokens, AbstractMessageContainer msg) {
+        if (msg == null) {
+            return;
+        }
+        for (MessagePartInfo part : msg.getMessageParts()) {
+            QName name = part.isElement() ? part.getElementQName() : part.getConcreteName();
+            if (name == null) {
+                continue;
+            }
+            if (name.getNamespaceURI().length() > 0) {
+                tokens.add("<ns2:" + name.getLocalPart() + " xmlns:ns2=\"" + name.getNamespaceURI() + "\">");
+                tokens.add("</ns2:" + name.getLocalPart() + ">");
+            } else {
+                tokens.add("<" + name.getLocalPart() + ">");
+                tokens.add("</" + name.getLocalPart() + ">");
+            }
+            if (part.getXmlSchema() instanceof XmlSchemaElement
+                && ((XmlSchemaElement)part.getXmlSchema()).getSchemaType() instanceof XmlSchemaComplexType) {
+                XmlSchemaComplexType type
+                    = (XmlSchemaComplexType)((XmlSchemaElement)part.getXmlSchema()).getSchemaType();
+                if (type.getParticle() instanceof XmlSchemaSequence) {
+                    XmlSchemaSequence seq = (XmlSchemaSequence)type.getParticle();
+                    for (XmlSchemaSequenceMember member : seq.getItems()) {
+                        if (member instanceof XmlSchemaElement
+                            && ((XmlSchemaElement)member).getName() != null) {
+                            String child = ((XmlSchemaElement)member).getName();
+                            tokens.add("<" + child + ">");
+                            tokens.add("</" + child + ">");
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compression counters of a {@link GZIPOutInterceptor}. The compression time
+ * only covers the time spent in the codec, not the time spent writing the
+ * compressed bytes to the transport.
+ */
+public class CompressionMetrics {
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+
+    void record(long uncompressed, long compressed, long nanos) {
+        messages.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressed);
+        compressedBytes.addAndGet(compressed);
+        compressionNanos.addAndGet(nanos);
+    }
+
+    public long getCompressedMessages() {
+        return messages.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * The overall uncompressed to compressed size ratio, 0 if nothing was compressed yet.
+     */
+    public double getCompressionRatio() {
+        long compressed = compressedBytes.get();
+        return compressed == 0 ? 0 : (double)uncompressedBytes.get() / compressed;
+    }
+
+    public long getCompressionTimeMillis() {
+        return compressionNanos.get() / 1000000L;
+    }
+
+    public void reset() {
+        messages.set(0);
+        uncompressedBytes.set(0);
+        compressedBytes.set(0);
+        compressionNanos.set(0);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The gzip (and x-gzip) content coding with a configurable compression level
+ * and buffer size.
+ */
+public class GZIPCodec implements CompressionCodec {
+    public static final String GZIP = "gzip";
+    public static final String X_GZIP = "x-gzip";
+
+    private static final List<String> ENCODINGS
+        = Collections.unmodifiableList(Arrays.asList(GZIP, X_GZIP));
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int bufferSize = 512;
+
+    public GZIPCodec() {
+    }
+
+    public GZIPCodec(int level) {
+        setLevel(level);
+    }
+
+    public List<String> getEncodings() {
+        return ENCODINGS;
+    }
+
+    public OutputStream compress(OutputStream out) throws IOException {
+        final int lvl = level;
+        return new GZIPOutputStream(out, bufferSize) {
+            {
+                def.setLevel(lvl);
+            }
+        };
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return new GZIPInputStream(in, bufferSize);
+    }
+
+    /**
+     * Sets the deflate level, 1 (fastest) to 9 (smallest), or -1 for the
+     * zlib default.
+     */
+    public void setLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.cxf.transport.common.gzip;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.cxf.Bus;
@@ -46,6 +47,12 @@ import org.apache.cxf.message.Message;
  * to be compressed and incoming compressed responses to be uncompressed. 
  * Accept-Encoding header is sent to let the service know 
  * that your client can accept compressed responses. 
+ * <p/>
+ * Other content codings, or gzip with a different level, can be enabled with
+ * {@link #setCodecs(List)}, e.g. a {@link DeflateCodec} or, between CXF
+ * endpoints, the {@link LZ4Codec}. Between CXF endpoints built from the same
+ * WSDL, {@link #setPresetDictionary(boolean)} additionally allows small
+ * messages to be compressed well using a dictionary derived from the service.
  */
 @NoJSR250Annotations
 public class GZIPFeature extends AbstractFeature {
@@ -62,17 +69,50 @@ public class GZIPFeature extends AbstractFeature {
      */
     boolean force;
     
+    /**
+     * The codecs to negotiate, in order of preference, null for gzip only.
+     */
+    List<CompressionCodec> codecs;
+    
+    /**
+     * Use deflate with a dictionary derived from the service model between CXF endpoints
+     */
+    boolean presetDictionary;
+    
+    /**
+     * Record the compression metrics of the outgoing interceptor
+     */
+    boolean metricsEnabled;
+    
     
     @Override
     protected void initializeProvider(InterceptorProvider provider, Bus bus) {
-        provider.getInInterceptors().add(IN);
-        if (threshold == -1 && !force) {
+        if (codecs == null && !presetDictionary) {
+            provider.getInInterceptors().add(IN);
+        } else {
+            GZIPInInterceptor in = new GZIPInInterceptor();
+            if (codecs != null) {
+                List<CompressionCodec> inCodecs = new ArrayList<CompressionCodec>(codecs);
+                inCodecs.addAll(IN.getCodecs());
+                in.setCodecs(inCodecs);
+            }
+            in.setPresetDictionary(presetDictionary);
+            provider.getInInterceptors().add(in);
+        }
+        if (threshold == -1 && !force && codecs == null && !presetDictionary && !metricsEnabled) {
             provider.getOutInterceptors().add(OUT);
             provider.getOutFaultInterceptors().add(OUT);
         } else {
             GZIPOutInterceptor out = new GZIPOutInterceptor();
-            out.setThreshold(threshold);
+            if (threshold != -1 || (codecs == null && !presetDictionary)) {
+                out.setThreshold(threshold);
+            }
             out.setForce(force);
+            out.setPresetDictionary(presetDictionary);
+            out.setMetricsEnabled(metricsEnabled);
+            if (codecs != null) {
+                out.setCodecs(codecs);
+            }
             remove(provider.getOutInterceptors());
             remove(provider.getOutFaultInterceptors());
             provider.getOutInterceptors().add(out);
@@ -113,4 +153,39 @@ public class GZIPFeature extends AbstractFeature {
     public boolean getForce() {
         return force;
     }  
+    
+    /**
+     * Sets the codecs which may be used, in order of preference. Incoming
+     * messages in the default encodings are still accepted.
+     */
+    public void setCodecs(List<CompressionCodec> codecs) {
+        this.codecs = codecs;
+    }
+    
+    public List<CompressionCodec> getCodecs() {
+        return codecs;
+    }
+    
+    /**
+     * Set if a preset deflate dictionary derived from the endpoint's service
+     * model may be negotiated, see {@link CompressionDictionary}.
+     */
+    public void setPresetDictionary(boolean b) {
+        presetDictionary = b;
+    }
+    
+    public boolean getPresetDictionary() {
+        return presetDictionary;
+    }
+    
+    /**
+     * Set if the compression metrics are recorded, see {@link GZIPOutInterceptor#getMetrics()}.
+     */
+    public void setMetricsEnabled(boolean b) {
+        metricsEnabled = b;
+    }
+    
+    public boolean getMetricsEnabled() {
+        return metricsEnabled;
+    }
 }
@@ -20,11 +20,12 @@ package org.apache.cxf.transport.common.gzip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
@@ -39,10 +40,13 @@ import org.apache.cxf.phase.Phase;
 
 /**
  * CXF interceptor that uncompresses those incoming messages that have "gzip"
- * content-encoding. An instance of this class should be added as an in and
- * inFault interceptor on clients that need to talk to a service that returns
- * gzipped responses or on services that want to accept gzipped requests. For
- * clients, you probably also want to use
+ * content-encoding, or the content-encoding of one of the other configured
+ * {@link CompressionCodec}s (see {@link #setCodecs(List)}), as well as, if enabled
+ * with {@link #setPresetDictionary(boolean)}, deflate with the endpoint's 
+ * {@link CompressionDictionary}.
+ * An instance of this class should be added as an in and inFault interceptor
+ * on clients that need to talk to a service that returns gzipped responses or
+ * on services that want to accept gzipped requests. For clients, you probably also want to use
  * {@link org.apache.cxf.transports.http.configuration.HTTPClientPolicy#setAcceptEncoding}
  * to let the server know you can handle compressed responses. To compress
  * outgoing messages, see {@link GZIPOutInterceptor}. This class was originally
@@ -54,11 +58,40 @@ public class GZIPInInterceptor extends AbstractPhaseInterceptor<Message> {
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(GZIPInInterceptor.class);
     private static final Logger LOG = LogUtils.getL7dLogger(GZIPInInterceptor.class);
 
+    private List<CompressionCodec> codecs = Collections.<CompressionCodec>singletonList(new GZIPCodec());
+    private Map<String, CompressionCodec> codecsByEncoding = GZIPOutInterceptor.indexCodecs(codecs);
+    private boolean presetDictionary;
+
     public GZIPInInterceptor() {
         super(Phase.RECEIVE);
         addBefore(AttachmentInInterceptor.class.getName());
     }
 
+    /**
+     * Sets the codecs used to uncompress incoming messages, by default gzip only.
+     */
+    public void setCodecs(List<CompressionCodec> codecs) {
+        List<CompressionCodec> list = Collections.unmodifiableList(new ArrayList<CompressionCodec>(codecs));
+        codecsByEncoding = GZIPOutInterceptor.indexCodecs(list);
+        this.codecs = list;
+    }
+
+    public List<CompressionCodec> getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Set if messages compressed with the preset dictionary of the endpoint are
+     * uncompressed, see {@link GZIPOutInterceptor#setPresetDictionary(boolean)}.
+     */
+    public void setPresetDictionary(boolean presetDictionary) {
+        this.presetDictionary = presetDictionary;
+    }
+
+    public boolean isPresetDictionary() {
+        return presetDictionary;
+    }
+
     public void handleMessage(Message message) throws Fault {
         // check for Content-Encoding header - we are only interested in
         // messages that say they are gzipped.
@@ -70,8 +103,23 @@ public class GZIPInInterceptor extends AbstractPhaseInterceptor<Message> {
             if (contentEncoding == null) {
                 contentEncoding = protocolHeaders.get(GZIPOutInterceptor.SOAP_JMS_CONTENTENCODING);
             }
-            if (contentEncoding != null
-                && (contentEncoding.contains("gzip") || contentEncoding.contains("x-gzip"))) {
+            String encoding = null;
+            CompressionCodec codec = null;
+            if (contentEncoding != null) {
+                for (String enc : contentEncoding) {
+                    encoding = enc.trim().toLowerCase();
+                    codec = codecsByEncoding.get(encoding);
+                    if (codec == null && presetDictionary 
+                        && PresetDictionaryCodec.ENCODING.equals(encoding)) {
+                        CompressionDictionary dictionary = CompressionDictionary.getDictionary(message);
+                        codec = dictionary == null ? null : dictionary.getCodec();
+                    }
+                    if (codec != null) {
+                        break;
+                    }
+                }
+            }
+            if (codec != null) {
                 try {
                     LOG.fine("Uncompressing response");
                     InputStream is = message.getContent(InputStream.class);
@@ -79,9 +127,8 @@ public class GZIPInInterceptor extends AbstractPhaseInterceptor<Message> {
                         return;
                     }
 
-                    // wrap an unzipping stream around the original one
-                    GZIPInputStream zipInput = new GZIPInputStream(is);
-                    message.setContent(InputStream.class, zipInput);
+                    // wrap an uncompressing stream around the original one
+                    message.setContent(InputStream.class, codec.decompress(is));
 
                     // remove content encoding header as we've now dealt with it
                     for (String key : protocolHeaders.keySet()) {
@@ -96,6 +143,7 @@ public class GZIPInInterceptor extends AbstractPhaseInterceptor<Message> {
                         //automatically be FI enabled
                         Endpoint ep = message.getExchange().getEndpoint();
                         ep.put(GZIPOutInterceptor.USE_GZIP_KEY, GZIPOutInterceptor.UseGzip.YES);
+                        ep.put(GZIPOutInterceptor.GZIP_ENCODING_KEY, encoding);
                     }
                 } catch (IOException ex) {
                     throw new Fault(new org.apache.cxf.common.i18n.Message("COULD_NOT_UNZIP", BUNDLE), ex);
@@ -103,5 +151,4 @@ public class GZIPInInterceptor extends AbstractPhaseInterceptor<Message> {
             }
         }
     }
-
 }
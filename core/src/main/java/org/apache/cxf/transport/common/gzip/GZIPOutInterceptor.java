@@ -18,18 +18,19 @@
  */
 package org.apache.cxf.transport.common.gzip;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPOutputStream;
 
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
@@ -44,7 +45,8 @@ import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 
 /**
- * CXF interceptor that compresses outgoing messages using gzip and sets the
+ * CXF interceptor that compresses outgoing messages using gzip (or one of the
+ * other configured {@link CompressionCodec}s) and sets the
  * HTTP Content-Encoding header appropriately. An instance of this class should
  * be added as an out interceptor on clients that need to talk to a service that
  * accepts gzip-encoded requests or on a service that wants to be able to return
@@ -111,6 +113,13 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
      */
     private int threshold = 1024;
     private boolean force;
+    private List<CompressionCodec> codecs = Collections.<CompressionCodec>singletonList(new GZIPCodec());
+    private Map<String, CompressionCodec> codecsByEncoding = indexCodecs(codecs);
+    private String acceptEncoding = buildAcceptEncoding(codecs);
+    private boolean presetDictionary;
+    private int dictionaryThreshold;
+    private boolean metricsEnabled;
+    private final CompressionMetrics metrics = new CompressionMetrics();
 
     public GZIPOutInterceptor() {
         super(Phase.PREPARE_SEND);
@@ -130,13 +139,86 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
         return threshold;
     }
 
+    /**
+     * Sets the codecs which may be used for outgoing messages, in order of
+     * preference. Requests use the first codec unless a response showed that
+     * the service prefers another one, responses use the codec with the
+     * highest q-value in the Accept-Encoding of the request. Defaults to gzip.
+     */
+    public void setCodecs(List<CompressionCodec> codecs) {
+        if (codecs == null || codecs.isEmpty()) {
+            throw new IllegalArgumentException("At least one codec is required");
+        }
+        List<CompressionCodec> list = Collections.unmodifiableList(new ArrayList<CompressionCodec>(codecs));
+        codecsByEncoding = indexCodecs(list);
+        acceptEncoding = buildAcceptEncoding(list);
+        this.codecs = list;
+    }
+
+    public List<CompressionCodec> getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Enables deflate with a {@link CompressionDictionary} derived from the
+     * endpoint's service model. A client offers it along with the id of its
+     * dictionary, a service only uses it if the ids match.
+     */
+    public void setPresetDictionary(boolean presetDictionary) {
+        this.presetDictionary = presetDictionary;
+    }
+
+    public boolean isPresetDictionary() {
+        return presetDictionary;
+    }
+
+    /**
+     * The threshold used instead of {@link #setThreshold(int)} when the preset
+     * dictionary is used, defaults to 0 as small messages benefit the most.
+     */
+    public void setDictionaryThreshold(int dictionaryThreshold) {
+        this.dictionaryThreshold = dictionaryThreshold;
+    }
+
+    public int getDictionaryThreshold() {
+        return dictionaryThreshold;
+    }
+
+    /**
+     * Enables recording the compression ratio and time in {@link #getMetrics()},
+     * disabled by default.
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * The compression ratio and time of the messages compressed by this interceptor,
+     * only recorded if {@link #setMetricsEnabled(boolean)} is set.
+     */
+    public CompressionMetrics getMetrics() {
+        return metrics;
+    }
+
     public void handleMessage(Message message) throws Fault {
         UseGzip use = gzipPermitted(message);
         if (use != UseGzip.NO) {
             // remember the original output stream, we will write compressed
             // data to this later
             OutputStream os = message.getContent(OutputStream.class);
-            if (os == null) {
+            String enc = (String)message.get(GZIP_ENCODING_KEY);
+            CompressionCodec codec = codecsByEncoding.get(enc);
+            int t = threshold;
+            if (codec == null && PresetDictionaryCodec.ENCODING.equals(enc)) {
+                CompressionDictionary dictionary = CompressionDictionary.getDictionary(message);
+                codec = dictionary == null ? null : dictionary.getCodec();
+                t = dictionaryThreshold;
+            }
+            if (os == null || codec == null) {
                 return;
             }
             message.put(ORIGINAL_OUTPUT_STREAM_KEY, os);
@@ -144,27 +226,29 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
 
             // new stream to cache the message
             GZipThresholdOutputStream cs 
-                = new GZipThresholdOutputStream(threshold,
+                = new GZipThresholdOutputStream(t,
                                                 os,
                                                 use == UseGzip.FORCE,
-                                                message);
+                                                message,
+                                                codec,
+                                                metricsEnabled ? metrics : null);
             message.setContent(OutputStream.class, cs);
         }
     }
 
     /**
-     * Checks whether we can, cannot or must use gzip compression on this output
-     * message. Gzip is always permitted if the message is a client request. If
-     * the message is a server response we check the Accept-Encoding header of
-     * the corresponding request message - with no Accept-Encoding we assume
-     * that gzip is not permitted. For the full gory details, see <a
+     * Checks whether we can, cannot or must use compression on this output
+     * message. Compression is always permitted if the message is a client
+     * request. If the message is a server response we check the Accept-Encoding
+     * header of the corresponding request message - with no Accept-Encoding we
+     * assume that compression is not permitted. For the full gory details, see <a
      * href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.3">section
      * 14.3 of RFC 2616</a> (HTTP 1.1).
      * 
      * @param message the outgoing message.
-     * @return whether to attempt gzip compression for this message.
+     * @return whether to attempt compression for this message.
      * @throws Fault if the Accept-Encoding header does not allow any encoding
-     *                 that we can support (identity, gzip or x-gzip).
+     *                 that we can support (identity or one of the codecs).
      */
     private UseGzip gzipPermitted(Message message) throws Fault {
         UseGzip permitted = UseGzip.NO;
@@ -178,8 +262,22 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
             } else {
                 permitted = force ? UseGzip.YES : UseGzip.NO;
             }
-            message.put(GZIP_ENCODING_KEY, "gzip");
-            addHeader(message, "Accept-Encoding", "gzip;q=1.0, identity; q=0.5, *;q=0"); 
+            // prefer the encoding the service used for an earlier response
+            Object enc = message.getContextualProperty(GZIP_ENCODING_KEY);
+            CompressionDictionary dictionary = presetDictionary
+                ? CompressionDictionary.getDictionary(message) : null;
+            if (dictionary != null) {
+                addHeader(message, CompressionDictionary.HEADER, dictionary.getId());
+                addHeader(message, "Accept-Encoding", PresetDictionaryCodec.ENCODING + ";q=1.0, "
+                    + acceptEncoding);
+            } else {
+                addHeader(message, "Accept-Encoding", acceptEncoding);
+            }
+            if (!(enc instanceof String) || (!codecsByEncoding.containsKey(enc)
+                && (dictionary == null || !PresetDictionaryCodec.ENCODING.equals(enc)))) {
+                enc = codecs.get(0).getEncodings().get(0);
+            }
+            message.put(GZIP_ENCODING_KEY, enc);
         } else {
             LOG.fine("Response role, checking accept-encoding");
             Exchange exchange = message.getExchange();
@@ -190,69 +288,16 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
                 List<String> acceptEncodingHeader = CastUtils.cast(HttpHeaderHelper
                     .getHeader(requestHeaders, HttpHeaderHelper.ACCEPT_ENCODING));
                 List<String> jmsEncodingHeader = CastUtils.cast(requestHeaders.get(SOAP_JMS_CONTENTENCODING));
-                if (jmsEncodingHeader != null && jmsEncodingHeader.contains("gzip")) {
+                if (jmsEncodingHeader != null && jmsEncodingHeader.contains(GZIPCodec.GZIP)
+                    && codecsByEncoding.containsKey(GZIPCodec.GZIP)) {
                     permitted = UseGzip.YES;
-                    message.put(GZIP_ENCODING_KEY, "gzip");
+                    message.put(GZIP_ENCODING_KEY, GZIPCodec.GZIP);
                 }
                 if (acceptEncodingHeader != null) {
                     if (LOG.isLoggable(Level.FINE)) {
                         LOG.fine("Accept-Encoding header: " + acceptEncodingHeader);
                     }
-                    // Accept-Encoding is a comma separated list of entries, so
-                    // we split it into its component parts and build two
-                    // lists, one with all the "q=0" encodings and the other
-                    // with the rest (no q, or q=<non-zero>).
-                    List<String> zeros = new ArrayList<String>(3);
-                    List<String> nonZeros = new ArrayList<String>(3);
-
-                    for (String headerLine : acceptEncodingHeader) {
-                        String[] encodings = ENCODINGS.split(headerLine.trim());
-
-                        for (String enc : encodings) {
-                            Matcher m = ZERO_Q.matcher(enc);
-                            if (m.find()) {
-                                zeros.add(enc.substring(0, m.start()));
-                            } else if (enc.indexOf(';') >= 0) {
-                                nonZeros.add(enc.substring(0, enc.indexOf(';')));
-                            } else {
-                                nonZeros.add(enc);
-                            }
-                        }
-                    }
-
-                    // identity encoding is permitted if (a) it is not
-                    // specifically disabled by an identity;q=0 and (b) if
-                    // there is a *;q=0 then there is also an explicit
-                    // identity[;q=<non-zero>]
-                    //
-                    // [x-]gzip is permitted if (a) there is an explicit
-                    // [x-]gzip[;q=<non-zero>], or (b) there is a
-                    // *[;q=<non-zero>] and no [x-]gzip;q=0 to disable it.
-                    boolean identityEnabled = !zeros.contains("identity")
-                                              && (!zeros.contains("*") || nonZeros.contains("identity"));
-                    boolean gzipEnabled = nonZeros.contains("gzip")
-                                          || (nonZeros.contains("*") && !zeros.contains("gzip"));
-                    boolean xGzipEnabled = nonZeros.contains("x-gzip")
-                                           || (nonZeros.contains("*") && !zeros.contains("x-gzip"));
-
-                    if (identityEnabled && !gzipEnabled && !xGzipEnabled) {
-                        permitted = UseGzip.NO;
-                    } else if (identityEnabled && gzipEnabled) {
-                        permitted = UseGzip.YES;
-                        message.put(GZIP_ENCODING_KEY, "gzip");
-                    } else if (identityEnabled && xGzipEnabled) {
-                        permitted = UseGzip.YES;
-                        message.put(GZIP_ENCODING_KEY, "x-gzip");
-                    } else if (!identityEnabled && gzipEnabled) {
-                        permitted = UseGzip.FORCE;
-                        message.put(GZIP_ENCODING_KEY, "gzip");
-                    } else if (!identityEnabled && xGzipEnabled) {
-                        permitted = UseGzip.FORCE;
-                        message.put(GZIP_ENCODING_KEY, "x-gzip");
-                    } else {
-                        throw new Fault(new org.apache.cxf.common.i18n.Message("NO_SUPPORTED_ENCODING",
-                                                                               BUNDLE));
-                    }
+                    permitted = negotiate(message, acceptEncodingHeader, requestHeaders);
                 } else {
                     LOG.fine("No accept-encoding header");
                 }
@@ -264,22 +309,131 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
         }
         return permitted;
     }
+
+    private UseGzip negotiate(Message message, List<String> acceptEncodingHeader,
+                              Map<String, List<String>> requestHeaders) throws Fault {
+        // Accept-Encoding is a comma separated list of entries, each with an
+        // optional q-value (default 1), "*" standing for any encoding that is
+        // not listed explicitly.
+        Map<String, Float> qValues = new HashMap<String, Float>();
+        for (String headerLine : acceptEncodingHeader) {
+            for (String enc : ENCODINGS.split(headerLine.trim())) {
+                int idx = enc.indexOf(';');
+                String name = (idx >= 0 ? enc.substring(0, idx) : enc).trim().toLowerCase();
+                if (name.length() > 0) {
+                    qValues.put(name, idx >= 0 ? parseQValue(enc.substring(idx + 1)) : 1f);
+                }
+            }
+        }
+        Float any = qValues.get("*");
+        Float identity = qValues.get("identity");
+
+        // identity encoding is permitted unless it is specifically disabled
+        // by an identity;q=0, or by a *;q=0 without an explicit identity entry.
+        // A codec is permitted if its encodings have a non-zero q-value,
+        // explicitly or via *; the highest q-value wins, ties go to the codec
+        // configured first. The message is only left uncompressed in favour
+        // of identity if the client gives identity a higher q-value.
+        Float identityQ = identity != null ? identity : any;
+        boolean identityEnabled = identityQ == null || identityQ > 0;
+        String encoding = null;
+        float best = 0;
+        for (CompressionCodec codec : codecs) {
+            // an explicit q-value for one encoding of a codec applies to its aliases
+            // too, * only applies to codecs none of whose encodings are listed
+            Float codecQ = null;
+            String codecEncoding = null;
+            for (String enc : codec.getEncodings()) {
+                Float q = qValues.get(enc);
+                if (q != null && (codecQ == null || q > codecQ)) {
+                    codecQ = q;
+                    codecEncoding = enc;
+                }
+            }
+            if (codecQ == null) {
+                codecQ = any;
+                codecEncoding = codec.getEncodings().get(0);
+            }
+            if (codecQ != null && codecQ > best) {
+                best = codecQ;
+                encoding = codecEncoding;
+            }
+        }
+        // the preset dictionary is only offered explicitly, by clients having the same one
+        Float q = qValues.get(PresetDictionaryCodec.ENCODING);
+        if (presetDictionary && q != null && q > 0 && q >= best) {
+            List<String> ids = HttpHeaderHelper.getHeader(requestHeaders, CompressionDictionary.HEADER);
+            CompressionDictionary dictionary = CompressionDictionary.getDictionary(message);
+            if (ids != null && dictionary != null && ids.contains(dictionary.getId())) {
+                encoding = PresetDictionaryCodec.ENCODING;
+                best = q;
+            }
+        }
+
+        if (encoding == null || identityQ != null && identityQ > best) {
+            if (identityEnabled) {
+                return UseGzip.NO;
+            }
+            throw new Fault(new org.apache.cxf.common.i18n.Message("NO_SUPPORTED_ENCODING", BUNDLE));
+        }
+        message.put(GZIP_ENCODING_KEY, encoding);
+        return identityEnabled ? UseGzip.YES : UseGzip.FORCE;
+    }
+
+    private static float parseQValue(String params) {
+        for (String param : params.split(";")) {
+            param = param.trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(param.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 1f;
+                }
+            }
+        }
+        return 1f;
+    }
+
+    static Map<String, CompressionCodec> indexCodecs(List<CompressionCodec> codecs) {
+        Map<String, CompressionCodec> map = new HashMap<String, CompressionCodec>();
+        for (CompressionCodec codec : codecs) {
+            for (String enc : codec.getEncodings()) {
+                if (!map.containsKey(enc)) {
+                    map.put(enc, codec);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * The Accept-Encoding of requests: the configured codecs with decreasing
+     * q-values, all above identity which is still accepted, nothing else.
+     */
+    private static String buildAcceptEncoding(List<CompressionCodec> codecs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < codecs.size(); i++) {
+            int q = Math.max(6, 10 - i);
+            sb.append(codecs.get(i).getEncodings().get(0))
+                .append(";q=").append(q / 10).append('.').append(q % 10).append(", ");
+        }
+        return sb.append("identity; q=0.5, *;q=0").toString();
+    }
     
     static class GZipThresholdOutputStream extends AbstractThresholdOutputStream {
         Message message;
+        CompressionCodec codec;
+        CompressionMetrics metrics;
         
         public GZipThresholdOutputStream(int t, OutputStream orig,
-                                         boolean force, Message msg) {
-            super(t);
+                                         boolean force, Message msg,
+                                         CompressionCodec codec, CompressionMetrics metrics) {
+            // the client does not accept identity, so compress even the smallest messages
+            super(force ? 0 : t);
             super.wrappedStream = orig;
             message = msg;
-            if (force) {
-                setupGZip();
-            }
-        }
-        
-        private void setupGZip() {
-            
+            this.codec = codec;
+            this.metrics = metrics;
         }
 
         @Override
@@ -295,13 +449,122 @@ public class GZIPOutInterceptor extends AbstractPhaseInterceptor<Message> {
             String enc = (String)message.get(GZIP_ENCODING_KEY);
             addHeader(message, "Content-Encoding", enc);
             // if this is a response message, add the Vary header
-            if (!Boolean.TRUE.equals(message.get(Message.REQUESTOR_ROLE))) {
+            boolean response = !Boolean.TRUE.equals(message.get(Message.REQUESTOR_ROLE));
+            if (response) {
                 addHeader(message, "Vary", "Accept-Encoding");
             } 
+            if (codec instanceof PresetDictionaryCodec) {
+                String id = ((PresetDictionaryCodec)codec).getDictionary().getId();
+                addHeader(message, CompressionDictionary.HEADER, id);
+                if (response) {
+                    addHeader(message, "Vary", CompressionDictionary.HEADER);
+                }
+            }
 
-            // gzip the result
-            GZIPOutputStream zipOutput = new GZIPOutputStream(wrappedStream);
-            wrappedStream = zipOutput;
+            // compress the result
+            if (metrics == null) {
+                wrappedStream = codec.compress(wrappedStream);
+            } else {
+                TransportOutputStream transport = new TransportOutputStream(wrappedStream);
+                wrappedStream = new MeteredOutputStream(codec.compress(transport), transport, metrics);
+            }
+        }
+    }
+
+    /**
+     * Counts the compressed bytes and the time spent writing them. Only the bulk
+     * writes and the close are timed.
+     */
+    static final class TransportOutputStream extends FilterOutputStream {
+        long bytes;
+        long nanos;
+
+        TransportOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            try {
+                out.flush();
+                out.close();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Counts the uncompressed bytes and records the message once it is closed.
+     * Only the bulk writes and the close, which finishes the compression, are timed.
+     */
+    static final class MeteredOutputStream extends OutputStream {
+        private final OutputStream compressor;
+        private final TransportOutputStream transport;
+        private final CompressionMetrics metrics;
+        private long bytes;
+        private long nanos;
+        private boolean closed;
+
+        MeteredOutputStream(OutputStream compressor, TransportOutputStream transport,
+                            CompressionMetrics metrics) {
+            this.compressor = compressor;
+            this.transport = transport;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            compressor.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            compressor.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            compressor.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long start = System.nanoTime();
+            try {
+                compressor.close();
+            } finally {
+                nanos += System.nanoTime() - start;
+                metrics.record(bytes, transport.bytes, Math.max(0, nanos - transport.nanos));
+            }
         }
     }
     
@@ -0,0 +1,408 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fast, pure Java codec for CXF to CXF traffic. The content is split into
+ * blocks which are compressed using the LZ4 block format, each block is
+ * preceded by its original and its encoded length (both 4 byte big endian)
+ * and the stream is terminated by a zero original length. Blocks which do not
+ * compress are stored as they are, which is indicated by equal lengths.
+ * <p/>
+ * The framing is CXF specific, so the codec is registered under a private
+ * encoding token and is only chosen when the peer offers it explicitly.
+ */
+public class LZ4Codec implements CompressionCodec {
+    public static final String ENCODING = "x-cxf-lz4";
+    public static final int MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private static final List<String> ENCODINGS = Collections.singletonList(ENCODING);
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+
+    private int blockSize = 64 * 1024;
+    private int maxDecodedBlockSize = -1;
+
+    public List<String> getEncodings() {
+        return ENCODINGS;
+    }
+
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new LZ4BlockOutputStream(out, blockSize);
+    }
+
+    public InputStream decompress(InputStream in) throws IOException {
+        return new LZ4BlockInputStream(in, getMaxDecodedBlockSize());
+    }
+
+    /**
+     * Sets the size of the uncompressed blocks, larger blocks give a better
+     * ratio at the cost of memory per message.
+     */
+    public void setBufferSize(int size) {
+        if (size < 64 || size > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid block size: " + size);
+        }
+        this.blockSize = size;
+    }
+
+    public int getBufferSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the largest block accepted in incoming messages, by default the
+     * block size of this codec.  The buffer for a block is allocated before
+     * the block is read, so this bounds the memory a single message can claim.
+     */
+    public void setMaxDecodedBlockSize(int size) {
+        if (size < 64 || size > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid block size: " + size);
+        }
+        this.maxDecodedBlockSize = size;
+    }
+
+    public int getMaxDecodedBlockSize() {
+        return maxDecodedBlockSize > 0 ? maxDecodedBlockSize : blockSize;
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses src[0..srcLen) into dst using a greedy single hash probe,
+     * returning the number of bytes written.
+     */
+    static int compressBlock(byte[] src, int srcLen, byte[] dst, int[] table) {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = -1;
+        }
+        int anchor = 0;
+        int sp = 0;
+        int dp = 0;
+        int limit = srcLen - MF_LIMIT;
+        while (sp < limit) {
+            int seq = readInt(src, sp);
+            int h = (seq * -1640531535) >>> (32 - HASH_LOG);
+            int ref = table[h];
+            table[h] = sp;
+            if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != seq) {
+                sp++;
+                continue;
+            }
+            // extend the match backwards over pending literals and forwards
+            while (sp > anchor && ref > 0 && src[sp - 1] == src[ref - 1]) {
+                sp--;
+                ref--;
+            }
+            int matchLen = MIN_MATCH;
+            int maxMatch = srcLen - LAST_LITERALS - sp;
+            while (matchLen < maxMatch && src[ref + matchLen] == src[sp + matchLen]) {
+                matchLen++;
+            }
+
+            int litLen = sp - anchor;
+            int tokenPos = dp++;
+            int token = (litLen < RUN_MASK ? litLen : RUN_MASK) << 4;
+            dp = writeLength(dst, dp, litLen);
+            System.arraycopy(src, anchor, dst, dp, litLen);
+            dp += litLen;
+            int offset = sp - ref;
+            dst[dp++] = (byte)offset;
+            dst[dp++] = (byte)(offset >>> 8);
+            int ml = matchLen - MIN_MATCH;
+            token |= ml < RUN_MASK ? ml : RUN_MASK;
+            dp = writeLength(dst, dp, ml);
+            dst[tokenPos] = (byte)token;
+
+            sp += matchLen;
+            anchor = sp;
+        }
+        int litLen = srcLen - anchor;
+        dst[dp++] = (byte)((litLen < RUN_MASK ? litLen : RUN_MASK) << 4);
+        dp = writeLength(dst, dp, litLen);
+        System.arraycopy(src, anchor, dst, dp, litLen);
+        return dp + litLen;
+    }
+
+    /**
+     * Uncompresses src[0..srcLen) into exactly dstLen bytes of dst.
+     */
+    static void decompressBlock(byte[] src, int srcLen, byte[] dst, int dstLen) throws IOException {
+        int sp = 0;
+        int dp = 0;
+        while (sp < srcLen) {
+            int token = src[sp++] & 0xFF;
+            int litLen = token >>> 4;
+            if (litLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sp >= srcLen) {
+                        throw corrupt();
+                    }
+                    b = src[sp++] & 0xFF;
+                    litLen += b;
+                } while (b == 0xFF);
+            }
+            if (litLen > srcLen - sp || litLen > dstLen - dp) {
+                throw corrupt();
+            }
+            System.arraycopy(src, sp, dst, dp, litLen);
+            sp += litLen;
+            dp += litLen;
+            if (sp == srcLen) {
+                break;
+            }
+
+            if (srcLen - sp < 2) {
+                throw corrupt();
+            }
+            int offset = (src[sp++] & 0xFF) | ((src[sp++] & 0xFF) << 8);
+            int matchLen = token & RUN_MASK;
+            if (matchLen == RUN_MASK) {
+                int b;
+                do {
+                    if (sp >= srcLen) {
+                        throw corrupt();
+                    }
+                    b = src[sp++] & 0xFF;
+                    matchLen += b;
+                } while (b == 0xFF);
+            }
+            matchLen += MIN_MATCH;
+            int ref = dp - offset;
+            if (offset == 0 || ref < 0 || matchLen > dstLen - dp) {
+                throw corrupt();
+            }
+            if (offset >= matchLen) {
+                System.arraycopy(dst, ref, dst, dp, matchLen);
+                dp += matchLen;
+            } else {
+                // overlapping copy repeats the last offset bytes
+                for (int i = 0; i < matchLen; i++) {
+                    dst[dp++] = dst[ref++];
+                }
+            }
+        }
+        if (dp != dstLen) {
+            throw corrupt();
+        }
+    }
+
+    private static int writeLength(byte[] dst, int dp, int len) {
+        if (len >= RUN_MASK) {
+            len -= RUN_MASK;
+            while (len >= 0xFF) {
+                dst[dp++] = (byte)0xFF;
+                len -= 0xFF;
+            }
+            dst[dp++] = (byte)len;
+        }
+        return dp;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | (b[i + 3] << 24);
+    }
+
+    private static IOException corrupt() {
+        return new IOException("Corrupt " + ENCODING + " block");
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    static class LZ4BlockOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private final byte[] compressed;
+        private final int[] table = new int[1 << HASH_LOG];
+        private int count;
+        private boolean closed;
+
+        LZ4BlockOutputStream(OutputStream out, int blockSize) {
+            this.out = out;
+            this.buffer = new byte[blockSize];
+            this.compressed = new byte[maxCompressedLength(blockSize)];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                writeInt(out, 0);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            int len = compressBlock(buffer, count, compressed, table);
+            writeInt(out, count);
+            if (len < count) {
+                writeInt(out, len);
+                out.write(compressed, 0, len);
+            } else {
+                writeInt(out, count);
+                out.write(buffer, 0, count);
+            }
+            count = 0;
+        }
+    }
+
+    static class LZ4BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private final int maxBlockSize;
+        private byte[] buffer = new byte[0];
+        private byte[] compressed = new byte[0];
+        private int pos;
+        private int count;
+        private boolean eof;
+
+        LZ4BlockInputStream(InputStream in, int maxBlockSize) {
+            this.in = new DataInputStream(in);
+            this.maxBlockSize = maxBlockSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == count && !readBlock()) {
+                return -1;
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos == count && !readBlock()) {
+                return -1;
+            }
+            int n = Math.min(len, count - pos);
+            System.arraycopy(buffer, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return count - pos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean readBlock() throws IOException {
+            while (!eof) {
+                int rawLen;
+                try {
+                    rawLen = in.readInt();
+                } catch (EOFException ex) {
+                    throw corrupt();
+                }
+                if (rawLen == 0) {
+                    eof = true;
+                    break;
+                }
+                int len = in.readInt();
+                if (rawLen < 0 || len <= 0 || len > rawLen) {
+                    throw corrupt();
+                }
+                if (rawLen > maxBlockSize) {
+                    throw new IOException("LZ4 block of " + rawLen + " bytes exceeds the limit of " 
+                                          + maxBlockSize + " bytes");
+                }
+                if (buffer.length < rawLen) {
+                    buffer = new byte[rawLen];
+                }
+                if (len == rawLen) {
+                    in.readFully(buffer, 0, rawLen);
+                } else {
+                    if (compressed.length < len) {
+                        compressed = new byte[len];
+                    }
+                    in.readFully(compressed, 0, len);
+                    decompressBlock(compressed, len, buffer, rawLen);
+                }
+                pos = 0;
+                count = rawLen;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Deflate (zlib format) with a {@link CompressionDictionary}. Only used
+ * between CXF endpoints which agreed on the dictionary, see
+ * {@link GZIPOutInterceptor#setPresetDictionary(boolean)}.
+ */
+public class PresetDictionaryCodec extends DeflateCodec {
+    public static final String ENCODING = "x-cxf-deflate-dict";
+
+    private static final List<String> ENCODINGS = Collections.singletonList(ENCODING);
+
+    private final CompressionDictionary dictionary;
+
+    public PresetDictionaryCodec(CompressionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public List<String> getEncodings() {
+        return ENCODINGS;
+    }
+
+    @Override
+    protected Deflater createDeflater() {
+        Deflater deflater = super.createDeflater();
+        deflater.setDictionary(dictionary.getBytes());
+        return deflater;
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new DictionaryInflaterInputStream(in, createInflater(), getBufferSize(), dictionary);
+    }
+
+    /**
+     * InflaterInputStream treats a stream asking for a dictionary as ended,
+     * this one supplies it.
+     */
+    static class DictionaryInflaterInputStream extends InflaterInputStream {
+        private final CompressionDictionary dictionary;
+        private boolean closed;
+
+        DictionaryInflaterInputStream(InputStream in, Inflater inf, int size,
+                                      CompressionDictionary dictionary) {
+            super(in, inf, size);
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                int n;
+                while ((n = inf.inflate(b, off, len)) == 0) {
+                    if (inf.needsDictionary()) {
+                        if (!Long.toHexString(inf.getAdler() & 0xFFFFFFFFL).equals(dictionary.getId())) {
+                            throw new ZipException("Unknown preset dictionary");
+                        }
+                        inf.setDictionary(dictionary.getBytes());
+                    } else if (inf.finished()) {
+                        return -1;
+                    } else if (inf.needsInput()) {
+                        fill();
+                    }
+                }
+                return n;
+            } catch (DataFormatException ex) {
+                throw new ZipException(ex.getMessage());
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return inf.finished() ? 0 : 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        }
+    }
+}
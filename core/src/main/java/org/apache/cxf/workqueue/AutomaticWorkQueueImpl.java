@@ -52,6 +52,9 @@ import org.apache.cxf.common.util.ReflectionUtil;
 @NoJSR250Annotations
 public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     public static final String PROPERTY_NAME = "name";
+    public static final String PROPERTY_TYPE = "type";
+    public static final String TYPE_WORK_STEALING = "workStealing";
+    public static final String TYPE_VIRTUAL = "virtual";
     static final int DEFAULT_MAX_QUEUE_SIZE = 256;
     private static final Logger LOG =
         LogUtils.getL7dLogger(AutomaticWorkQueueImpl.class);
@@ -230,7 +233,32 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         }
         return executor;
     }
-    private AWQThreadFactory createThreadFactory(final String nm) {
+    /**
+     * Returns the work queue implementation to use for the given type name, 
+     * as configured with the "type" attribute of a workqueue element.
+     */
+    public static Class<? extends AutomaticWorkQueueImpl> getWorkQueueClass(String type) {
+        if (type == null || "default".equals(type)) {
+            return AutomaticWorkQueueImpl.class;
+        } else if (TYPE_WORK_STEALING.equals(type)) {
+            return WorkStealingWorkQueue.class;
+        } else if (TYPE_VIRTUAL.equals(type)) {
+            return VirtualThreadWorkQueue.class;
+        }
+        throw new IllegalArgumentException("Unknown work queue type: " + type);
+    }
+    
+    public static AutomaticWorkQueueImpl createWorkQueue(String type, String name) {
+        Class<? extends AutomaticWorkQueueImpl> cls = getWorkQueueClass(type);
+        if (cls == WorkStealingWorkQueue.class) {
+            return new WorkStealingWorkQueue(name);
+        } else if (cls == VirtualThreadWorkQueue.class) {
+            return new VirtualThreadWorkQueue(name);
+        }
+        return new AutomaticWorkQueueImpl(name);
+    }
+    
+    AWQThreadFactory createThreadFactory(final String nm) {
         ThreadGroup group;
         try { 
             //Try and find the highest level ThreadGroup that we're allowed to use.
@@ -416,12 +444,12 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         return buf.toString();
     }
     
-    public void execute(final Runnable command) {
+    static Runnable wrapWithContextClassLoader(final Runnable command) {
         //Grab the context classloader of this thread.   We'll make sure we use that 
         //on the thread the runnable actually runs on.
         
         final ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        Runnable r = new Runnable() {
+        return new Runnable() {
             public void run() {
                 ClassLoaderHolder orig = ClassLoaderUtils.setThreadContextClassloader(loader);
                 try {
@@ -433,6 +461,10 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
                 }
             }
         };
+    }
+    
+    public void execute(final Runnable command) {
+        Runnable r = wrapWithContextClassLoader(command);
         //The ThreadPoolExecutor in the JDK doesn't expand the number
         //of threads until the queue is full.   However, we would 
         //prefer the number of threads to expand immediately and 
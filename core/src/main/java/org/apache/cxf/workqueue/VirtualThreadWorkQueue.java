@@ -0,0 +1,382 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.beans.PropertyChangeEvent;
+import java.lang.reflect.Method;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * An AutomaticWorkQueue that runs every work item on its own virtual thread when the
+ * JVM supports them, falling back to short lived platform threads otherwise.  The high 
+ * water mark limits how many work items run at the same time; work submitted beyond 
+ * that waits in a queue bounded by the queue size and is rejected once the queue is 
+ * full, so callers still see backpressure.  getPoolSize() and getActiveCount() report
+ * the running work items and getSize()/isFull() the waiting ones.
+ */
+@NoJSR250Annotations
+public class VirtualThreadWorkQueue extends AutomaticWorkQueueImpl {
+    private static final Logger LOG = LogUtils.getL7dLogger(VirtualThreadWorkQueue.class);
+    private static final ThreadLocal<VirtualThreadWorkQueue> CURRENT 
+        = new ThreadLocal<VirtualThreadWorkQueue>();
+    
+    final Queue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+    final AtomicInteger pendingCount = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger largestRunning = new AtomicInteger();
+    final Object slotLock = new Object();
+    
+    ThreadFactory factory;
+    boolean virtual;
+    volatile int slotWaiters;
+    volatile boolean shutdown;
+    boolean terminated;
+    
+    public VirtualThreadWorkQueue() {
+        this(DEFAULT_MAX_QUEUE_SIZE);
+    }    
+    public VirtualThreadWorkQueue(String name) {
+        this(DEFAULT_MAX_QUEUE_SIZE, name);
+    }    
+    public VirtualThreadWorkQueue(int max) {
+        this(max, "default");
+    }
+    public VirtualThreadWorkQueue(int max, String name) {
+        this(max,
+             0,
+             25,
+             5,
+             2 * 60 * 1000L,
+             name);
+    }
+    public VirtualThreadWorkQueue(int mqs, 
+                                  int initialThreads, 
+                                  int highWaterMark, 
+                                  int lowWaterMark,
+                                  long dequeueTimeout) {
+        this(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout, "default");
+    }    
+    public VirtualThreadWorkQueue(int mqs, 
+                                  int initialThreads, 
+                                  int highWaterMark, 
+                                  int lowWaterMark,
+                                  long dequeueTimeout,
+                                  String name) {
+        super(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout, name);
+    }
+    
+    private synchronized ThreadFactory getThreadFactory() {
+        if (factory == null) {
+            factory = createVirtualThreadFactory(name + "-workqueue-");
+            virtual = factory != null;
+            if (factory == null) {
+                LOG.fine("Virtual threads are not available, work queue " + name 
+                         + " uses a platform thread per work item");
+                threadFactory = createThreadFactory(name);
+                factory = threadFactory;
+            }
+        }
+        return factory;
+    }
+    
+    /**
+     * Looks up Thread.ofVirtual() reflectively so this class still loads on JVMs
+     * without virtual thread support.
+     */
+    static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method nameMethod = builderClass.getMethod("name", String.class, Long.TYPE);
+            builder = nameMethod.invoke(builder, prefix, 1L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+    
+    /**
+     * @return true if work items run on virtual threads
+     */
+    public boolean isVirtual() {
+        getThreadFactory();
+        return virtual;
+    }
+    
+    public void execute(Runnable command) {
+        submit(wrapWithContextClassLoader(command), 0);
+    }
+    
+    public void execute(Runnable work, long timeout) {
+        submit(wrapWithContextClassLoader(work), timeout);
+    }
+    
+    private void submit(Runnable r, long timeout) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        if (tryAcquireRunSlot()) {
+            start(r);
+            return;
+        }
+        if (!reservePendingSlot() && (timeout <= 0 || !awaitPendingSlot(timeout))) {
+            throw new RejectedExecutionException("Work queue " + name + " is full");
+        }
+        pending.offer(r);
+        // a running item may have finished between the checks above
+        if (tryAcquireRunSlot()) {
+            Runnable next = pollPending();
+            if (next != null) {
+                start(next);
+            } else {
+                running.decrementAndGet();
+            }
+        }
+    }
+    
+    private void start(final Runnable first) {
+        Runnable loop = new Runnable() {
+            public void run() {
+                CURRENT.set(VirtualThreadWorkQueue.this);
+                try {
+                    Runnable r = first;
+                    while (r != null) {
+                        try {
+                            r.run();
+                        } catch (Throwable t) {
+                            LOG.log(Level.WARNING, "Work item in work queue " + name + " failed", t);
+                        }
+                        r = next();
+                    }
+                } finally {
+                    CURRENT.remove();
+                }
+            }
+        };
+        try {
+            getThreadFactory().newThread(loop).start();
+        } catch (RuntimeException ex) {
+            running.decrementAndGet();
+            checkTerminated();
+            throw new RejectedExecutionException(ex);
+        } catch (Error er) {
+            running.decrementAndGet();
+            checkTerminated();
+            throw new RejectedExecutionException(er);
+        }
+    }
+    
+    /**
+     * Hands the thread that finished a work item the next waiting one, or gives
+     * its running slot back.
+     */
+    Runnable next() {
+        while (true) {
+            Runnable r = pollPending();
+            if (r != null) {
+                return r;
+            }
+            running.decrementAndGet();
+            if (pending.isEmpty() || !tryAcquireRunSlot()) {
+                checkTerminated();
+                return null;
+            }
+        }
+    }
+    
+    private void checkTerminated() {
+        if (shutdown && running.get() == 0 && pendingCount.get() == 0) {
+            terminated();
+        }
+    }
+    
+    /**
+     * Called once the queue is shut down and its last work item has finished,
+     * releases the platform threads fallback.
+     */
+    private synchronized void terminated() {
+        if (terminated) {
+            return;
+        }
+        terminated = true;
+        if (threadFactory != null) {
+            threadFactory.shutdown();
+        }
+        notifyAll();
+    }
+    
+    /**
+     * Waits for the running and remaining work items to finish.  Not done from
+     * the threads of this queue, as the calling work item would wait for itself.
+     */
+    private synchronized void awaitTermination() {
+        if (CURRENT.get() == this) {
+            return;
+        }
+        while (!terminated) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private Runnable pollPending() {
+        Runnable r = pending.poll();
+        if (r != null) {
+            pendingCount.decrementAndGet();
+            if (slotWaiters > 0) {
+                synchronized (slotLock) {
+                    slotLock.notify();
+                }
+            }
+        }
+        return r;
+    }
+    
+    private boolean tryAcquireRunSlot() {
+        for (;;) {
+            int n = running.get();
+            if (n >= highWaterMark) {
+                return false;
+            }
+            if (running.compareAndSet(n, n + 1)) {
+                for (;;) {
+                    int largest = largestRunning.get();
+                    if (n + 1 <= largest || largestRunning.compareAndSet(largest, n + 1)) {
+                        return true;
+                    }
+                }
+            }
+        }
+    }
+    
+    private boolean reservePendingSlot() {
+        for (;;) {
+            int q = pendingCount.get();
+            if (q >= maxQueueSize) {
+                return false;
+            }
+            if (pendingCount.compareAndSet(q, q + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private boolean awaitPendingSlot(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (slotLock) {
+            slotWaiters++;
+            try {
+                while (!reservePendingSlot()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || shutdown) {
+                        return false;
+                    }
+                    slotLock.wait(remaining);
+                }
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                slotWaiters--;
+            }
+        }
+    }
+    
+    public void shutdown(boolean processRemainingWorkItems) {
+        shutdown = true;
+        if (!processRemainingWorkItems) {
+            while (pollPending() != null) {
+                //discard
+            }
+        }
+        synchronized (slotLock) {
+            slotLock.notifyAll();
+        }
+        synchronized (this) {
+            if (watchDog != null) {
+                watchDog.shutdown();
+            }
+        }
+        checkTerminated();
+        if (processRemainingWorkItems) {
+            awaitTermination();
+        }
+    }
+
+    public long getSize() {
+        return pendingCount.get();
+    }
+
+    public boolean isEmpty() {
+        return pendingCount.get() == 0;
+    }
+
+    public boolean isFull() {
+        return pendingCount.get() >= maxQueueSize;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark == Integer.MAX_VALUE ? -1 : highWaterMark;
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark == Integer.MAX_VALUE ? -1 : lowWaterMark;
+    }
+
+    public void setHighWaterMark(int hwm) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "highWaterMark", getHighWaterMark(), hwm));
+        highWaterMark = hwm < 0 ? Integer.MAX_VALUE : hwm;
+    }
+
+    public void setLowWaterMark(int lwm) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "lowWaterMark", getLowWaterMark(), lwm));
+        lowWaterMark = lwm < 0 ? 0 : lwm;
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    public int getLargestPoolSize() {
+        return largestRunning.get();
+    }
+    
+    public int getPoolSize() {
+        return running.get();
+    }
+    
+    public int getActiveCount() {
+        return running.get();
+    }
+}
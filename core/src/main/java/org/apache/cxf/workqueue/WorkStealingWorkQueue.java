@@ -0,0 +1,498 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.beans.PropertyChangeEvent;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * An AutomaticWorkQueue that keeps a deque per worker thread instead of a single
+ * shared queue.  Workers take work from the head of their own deque and steal from
+ * the tail of the other deques when they run dry, and a submitting thread only 
+ * touches the deque it hands the work to, so there is no pool wide lock on the
+ * execute path.  Like AutomaticWorkQueueImpl, threads are added up to the high water
+ * mark before work is left waiting in the deques, idle threads above the low water 
+ * mark go away after the dequeue timeout and the total number of waiting work items
+ * is bounded by the queue size.
+ */
+@NoJSR250Annotations
+public class WorkStealingWorkQueue extends AutomaticWorkQueueImpl {
+    private static final Logger LOG = LogUtils.getL7dLogger(WorkStealingWorkQueue.class);
+    
+    final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+    final AtomicInteger queued = new AtomicInteger();
+    final AtomicInteger poolSize = new AtomicInteger();
+    final AtomicInteger activeCount = new AtomicInteger();
+    final AtomicInteger largestPoolSize = new AtomicInteger();
+    final AtomicInteger nextWorker = new AtomicInteger();
+    final ThreadLocal<Worker> currentWorker = new ThreadLocal<Worker>();
+    final Object slotLock = new Object();
+    
+    volatile Worker[] workers = new Worker[0];
+    volatile int slotWaiters;
+    volatile boolean started;
+    volatile boolean shutdown;
+    
+    public WorkStealingWorkQueue() {
+        this(DEFAULT_MAX_QUEUE_SIZE);
+    }    
+    public WorkStealingWorkQueue(String name) {
+        this(DEFAULT_MAX_QUEUE_SIZE, name);
+    }    
+    public WorkStealingWorkQueue(int max) {
+        this(max, "default");
+    }
+    public WorkStealingWorkQueue(int max, String name) {
+        this(max,
+             0,
+             25,
+             5,
+             2 * 60 * 1000L,
+             name);
+    }
+    public WorkStealingWorkQueue(int mqs, 
+                                 int initialThreads, 
+                                 int highWaterMark, 
+                                 int lowWaterMark,
+                                 long dequeueTimeout) {
+        this(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout, "default");
+    }    
+    public WorkStealingWorkQueue(int mqs, 
+                                 int initialThreads, 
+                                 int highWaterMark, 
+                                 int lowWaterMark,
+                                 long dequeueTimeout,
+                                 String name) {
+        super(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout, name);
+    }
+    
+    private synchronized void start() {
+        if (started) {
+            return;
+        }
+        threadFactory = createThreadFactory(name);
+        if (highWaterMark < 1) {
+            highWaterMark = 1;
+        }
+        if (initialThreads > highWaterMark) {
+            initialThreads = highWaterMark;
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            StringBuilder buf = new StringBuilder();
+            buf.append("Constructing work stealing work queue with:\n");
+            buf.append("max queue size: " + maxQueueSize + "\n");
+            buf.append("initialThreads: " + initialThreads + "\n");
+            buf.append("lowWaterMark: " + lowWaterMark + "\n");
+            buf.append("highWaterMark: " + highWaterMark + "\n");
+            LOG.fine(buf.toString());
+        }
+        int count = 0;
+        while (count < initialThreads && addWorker()) {
+            count++;
+        }
+        if (count < initialThreads) {
+            LOG.log(Level.WARNING, "THREAD_START_FAILURE_MSG",
+                    new Object[] {count, initialThreads});
+        }
+        started = true;
+    }
+    
+    public void execute(Runnable command) {
+        submit(wrapWithContextClassLoader(command), 0);
+    }
+    
+    public void execute(Runnable work, long timeout) {
+        submit(wrapWithContextClassLoader(work), timeout);
+    }
+    
+    private void submit(Runnable r, long timeout) {
+        if (!started) {
+            start();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        if (!reserveSlot() && (timeout <= 0 || !awaitSlot(timeout))) {
+            throw new RejectedExecutionException("Work queue " + name + " is full");
+        }
+        push(r);
+        wakeIdleWorker();
+        // grow while there is more waiting work than threads free to take it
+        int ps = poolSize.get();
+        if (ps < highWaterMark && queued.get() > ps - activeCount.get()) {
+            addWorker();
+        }
+    }
+    
+    private boolean reserveSlot() {
+        for (;;) {
+            int q = queued.get();
+            if (q >= maxQueueSize) {
+                return false;
+            }
+            if (queued.compareAndSet(q, q + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private boolean awaitSlot(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (slotLock) {
+            slotWaiters++;
+            try {
+                while (!reserveSlot()) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || shutdown) {
+                        return false;
+                    }
+                    slotLock.wait(remaining);
+                }
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                slotWaiters--;
+            }
+        }
+    }
+    
+    private void releaseSlot() {
+        queued.decrementAndGet();
+        if (slotWaiters > 0) {
+            synchronized (slotLock) {
+                slotLock.notify();
+            }
+        }
+    }
+    
+    private void push(Runnable r) {
+        Worker self = currentWorker.get();
+        for (;;) {
+            Worker target = self != null && !self.retired ? self : selectWorker();
+            if (target == null) {
+                // no thread yet or the last one just retired
+                if (!addWorker()) {
+                    Thread.yield();
+                }
+                continue;
+            }
+            target.deque.offerLast(r);
+            // a worker drains its own deque after flagging itself as retired, so 
+            // the work is either picked up by that drain or still ours to move 
+            if (!target.retired || !target.deque.removeLastOccurrence(r)) {
+                return;
+            }
+        }
+    }
+    
+    private Worker selectWorker() {
+        Worker[] ws = workers;
+        if (ws.length == 0) {
+            return null;
+        }
+        int idx = (nextWorker.getAndIncrement() & Integer.MAX_VALUE) % ws.length;
+        return ws[idx];
+    }
+    
+    private void wakeIdleWorker() {
+        Worker w = idleWorkers.poll();
+        if (w != null) {
+            LockSupport.unpark(w.thread);
+        }
+    }
+    
+    private boolean addWorker() {
+        for (;;) {
+            int ps = poolSize.get();
+            if (ps >= highWaterMark) {
+                return false;
+            }
+            if (poolSize.compareAndSet(ps, ps + 1)) {
+                break;
+            }
+        }
+        Worker w = new Worker();
+        try {
+            w.thread = threadFactory.newThread(w);
+            addToWorkers(w);
+            w.thread.start();
+        } catch (Throwable t) {
+            LOG.log(Level.FINE, "Could not start work queue thread", t);
+            removeFromWorkers(w);
+            poolSize.decrementAndGet();
+            return false;
+        }
+        for (;;) {
+            int largest = largestPoolSize.get();
+            int ps = poolSize.get();
+            if (ps <= largest || largestPoolSize.compareAndSet(largest, ps)) {
+                break;
+            }
+        }
+        return true;
+    }
+    
+    private synchronized void addToWorkers(Worker w) {
+        Worker[] ws = new Worker[workers.length + 1];
+        System.arraycopy(workers, 0, ws, 0, workers.length);
+        ws[workers.length] = w;
+        workers = ws;
+    }
+    
+    private synchronized void removeFromWorkers(Worker w) {
+        Worker[] old = workers;
+        for (int x = 0; x < old.length; x++) {
+            if (old[x] == w) {
+                Worker[] ws = new Worker[old.length - 1];
+                System.arraycopy(old, 0, ws, 0, x);
+                System.arraycopy(old, x + 1, ws, x, old.length - x - 1);
+                workers = ws;
+                return;
+            }
+        }
+    }
+    
+    private boolean tryRetire() {
+        for (;;) {
+            int ps = poolSize.get();
+            if (ps <= lowWaterMark) {
+                return false;
+            }
+            if (poolSize.compareAndSet(ps, ps - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private void workerExited(Worker w, boolean retired) {
+        removeFromWorkers(w);
+        int ps = retired ? poolSize.get() : poolSize.decrementAndGet();
+        if (shutdown && ps == 0) {
+            terminated();
+        }
+    }
+    
+    private void terminated() {
+        if (threadFactory != null) {
+            threadFactory.shutdown();
+        }
+        synchronized (this) {
+            if (watchDog != null) {
+                watchDog.shutdown();
+            }
+        }
+    }
+    
+    private void runTask(Runnable r) {
+        activeCount.incrementAndGet();
+        try {
+            r.run();
+        } catch (Throwable t) {
+            LOG.log(Level.WARNING, "Work item in work queue " + name + " failed", t);
+        } finally {
+            activeCount.decrementAndGet();
+        }
+    }
+    
+    class Worker implements Runnable {
+        final LinkedBlockingDeque<Runnable> deque = new LinkedBlockingDeque<Runnable>();
+        volatile boolean retired;
+        Thread thread;
+        int seed = System.identityHashCode(this) | 1;
+        
+        Runnable nextTask() {
+            Runnable r = deque.pollFirst();
+            if (r == null) {
+                r = steal();
+            }
+            if (r != null) {
+                releaseSlot();
+            }
+            return r;
+        }
+        
+        private Runnable steal() {
+            Worker[] ws = workers;
+            int n = ws.length;
+            if (n < 2) {
+                return null;
+            }
+            // xorshift to spread the victims around
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            int start = (seed & Integer.MAX_VALUE) % n;
+            for (int x = 0; x < n; x++) {
+                Worker victim = ws[(start + x) % n];
+                if (victim != this) {
+                    Runnable r = victim.deque.pollLast();
+                    if (r != null) {
+                        return r;
+                    }
+                }
+            }
+            return null;
+        }
+        
+        public void run() {
+            currentWorker.set(this);
+            try {
+                while (true) {
+                    Runnable r = nextTask();
+                    if (r != null) {
+                        runTask(r);
+                        continue;
+                    }
+                    if (queued.get() > 0) {
+                        // work has been reserved but not pushed yet
+                        Thread.yield();
+                        continue;
+                    }
+                    if (shutdown) {
+                        break;
+                    }
+                    if (idle()) {
+                        retire();
+                        return;
+                    }
+                }
+            } finally {
+                currentWorker.remove();
+            }
+            workerExited(this, false);
+        }
+        
+        /**
+         * Parks until woken by a submitter or the dequeue timeout expires.
+         * @return true if the thread timed out and may go away
+         */
+        private boolean idle() {
+            idleWorkers.offer(this);
+            if (queued.get() > 0 || shutdown) {
+                // if a submitter already claimed us, the unpark just 
+                // leaves a permit behind
+                idleWorkers.remove(this);
+                return false;
+            }
+            long start = System.currentTimeMillis();
+            if (dequeueTimeout > 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(dequeueTimeout));
+            } else {
+                LockSupport.park(this);
+            }
+            // only a worker nobody claimed in the meantime may retire
+            return idleWorkers.remove(this) 
+                && !shutdown
+                && dequeueTimeout > 0
+                && System.currentTimeMillis() - start >= dequeueTimeout
+                && tryRetire();
+        }
+        
+        private void retire() {
+            retired = true;
+            Runnable r = deque.pollFirst();
+            while (r != null) {
+                releaseSlot();
+                runTask(r);
+                r = deque.pollFirst();
+            }
+            workerExited(this, true);
+        }
+    }
+    
+    public void shutdown(boolean processRemainingWorkItems) {
+        shutdown = true;
+        if (!processRemainingWorkItems) {
+            for (Worker w : workers) {
+                while (w.deque.pollFirst() != null) {
+                    releaseSlot();
+                }
+            }
+        }
+        synchronized (slotLock) {
+            slotLock.notifyAll();
+        }
+        for (Worker w : workers) {
+            LockSupport.unpark(w.thread);
+        }
+        if (poolSize.get() == 0) {
+            terminated();
+        }
+    }
+
+    public long getSize() {
+        return queued.get();
+    }
+
+    public boolean isEmpty() {
+        return queued.get() == 0;
+    }
+
+    public boolean isFull() {
+        return queued.get() >= maxQueueSize;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark == Integer.MAX_VALUE ? -1 : highWaterMark;
+    }
+
+    public int getLowWaterMark() {
+        return lowWaterMark == Integer.MAX_VALUE ? -1 : lowWaterMark;
+    }
+
+    public void setHighWaterMark(int hwm) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "highWaterMark", getHighWaterMark(), hwm));
+        highWaterMark = hwm < 0 ? Integer.MAX_VALUE : hwm;
+    }
+
+    public void setLowWaterMark(int lwm) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "lowWaterMark", getLowWaterMark(), lwm));
+        lowWaterMark = lwm < 0 ? 0 : lwm;
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    public int getLargestPoolSize() {
+        return largestPoolSize.get();
+    }
+    
+    public int getPoolSize() {
+        return poolSize.get();
+    }
+    
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+}
@@ -20,9 +20,13 @@ package org.apache.cxf.io;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.junit.Test;
+
 public class CachedOutputStreamTest extends CachedStreamTestBase {
     
     @Override
@@ -76,6 +80,104 @@ public class CachedOutputStreamTest extends CachedStreamTestBase {
     protected String readFromStreamObject(Object obj) throws IOException {
         return readFromStream((InputStream)obj);
     }
-}
+
+    @Test
+    public void testPooledBuffers() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setBufferPool(pool);
+        cos.write("Hello Pooled World!".getBytes("UTF-8"));
+        assertEquals("Hello Pooled World!", new String(cos.getBytes(), "UTF-8"));
+        
+        InputStream in = cos.getInputStream();
+        cos.close();
+        assertEquals("slabs returned while a reader is open", 0, pool.getPooledSlabs());
+        assertEquals("Hello Pooled World!", readFromStream(in));
+        assertEquals(2, pool.getPooledSlabs());
+        assertEquals(2, pool.getMissCount());
+        
+        cos = new CachedOutputStream();
+        cos.setBufferPool(pool);
+        cos.write("Hello Again".getBytes("UTF-8"));
+        StringBuilder sb = new StringBuilder();
+        cos.writeCacheTo(sb);
+        assertEquals("Hello Again", sb.toString());
+        cos.close();
+        assertEquals("slabs returned before the content was read", 1, pool.getPooledSlabs());
+        assertEquals("Hello Again", readFromStream(cos.getInputStream()));
+        assertEquals(2, pool.getMissCount());
+        assertEquals(3, pool.getAcquireCount());
+        assertEquals(2, pool.getPooledSlabs());
+    }
+    
+    @Test
+    public void testPooledBuffersHeld() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setBufferPool(pool);
+        cos.write("Hello Held World".getBytes("UTF-8"));
+        cos.holdTempFile();
+        cos.close();
+        assertEquals("Hello Held World", readFromStream(cos.getInputStream()));
+        assertEquals("slabs returned while held", 0, pool.getPooledSlabs());
+        cos.releaseTempFileHold();
+        assertEquals("Hello Held World", readFromStream(cos.getInputStream()));
+        assertEquals(1, pool.getPooledSlabs());
+    }
     
-   
+    @Test
+    public void testPooledBuffersSpillToFile() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setBufferPool(pool);
+        cos.setThreshold(40);
+        String text = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz";
+        cos.write(text.substring(0, 32).getBytes("UTF-8"));
+        assertNull(cos.getTempFile());
+        cos.write(text.substring(32).getBytes("UTF-8"));
+        assertNotNull(cos.getTempFile());
+        assertEquals(2, pool.getPooledSlabs());
+        assertEquals(text, readFromStream(cos.getInputStream()));
+        cos.close();
+    }
+
+    @Test
+    public void testMemoryMappedSpill() throws IOException {
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setMemoryMapped(true);
+        cos.setThreshold(16);
+        String text = "abcdefghijklmnopqrstuvwxyz0123456789";
+        cos.write(text.getBytes("UTF-8"));
+        File tmpfile = cos.getTempFile();
+        assertNotNull(tmpfile);
+        
+        InputStream in1 = cos.getInputStream();
+        InputStream in2 = cos.getInputStream();
+        assertEquals(text, readFromStream(in1));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cos.writeCacheTo(out);
+        assertEquals(text, out.toString("UTF-8"));
+        assertEquals(text, new String(cos.getBytes(), "UTF-8"));
+        
+        File copy = File.createTempFile("cos", "copy");
+        try {
+            FileOutputStream fout = new FileOutputStream(copy);
+            cos.writeCacheTo(fout);
+            fout.close();
+            assertEquals(text, readFromStream(new FileInputStream(copy)));
+        } finally {
+            copy.delete();
+        }
+        
+        cos.close();
+        assertTrue("file deleted while a reader is open", tmpfile.exists());
+        // served from the mapping now that the stream is closed
+        InputStream in3 = cos.getInputStream();
+        assertEquals(text, new String(cos.getBytes(), "UTF-8"));
+        assertEquals(text, readFromStream(in2));
+        assertTrue("file deleted while a reader is open", tmpfile.exists());
+        assertEquals(text, readFromStream(in3));
+        assertFalse(tmpfile.exists());
+    }
+}
@@ -173,6 +173,9 @@ public abstract class CachedStreamTestBase extends Assert {
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.Threshold")).andReturn("4");
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.MaxSize")).andReturn(null);
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.CipherTransformation")).andReturn(null);
+            EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.MemoryMapped")).andReturn(null).anyTimes();
+            EasyMock.expect(b.getExtension(BufferPool.class)).andReturn(null);
+            EasyMock.expect(b.getProperty(BufferPool.ENABLED_PROPERTY)).andReturn(null);
         
             BusFactory.setThreadDefaultBus(b);
             
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringWriter;
 
+import org.junit.Test;
+
 public class CachedWriterTest extends CachedStreamTestBase {
     @Override
     protected void reloadDefaultProperties() {
@@ -75,6 +77,36 @@ public class CachedWriterTest extends CachedStreamTestBase {
     protected String readFromStreamObject(Object obj) throws IOException {
         return readFromReader((Reader)obj);
     }
-}
+
+    @Test
+    public void testPooledBuffers() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        CachedWriter cw = new CachedWriter();
+        cw.setBufferPool(pool);
+        cw.write("Hello Pooled World!");
+        assertEquals("Hello Pooled World!", new String(cw.getChars()));
+        
+        Reader in = cw.getReader();
+        cw.close();
+        assertEquals("Hello Pooled World!", readFromReader(cw.getReader()));
+        assertEquals("slabs returned while a reader is open", 0, pool.getPooledSlabs());
+        assertEquals("Hello Pooled World!", readFromReader(in));
+        assertEquals(3, pool.getPooledSlabs());
+        assertEquals(3, pool.getMissCount());
+    }
     
-   
+    @Test
+    public void testPooledBuffersHeld() throws IOException {
+        BufferPool pool = new BufferPool(16, 4);
+        CachedWriter cw = new CachedWriter();
+        cw.setBufferPool(pool);
+        cw.write("Hello Held");
+        cw.holdTempFile();
+        cw.close();
+        assertEquals("Hello Held", readFromReader(cw.getReader()));
+        assertEquals("slabs returned while held", 0, pool.getPooledSlabs());
+        cw.releaseTempFileHold();
+        assertEquals("Hello Held", readFromReader(cw.getReader()));
+        assertEquals(2, pool.getPooledSlabs());
+    }
+}
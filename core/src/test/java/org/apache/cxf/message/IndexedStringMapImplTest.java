@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexedStringMapImplTest extends Assert {
+
+    @Test
+    public void testRegisteredAndOverflowKeys() {
+        IndexedStringMapImpl map = new IndexedStringMapImpl();
+        assertTrue(map.isEmpty());
+        assertTrue(IndexedStringMapImpl.isRegisteredKey(Message.CONTENT_TYPE));
+        assertFalse(IndexedStringMapImpl.isRegisteredKey("some.custom.key"));
+
+        assertNull(map.put(Message.CONTENT_TYPE, "text/xml"));
+        assertNull(map.put("some.custom.key", "value"));
+        assertNull(map.put(Message.RESPONSE_CODE, null));
+        map.put(FaultMode.class, FaultMode.RUNTIME_FAULT);
+
+        assertEquals(4, map.size());
+        assertEquals("text/xml", map.get(new String(Message.CONTENT_TYPE)));
+        assertEquals("value", map.get("some.custom.key"));
+        assertSame(FaultMode.RUNTIME_FAULT, map.get(FaultMode.class));
+        assertTrue(map.containsKey(Message.RESPONSE_CODE));
+        assertNull(map.get(Message.RESPONSE_CODE));
+        assertFalse(map.containsKey(Message.ENCODING));
+
+        assertEquals("text/xml", map.put(Message.CONTENT_TYPE, "application/json"));
+        assertEquals(4, map.size());
+        assertEquals("application/json", map.remove(Message.CONTENT_TYPE));
+        assertNull(map.remove(Message.CONTENT_TYPE));
+        assertEquals(3, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("some.custom.key"));
+    }
+
+    @Test
+    public void testMapContract() {
+        IndexedStringMapImpl map = new IndexedStringMapImpl();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (String key : new String[] {Message.CONTENT_TYPE, Message.ENCODING, "a", "b"}) {
+            map.put(key, key + "-value");
+            expected.put(key, key + "-value");
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected, new HashMap<String, Object>(map));
+        assertEquals(expected, new IndexedStringMapImpl(map));
+        assertEquals(expected, new IndexedStringMapImpl(expected));
+
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            e.setValue("x");
+        }
+        assertEquals("x", map.get(Message.CONTENT_TYPE));
+        assertEquals("x", map.get("a"));
+
+        Iterator<String> it = map.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (Message.ENCODING.equals(key) || "b".equals(key)) {
+                it.remove();
+            }
+        }
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(Message.CONTENT_TYPE));
+        assertTrue(map.containsKey("a"));
+
+        Map.Entry<String, Object> removed = null;
+        for (Map.Entry<String, Object> e : map.entrySet()) {
+            if (Message.CONTENT_TYPE.equals(e.getKey())) {
+                removed = e;
+            }
+        }
+        map.remove(Message.CONTENT_TYPE);
+        try {
+            removed.setValue("y");
+            fail("setValue on a removed entry must fail");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(Message.CONTENT_TYPE));
+    }
+
+    @Test
+    public void testRegisterKey() {
+        IndexedStringMapImpl before = new IndexedStringMapImpl();
+        before.put("late.registered.key", "v1");
+
+        IndexedStringMapImpl.registerKey("late.registered.key");
+        assertTrue(IndexedStringMapImpl.isRegisteredKey("late.registered.key"));
+
+        IndexedStringMapImpl after = new IndexedStringMapImpl();
+        after.put("late.registered.key", "v2");
+        assertEquals("v1", before.get("late.registered.key"));
+        assertEquals("v2", after.get("late.registered.key"));
+        assertEquals("v1", new IndexedStringMapImpl(before).get("late.registered.key"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        IndexedStringMapImpl map = new IndexedStringMapImpl();
+        map.put(Message.CONTENT_TYPE, "text/xml");
+        map.put("some.custom.key", "value");
+
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(map);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        Object o = in.readObject();
+        assertTrue(o instanceof IndexedStringMapImpl);
+        assertEquals(map, o);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PhaseChainCacheTest extends Assert {
+
+    private SortedSet<Phase> phases;
+    private PhaseChainCache cache;
+
+    @Before
+    public void setUp() {
+        phases = new TreeSet<Phase>();
+        phases.add(new Phase("phase1", 1));
+        phases.add(new Phase("phase2", 2));
+        cache = new PhaseChainCache();
+    }
+
+    @Test
+    public void testAlternatingLists() {
+        List<Interceptor<? extends Message>> common = newList(new TestInterceptor("phase1", "c1"));
+        List<Interceptor<? extends Message>> op1 = newList(new TestInterceptor("phase2", "o1"));
+        List<Interceptor<? extends Message>> op2 = newList(new TestInterceptor("phase2", "o2"));
+
+        for (int x = 0; x < 5; x++) {
+            assertChain(cache.get(phases, common, op1), "c1", "o1");
+            assertChain(cache.get(phases, common, op2), "c1", "o2");
+        }
+        assertEquals(2, cache.getSize());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(8, cache.getHitCount());
+    }
+
+    @Test
+    public void testContentMatchForPlainLists() {
+        TestInterceptor c1 = new TestInterceptor("phase1", "c1");
+        cache.get(phases, new ArrayList<Interceptor<? extends Message>>(newList(c1)));
+        cache.get(phases, new ArrayList<Interceptor<? extends Message>>(newList(c1)));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testModifiedListReplacesEntry() {
+        ModCountCopyOnWriteArrayList<Interceptor<? extends Message>> list
+            = newList(new TestInterceptor("phase1", "c1"));
+        assertChain(cache.get(phases, list), "c1");
+
+        list.add(new TestInterceptor("phase2", "c2"));
+        assertChain(cache.get(phases, list), "c1", "c2");
+        assertEquals(2, cache.getMissCount());
+        assertEquals("Stale chain should have been dropped", 1, cache.getSize());
+
+        // a different list with the same size and mod count must not match
+        ModCountCopyOnWriteArrayList<Interceptor<? extends Message>> other
+            = newList(new TestInterceptor("phase1", "x1"));
+        other.add(new TestInterceptor("phase2", "x2"));
+        other.setModCount(list.getModCount());
+        assertChain(cache.get(phases, other), "x1", "x2");
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testMaxSize() {
+        cache.setMaxSize(2);
+        for (int x = 0; x < 4; x++) {
+            cache.get(phases, newList(new TestInterceptor("phase1", "c" + x)));
+        }
+        assertEquals(2, cache.getSize());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testCompiledChains() {
+        List<Interceptor<? extends Message>> list = newList(new TestInterceptor("phase1", "c1"));
+        cache.setCompiledChains(true);
+        PhaseInterceptorChain chain = cache.get(phases, list);
+        assertTrue(chain.isCompiled());
+        assertChain(chain, "c1");
+
+        cache.setCompiledChains(false);
+        assertEquals(0, cache.getSize());
+        assertFalse(cache.get(phases, list).isCompiled());
+    }
+
+    private static ModCountCopyOnWriteArrayList<Interceptor<? extends Message>> newList(
+        Interceptor<? extends Message> i) {
+        ModCountCopyOnWriteArrayList<Interceptor<? extends Message>> list
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        list.add(i);
+        return list;
+    }
+
+    private static void assertChain(PhaseInterceptorChain chain, String... ids) {
+        Iterator<Interceptor<? extends Message>> it = chain.iterator();
+        for (String id : ids) {
+            assertEquals(id, ((PhaseInterceptor<? extends Message>)it.next()).getId());
+        }
+        assertFalse(it.hasNext());
+    }
+
+    private static class TestInterceptor extends AbstractPhaseInterceptor<Message> {
+        TestInterceptor(String phase, String id) {
+            super(id, phase);
+        }
+
+        public void handleMessage(Message message) {
+        }
+    }
+}
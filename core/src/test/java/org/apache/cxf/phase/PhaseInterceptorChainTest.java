@@ -34,6 +34,7 @@ import org.apache.cxf.interceptor.InterceptorChain;
 import org.apache.cxf.logging.FaultListener;
 import org.apache.cxf.message.FaultMode;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.transport.MessageObserver;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
 
@@ -392,6 +393,117 @@ public class PhaseInterceptorChainTest extends Assert {
         assertEquals(1, p3.invoked);
     }
     
+    @Test
+    public void testCompiledChainInvocation() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        
+        control.replay();
+        chain.add(p3);
+        chain.add(p1);
+        chain.add(p2);
+        chain.compile();
+        
+        PhaseInterceptorChain c1 = chain.cloneChain();
+        PhaseInterceptorChain c2 = chain.cloneChain();
+        assertTrue(c1.isCompiled());
+        assertTrue(c1.doIntercept(message));
+        assertTrue(c2.doIntercept(message));
+        assertEquals(2, p1.invoked);
+        assertEquals(2, p2.invoked);
+        assertEquals(2, p3.invoked);
+        
+        Iterator<Interceptor<? extends Message>> it = c1.iterator();
+        assertSame(p1, it.next());
+        assertSame(p2, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+    }
+    
+    @Test
+    public void testCompiledChainInsertion() throws Exception {
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        AddingPhaseInterceptor p1 = new AddingPhaseInterceptor(p2, "phase1", "p1");
+        
+        chain.add(p1);
+        chain.add(p3);
+        chain.compile();
+        PhaseInterceptorChain clone = chain.cloneChain();
+        
+        message.getInterceptorChain();
+        EasyMock.expectLastCall().andReturn(clone).anyTimes();
+        control.replay();
+        
+        assertTrue(clone.doIntercept(message));
+        assertFalse("Modified chain must no longer be compiled", clone.isCompiled());
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p2.invoked);
+        assertEquals(1, p3.invoked);
+        
+        // the shared interceptor list is left untouched
+        Iterator<Interceptor<? extends Message>> it = chain.cloneChain().iterator();
+        assertSame(p1, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+    }
+    
+    @Test
+    public void testCompiledChainSuspendAndResume() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        SuspendedInvocationInterceptor p2 = new SuspendedInvocationInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        
+        chain.add(p1);
+        chain.add(p2);
+        chain.add(p3);
+        chain.compile();
+        PhaseInterceptorChain clone = chain.cloneChain();
+        
+        message.getInterceptorChain();
+        EasyMock.expectLastCall().andReturn(clone).anyTimes();
+        control.replay();
+        
+        try {
+            clone.doIntercept(message);
+            fail("Suspended invocation swallowed");
+        } catch (SuspendedInvocationException ex) {
+            // ignore
+        }
+        assertSame(InterceptorChain.State.PAUSED, clone.getState());
+        assertEquals(1, p1.invoked);
+        assertEquals(0, p3.invoked);
+        
+        // resuming restarts at p2, which would suspend the chain once more
+        clone.remove(p2);
+        clone.resume();
+        assertSame(InterceptorChain.State.COMPLETE, clone.getState());
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p3.invoked);
+    }
+    
+    @Test
+    public void testCompiledChainFault() throws Exception {
+        AbstractPhaseInterceptor<Message> p1 = setUpPhaseInterceptor("phase1", "p1");
+        setUpPhaseInterceptorInvocations(p1, false, true);
+        AbstractPhaseInterceptor<Message> p2 = setUpPhaseInterceptor("phase2", "p2");
+        setUpPhaseInterceptorInvocations(p2, true, true);
+        AbstractPhaseInterceptor<Message> p3 = setUpPhaseInterceptor("phase3", "p3");
+        MessageObserver observer = control.createMock(MessageObserver.class);
+        observer.onMessage(message);
+        EasyMock.expectLastCall();
+        control.replay();
+        chain.add(p1);
+        chain.add(p2);
+        chain.add(p3);
+        chain.compile();
+        PhaseInterceptorChain clone = chain.cloneChain();
+        clone.setFaultObserver(observer);
+        assertFalse(clone.doIntercept(message));
+        assertSame(InterceptorChain.State.ABORTED, clone.getState());
+    }
+    
     AbstractPhaseInterceptor<Message> setUpPhaseInterceptor(String phase, String id) throws Exception {
         return setUpPhaseInterceptor(phase, id, null, null);
     }
@@ -503,6 +615,21 @@ public class PhaseInterceptorChainTest extends Assert {
         }
     }
 
+    public class AddingPhaseInterceptor extends CountingPhaseInterceptor {
+        private final AbstractPhaseInterceptor<? extends Message> additional;
+        
+        public AddingPhaseInterceptor(AbstractPhaseInterceptor<? extends Message> i, 
+                                      String phase, String id) {
+            super(phase, id);
+            additional = i;
+        }
+
+        public void handleMessage(Message m) {
+            super.handleMessage(m);
+            m.getInterceptorChain().add(additional);
+        }
+    }
+
     public class CountingPhaseInterceptor extends
             AbstractPhaseInterceptor<Message> {
         int invoked;
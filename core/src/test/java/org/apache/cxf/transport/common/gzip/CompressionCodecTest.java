@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.gzip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressionCodecTest extends Assert {
+    private static final String NS = "http://apache.org/hello_world_soap_http/types";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] text = createContent(200000, true);
+        byte[] random = createContent(100000, false);
+        for (CompressionCodec codec : Arrays.asList(new GZIPCodec(9), new DeflateCodec(1), new LZ4Codec())) {
+            byte[] compressed = compress(codec, text);
+            assertTrue(codec.getEncodings().get(0), compressed.length < text.length / 2);
+            assertArrayEquals(text, decompress(codec, compressed));
+            assertArrayEquals(random, decompress(codec, compress(codec, random)));
+            assertArrayEquals(new byte[0], decompress(codec, compress(codec, new byte[0])));
+        }
+    }
+
+    @Test
+    public void testCorruptLZ4Stream() throws Exception {
+        byte[] compressed = compress(new LZ4Codec(), createContent(1000, true));
+        byte[] truncated = new byte[compressed.length - 4];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        compressed[4] = (byte)0x7F;
+        for (byte[] b : Arrays.asList(compressed, truncated)) {
+            try {
+                decompress(new LZ4Codec(), b);
+                fail("Expected an exception");
+            } catch (IOException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testInterceptorsAndMetrics() throws Exception {
+        GZIPOutInterceptor out = new GZIPOutInterceptor(0);
+        out.setCodecs(Arrays.<CompressionCodec>asList(new LZ4Codec()));
+        out.setForce(true);
+        out.setMetricsEnabled(true);
+        Message outMessage = new MessageImpl();
+        outMessage.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        outMessage.setExchange(new ExchangeImpl());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        outMessage.setContent(OutputStream.class, bos);
+        out.handleMessage(outMessage);
+
+        byte[] content = createContent(50000, true);
+        OutputStream os = outMessage.getContent(OutputStream.class);
+        os.write(content);
+        os.close();
+        Map<String, List<String>> headers
+            = CastUtils.cast((Map<?, ?>)outMessage.get(Message.PROTOCOL_HEADERS));
+        assertEquals(Arrays.asList(LZ4Codec.ENCODING), headers.get("Content-Encoding"));
+
+        CompressionMetrics metrics = out.getMetrics();
+        assertEquals(1, metrics.getCompressedMessages());
+        assertEquals(content.length, metrics.getUncompressedBytes());
+        assertEquals(bos.size(), metrics.getCompressedBytes());
+        assertTrue(metrics.getCompressionRatio() > 2);
+
+        Message inMessage = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        inMessage.setExchange(exchange);
+        inMessage.put(Message.PROTOCOL_HEADERS, headers);
+        inMessage.setContent(InputStream.class, new ByteArrayInputStream(bos.toByteArray()));
+        GZIPInInterceptor in = new GZIPInInterceptor();
+        in.handleMessage(inMessage);
+        // only gzip is uncompressed unless other codecs are configured
+        assertEquals(Arrays.asList(LZ4Codec.ENCODING), headers.get("Content-Encoding"));
+
+        in.setCodecs(Arrays.<CompressionCodec>asList(new GZIPCodec(), new LZ4Codec()));
+        in.handleMessage(inMessage);
+        assertArrayEquals(content, IOUtils.readBytesFromStream(inMessage.getContent(InputStream.class)));
+        assertNull(headers.get("Content-Encoding"));
+    }
+
+    @Test
+    public void testLZ4BlockSizeLimit() throws Exception {
+        LZ4Codec codec = new LZ4Codec();
+        codec.setBufferSize(128 * 1024);
+        byte[] content = createContent(200000, true);
+        byte[] compressed = compress(codec, content);
+
+        LZ4Codec receiver = new LZ4Codec();
+        try {
+            decompress(receiver, compressed);
+            fail("Expected an exception");
+        } catch (IOException ex) {
+            // expected, the blocks are larger than the default limit
+        }
+        receiver.setMaxDecodedBlockSize(128 * 1024);
+        assertArrayEquals(content, decompress(receiver, compressed));
+    }
+
+    @Test
+    public void testMetricsDisabledByDefault() throws Exception {
+        GZIPOutInterceptor out = new GZIPOutInterceptor(0);
+        assertFalse(out.isMetricsEnabled());
+        Message outMessage = new MessageImpl();
+        outMessage.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        outMessage.setExchange(new ExchangeImpl());
+        outMessage.setContent(OutputStream.class, new ByteArrayOutputStream());
+        out.handleMessage(outMessage);
+
+        OutputStream os = outMessage.getContent(OutputStream.class);
+        os.write(createContent(5000, true));
+        os.close();
+        assertEquals(0, out.getMetrics().getCompressedMessages());
+    }
+
+    @Test
+    public void testDictionaryFromServiceModel() throws Exception {
+        ServiceInfo si = new ServiceInfo();
+        InterfaceInfo intf = new InterfaceInfo(si, new QName(NS, "Greeter"));
+        OperationInfo op = intf.addOperation(new QName(NS, "greetMe"));
+        MessageInfo out = op.createMessage(new QName(NS, "greetMeResponse"), MessageInfo.Type.OUTPUT);
+        op.setOutput("greetMeResponse", out);
+        MessagePartInfo part = out.addMessagePart("parameters");
+        part.setElement(true);
+        part.setElementQName(new QName(NS, "greetMeResponse"));
+        EndpointInfo ei = new EndpointInfo(si, "http://schemas.xmlsoap.org/soap/http");
+        ei.setBinding(new BindingInfo(si, "http://schemas.xmlsoap.org/wsdl/soap/"));
+
+        CompressionDictionary dictionary = CompressionDictionary.getDictionary(ei);
+        assertSame(dictionary, CompressionDictionary.getDictionary(ei));
+        String s = new String(dictionary.getBytes(), "UTF-8");
+        assertTrue(s, s.contains("<ns2:greetMeResponse xmlns:ns2=\"" + NS + "\">"));
+        assertTrue(s, s.endsWith("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                                 + "<soap:Body></soap:Body></soap:Envelope>"));
+
+        // a small response compresses much better with the dictionary
+        byte[] content = ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soap:Body><ns2:greetMeResponse xmlns:ns2=\"" + NS + "\"><responseType>Hello</responseType>"
+            + "</ns2:greetMeResponse></soap:Body></soap:Envelope>").getBytes("UTF-8");
+        byte[] plain = compress(new DeflateCodec(), content);
+        byte[] withDictionary = compress(dictionary.getCodec(), content);
+        assertTrue(withDictionary.length < plain.length / 2);
+        assertArrayEquals(content, decompress(dictionary.getCodec(), withDictionary));
+
+        CompressionDictionary other = new CompressionDictionary("<soap:Envelope>".getBytes("UTF-8"));
+        assertFalse(other.getId().equals(dictionary.getId()));
+        try {
+            decompress(other.getCodec(), withDictionary);
+            fail("Expected an exception");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    private static byte[] createContent(int size, boolean text) {
+        Random random = new Random(size);
+        byte[] b = new byte[size];
+        if (text) {
+            String s = "<ns1:greetMe xmlns:ns1=\"http://apache.org/hello_world\"><requestType>";
+            for (int i = 0; i < size; i++) {
+                b[i] = random.nextInt(20) == 0
+                    ? (byte)('0' + random.nextInt(10)) : (byte)s.charAt(i % s.length());
+            }
+        } else {
+            random.nextBytes(b);
+        }
+        return b;
+    }
+
+    private static byte[] compress(CompressionCodec codec, byte[] data) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        OutputStream os = codec.compress(bos);
+        os.write(data, 0, data.length / 3);
+        os.flush();
+        os.write(data, data.length / 3, data.length - data.length / 3);
+        os.close();
+        return bos.toByteArray();
+    }
+
+    private static byte[] decompress(CompressionCodec codec, byte[] data) throws Exception {
+        InputStream is = codec.decompress(new ByteArrayInputStream(data));
+        try {
+            return IOUtils.readBytesFromStream(is);
+        } finally {
+            is.close();
+        }
+    }
+}
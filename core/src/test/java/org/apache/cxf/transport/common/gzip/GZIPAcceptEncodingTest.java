@@ -22,11 +22,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.helpers.HttpHeaderHelper;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.interceptor.InterceptorChain;
@@ -34,6 +37,7 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
 import org.easymock.EasyMock;
 
 import org.junit.Assert;
@@ -109,6 +113,75 @@ public class GZIPAcceptEncodingTest extends Assert {
         singleTest("gzip; q=0.00", false, null, null);
     }
 
+    @Test
+    public void testIdentityPreferred() throws Exception {
+        singleTest("gzip;q=0.1, identity;q=1", false, null, null);
+    }
+
+    @Test
+    public void testIdentityPreferredViaStar() throws Exception {
+        // the q-value of gzip applies to x-gzip too, only identity gets the q-value of *
+        singleTest("gzip;q=0.5, *", false, null, null);
+    }
+
+    @Test
+    public void testAliasQValue() throws Exception {
+        singleTest("gzip;q=0, x-gzip;q=0.5", true, YES, "x-gzip");
+    }
+
+    @Test
+    public void testGzipPreferredOverIdentity() throws Exception {
+        singleTest("gzip;q=1.0, identity;q=0.5", true, YES, "gzip");
+    }
+
+    @Test
+    public void testHighestQValueCodec() throws Exception {
+        interceptor.setCodecs(Arrays.<CompressionCodec>asList(new GZIPCodec(), new DeflateCodec()));
+        singleTest("gzip;q=0.5, deflate", true, YES, "deflate");
+    }
+
+    @Test
+    public void testEqualQValuesPreferConfiguredOrder() throws Exception {
+        interceptor.setCodecs(Arrays.<CompressionCodec>asList(new GZIPCodec(), new DeflateCodec()));
+        singleTest("deflate;q=0.8, x-gzip;q=0.8, identity;q=0", true, FORCE, "x-gzip");
+    }
+
+    @Test
+    public void testRequestorAcceptEncoding() throws Exception {
+        EasyMock.replay(outInterceptors);
+        interceptor.setCodecs(Arrays.<CompressionCodec>asList(new DeflateCodec(), new LZ4Codec()));
+        outMessage.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        interceptor.handleMessage(outMessage);
+        assertEquals("deflate", outMessage.get(GZIPOutInterceptor.GZIP_ENCODING_KEY));
+        Map<String, List<String>> headers
+            = CastUtils.cast((Map<?, ?>)outMessage.get(Message.PROTOCOL_HEADERS));
+        assertEquals(Collections.singletonList("deflate;q=1.0, x-cxf-lz4;q=0.9, identity; q=0.5, *;q=0"),
+                     headers.get("Accept-Encoding"));
+    }
+
+    @Test
+    public void testPresetDictionary() throws Exception {
+        CompressionDictionary dictionary = new CompressionDictionary("<soap:Envelope>".getBytes("UTF-8"));
+        EndpointInfo ei = new EndpointInfo();
+        ei.setProperty(CompressionDictionary.class.getName(), dictionary);
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(ei).anyTimes();
+        EasyMock.replay(endpoint, outInterceptors);
+        outMessage.getExchange().put(Endpoint.class, endpoint);
+        interceptor.setPresetDictionary(true);
+
+        // only used if the client has the same dictionary
+        setAcceptEncoding(PresetDictionaryCodec.ENCODING + ";q=1.0, gzip;q=1.0");
+        interceptor.handleMessage(outMessage);
+        assertEquals("gzip", outMessage.get(GZIPOutInterceptor.GZIP_ENCODING_KEY));
+
+        Map<String, List<String>> headers
+            = CastUtils.cast((Map<?, ?>)inMessage.get(Message.PROTOCOL_HEADERS));
+        headers.put(CompressionDictionary.HEADER, Collections.singletonList(dictionary.getId()));
+        interceptor.handleMessage(outMessage);
+        assertEquals(PresetDictionaryCodec.ENCODING, outMessage.get(GZIPOutInterceptor.GZIP_ENCODING_KEY));
+    }
+
     @Test(expected = Fault.class)
     public void testNoValidEncodings() throws Exception {
         EasyMock.replay();
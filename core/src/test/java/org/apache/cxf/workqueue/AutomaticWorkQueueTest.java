@@ -45,6 +45,11 @@ public class AutomaticWorkQueueTest extends Assert {
 
     AutomaticWorkQueueImpl workqueue;
     
+    protected AutomaticWorkQueueImpl createWorkQueue(int mqs, int initialThreads, int highWaterMark,
+                                                     int lowWaterMark, long dequeueTimeout) {
+        return new AutomaticWorkQueueImpl(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout);
+    }
+    
     @After
     public void tearDown() throws Exception {
         if (workqueue != null) {
@@ -55,10 +60,10 @@ public class AutomaticWorkQueueTest extends Assert {
     
     @Test
     public void testUnboundedConstructor() {
-        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               UNBOUNDED_HIGH_WATER_MARK,
-                                               UNBOUNDED_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    UNBOUNDED_HIGH_WATER_MARK,
+                                    UNBOUNDED_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         assertNotNull(workqueue);
         assertEquals(AutomaticWorkQueueImpl.DEFAULT_MAX_QUEUE_SIZE, workqueue.getMaxSize());
         assertEquals(UNBOUNDED_HIGH_WATER_MARK, workqueue.getHighWaterMark());
@@ -67,10 +72,10 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test
     public void testConstructor() {
-        workqueue = new AutomaticWorkQueueImpl(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               DEFAULT_HIGH_WATER_MARK,
-                                               DEFAULT_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    DEFAULT_HIGH_WATER_MARK,
+                                    DEFAULT_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         assertNotNull(workqueue);
         assertEquals(DEFAULT_MAX_QUEUE_SIZE, workqueue.getMaxSize());
         assertEquals(DEFAULT_HIGH_WATER_MARK, workqueue.getHighWaterMark());
@@ -80,10 +85,10 @@ public class AutomaticWorkQueueTest extends Assert {
     
     @Test
     public void testEnqueueWithTimeout() throws Exception {
-        workqueue = new AutomaticWorkQueueImpl(2, 2,
-                                               2,
-                                               2,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(2, 2,
+                                    2,
+                                    2,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         
         final Object lock = new Object();
         int x = 0;
@@ -108,10 +113,10 @@ public class AutomaticWorkQueueTest extends Assert {
     
     @Test
     public void testEnqueue() {
-        workqueue = new AutomaticWorkQueueImpl(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               DEFAULT_HIGH_WATER_MARK,
-                                               DEFAULT_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    DEFAULT_HIGH_WATER_MARK,
+                                    DEFAULT_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
 
         try {
             Thread.sleep(100);
@@ -145,10 +150,10 @@ public class AutomaticWorkQueueTest extends Assert {
     @Test
     @Ignore("The test is failed on openjdk")
     public void testEnqueueImmediate() {
-        workqueue = new AutomaticWorkQueueImpl(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               DEFAULT_HIGH_WATER_MARK,
-                                               DEFAULT_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    DEFAULT_HIGH_WATER_MARK,
+                                    DEFAULT_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
 
         try {
             Thread.sleep(100);
@@ -250,8 +255,8 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test
     public void testDeadLockEnqueueLoads() {
-        workqueue = new AutomaticWorkQueueImpl(500, 1, 2, 2,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(500, 1, 2, 2,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         DeadLockThread dead = new DeadLockThread(workqueue, 200,
                                                  10L);
 
@@ -260,11 +265,11 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test
     public void testNonDeadLockEnqueueLoads() {
-        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE,
-                                               INITIAL_SIZE,
-                                               UNBOUNDED_HIGH_WATER_MARK,
-                                               UNBOUNDED_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(UNBOUNDED_MAX_QUEUE_SIZE,
+                                    INITIAL_SIZE,
+                                    UNBOUNDED_HIGH_WATER_MARK,
+                                    UNBOUNDED_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         DeadLockThread dead = new DeadLockThread(workqueue, 200);
 
         checkDeadLock(dead);
@@ -272,10 +277,10 @@ public class AutomaticWorkQueueTest extends Assert {
     
     @Test
     public void testSchedule() throws Exception {
-        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               UNBOUNDED_HIGH_WATER_MARK,
-                                               UNBOUNDED_LOW_WATER_MARK,
-                                               DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue = createWorkQueue(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    UNBOUNDED_HIGH_WATER_MARK,
+                                    UNBOUNDED_LOW_WATER_MARK,
+                                    DEFAULT_DEQUEUE_TIMEOUT);
         final Lock runLock = new ReentrantLock();
         final Condition runCondition = runLock.newCondition();
         long start = System.currentTimeMillis();
@@ -305,7 +310,7 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test
     public void testThreadPoolShrink() {
-        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE, 20, 20, 10, 100L);
+        workqueue = createWorkQueue(UNBOUNDED_MAX_QUEUE_SIZE, 20, 20, 10, 100L);
 
         DeadLockThread dead = new DeadLockThread(workqueue, 1000, 5L);
 
@@ -333,9 +338,9 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test
     public void testThreadPoolShrinkUnbounded() throws Exception {
-        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               UNBOUNDED_HIGH_WATER_MARK,
-                                               DEFAULT_LOW_WATER_MARK, 100L);
+        workqueue = createWorkQueue(UNBOUNDED_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    UNBOUNDED_HIGH_WATER_MARK,
+                                    DEFAULT_LOW_WATER_MARK, 100L);
 
         DeadLockThread dead = new DeadLockThread(workqueue, 1000, 5L);
         checkDeadLock(dead);
@@ -356,8 +361,8 @@ public class AutomaticWorkQueueTest extends Assert {
 
     @Test    
     public void testShutdown() {
-        workqueue = new AutomaticWorkQueueImpl(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
-                                               INITIAL_SIZE, INITIAL_SIZE, 500);
+        workqueue = createWorkQueue(DEFAULT_MAX_QUEUE_SIZE, INITIAL_SIZE,
+                                    INITIAL_SIZE, INITIAL_SIZE, 500);
 
         assertEquals(0, workqueue.getSize());
         DeadLockThread dead = new DeadLockThread(workqueue, 10, 5L);
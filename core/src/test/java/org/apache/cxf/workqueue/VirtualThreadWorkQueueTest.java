@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VirtualThreadWorkQueueTest extends Assert {
+    
+    VirtualThreadWorkQueue workqueue;
+    
+    @After
+    public void tearDown() throws Exception {
+        if (workqueue != null) {
+            workqueue.shutdown(true);
+            workqueue = null;
+        }
+    }
+    
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        workqueue = new VirtualThreadWorkQueue(2, 0, 2, 0, 1000L);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        Runnable blocking = new Runnable() {
+            public void run() {
+                int n = concurrent.incrementAndGet();
+                synchronized (maxConcurrent) {
+                    maxConcurrent.set(Math.max(n, maxConcurrent.get()));
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                concurrent.decrementAndGet();
+                done.countDown();
+            }
+        };
+        for (int x = 0; x < 4; x++) {
+            workqueue.execute(blocking);
+        }
+        assertEquals(2, workqueue.getActiveCount());
+        assertEquals(2, workqueue.getSize());
+        assertTrue(workqueue.isFull());
+        try {
+            workqueue.execute(blocking, 50);
+            fail("Should have failed with a RejectedExecutionException as the queue is full");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, maxConcurrent.get());
+        assertEquals(2, workqueue.getLargestPoolSize());
+        assertTrue(workqueue.isEmpty());
+    }
+    
+    @Test
+    public void testManyWorkItems() throws Exception {
+        workqueue = new VirtualThreadWorkQueue(10000, 0, 50, 0, 1000L);
+        final int count = 5000;
+        final CountDownLatch done = new CountDownLatch(count);
+        for (int x = 0; x < count; x++) {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(workqueue.getLargestPoolSize() <= 50);
+    }
+    
+    @Test
+    public void testShutdown() throws Exception {
+        workqueue = new VirtualThreadWorkQueue("test");
+        assertFalse(workqueue.isShutdown());
+        workqueue.shutdown(true);
+        assertTrue(workqueue.isShutdown());
+        try {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("Should not accept work after shutdown");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testShutdownProcessesRemainingWork() throws Exception {
+        workqueue = new VirtualThreadWorkQueue(10, 0, 1, 0, 1000L);
+        final AtomicInteger completed = new AtomicInteger();
+        Runnable slow = new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                completed.incrementAndGet();
+            }
+        };
+        workqueue.execute(slow);
+        workqueue.execute(slow);
+        workqueue.shutdown(true);
+        assertEquals("shutdown(true) must wait for the remaining work", 2, completed.get());
+        assertEquals(0, workqueue.getActiveCount());
+    }
+    
+    @Test
+    public void testShutdownFromWorkItem() throws Exception {
+        workqueue = new VirtualThreadWorkQueue("test");
+        final CountDownLatch done = new CountDownLatch(1);
+        workqueue.execute(new Runnable() {
+            public void run() {
+                workqueue.shutdown(true);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testWorkQueueType() {
+        assertEquals(VirtualThreadWorkQueue.class, 
+                     AutomaticWorkQueueImpl.getWorkQueueClass(AutomaticWorkQueueImpl.TYPE_VIRTUAL));
+    }
+}
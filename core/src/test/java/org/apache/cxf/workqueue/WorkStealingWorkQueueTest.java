@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class WorkStealingWorkQueueTest extends AutomaticWorkQueueTest {
+
+    @Override
+    protected AutomaticWorkQueueImpl createWorkQueue(int mqs, int initialThreads, int highWaterMark,
+                                                     int lowWaterMark, long dequeueTimeout) {
+        return new WorkStealingWorkQueue(mqs, initialThreads, highWaterMark, lowWaterMark, dequeueTimeout);
+    }
+    
+    @Test
+    public void testConcurrentSubmitters() throws Exception {
+        workqueue = createWorkQueue(10000, 2, 8, 2, 100L);
+        final int submitters = 4;
+        final int itemsPerSubmitter = 2000;
+        final AtomicInteger completed = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(submitters * itemsPerSubmitter);
+        for (int i = 0; i < submitters; i++) {
+            new Thread() {
+                public void run() {
+                    for (int x = 0; x < itemsPerSubmitter; x++) {
+                        workqueue.execute(new Runnable() {
+                            public void run() {
+                                completed.incrementAndGet();
+                                done.countDown();
+                            }
+                        }, TIMEOUT);
+                    }
+                }
+            } .start();
+        }
+        assertTrue("work items not completed: " + completed.get(), done.await(30, TimeUnit.SECONDS));
+        assertEquals(submitters * itemsPerSubmitter, completed.get());
+        assertTrue(workqueue.getLargestPoolSize() <= 8);
+        assertEquals(0, workqueue.getSize());
+    }
+    
+    @Test
+    public void testNestedSubmission() throws Exception {
+        workqueue = createWorkQueue(100, 1, 1, 1, DEFAULT_DEQUEUE_TIMEOUT);
+        final CountDownLatch done = new CountDownLatch(1);
+        workqueue.execute(new Runnable() {
+            public void run() {
+                // queued on the deque of the only worker and run once this item returns
+                workqueue.execute(new Runnable() {
+                    public void run() {
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testWorkQueueType() {
+        assertEquals(WorkStealingWorkQueue.class, 
+                     AutomaticWorkQueueImpl.getWorkQueueClass(AutomaticWorkQueueImpl.TYPE_WORK_STEALING));
+        assertEquals(AutomaticWorkQueueImpl.class, AutomaticWorkQueueImpl.getWorkQueueClass(null));
+        workqueue = AutomaticWorkQueueImpl.createWorkQueue("workStealing", "test");
+        assertTrue(workqueue instanceof WorkStealingWorkQueue);
+        assertEquals("test", workqueue.getName());
+    }
+}
@@ -33,6 +33,11 @@ import org.apache.cxf.message.MessageImpl;
 public class SoapMessage extends MessageImpl {
     private static final long serialVersionUID = 6310906412722265578L;
     private SoapVersion version;
+    
+    static {
+        registerKey(SoapVersion.class.getName());
+        registerKey(Header.HEADER_LIST);
+    }
 
     public SoapMessage(Message message) {
         super(message);
@@ -22,6 +22,7 @@ package org.apache.cxf.clustering;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,6 +44,8 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
 
     private List<String> alternateAddresses;
     private long delayBetweenRetries;
+    private CircuitBreakerManager circuitBreakerManager;
+    private final AtomicBoolean allCircuitsOpen = new AtomicBoolean();
 
     public void setDelayBetweenRetries(long delay) {
         this.delayBetweenRetries = delay;
@@ -55,6 +58,18 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
     public void setAlternateAddresses(List<String> alternateAddresses) {
         this.alternateAddresses = alternateAddresses;
     }
+    
+    /**
+     * Sets the CircuitBreakerManager used to skip the addresses whose
+     * circuit is open, no circuit breaking is done by default.
+     */
+    public void setCircuitBreakerManager(CircuitBreakerManager manager) {
+        this.circuitBreakerManager = manager;
+    }
+    
+    public CircuitBreakerManager getCircuitBreakerManager() {
+        return circuitBreakerManager;
+    }
    
     /**
      * Get the alternate addresses for this invocation.
@@ -64,7 +79,7 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
      */
     public List<String> getAlternateAddresses(Exchange exchange) {
         return alternateAddresses != null
-               ? new ArrayList<String>(alternateAddresses)
+               ? filterAvailable(new ArrayList<String>(alternateAddresses))
                : null;
     }
 
@@ -94,7 +109,7 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
      * @return a List of alternate endpoints if available
      */
     public List<Endpoint> getAlternateEndpoints(Exchange exchange) {
-        return getEndpoints(exchange, false);
+        return filterAvailable(getEndpoints(exchange, false));
     }
     
     /**
@@ -155,6 +170,46 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
         return alternates;
     }
 
+    /**
+     * Remove the alternates whose circuit is open, unless the circuits of
+     * all of them are open.
+     * 
+     * @param alternates List of alternate endpoints or addresses
+     * @return the available alternates
+     */
+    protected <T> List<T> filterAvailable(List<T> alternates) {
+        if (circuitBreakerManager == null || alternates == null || alternates.isEmpty()) {
+            return alternates;
+        }
+        List<T> available = new ArrayList<T>(alternates.size());
+        for (T alternate : alternates) {
+            if (circuitBreakerManager.isAvailable(getAddress(alternate))) {
+                available.add(alternate);
+            }
+        }
+        if (available.isEmpty()) {
+            if (allCircuitsOpen.compareAndSet(false, true)) {
+                LOG.warning("ALL_CIRCUITS_OPEN");
+            }
+            return alternates;
+        }
+        allCircuitsOpen.set(false);
+        return available;
+    }
+    
+    /**
+     * Get the address of an alternate endpoint or address.
+     * 
+     * @param alternate an Endpoint or an address
+     * @return the address
+     */
+    protected static String getAddress(Object alternate) {
+        if (alternate instanceof Endpoint) {
+            return ((Endpoint)alternate).getEndpointInfo().getAddress();
+        }
+        return String.valueOf(alternate);
+    }
+
     /**
      * Get next alternate endpoint.
      * 
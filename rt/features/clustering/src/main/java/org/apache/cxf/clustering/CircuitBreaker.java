@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedOperation;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+/**
+ * Tracks the availability of a single target address. The circuit is
+ * opened once the configured number of consecutive failures has been
+ * reached, after which the address is not used until the reset timeout
+ * has elapsed. The circuit is then half-open: a single trial invocation
+ * is let through and decides whether it is closed again or re-opened,
+ * the address remains unavailable to other callers in the meantime.
+ */
+@ManagedResource(componentName = "CircuitBreaker", 
+                 description = "The circuit breaker state of a clustered target address", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class CircuitBreaker implements ManagedComponent {
+    private static final String TYPE_VALUE = "CircuitBreaker";
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final String address;
+    private final int failureThreshold;
+    private final long resetTimeout;
+    private Bus bus;
+    
+    private State state = State.CLOSED;
+    private int failureCount;
+    private long stateChanged = System.currentTimeMillis();
+    private long trialStarted = -1;
+    
+    /**
+     * Constructor.
+     * 
+     * @param address the target address
+     * @param failureThreshold the number of consecutive failures opening the circuit
+     * @param resetTimeout the time (in milliseconds) after which an open circuit becomes half-open
+     */
+    public CircuitBreaker(String address, int failureThreshold, long resetTimeout) {
+        this.address = address;
+        this.failureThreshold = failureThreshold;
+        this.resetTimeout = resetTimeout;
+    }
+    
+    void setBus(Bus b) {
+        bus = b;
+    }
+    
+    /**
+     * Check if the address may currently be used, without changing the
+     * state of the circuit. A half-open circuit is only available while
+     * its trial invocation has not been granted, a trial whose result has
+     * not been recorded within the reset timeout is considered lost.
+     * 
+     * @return true if the circuit is closed or the trial invocation may be granted
+     */
+    public synchronized boolean isAvailable() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+        case CLOSED:
+            return true;
+        case OPEN:
+            return now - stateChanged >= resetTimeout;
+        default:
+            return trialStarted == -1 || now - trialStarted >= resetTimeout;
+        }
+    }
+    
+    /**
+     * Records the start of an invocation against the address. When the 
+     * circuit is half-open only the first caller is granted the trial 
+     * invocation.
+     * 
+     * @return true if the circuit is closed or the trial invocation is granted
+     */
+    public synchronized boolean acquire() {
+        if (!isAvailable()) {
+            return false;
+        }
+        if (state == State.OPEN) {
+            setState(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            trialStarted = System.currentTimeMillis();
+        }
+        return true;
+    }
+    
+    /**
+     * Records a successful invocation, closing the circuit.
+     */
+    public synchronized void recordSuccess() {
+        failureCount = 0;
+        if (state != State.CLOSED) {
+            setState(State.CLOSED);
+        }
+    }
+    
+    /**
+     * Records a failed invocation, opening the circuit if it is half-open 
+     * or if the failure threshold has been reached.
+     */
+    public synchronized void recordFailure() {
+        failureCount++;
+        if (state == State.HALF_OPEN || failureCount >= failureThreshold) {
+            setState(State.OPEN);
+        }
+    }
+    
+    /**
+     * Records the result of a health probe. A successful probe moves an open
+     * circuit to half-open, a failed one keeps it open for another reset timeout.
+     * 
+     * @param healthy the probe result
+     */
+    synchronized void recordProbe(boolean healthy) {
+        if (state == State.OPEN) {
+            setState(healthy ? State.HALF_OPEN : State.OPEN);
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    private void setState(State s) {
+        state = s;
+        trialStarted = -1;
+        stateChanged = System.currentTimeMillis();
+    }
+    
+    @ManagedAttribute(description = "The target address")
+    public String getAddress() {
+        return address;
+    }
+    
+    @ManagedAttribute(description = "The circuit state: CLOSED, OPEN or HALF_OPEN")
+    public String getStateName() {
+        return getState().name();
+    }
+    
+    @ManagedAttribute(description = "The number of consecutive failures")
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+    
+    @ManagedAttribute(description = "The time of the last state change in milliseconds since the epoch")
+    public synchronized long getStateChanged() {
+        return stateChanged;
+    }
+    
+    @ManagedAttribute(description = "The number of consecutive failures opening the circuit")
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+    
+    @ManagedAttribute(description = "The milliseconds an open circuit waits before becoming half-open")
+    public long getResetTimeout() {
+        return resetTimeout;
+    }
+    
+    @ManagedOperation(description = "Close the circuit")
+    public void reset() {
+        recordSuccess();
+    }
+    
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        if (bus != null) {
+            buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        }
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.NAME_PROP).append('=').append(ObjectName.quote(address));
+        buffer.append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
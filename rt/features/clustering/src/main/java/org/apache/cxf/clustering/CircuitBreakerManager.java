@@ -0,0 +1,372 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
+
+/**
+ * Holds a CircuitBreaker per target address and optionally probes the
+ * addresses whose circuit is open in the background, on the 
+ * "clustering-health-probe" work queue if one is configured or on the
+ * default work queue otherwise. The probes are stopped and the circuit
+ * breakers unregistered from JMX when the bus shuts down.
+ */
+public class CircuitBreakerManager {
+    public static final String WORK_QUEUE = "clustering-health-probe";
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(CircuitBreakerManager.class);
+    
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers 
+        = new ConcurrentHashMap<String, CircuitBreaker>();
+    private int failureThreshold = 3;
+    private long resetTimeout = 30000L;
+    private long probeInterval;
+    private int probeTimeout = 2000;
+    private HealthProbe healthProbe;
+    private Bus bus;
+    private boolean probing;
+    private BusLifeCycleListener busListener;
+    private volatile boolean shutdown;
+    
+    public void setBus(Bus bus) {
+        this.bus = bus;
+    }
+    
+    public Bus getBus() {
+        return bus;
+    }
+    
+    /**
+     * Sets the number of consecutive failures opening the circuit of an address.
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+    }
+    
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+    
+    /**
+     * Sets the time (in milliseconds) after which an open circuit becomes half-open.
+     */
+    public void setResetTimeout(long resetTimeout) {
+        this.resetTimeout = resetTimeout;
+    }
+    
+    public long getResetTimeout() {
+        return resetTimeout;
+    }
+    
+    /**
+     * Sets the interval (in milliseconds) between health probes of the
+     * addresses with an open circuit, 0 (the default) disables probing.
+     */
+    public void setProbeInterval(long probeInterval) {
+        this.probeInterval = probeInterval;
+    }
+    
+    public long getProbeInterval() {
+        return probeInterval;
+    }
+    
+    /**
+     * Sets the connect timeout (in milliseconds) of the default health probe.
+     */
+    public void setProbeTimeout(int probeTimeout) {
+        this.probeTimeout = probeTimeout;
+    }
+    
+    public int getProbeTimeout() {
+        return probeTimeout;
+    }
+    
+    /**
+     * Sets the HealthProbe, by default a TCP connection to the host and port 
+     * of the address is attempted.
+     */
+    public void setHealthProbe(HealthProbe healthProbe) {
+        this.healthProbe = healthProbe;
+    }
+    
+    public HealthProbe getHealthProbe() {
+        return healthProbe;
+    }
+    
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<CircuitBreaker>(circuitBreakers.values());
+    }
+    
+    /**
+     * Get the CircuitBreaker of the given address, creating it if needed.
+     * 
+     * @param address the target address
+     * @return the CircuitBreaker
+     */
+    public CircuitBreaker getCircuitBreaker(String address) {
+        CircuitBreaker breaker = circuitBreakers.get(address);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(address, failureThreshold, resetTimeout);
+            CircuitBreaker old = circuitBreakers.putIfAbsent(address, breaker);
+            if (old != null) {
+                return old;
+            }
+            Bus b = getOrResolveBus();
+            breaker.setBus(b);
+            if (b != null) {
+                registerBusListener(b);
+                register(b, breaker);
+                startProbing(b);
+            }
+        }
+        return breaker;
+    }
+    
+    /**
+     * Check if the given address may currently be used.
+     * 
+     * @param address the target address
+     * @return false if the circuit of the address is open
+     */
+    public boolean isAvailable(String address) {
+        CircuitBreaker breaker = circuitBreakers.get(address);
+        return breaker == null || breaker.isAvailable();
+    }
+    
+    /**
+     * Records the start of an invocation against the given address, taking
+     * the trial invocation if its circuit is half-open.
+     * 
+     * @param address the target address
+     * @return false if the circuit of the address is open or its trial has been taken
+     */
+    public boolean acquire(String address) {
+        CircuitBreaker breaker = circuitBreakers.get(address);
+        return breaker == null || breaker.acquire();
+    }
+    
+    public void recordSuccess(String address) {
+        getCircuitBreaker(address).recordSuccess();
+    }
+    
+    public void recordFailure(String address) {
+        CircuitBreaker breaker = getCircuitBreaker(address);
+        CircuitBreaker.State previous = breaker.getState();
+        breaker.recordFailure();
+        if (previous != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            LOG.log(Level.WARNING, "CIRCUIT_OPENED", address);
+        }
+    }
+    
+    /**
+     * Stops the background health probes and unregisters the circuit breakers
+     * from the InstrumentationManager, called when the bus shuts down.
+     */
+    public void shutdown() {
+        shutdown = true;
+        Bus b;
+        BusLifeCycleListener listener;
+        synchronized (this) {
+            b = bus;
+            listener = busListener;
+            busListener = null;
+        }
+        if (b == null) {
+            return;
+        }
+        if (listener != null) {
+            BusLifeCycleManager lifeCycleManager = b.getExtension(BusLifeCycleManager.class);
+            if (lifeCycleManager != null) {
+                lifeCycleManager.unregisterLifeCycleListener(listener);
+            }
+        }
+        InstrumentationManager imanager = b.getExtension(InstrumentationManager.class);
+        if (imanager != null) {
+            for (CircuitBreaker breaker : circuitBreakers.values()) {
+                try {
+                    imanager.unregister(breaker);
+                } catch (JMException jmex) {
+                    LOG.log(Level.FINE, jmex.getMessage(), jmex);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Probes the addresses whose circuit is currently open.
+     */
+    public void probe() {
+        HealthProbe probe = healthProbe != null ? healthProbe : new ConnectHealthProbe(probeTimeout);
+        for (CircuitBreaker breaker : circuitBreakers.values()) {
+            if (breaker.getState() == CircuitBreaker.State.OPEN) {
+                boolean healthy = false;
+                try {
+                    healthy = probe.isHealthy(breaker.getAddress());
+                } catch (RuntimeException ex) {
+                    LOG.log(Level.FINE, "Health probe of " + breaker.getAddress() + " failed", ex);
+                }
+                breaker.recordProbe(healthy);
+                if (healthy) {
+                    LOG.log(Level.INFO, "CIRCUIT_HALF_OPENED", breaker.getAddress());
+                }
+            }
+        }
+    }
+    
+    private synchronized Bus getOrResolveBus() {
+        if (bus == null) {
+            bus = BusFactory.getThreadDefaultBus(false);
+        }
+        return bus;
+    }
+    
+    private synchronized void registerBusListener(Bus b) {
+        if (busListener != null || shutdown) {
+            return;
+        }
+        BusLifeCycleManager lifeCycleManager = b.getExtension(BusLifeCycleManager.class);
+        if (lifeCycleManager != null) {
+            busListener = new BusLifeCycleListener() {
+                public void initComplete() {
+                }
+                public void preShutdown() {
+                    shutdown();
+                }
+                public void postShutdown() {
+                }
+            };
+            lifeCycleManager.registerLifeCycleListener(busListener);
+        }
+    }
+    
+    private static void register(Bus b, CircuitBreaker breaker) {
+        InstrumentationManager imanager = b.getExtension(InstrumentationManager.class);
+        if (imanager != null) {
+            try {
+                imanager.register(breaker);
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, jmex.getMessage(), jmex);
+            }
+        }
+    }
+    
+    private synchronized void startProbing(Bus b) {
+        if (probing || probeInterval <= 0 || shutdown) {
+            return;
+        }
+        WorkQueueManager manager = b.getExtension(WorkQueueManager.class);
+        if (manager == null) {
+            return;
+        }
+        AutomaticWorkQueue queue = manager.getNamedWorkQueue(WORK_QUEUE);
+        if (queue == null) {
+            queue = manager.getAutomaticWorkQueue();
+        }
+        probing = true;
+        new ProbeTask(queue).schedule();
+    }
+    
+    private class ProbeTask implements Runnable {
+        private final AutomaticWorkQueue queue;
+        
+        ProbeTask(AutomaticWorkQueue queue) {
+            this.queue = queue;
+        }
+        
+        void schedule() {
+            try {
+                queue.schedule(this, probeInterval);
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.FINE, "Health probes stopped, work queue " + queue.getName() 
+                        + " does not accept work", ex);
+                synchronized (CircuitBreakerManager.this) {
+                    probing = false;
+                }
+            }
+        }
+        
+        public void run() {
+            if (shutdown) {
+                return;
+            }
+            try {
+                probe();
+            } finally {
+                schedule();
+            }
+        }
+    }
+    
+    private static class ConnectHealthProbe implements HealthProbe {
+        private final int timeout;
+        
+        ConnectHealthProbe(int timeout) {
+            this.timeout = timeout;
+        }
+        
+        public boolean isHealthy(String address) {
+            URI uri = URI.create(address);
+            if (uri.getHost() == null) {
+                return false;
+            }
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            }
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(uri.getHost(), port), timeout);
+                return true;
+            } catch (IOException ex) {
+                return false;
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
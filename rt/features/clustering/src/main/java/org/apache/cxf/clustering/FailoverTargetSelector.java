@@ -49,6 +49,10 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
 
     private static final Logger LOG =
         LogUtils.getL7dLogger(FailoverTargetSelector.class);
+    private static final String INVOCATION_START_TIME = 
+        "org.apache.cxf.clustering.FailoverTargetSelector.INVOCATION_START_TIME";
+    private static final String INVOCATION_ADDRESS = 
+        "org.apache.cxf.clustering.FailoverTargetSelector.INVOCATION_ADDRESS";
     protected ConcurrentHashMap<InvocationKey, InvocationContext> inProgress 
         = new ConcurrentHashMap<InvocationKey, InvocationContext>();
     protected FailoverStrategy failoverStrategy;
@@ -113,7 +117,10 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         if (c != null) {
             return c;
         }
-        return getSelectedConduit(message);
+        selectAvailableTarget(message);
+        c = getSelectedConduit(message);
+        invocationStarted(message.getExchange());
+        return c;
     }
 
     protected InvocationContext getInvocationContext(InvocationKey key) { 
@@ -128,6 +135,7 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
     public void complete(Exchange exchange) {
         InvocationKey key = new InvocationKey(exchange);
         InvocationContext invocation = getInvocationContext(key);
+        invocationCompleted(exchange);
         if (invocation == null) {
             super.complete(exchange);
             return;
@@ -199,6 +207,144 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         return failover;
     }
     
+    /**
+     * Makes sure the message is not sent to an address whose circuit is open,
+     * or whose half-open trial invocation has already been taken. The circuit
+     * of the currently selected address is acquired, and if that fails the 
+     * first alternate whose circuit can be acquired is selected instead. If
+     * none can, the currently selected address is kept, the same way the 
+     * circuit state is ignored when the circuits of all alternates are open.
+     * 
+     * @param message the current Message
+     */
+    protected void selectAvailableTarget(Message message) {
+        Exchange exchange = message.getExchange();
+        CircuitBreakerManager circuitBreakers = getCircuitBreakerManager(failoverStrategy);
+        if (circuitBreakers == null || exchange == null || exchange.get(INVOCATION_START_TIME) != null) {
+            return;
+        }
+        String address = getEndpoint().getEndpointInfo().getAddress();
+        if (circuitBreakers.acquire(address)) {
+            return;
+        }
+        List<String> alternateAddresses = failoverStrategy.getAlternateAddresses(exchange);
+        if (alternateAddresses != null) {
+            for (String alternate : alternateAddresses) {
+                if (!alternate.equals(address) && circuitBreakers.acquire(alternate)) {
+                    getEndpoint().getEndpointInfo().setAddress(alternate);
+                    switchTarget(message, alternate);
+                    return;
+                }
+            }
+        } else {
+            List<Endpoint> alternateEndpoints = failoverStrategy.getAlternateEndpoints(exchange);
+            if (alternateEndpoints != null) {
+                for (Endpoint alternate : alternateEndpoints) {
+                    String alternateAddress = alternate.getEndpointInfo().getAddress();
+                    if (!alternateAddress.equals(address) && circuitBreakers.acquire(alternateAddress)) {
+                        setEndpoint(alternate);
+                        switchTarget(message, alternateAddress);
+                        return;
+                    }
+                }
+            }
+        }
+        getLogger().log(Level.FINE, "ALL_CIRCUITS_OPEN");
+    }
+    
+    private void switchTarget(Message message, String address) {
+        getLogger().log(Level.WARNING, "CIRCUIT_OPEN_SWITCHING_TO_ADDRESS", address);
+        message.put(Message.ENDPOINT_ADDRESS, address);
+        message.put(CONDUIT_COMPARE_FULL_URL, Boolean.TRUE);
+        InvocationContext invocation = getInvocationContext(new InvocationKey(message.getExchange()));
+        if (invocation != null) {
+            overrideAddressProperty(invocation.getContext(), address);
+        }
+    }
+    
+    /**
+     * Records the start of an invocation against the currently selected
+     * address if the strategy is interested in it. The circuit of that 
+     * address has already been acquired by {@link #selectAvailableTarget(Message)}.
+     * 
+     * @param exchange the current Exchange
+     */
+    protected void invocationStarted(Exchange exchange) {
+        FailoverStrategy strategy = failoverStrategy;
+        if (exchange != null && exchange.get(INVOCATION_START_TIME) == null
+            && (strategy instanceof LoadAwareStrategy || getCircuitBreakerManager(strategy) != null)) {
+            String address = getEndpoint().getEndpointInfo().getAddress();
+            exchange.put(INVOCATION_ADDRESS, address);
+            exchange.put(INVOCATION_START_TIME, System.nanoTime());
+            if (strategy instanceof LoadAwareStrategy) {
+                ((LoadAwareStrategy)strategy).invocationStarted(address);
+            }
+        }
+    }
+    
+    /**
+     * Reports the outcome and the response time of the invocation started 
+     * with {@link #invocationStarted(Exchange)} to the strategy and to its
+     * circuit breakers.
+     * 
+     * @param exchange the current Exchange
+     */
+    protected void invocationCompleted(Exchange exchange) {
+        Long start = (Long)exchange.remove(INVOCATION_START_TIME);
+        String address = (String)exchange.remove(INVOCATION_ADDRESS);
+        if (start == null || address == null) {
+            return;
+        }
+        FailoverStrategy strategy = failoverStrategy;
+        boolean failed = isTransportFailure(exchange);
+        if (strategy instanceof LoadAwareStrategy) {
+            ((LoadAwareStrategy)strategy).invocationCompleted(address, 
+                                                              System.nanoTime() - start, 
+                                                              failed);
+        }
+        CircuitBreakerManager circuitBreakers = getCircuitBreakerManager(strategy);
+        if (circuitBreakers != null) {
+            if (failed) {
+                circuitBreakers.recordFailure(address);
+            } else {
+                circuitBreakers.recordSuccess(address);
+            }
+        }
+    }
+    
+    private static CircuitBreakerManager getCircuitBreakerManager(FailoverStrategy strategy) {
+        return strategy instanceof AbstractStaticFailoverStrategy
+            ? ((AbstractStaticFailoverStrategy)strategy).getCircuitBreakerManager()
+            : null;
+    }
+    
+    /**
+     * An invocation is considered failed if it raised an IOException, 
+     * unless the target did respond and did not report itself unavailable.
+     */
+    private static boolean isTransportFailure(Exchange exchange) {
+        if (exchange.get(Message.RESPONSE_CODE) != null
+            && !PropertyUtils.isTrue(exchange.get("org.apache.cxf.transport.service_not_available"))) {
+            return false;
+        }
+        Message outMessage = exchange.getOutMessage();
+        Throwable curr = exchange.get(Exception.class);
+        if (outMessage != null) {
+            if (outMessage.getContent(Exception.class) != null) {
+                curr = outMessage.getContent(Exception.class);
+            } else if (outMessage.get(Exception.class) != null) {
+                curr = outMessage.get(Exception.class);
+            }
+        }
+        while (curr != null) {
+            if (curr instanceof java.io.IOException) {
+                return true;
+            }
+            curr = curr.getCause();
+        }
+        return false;
+    }
+    
     protected void onSuccess(InvocationContext context) {
     }
     
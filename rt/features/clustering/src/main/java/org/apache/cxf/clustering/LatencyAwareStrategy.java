@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failover and load distribution strategy which prefers the targets
+ * currently performing best. Two alternates are picked at random and
+ * the one with the lower load, estimated as the exponentially weighted
+ * moving average of its response time multiplied by the number of
+ * invocations still in flight, is selected ("power of two choices").
+ * The statistics are fed by the FailoverTargetSelector and the
+ * LoadDistributorTargetSelector.
+ */
+public class LatencyAwareStrategy extends AbstractStaticFailoverStrategy implements LoadAwareStrategy {
+    
+    private static final long DEFAULT_DECAY_TIME = 10000L;
+    private static final long DEFAULT_FAILURE_PENALTY = 1000L;
+    
+    private final ConcurrentMap<String, AddressStatistics> statistics 
+        = new ConcurrentHashMap<String, AddressStatistics>();
+    private Random random;
+    private long decayTime = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DECAY_TIME);
+    private long failurePenalty = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FAILURE_PENALTY);
+    
+    /**
+     * Constructor.
+     */
+    public LatencyAwareStrategy() {
+        random = new Random();
+    }
+    
+    /**
+     * Sets the time (in milliseconds) after which an observed response time
+     * has lost about two thirds of its weight in the moving average.
+     */
+    public void setDecayTime(long decayTime) {
+        if (decayTime <= 0) {
+            throw new IllegalArgumentException("Decay time must be positive: " + decayTime);
+        }
+        this.decayTime = TimeUnit.MILLISECONDS.toNanos(decayTime);
+    }
+    
+    public long getDecayTime() {
+        return TimeUnit.NANOSECONDS.toMillis(decayTime);
+    }
+    
+    /**
+     * Sets the minimal response time (in milliseconds) recorded for a failed 
+     * invocation so that quickly failing targets do not look attractive.
+     */
+    public void setFailurePenalty(long failurePenalty) {
+        if (failurePenalty < 0) {
+            throw new IllegalArgumentException("Failure penalty must not be negative: " + failurePenalty);
+        }
+        this.failurePenalty = TimeUnit.MILLISECONDS.toNanos(failurePenalty);
+    }
+    
+    public long getFailurePenalty() {
+        return TimeUnit.NANOSECONDS.toMillis(failurePenalty);
+    }
+    
+    public void invocationStarted(String address) {
+        getStatistics(address).started();
+    }
+    
+    public void invocationCompleted(String address, long responseTime, boolean failed) {
+        getStatistics(address).completed(failed ? Math.max(responseTime, failurePenalty) : responseTime,
+                                         System.nanoTime(), decayTime);
+    }
+    
+    /**
+     * Get the current moving average of the response time of the given address.
+     * 
+     * @param address the target address
+     * @return the average response time in nanoseconds, 0 if nothing has been recorded yet
+     */
+    public long getResponseTime(String address) {
+        AddressStatistics stats = statistics.get(address);
+        return stats == null ? 0 : (long)stats.getAverage();
+    }
+    
+    /**
+     * Get the number of invocations currently in flight against the given address.
+     * 
+     * @param address the target address
+     * @return the number of outstanding invocations
+     */
+    public int getOutstandingInvocations(String address) {
+        AddressStatistics stats = statistics.get(address);
+        return stats == null ? 0 : stats.getOutstanding();
+    }
+    
+    /**
+     * Get next alternate endpoint.
+     * 
+     * @param alternates non-empty List of alternate endpoints 
+     * @return
+     */
+    protected <T> T getNextAlternate(List<T> alternates) {
+        int size = alternates.size();
+        if (size == 1) {
+            return alternates.remove(0);
+        }
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        return alternates.remove(getLoad(alternates.get(second)) < getLoad(alternates.get(first))
+                                 ? second : first);
+    }
+    
+    protected double getLoad(Object alternate) {
+        AddressStatistics stats = statistics.get(getAddress(alternate));
+        if (stats == null) {
+            // nothing known about this target yet, give it a chance
+            return 0;
+        }
+        return (stats.getAverage() + 1) * (stats.getOutstanding() + 1);
+    }
+    
+    private AddressStatistics getStatistics(String address) {
+        AddressStatistics stats = statistics.get(address);
+        if (stats == null) {
+            stats = new AddressStatistics();
+            AddressStatistics old = statistics.putIfAbsent(address, stats);
+            if (old != null) {
+                stats = old;
+            }
+        }
+        return stats;
+    }
+    
+    static class AddressStatistics {
+        private int outstanding;
+        private double average = -1;
+        private long lastUpdate;
+        
+        synchronized void started() {
+            outstanding++;
+        }
+        
+        synchronized void completed(long responseTime, long now, long decayTime) {
+            if (outstanding > 0) {
+                outstanding--;
+            }
+            if (average < 0) {
+                average = responseTime;
+            } else {
+                // the longer since the last sample, the less the old average counts
+                double weight = Math.exp(-(double)Math.max(now - lastUpdate, 0) / decayTime);
+                average = average * weight + responseTime * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+        
+        synchronized double getAverage() {
+            return average < 0 ? 0 : average;
+        }
+        
+        synchronized int getOutstanding() {
+            return outstanding;
+        }
+    }
+}
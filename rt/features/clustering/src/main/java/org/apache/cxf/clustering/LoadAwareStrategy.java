@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+/**
+ * A FailoverStrategy which takes the observed performance of the
+ * targets into account. The conduit selector reports the start and
+ * the completion of every invocation made against a given address.
+ */
+public interface LoadAwareStrategy extends FailoverStrategy {
+    
+    /**
+     * Called when an invocation against the given address is started.
+     * 
+     * @param address the target address
+     */
+    void invocationStarted(String address);
+    
+    /**
+     * Called when an invocation against the given address has completed.
+     * 
+     * @param address the target address
+     * @param responseTime the response time in nanoseconds
+     * @param failed true if the invocation failed at the transport level
+     */
+    void invocationCompleted(String address, long responseTime, boolean failed);
+}
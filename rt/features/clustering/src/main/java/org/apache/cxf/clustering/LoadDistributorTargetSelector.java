@@ -113,7 +113,10 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
                 invocation.getContext().put(IS_DISTRIBUTED, null);
             }
         }
-        return getSelectedConduit(message);
+        selectAvailableTarget(message);
+        c = getSelectedConduit(message);
+        invocationStarted(exchange);
+        return c;
     }
 
     /**
@@ -175,7 +178,9 @@ public class LoadDistributorTargetSelector extends FailoverTargetSelector {
     private Endpoint getDistributionTarget(Exchange exchange,
                                            InvocationContext invocation) {
         List<String> alternateAddresses = null;
-        if ((addressList == null) || (addressList.isEmpty())) {
+        if ((addressList == null) || (addressList.isEmpty()) 
+            || getStrategy() instanceof LoadAwareStrategy) {
+            // load aware strategies pick from all the current addresses every time
             try {
                 addressList = getStrategy().getAlternateAddresses(null);
             } catch (NullPointerException ex) {
@@ -38,7 +38,7 @@ public class RetryStrategy extends SequentialStrategy {
      */
     @Override
     public List<Endpoint> getAlternateEndpoints(Exchange exchange) {
-        return getEndpoints(exchange, stillTheSameAddress());
+        return filterAvailable(getEndpoints(exchange, stillTheSameAddress()));
     }
     
     protected <T> T getNextAlternate(List<T> alternates) {
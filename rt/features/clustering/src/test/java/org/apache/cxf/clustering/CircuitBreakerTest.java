@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest extends Assert {
+    
+    private static final String FIRST = "http://localhost:9001/first";
+    private static final String SECOND = "http://localhost:9002/second";
+
+    @Test
+    public void testStateTransitions() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(FIRST, 2, 50);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure();
+        assertTrue(breaker.isAvailable());
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertTrue("Failures must be consecutive", breaker.isAvailable());
+        breaker.recordFailure();
+        assertFalse(breaker.isAvailable());
+        assertEquals("OPEN", breaker.getStateName());
+        
+        Thread.sleep(100);
+        assertTrue(breaker.isAvailable());
+        assertEquals("Querying the circuit must not change its state", 
+                     CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.acquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        
+        Thread.sleep(100);
+        assertTrue(breaker.acquire());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureCount());
+    }
+    
+    @Test
+    public void testSingleTrialWhenHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(FIRST, 1, 200);
+        breaker.recordFailure();
+        assertFalse(breaker.isAvailable());
+        assertFalse(breaker.acquire());
+        
+        Thread.sleep(250);
+        assertTrue(breaker.isAvailable());
+        assertTrue("Querying the circuit must not take the trial", breaker.isAvailable());
+        assertTrue("The trial invocation must be granted", breaker.acquire());
+        assertFalse(breaker.isAvailable());
+        assertFalse("Only one trial invocation may be granted", breaker.acquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.recordSuccess();
+        assertTrue(breaker.acquire());
+        assertTrue(breaker.acquire());
+        
+        breaker.recordFailure();
+        Thread.sleep(250);
+        assertTrue(breaker.acquire());
+        assertFalse(breaker.acquire());
+        Thread.sleep(250);
+        assertTrue("A lost trial must be granted again", breaker.acquire());
+        assertFalse(breaker.acquire());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isAvailable());
+    }
+    
+    @Test
+    public void testTrialTakenOnlyBySelectedAddress() throws Exception {
+        CircuitBreakerManager manager = new CircuitBreakerManager();
+        manager.setFailureThreshold(1);
+        manager.setResetTimeout(200);
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(FIRST, SECOND));
+        strategy.setCircuitBreakerManager(manager);
+        
+        manager.recordFailure(FIRST);
+        manager.recordFailure(SECOND);
+        Thread.sleep(250);
+        
+        List<String> alternates = strategy.getAlternateAddresses(null);
+        assertEquals(Arrays.asList(FIRST, SECOND), alternates);
+        assertEquals("Building the candidate list must not take any trial",
+                     Arrays.asList(FIRST, SECOND), strategy.getAlternateAddresses(null));
+        
+        String selected = strategy.selectAlternateAddress(alternates);
+        assertEquals(FIRST, selected);
+        assertTrue(manager.acquire(selected));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, manager.getCircuitBreaker(FIRST).getState());
+        assertEquals("The address not selected must keep its trial",
+                     Arrays.asList(SECOND), strategy.getAlternateAddresses(null));
+        assertTrue(manager.acquire(SECOND));
+        
+        manager.recordSuccess(SECOND);
+        assertEquals(Arrays.asList(SECOND), strategy.getAlternateAddresses(null));
+        manager.recordSuccess(FIRST);
+        assertEquals(Arrays.asList(FIRST, SECOND), strategy.getAlternateAddresses(null));
+    }
+    
+    @Test
+    public void testStrategySkipsOpenCircuits() {
+        CircuitBreakerManager manager = new CircuitBreakerManager();
+        manager.setFailureThreshold(1);
+        manager.setResetTimeout(60000);
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(FIRST, SECOND));
+        strategy.setCircuitBreakerManager(manager);
+        
+        assertEquals(Arrays.asList(FIRST, SECOND), strategy.getAlternateAddresses(null));
+        manager.recordFailure(FIRST);
+        assertFalse(manager.isAvailable(FIRST));
+        assertEquals(Arrays.asList(SECOND), strategy.getAlternateAddresses(null));
+        
+        manager.recordFailure(SECOND);
+        assertEquals("All circuits open, circuit state must be ignored",
+                     Arrays.asList(FIRST, SECOND), strategy.getAlternateAddresses(null));
+        
+        manager.getCircuitBreaker(FIRST).reset();
+        assertEquals(Arrays.asList(FIRST), strategy.getAlternateAddresses(null));
+    }
+    
+    @Test
+    public void testSelectorAvoidsOpenPrimary() {
+        CircuitBreakerManager manager = new CircuitBreakerManager();
+        manager.setFailureThreshold(1);
+        manager.setResetTimeout(60000);
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(FIRST, SECOND));
+        strategy.setCircuitBreakerManager(manager);
+        FailoverTargetSelector selector = new FailoverTargetSelector();
+        selector.setStrategy(strategy);
+        
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(FIRST);
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(ei).anyTimes();
+        EasyMock.replay(endpoint);
+        selector.setEndpoint(endpoint);
+        
+        Message message = createMessage();
+        selector.selectAvailableTarget(message);
+        assertEquals("A closed primary must be kept", FIRST, ei.getAddress());
+        assertNull(message.get(Message.ENDPOINT_ADDRESS));
+        
+        manager.recordFailure(FIRST);
+        message = createMessage();
+        selector.selectAvailableTarget(message);
+        assertEquals("An open primary must not be used", SECOND, ei.getAddress());
+        assertEquals(SECOND, message.get(Message.ENDPOINT_ADDRESS));
+        
+        manager.recordFailure(SECOND);
+        message = createMessage();
+        selector.selectAvailableTarget(message);
+        assertEquals("All circuits open, the selected address must be kept", SECOND, ei.getAddress());
+    }
+    
+    private static Message createMessage() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.setOutMessage(message);
+        return message;
+    }
+    
+    @Test
+    public void testHealthProbe() {
+        CircuitBreakerManager manager = new CircuitBreakerManager();
+        manager.setFailureThreshold(1);
+        manager.setHealthProbe(new HealthProbe() {
+            public boolean isHealthy(String address) {
+                return SECOND.equals(address);
+            }
+        });
+        manager.recordFailure(FIRST);
+        manager.recordFailure(SECOND);
+        manager.probe();
+        assertEquals(CircuitBreaker.State.OPEN, manager.getCircuitBreaker(FIRST).getState());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, manager.getCircuitBreaker(SECOND).getState());
+        
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setCircuitBreakerManager(manager);
+        List<String> available = strategy.filterAvailable(Arrays.asList(FIRST, SECOND));
+        assertEquals(Arrays.asList(SECOND), available);
+        assertEquals(2, manager.getCircuitBreakers().size());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyAwareStrategyTest extends Assert {
+    
+    private static final String FAST = "http://localhost:9001/fast";
+    private static final String SLOW = "http://localhost:9002/slow";
+
+    @Test
+    public void testPrefersFasterAddress() {
+        LatencyAwareStrategy strategy = new LatencyAwareStrategy();
+        strategy.invocationStarted(FAST);
+        strategy.invocationCompleted(FAST, TimeUnit.MILLISECONDS.toNanos(5), false);
+        strategy.invocationStarted(SLOW);
+        strategy.invocationCompleted(SLOW, TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertEquals(0, strategy.getOutstandingInvocations(FAST));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), strategy.getResponseTime(SLOW));
+        
+        for (int x = 0; x < 20; x++) {
+            assertEquals(FAST, strategy.selectAlternateAddress(addresses()));
+        }
+    }
+    
+    @Test
+    public void testPrefersLessOutstandingInvocations() {
+        LatencyAwareStrategy strategy = new LatencyAwareStrategy();
+        strategy.invocationCompleted(FAST, TimeUnit.MILLISECONDS.toNanos(10), false);
+        strategy.invocationCompleted(SLOW, TimeUnit.MILLISECONDS.toNanos(10), false);
+        for (int x = 0; x < 3; x++) {
+            strategy.invocationStarted(FAST);
+        }
+        assertEquals(3, strategy.getOutstandingInvocations(FAST));
+        assertEquals(SLOW, strategy.selectAlternateAddress(addresses()));
+    }
+    
+    @Test
+    public void testFailurePenalty() {
+        LatencyAwareStrategy strategy = new LatencyAwareStrategy();
+        strategy.setFailurePenalty(2000);
+        strategy.invocationStarted(FAST);
+        strategy.invocationCompleted(FAST, TimeUnit.MILLISECONDS.toNanos(1), true);
+        strategy.invocationCompleted(SLOW, TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2000), strategy.getResponseTime(FAST));
+        assertEquals(SLOW, strategy.selectAlternateAddress(addresses()));
+    }
+    
+    @Test
+    public void testUnknownAddressIsTried() {
+        LatencyAwareStrategy strategy = new LatencyAwareStrategy();
+        strategy.invocationCompleted(SLOW, TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertEquals(FAST, strategy.selectAlternateAddress(addresses()));
+        
+        List<String> single = new ArrayList<String>(Arrays.asList(SLOW));
+        assertEquals(SLOW, strategy.selectAlternateAddress(single));
+        assertTrue(single.isEmpty());
+    }
+    
+    @Test
+    public void testSelectorRecordsResponseTime() {
+        LatencyAwareStrategy strategy = new LatencyAwareStrategy();
+        FailoverTargetSelector selector = new FailoverTargetSelector();
+        selector.setStrategy(strategy);
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(FAST);
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        EasyMock.expect(endpoint.getEndpointInfo()).andReturn(ei).anyTimes();
+        EasyMock.replay(endpoint);
+        selector.setEndpoint(endpoint);
+        
+        Exchange exchange = new ExchangeImpl();
+        Message out = new MessageImpl();
+        exchange.setOutMessage(out);
+        selector.invocationStarted(exchange);
+        selector.invocationStarted(exchange);
+        assertEquals(1, strategy.getOutstandingInvocations(FAST));
+        
+        out.setContent(Exception.class, new java.net.ConnectException());
+        selector.invocationCompleted(exchange);
+        assertEquals(0, strategy.getOutstandingInvocations(FAST));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(strategy.getFailurePenalty()), 
+                     strategy.getResponseTime(FAST));
+        
+        selector.invocationCompleted(exchange);
+        assertEquals(0, strategy.getOutstandingInvocations(FAST));
+    }
+    
+    private static List<String> addresses() {
+        return new ArrayList<String>(Arrays.asList(FAST, SLOW));
+    }
+}
@@ -21,10 +21,13 @@ package org.apache.cxf.jaxrs;
 
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
 
@@ -50,6 +53,7 @@ import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
+import org.apache.cxf.jaxrs.model.ResourceMethodInvoker;
 import org.apache.cxf.jaxrs.model.URITemplate;
 import org.apache.cxf.jaxrs.provider.ServerProviderFactory;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -63,11 +67,23 @@ public class JAXRSInvoker extends AbstractInvoker {
     private static final Logger LOG = LogUtils.getL7dLogger(JAXRSInvoker.class);
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(JAXRSInvoker.class);
     private static final String SERVICE_LOADER_AS_CONTEXT = "org.apache.cxf.serviceloader-context";
+    private static final String COMPILED_INVOCATION = "org.apache.cxf.jaxrs.compiled.invocation";
     private static final String SERVICE_OBJECT_SCOPE = "org.apache.cxf.service.scope";
     private static final String REQUEST_SCOPE = "request";    
     private static final String LAST_SERVICE_OBJECT = "org.apache.cxf.service.object.last";
     private static final String PROXY_INVOCATION_ERROR_FRAGMENT 
         = "object is not an instance of declaring class"; 
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = new HashMap<Class<?>, Class<?>>();
+    static {
+        PRIMITIVE_WRAPPERS.put(Boolean.TYPE, Boolean.class);
+        PRIMITIVE_WRAPPERS.put(Byte.TYPE, Byte.class);
+        PRIMITIVE_WRAPPERS.put(Character.TYPE, Character.class);
+        PRIMITIVE_WRAPPERS.put(Short.TYPE, Short.class);
+        PRIMITIVE_WRAPPERS.put(Integer.TYPE, Integer.class);
+        PRIMITIVE_WRAPPERS.put(Long.TYPE, Long.class);
+        PRIMITIVE_WRAPPERS.put(Float.TYPE, Float.class);
+        PRIMITIVE_WRAPPERS.put(Double.TYPE, Double.class);
+    }
     
     public JAXRSInvoker() {
     }
@@ -302,6 +318,48 @@ public class JAXRSInvoker extends AbstractInvoker {
         return result;
     }
     
+    @Override
+    protected Object performInvocation(Exchange exchange, final Object serviceObject, Method m,
+                                       Object[] paramArray) throws Exception {
+        if (isCompiledInvocation(exchange.getInMessage())) {
+            OperationResourceInfo ori = exchange.get(OperationResourceInfo.class);
+            ResourceMethodInvoker invoker = ori == null ? null
+                : ori.getClassResourceInfo().getMethodDispatcher().getMethodInvoker(m);
+            Object[] params = invoker == null ? null : insertExchange(m, paramArray, exchange);
+            // the generated casts would fail with a ClassCastException or a NullPointerException
+            // on arguments Method.invoke rejects or converts, let reflection handle these
+            if (params != null && argumentsMatch(m, serviceObject, params)) {
+                try {
+                    return invoker.invoke(serviceObject, params);
+                } catch (Throwable t) {
+                    // keep the Method.invoke contract expected by AbstractInvoker
+                    throw new InvocationTargetException(t);
+                }
+            }
+        }
+        return super.performInvocation(exchange, serviceObject, m, paramArray);
+    }
+    
+    private static boolean argumentsMatch(Method m, Object serviceObject, Object[] params) {
+        Class<?>[] types = m.getParameterTypes();
+        if (types.length != params.length || !m.getDeclaringClass().isInstance(serviceObject)) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            Object param = params[i];
+            if (param == null) {
+                if (type.isPrimitive()) {
+                    return false;
+                }
+            } else if (type.isPrimitive() ? PRIMITIVE_WRAPPERS.get(type) != param.getClass()
+                : !type.isInstance(param)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     private MessageContentsList checkExchangeForResponse(Exchange exchange) {
         Response r = exchange.get(Response.class);
         if (r != null) {
@@ -357,6 +415,11 @@ public class JAXRSInvoker extends AbstractInvoker {
         return Boolean.TRUE.equals(en) || "true".equals(en);
     }
     
+    private boolean isCompiledInvocation(Message inMessage) {
+        Object en = inMessage.getContextualProperty(COMPILED_INVOCATION);
+        return Boolean.TRUE.equals(en) || "true".equals(en);
+    }
+    
     private boolean isServiceObjectRequestScope(Message inMessage) {
         Object scope = inMessage.getContextualProperty(SERVICE_OBJECT_SCOPE);
         return REQUEST_SCOPE.equals(scope);
@@ -35,6 +35,7 @@ import org.apache.cxf.BusFactory;
 import org.apache.cxf.common.util.ClassHelper;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.ResourceMatchIndex;
 import org.apache.cxf.jaxrs.model.UserResource;
 import org.apache.cxf.jaxrs.utils.AnnotationUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -57,6 +58,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
     private Executor executor;
     private boolean enableStatic;
     private QName serviceName;
+    private int operationCacheSize;
     
     public JAXRSServiceFactoryBean() {
     }
@@ -84,11 +86,28 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
         this.enableStatic = staticResolution;
     }
     
+    /**
+     * Sets the maximum number of requests for which the selected resource
+     * method is cached, the cache is disabled by default.
+     */
+    public void setOperationCacheSize(int size) {
+        this.operationCacheSize = size;
+    }
+    
+    public int getOperationCacheSize() {
+        return operationCacheSize;
+    }
+    
     @Override
     public Service create() {
         sendEvent(Event.START_CREATE);
 
         initializeServiceModel();
+        
+        if (getService() instanceof JAXRSServiceImpl) {
+            ((JAXRSServiceImpl)getService()).setResourceMatchIndex(
+                new ResourceMatchIndex(classResourceInfos, operationCacheSize));
+        }
 
         initializeDefaultInterceptors();
 
@@ -38,6 +38,7 @@ import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.AbstractAttributedInterceptorProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.model.ResourceMatchIndex;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -65,6 +66,7 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
     private String address;
     private boolean createServiceModel;
     private QName serviceName;
+    private ResourceMatchIndex resourceMatchIndex;
     
     public JAXRSServiceImpl(String address, QName qname) {
         this.address = address;
@@ -89,6 +91,14 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
         createServiceModel = create;
     }
     
+    public ResourceMatchIndex getResourceMatchIndex() {
+        return resourceMatchIndex;
+    }
+    
+    public void setResourceMatchIndex(ResourceMatchIndex index) {
+        resourceMatchIndex = index;
+    }
+    
     public String getBeanName() {
         return getName().toString();
     }
@@ -0,0 +1,33 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.ext;
+
+/**
+ * Marker interface for MessageBodyReader and MessageBodyWriter providers
+ * whose isReadable and isWriteable answers depend only on the Java type,
+ * the generic type, the annotations and the media type being checked.
+ * The provider factory may remember the provider selected for a given
+ * combination of these values and skip the selection loop for later
+ * requests, so providers which consult the request context or mutable
+ * state in isReadable or isWriteable must not implement it.
+ */
+public interface CacheableEntityProvider {
+
+}
@@ -48,6 +48,7 @@ import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.model.ResourceMatchIndex;
 import org.apache.cxf.jaxrs.model.URITemplate;
 import org.apache.cxf.jaxrs.provider.ServerProviderFactory;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
@@ -153,37 +154,53 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         }
         message.getExchange().put(Message.ACCEPT_CONTENT_TYPE, acceptContentTypes);
 
-        //1. Matching target resource class
         List<ClassResourceInfo> resources = JAXRSUtils.getRootResources(message);
-        Map<ClassResourceInfo, MultivaluedMap<String, String>> matchedResources = 
-            JAXRSUtils.selectResourceClass(resources, rawPath, message);
-        if (matchedResources == null) {
-            org.apache.cxf.common.i18n.Message errorMsg = 
-                new org.apache.cxf.common.i18n.Message("NO_ROOT_EXC", 
-                                                   BUNDLE,
-                                                   message.get(Message.REQUEST_URI),
-                                                   rawPath);
-            LOG.warning(errorMsg.toString());
-            Response resp = JAXRSUtils.createResponse(resources, message, errorMsg.toString(), 
-                    Response.Status.NOT_FOUND.getStatusCode(), false);
-            throw new NotFoundException(resp);
-        }
-
-        MultivaluedMap<String, String> matchedValues = new MetadataMap<String, String>();
-                
+        MultivaluedMap<String, String> matchedValues = null;
         OperationResourceInfo ori = null;     
         
-        try {                
-            ori = JAXRSUtils.findTargetMethod(matchedResources, message, 
-                      httpMethod, matchedValues, requestContentType, acceptContentTypes, true);
-            setExchangeProperties(message, ori, matchedValues, resources.size());
-        } catch (WebApplicationException ex) {
-            if (JAXRSUtils.noResourceMethodForOptions(ex.getResponse(), httpMethod)) {
-                Response response = JAXRSUtils.createResponse(resources, null, null, 200, true);
-                message.getExchange().put(Response.class, response);
-                return;
-            } else {
-                throw ex;
+        // Resource methods selected for identical earlier requests
+        ResourceMatchIndex index = getOperationCache(message, resources);
+        ResourceMatchIndex.OperationMatch cachedMatch = index == null ? null 
+            : index.getCachedOperation(rawPath, httpMethod, requestContentType, acceptTypes);
+        if (cachedMatch != null) {
+            ori = cachedMatch.getOperationResourceInfo();
+            matchedValues = cachedMatch.getTemplateValues();
+            message.getExchange().put(Message.CONTENT_TYPE, cachedMatch.getResponseContentType());
+            JAXRSUtils.pushOntoStack(ori, matchedValues, message);
+        } else {
+            //1. Matching target resource class
+            Map<ClassResourceInfo, MultivaluedMap<String, String>> matchedResources = 
+                JAXRSUtils.selectResourceClass(resources, rawPath, message);
+            if (matchedResources == null) {
+                org.apache.cxf.common.i18n.Message errorMsg = 
+                    new org.apache.cxf.common.i18n.Message("NO_ROOT_EXC", 
+                                                       BUNDLE,
+                                                       message.get(Message.REQUEST_URI),
+                                                       rawPath);
+                LOG.warning(errorMsg.toString());
+                Response resp = JAXRSUtils.createResponse(resources, message, errorMsg.toString(), 
+                        Response.Status.NOT_FOUND.getStatusCode(), false);
+                throw new NotFoundException(resp);
+            }
+    
+            matchedValues = new MetadataMap<String, String>();
+            
+            try {                
+                ori = JAXRSUtils.findTargetMethod(matchedResources, message, 
+                          httpMethod, matchedValues, requestContentType, acceptContentTypes, true);
+                setExchangeProperties(message, ori, matchedValues, resources.size());
+            } catch (WebApplicationException ex) {
+                if (JAXRSUtils.noResourceMethodForOptions(ex.getResponse(), httpMethod)) {
+                    Response response = JAXRSUtils.createResponse(resources, null, null, 200, true);
+                    message.getExchange().put(Response.class, response);
+                    return;
+                } else {
+                    throw ex;
+                }
+            }
+            if (index != null && !ori.isSubResourceLocator()) {
+                index.cacheOperation(rawPath, httpMethod, requestContentType, acceptTypes, ori, matchedValues,
+                                     (String)message.getExchange().get(Message.CONTENT_TYPE));
             }
         }
         
@@ -219,6 +236,16 @@ public class JAXRSInInterceptor extends AbstractPhaseInterceptor<Message> {
         
     }
     
+    private static ResourceMatchIndex getOperationCache(Message message, List<ClassResourceInfo> resources) {
+        ResourceMatchIndex index = JAXRSUtils.getResourceMatchIndex(message);
+        if (index == null || !index.isOperationCacheEnabled() || !index.isIndexOf(resources)) {
+            return null;
+        }
+        // a custom ResourceComparator may select differently depending on the message
+        Endpoint endpoint = message.getExchange().get(Endpoint.class);
+        return endpoint == null || endpoint.get("org.apache.cxf.jaxrs.comparator") == null ? index : null;
+    }
+    
     private void convertExceptionToResponseIfPossible(Throwable ex, Message message) {
         Response excResponse = JAXRSUtils.convertFaultToResponse(ex, message);
         if (excResponse == null) {
@@ -19,6 +19,7 @@
 package org.apache.cxf.jaxrs.model;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +32,10 @@ public class MethodDispatcher {
     private Map<Method, OperationResourceInfo> methodToOri = 
         new LinkedHashMap<Method, OperationResourceInfo>();
     private ConcurrentHashMap<Method, Method> proxyMethodMap = new ConcurrentHashMap<Method, Method>();
+    private ConcurrentHashMap<Method, ResourceMethodInvoker> methodInvokers = 
+        new ConcurrentHashMap<Method, ResourceMethodInvoker>();
+    private Set<Method> reflectiveMethods = 
+        Collections.newSetFromMap(new ConcurrentHashMap<Method, Boolean>());
     
     public MethodDispatcher() {
         
@@ -73,4 +78,25 @@ public class MethodDispatcher {
     public void addProxyMethod(Method m, Method proxyM) {
         proxyMethodMap.putIfAbsent(m, proxyM);
     }
+    
+    /**
+     * Returns an invoker generated for the given resource method on the first call
+     * @param m the method to invoke 
+     * @return the invoker or null if the method has to be invoked with reflection
+     */
+    public ResourceMethodInvoker getMethodInvoker(Method m) {
+        ResourceMethodInvoker invoker = methodInvokers.get(m);
+        if (invoker == null && !reflectiveMethods.contains(m)) {
+            invoker = ResourceMethodInvokerCompiler.compileInvoker(m);
+            if (invoker == null) {
+                reflectiveMethods.add(m);
+            } else {
+                ResourceMethodInvoker existing = methodInvokers.putIfAbsent(m, invoker);
+                if (existing != null) {
+                    invoker = existing;
+                }
+            }
+        }
+        return invoker;
+    }
 }
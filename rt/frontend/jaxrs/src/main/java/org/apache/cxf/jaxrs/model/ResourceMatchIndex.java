@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.utils.HttpUtils;
+
+/**
+ * Index of the root resources of a JAX-RS service, built once when the service 
+ * is created. The leading literal path segments of the root resource templates 
+ * are kept in a trie so that only the resources which can possibly match a request 
+ * path need to have their template regular expressions evaluated; templates 
+ * starting with a variable are always candidates. Optionally a least recently 
+ * used cache maps the path, HTTP method, Content-Type and Accept values of a 
+ * request to the resource method selected for it.
+ */
+public class ResourceMatchIndex {
+    private static final String UNSAFE_LITERAL_CHARACTERS = "{}?[]|^\\;";
+    
+    private final List<ClassResourceInfo> resources;
+    private final int size;
+    private final Node root = new Node();
+    private final Map<String, OperationMatch> operationCache;
+    
+    public ResourceMatchIndex(List<ClassResourceInfo> resources) {
+        this(resources, 0);
+    }
+    
+    /**
+     * @param resources the root resources
+     * @param operationCacheSize the maximum number of cached resource method matches, 
+     *        0 disables the cache
+     */
+    public ResourceMatchIndex(List<ClassResourceInfo> resources, final int operationCacheSize) {
+        this.resources = resources;
+        this.size = resources.size();
+        for (int i = 0; i < size; i++) {
+            URITemplate template = resources.get(i).getURITemplate();
+            Node node = root;
+            if (template != null) {
+                for (String segment : getLiteralSegments(template.getValue())) {
+                    Node child = node.children.get(segment);
+                    if (child == null) {
+                        child = new Node();
+                        node.children.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            node.add(i);
+        }
+        if (operationCacheSize > 0) {
+            operationCache = Collections.synchronizedMap(
+                new LinkedHashMap<String, OperationMatch>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, OperationMatch> eldest) {
+                        return size() > operationCacheSize;
+                    }
+                });
+        } else {
+            operationCache = null;
+        }
+    }
+    
+    /**
+     * Check if this index still reflects the given list of root resources.
+     */
+    public boolean isIndexOf(List<ClassResourceInfo> list) {
+        return list == resources && list.size() == size;
+    }
+    
+    /**
+     * Get the root resources which may match the given path, in their original order.
+     * 
+     * @param path the request path to match
+     * @return the candidate resources
+     */
+    public List<ClassResourceInfo> getCandidates(String path) {
+        if (path == null || !path.startsWith("/") || path.indexOf(';') != -1) {
+            // matrix parameters are stripped by URITemplate.match, check all the resources
+            return resources;
+        }
+        Node node = root;
+        int[] indexes = node.indexes;
+        int start = 1;
+        int length = path.length();
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = node.children.isEmpty() ? null : node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.indexes.length > 0) {
+                indexes = merge(indexes, node.indexes);
+            }
+            start = end + 1;
+        }
+        if (indexes.length == 1) {
+            return Collections.singletonList(resources.get(indexes[0]));
+        }
+        List<ClassResourceInfo> candidates = new ArrayList<ClassResourceInfo>(indexes.length);
+        for (int index : indexes) {
+            candidates.add(resources.get(index));
+        }
+        return candidates;
+    }
+    
+    public boolean isOperationCacheEnabled() {
+        return operationCache != null;
+    }
+    
+    /**
+     * Get the resource method previously selected for an equivalent request.
+     * 
+     * @return the match, null if none has been cached
+     */
+    public OperationMatch getCachedOperation(String path, String httpMethod, 
+                                             String contentType, String acceptTypes) {
+        return operationCache == null 
+            ? null : operationCache.get(getKey(path, httpMethod, contentType, acceptTypes));
+    }
+    
+    /**
+     * Remember the resource method selected for a request.
+     * 
+     * @param ori the selected resource method
+     * @param values the template values matched for the request, they are copied
+     * @param responseContentType the response media type selected for the request
+     */
+    public void cacheOperation(String path, String httpMethod, String contentType, String acceptTypes,
+                               OperationResourceInfo ori, MultivaluedMap<String, String> values,
+                               String responseContentType) {
+        if (operationCache != null) {
+            operationCache.put(getKey(path, httpMethod, contentType, acceptTypes),
+                new OperationMatch(ori, new MetadataMap<String, String>(values), responseContentType));
+        }
+    }
+    
+    public void clearOperationCache() {
+        if (operationCache != null) {
+            operationCache.clear();
+        }
+    }
+    
+    private static String getKey(String path, String httpMethod, String contentType, String acceptTypes) {
+        return new StringBuilder(path.length() + 64).append(httpMethod).append(' ')
+            .append(contentType).append(' ').append(acceptTypes).append(' ').append(path).toString();
+    }
+    
+    private static int[] merge(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        int[] merged = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, merged, a.length, b.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+    
+    /**
+     * The leading segments of a template which are plain literals and thus
+     * have to be equal to the corresponding segments of a matching path.
+     */
+    static List<String> getLiteralSegments(String template) {
+        List<String> segments = new ArrayList<String>();
+        int start = template.startsWith("/") ? 1 : 0;
+        while (start < template.length()) {
+            int end = template.indexOf('/', start);
+            if (end == -1) {
+                end = template.length();
+            }
+            String segment = template.substring(start, end);
+            if (segment.length() == 0 || !isSafeLiteral(segment)) {
+                break;
+            }
+            segments.add(HttpUtils.encodePartiallyEncoded(segment, false));
+            start = end + 1;
+        }
+        return segments;
+    }
+    
+    private static boolean isSafeLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (UNSAFE_LITERAL_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * A cached resource method selection.
+     */
+    public static final class OperationMatch {
+        private final OperationResourceInfo ori;
+        private final MultivaluedMap<String, String> values;
+        private final String responseContentType;
+        
+        OperationMatch(OperationResourceInfo ori, MultivaluedMap<String, String> values,
+                       String responseContentType) {
+            this.ori = ori;
+            this.values = values;
+            this.responseContentType = responseContentType;
+        }
+        
+        public OperationResourceInfo getOperationResourceInfo() {
+            return ori;
+        }
+        
+        /**
+         * @return a copy of the matched template values
+         */
+        public MultivaluedMap<String, String> getTemplateValues() {
+            return new MetadataMap<String, String>(values);
+        }
+        
+        public String getResponseContentType() {
+            return responseContentType;
+        }
+    }
+    
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<String, Node>(4);
+        int[] indexes = new int[0];
+        
+        void add(int index) {
+            indexes = Arrays.copyOf(indexes, indexes.length + 1);
+            indexes[indexes.length - 1] = index;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+/**
+ * Invokes a single resource method without going through
+ * {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ * Implementations are generated at runtime, see {@link MethodDispatcher#getMethodInvoker}.
+ */
+public interface ResourceMethodInvoker {
+
+    /**
+     * Invokes the resource method
+     * @param resource the resource instance
+     * @param params the method parameters
+     * @return the method result or null if the method returns void
+     * @throws Exception the exception thrown by the resource method, not wrapped
+     */
+    Object invoke(Object resource, Object[] params) throws Exception;
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.common.util.ASMHelper;
+
+final class ResourceMethodInvokerCompiler extends ASMHelper {
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final String INVOKE_SIGNATURE
+        = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+    private final Method method;
+    private final ClassWriter cw;
+
+    private ResourceMethodInvokerCompiler(Method method) {
+        this.method = method;
+        cw = createClassWriter();
+    }
+
+    static ResourceMethodInvoker compileInvoker(Method method) {
+        if (!canCompile(method)) {
+            return null;
+        }
+        try {
+            return new ResourceMethodInvokerCompiler(method).compile();
+        } catch (Throwable t) {
+            // Some error - probably a bad version of ASM or the generated
+            // class can not see the resource class, reflection will be used
+        }
+        return null;
+    }
+
+    private static boolean canCompile(Method m) {
+        if (!Modifier.isPublic(m.getModifiers()) || Modifier.isStatic(m.getModifiers())
+            || !isPublicType(m.getDeclaringClass()) || !isPublicType(m.getReturnType())) {
+            return false;
+        }
+        for (Class<?> cls : m.getParameterTypes()) {
+            if (!isPublicType(cls)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublicType(Class<?> type) {
+        Class<?> cls = type;
+        while (cls.isArray()) {
+            cls = cls.getComponentType();
+        }
+        if (cls.isPrimitive()) {
+            return true;
+        }
+        for (; cls != null; cls = cls.getDeclaringClass()) {
+            if (!Modifier.isPublic(cls.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ResourceMethodInvoker compile() throws Exception {
+        if (cw == null) {
+            return null;
+        }
+        Class<?> resourceClass = method.getDeclaringClass();
+        String newClassName = periodToSlashes(resourceClass.getName() + "_" + method.getName()
+                                              + "_Invoker" + COUNTER.incrementAndGet());
+        cw.visit(Opcodes.V1_5,
+                 Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                 newClassName,
+                 null,
+                 "java/lang/Object",
+                 new String[] {periodToSlashes(ResourceMethodInvoker.class.getName())});
+        addConstructor();
+        addInvoke(resourceClass);
+        cw.visitEnd();
+
+        Class<?> cls = loadClass(newClassName.replace('/', '.'), resourceClass, cw.toByteArray());
+        return ResourceMethodInvoker.class.cast(cls.newInstance());
+    }
+
+    private void addConstructor() {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void addInvoke(Class<?> resourceClass) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke", INVOKE_SIGNATURE, null,
+                                          new String[] {"java/lang/Exception"});
+        mv.visitCode();
+        String owner = periodToSlashes(resourceClass.getName());
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+
+        Class<?>[] types = method.getParameterTypes();
+        for (int x = 0; x < types.length; x++) {
+            Class<?> tp = types[x];
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitIntInsn(Opcodes.SIPUSH, x);
+            mv.visitInsn(Opcodes.AALOAD);
+            if (tp.isPrimitive()) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, NONPRIMITIVE_MAP.get(tp));
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NONPRIMITIVE_MAP.get(tp),
+                                   tp.getName() + "Value", "()" + PRIMITIVE_MAP.get(tp));
+            } else if (tp.isArray()) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, getClassCode(tp));
+            } else if (tp != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, periodToSlashes(tp.getName()));
+            }
+        }
+        mv.visitMethodInsn(resourceClass.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL,
+                           owner, method.getName(), getMethodSignature(method));
+
+        Class<?> rt = method.getReturnType();
+        if (rt == Void.TYPE) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else if (rt.isPrimitive()) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, NONPRIMITIVE_MAP.get(rt), "valueOf",
+                               "(" + PRIMITIVE_MAP.get(rt) + ")L" + NONPRIMITIVE_MAP.get(rt) + ";");
+        }
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+}
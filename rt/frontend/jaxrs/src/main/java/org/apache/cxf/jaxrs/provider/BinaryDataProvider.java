@@ -46,13 +46,14 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.FileUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.impl.HttpHeadersImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 
 public class BinaryDataProvider<T> extends AbstractConfigurableProvider 
-    implements MessageBodyReader<T>, MessageBodyWriter<T> {
+    implements MessageBodyReader<T>, MessageBodyWriter<T>, CacheableEntityProvider {
     
     private static final String HTTP_RANGE_PROPERTY = "http.range.support";
     private static final Logger LOG = LogUtils.getL7dLogger(BinaryDataProvider.class);
@@ -35,11 +35,13 @@ import javax.ws.rs.ext.Provider;
 
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.ext.multipart.InputStreamDataSource;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 
 @Provider
-public class DataSourceProvider<T> implements MessageBodyReader<T>, MessageBodyWriter<T> {
+public class DataSourceProvider<T> 
+    implements MessageBodyReader<T>, MessageBodyWriter<T>, CacheableEntityProvider {
     
     private boolean useDataSourceContentType;
     
@@ -38,6 +38,7 @@ import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
@@ -53,7 +54,7 @@ import org.apache.cxf.phase.PhaseInterceptorChain;
 @Consumes({"application/x-www-form-urlencoded", "multipart/form-data" })
 @Provider
 public class FormEncodingProvider<T> implements 
-    MessageBodyReader<T>, MessageBodyWriter<T> {
+    MessageBodyReader<T>, MessageBodyWriter<T>, CacheableEntityProvider {
         
     private FormValidator validator;
     @Context private MessageContext mc;
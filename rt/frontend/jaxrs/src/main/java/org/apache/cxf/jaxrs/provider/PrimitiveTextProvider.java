@@ -31,12 +31,13 @@ import javax.ws.rs.ext.MessageBodyWriter;
 
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 
 public class PrimitiveTextProvider<T> 
-    implements MessageBodyReader<T>, MessageBodyWriter<T> {
+    implements MessageBodyReader<T>, MessageBodyWriter<T>, CacheableEntityProvider {
 
     private static boolean isSupported(Class<?> type) { 
         return InjectionUtils.isPrimitive(type);
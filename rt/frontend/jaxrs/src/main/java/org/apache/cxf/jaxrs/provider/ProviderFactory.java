@@ -26,6 +26,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -37,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.ws.rs.Produces;
@@ -60,6 +62,7 @@ import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.ClassHelper;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.ext.ContextProvider;
 import org.apache.cxf.jaxrs.impl.HttpHeadersImpl;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
@@ -85,6 +88,8 @@ public abstract class ProviderFactory {
     protected static final String IGNORE_TYPE_VARIABLES = "org.apache.cxf.jaxrs.providers.ignore.typevars";
     
     private static final String ACTIVE_JAXRS_PROVIDER_KEY = "active.jaxrs.provider";
+    private static final int MAX_SELECTION_CACHE_SIZE = 1000;
+    private static final Object NO_PROVIDER = new Object();
     private static final Logger LOG = LogUtils.getL7dLogger(ProviderFactory.class);
     
     private static final String JAXB_PROVIDER_NAME = "org.apache.cxf.jaxrs.provider.JAXBElementProvider";
@@ -102,6 +107,11 @@ public abstract class ProviderFactory {
         new ArrayList<ProviderInfo<MessageBodyReader<?>>>();
     private List<ProviderInfo<MessageBodyWriter<?>>> messageWriters = 
         new ArrayList<ProviderInfo<MessageBodyWriter<?>>>();
+    // Selected readers and writers, only populated when every provider checked is cacheable
+    private Map<SelectionKey, Object> readerSelectionCache = 
+        new ConcurrentHashMap<SelectionKey, Object>();
+    private Map<SelectionKey, Object> writerSelectionCache = 
+        new ConcurrentHashMap<SelectionKey, Object>();
     private List<ProviderInfo<ContextResolver<?>>> contextResolvers = 
         new ArrayList<ProviderInfo<ContextResolver<?>>>(1);
     private List<ProviderInfo<ContextProvider<?>>> contextProviders = 
@@ -554,6 +564,12 @@ public abstract class ProviderFactory {
         
         injectContextProxies(messageReaders, messageWriters, contextResolvers, 
             readerInterceptors.values(), writerInterceptors.values());
+        clearSelectionCaches();
+    }
+    
+    protected void clearSelectionCaches() {
+        readerSelectionCache.clear();
+        writerSelectionCache.clear();
     }
     
     protected void injectContextValues(ProviderInfo<?> pi, Message m) {
@@ -630,24 +646,36 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = createSelectionKey(type, genericType, annotations, mediaType, m);
+        Object selected = key == null ? null : readerSelectionCache.get(key);
+        if (selected != null) {
+            return (MessageBodyReader<T>)getCachedProvider(selected, m);
+        }
+        boolean cacheable = key != null;
         List<MessageBodyReader<?>> candidates = new LinkedList<MessageBodyReader<?>>();
         for (ProviderInfo<MessageBodyReader<?>> ep : readers) {
+            if (!matchesMediaTypes(mediaType, JAXRSUtils.getProviderConsumeTypes(ep.getProvider()))) {
+                continue;
+            }
+            cacheable &= ep.getProvider() instanceof CacheableEntityProvider;
             if (matchesReaderCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
-                    return (MessageBodyReader<T>) ep.getProvider();
+                    candidates.add(ep.getProvider());
+                } else {
+                    handleMapper(candidates, ep, type, m, MessageBodyReader.class, false);
                 }
-                handleMapper(candidates, ep, type, m, MessageBodyReader.class, false);
                 if (!candidates.isEmpty()) {
-                    break;
+                    if (cacheable) {
+                        cacheSelection(readerSelectionCache, key, ep);
+                    }
+                    return (MessageBodyReader<T>) candidates.get(0);
                 }
             }
         }     
-        
-        if (candidates.isEmpty()) {
-            return null;
+        if (cacheable) {
+            cacheSelection(readerSelectionCache, key, NO_PROVIDER);
         }
-        return (MessageBodyReader<T>) candidates.get(0);
-        
+        return null;
     }
     
     private <T> boolean matchesReaderCriterias(ProviderInfo<MessageBodyReader<?>> pi,
@@ -657,14 +685,6 @@ public abstract class ProviderFactory {
                                                MediaType mediaType,
                                                Message m) {
         MessageBodyReader<?> ep = pi.getProvider();
-        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderConsumeTypes(ep);
-        
-        List<MediaType> availableMimeTypes = 
-            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType), supportedMediaTypes, false);
-
-        if (availableMimeTypes.size() == 0) {
-            return false;
-        }
         boolean injected = false;
         if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != ep) {
             injectContextValues(pi, m);
@@ -694,22 +714,36 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = createSelectionKey(type, genericType, annotations, mediaType, m);
+        Object selected = key == null ? null : writerSelectionCache.get(key);
+        if (selected != null) {
+            return (MessageBodyWriter<T>)getCachedProvider(selected, m);
+        }
+        boolean cacheable = key != null;
         List<MessageBodyWriter<?>> candidates = new LinkedList<MessageBodyWriter<?>>();
         for (ProviderInfo<MessageBodyWriter<?>> ep : writers) {
+            if (!matchesMediaTypes(mediaType, JAXRSUtils.getProviderProduceTypes(ep.getProvider()))) {
+                continue;
+            }
+            cacheable &= ep.getProvider() instanceof CacheableEntityProvider;
             if (matchesWriterCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
-                    return (MessageBodyWriter<T>) ep.getProvider();
+                    candidates.add(ep.getProvider());
+                } else {
+                    handleMapper(candidates, ep, type, m, MessageBodyWriter.class, false);
                 }
-                handleMapper(candidates, ep, type, m, MessageBodyWriter.class, false);
                 if (!candidates.isEmpty()) {
-                    break;
+                    if (cacheable) {
+                        cacheSelection(writerSelectionCache, key, ep);
+                    }
+                    return (MessageBodyWriter<T>) candidates.get(0);
                 }
             }
         }     
-        if (candidates.isEmpty()) {
-            return null;
+        if (cacheable) {
+            cacheSelection(writerSelectionCache, key, NO_PROVIDER);
         }
-        return (MessageBodyWriter<T>) candidates.get(0);
+        return null;
     }
     
     private <T> boolean matchesWriterCriterias(ProviderInfo<MessageBodyWriter<?>> pi,
@@ -719,15 +753,6 @@ public abstract class ProviderFactory {
                                                MediaType mediaType,
                                                Message m) {
         MessageBodyWriter<?> ep = pi.getProvider();
-        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderProduceTypes(ep);
-        
-        List<MediaType> availableMimeTypes = 
-            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType),
-                                          supportedMediaTypes, false);
-
-        if (availableMimeTypes.size() == 0) {
-            return false;
-        }
         boolean injected = false;
         if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != ep) {
             injectContextValues(pi, m);
@@ -740,6 +765,41 @@ public abstract class ProviderFactory {
         return matches;
     }
     
+    private static boolean matchesMediaTypes(MediaType mediaType, List<MediaType> supportedMediaTypes) {
+        return !JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType), 
+                                              supportedMediaTypes, false).isEmpty();
+    }
+    
+    private SelectionKey createSelectionKey(Class<?> type,
+                                            Type genericType,
+                                            Annotation[] annotations,
+                                            MediaType mediaType,
+                                            Message m) {
+        // handleMapper may resolve the providers differently for individual messages
+        if (!isBaseFactory() && m != null 
+            && MessageUtils.isTrue(m.getContextualProperty(IGNORE_TYPE_VARIABLES))) {
+            return null;
+        }
+        return new SelectionKey(type, genericType, annotations, mediaType);
+    }
+    
+    private Object getCachedProvider(Object selected, Message m) {
+        if (selected == NO_PROVIDER) {
+            return null;
+        }
+        ProviderInfo<?> pi = (ProviderInfo<?>)selected;
+        if (m != null && m.get(ACTIVE_JAXRS_PROVIDER_KEY) != pi.getProvider()) {
+            injectContextValues(pi, m);
+        }
+        return pi.getProvider();
+    }
+    
+    private static void cacheSelection(Map<SelectionKey, Object> cache, SelectionKey key, Object selected) {
+        if (cache.size() < MAX_SELECTION_CACHE_SIZE) {
+            cache.put(key, selected);
+        }
+    }
+    
     List<ProviderInfo<MessageBodyReader<?>>> getMessageReaders() {
         return Collections.unmodifiableList(messageReaders);
     }
@@ -764,6 +824,56 @@ public abstract class ProviderFactory {
         setProviders(userProviders.toArray());
     }
 
+    private static class SelectionKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+        private final int hashCode;
+        
+        SelectionKey(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+            this.hashCode = computeHashCode();
+        }
+        
+        private int computeHashCode() {
+            int result = type == null ? 0 : type.hashCode();
+            result = 31 * result + (genericType == null ? 0 : genericType.hashCode());
+            result = 31 * result + (mediaType == null ? 0 : mediaType.hashCode());
+            if (annotations != null) {
+                // annotation types only, comparing the member values is left to equals
+                for (Annotation a : annotations) {
+                    result = 31 * result + a.annotationType().hashCode();
+                }
+            }
+            return result;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SelectionKey)) {
+                return false;
+            }
+            SelectionKey other = (SelectionKey)o;
+            return hashCode == other.hashCode
+                && type == other.type
+                && (genericType == null ? other.genericType == null : genericType.equals(other.genericType))
+                && (mediaType == null ? other.mediaType == null : mediaType.equals(other.mediaType))
+                && (annotations == other.annotations || Arrays.equals(annotations, other.annotations));
+        }
+    }
+    
     private static class MessageBodyReaderComparator 
         implements Comparator<ProviderInfo<MessageBodyReader<?>>> {
         
@@ -849,6 +959,7 @@ public abstract class ProviderFactory {
         contextProviders.clear();
         readerInterceptors.clear();
         writerInterceptors.clear();
+        clearSelectionCaches();
     }
     
     public void setBus(Bus bus) {
@@ -18,6 +18,7 @@
  */
 package org.apache.cxf.jaxrs.provider;
 
+import java.lang.reflect.Member;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.ws.rs.RuntimeType;
 import javax.ws.rs.container.ContainerRequestFilter;
@@ -85,6 +87,7 @@ public final class ServerProviderFactory extends ProviderFactory {
     private Set<DynamicFeature> dynamicFeatures = new LinkedHashSet<DynamicFeature>();
     
     private Map<Class<?>, BeanParamInfo> beanParams = new HashMap<Class<?>, BeanParamInfo>();
+    private Map<Class<?>, Member[]> parameterFactories = new ConcurrentHashMap<Class<?>, Member[]>();
     private ProviderInfo<ContainerRequestFilter> wadlGenerator;
         
     private ServerProviderFactory(ProviderFactory baseFactory, Bus bus) {
@@ -178,6 +181,18 @@ public final class ServerProviderFactory extends ProviderFactory {
     public BeanParamInfo getBeanParamInfo(Class<?> beanClass) {
         return beanParams.get(beanClass);
     }
+    
+    /**
+     * Caches the constructors or static methods which can create
+     * instances of the given parameter class from String values 
+     */
+    public void addParameterFactories(Class<?> paramClass, Member[] factories) {
+        parameterFactories.put(paramClass, factories);
+    }
+    
+    public Member[] getParameterFactories(Class<?> paramClass) {
+        return parameterFactories.get(paramClass);
+    }
    
     public <T extends Throwable> ExceptionMapper<T> createExceptionMapper(Class<?> exceptionType,
                                                                           Message m) {
@@ -46,6 +46,7 @@ import javax.xml.transform.stream.StreamSource;
 import org.w3c.dom.Document;
 
 import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.apache.cxf.jaxrs.ext.xml.XMLSource;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
@@ -57,7 +58,7 @@ import org.apache.cxf.staxutils.StaxUtils;
 @Produces({"application/xml", "application/*+xml", "text/xml" })
 @Consumes({"application/xml", "application/*+xml", "text/xml", "text/html" })
 public class SourceProvider<T> extends AbstractConfigurableProvider implements 
-    MessageBodyReader<T>, MessageBodyWriter<T> {
+    MessageBodyReader<T>, MessageBodyWriter<T>, CacheableEntityProvider {
 
     private static final String PREFERRED_FORMAT = "source-preferred-format";
     @Context
@@ -25,6 +25,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -385,31 +386,15 @@ public final class InjectionUtils {
         if (pClass == String.class && !adapterHasToBeUsed) {
             return pClass.cast(value);
         }
-        // check constructors accepting a single String value
-        try {
-            Constructor<?> c = cls.getConstructor(new Class<?>[]{String.class});
-            result = c.newInstance(new Object[]{value});
-        } catch (NoSuchMethodException ex) {
-            // try valueOf
-        } catch (WebApplicationException ex) {
-            throw ex;
-        } catch (Exception ex) {
-            Throwable t = getOrThrowActualException(ex);
-            LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_CONSTRUCTOR_FAILURE", 
-                                                               BUNDLE, 
-                                                               pClass.getName()).toString());
-            throw new ClientErrorException(HttpUtils.getParameterFailureStatus(pType), t);
-        }
-        if (result == null) {
-            // check for valueOf(String) static methods
-            String[] methodNames = cls.isEnum() 
-                ? new String[] {"fromString", "fromValue", "valueOf"} 
-                : new String[] {"valueOf", "fromString"};
-            for (String mName : methodNames) {   
-                result = evaluateFactoryMethod(value, cls, pType, mName);
-                if (result != null) {
-                    break;
-                }
+        // check constructors accepting a single String value or valueOf(String) static methods
+        for (Member factory : getParameterFactories(cls, message)) {
+            if (factory instanceof Constructor) {
+                result = evaluateConstructor(value, pClass, pType, (Constructor<?>)factory);
+            } else {
+                result = evaluateFactoryMethod(value, cls, pType, (Method)factory);
+            }
+            if (result != null) {
+                break;
             }
         }
         
@@ -457,17 +442,64 @@ public final class InjectionUtils {
         throw new InternalServerErrorException(r);
     }
     
+    private static Member[] getParameterFactories(Class<?> cls, Message message) {
+        ServerProviderFactory pf = message == null ? null : ServerProviderFactory.getInstance(message);
+        Member[] factories = pf == null ? null : pf.getParameterFactories(cls);
+        if (factories == null) {
+            factories = findParameterFactories(cls);
+            if (pf != null) {
+                pf.addParameterFactories(cls, factories);
+            }
+        }
+        return factories;
+    }
+    
+    private static Member[] findParameterFactories(Class<?> cls) {
+        try {
+            return new Member[] {cls.getConstructor(new Class<?>[]{String.class})};
+        } catch (NoSuchMethodException ex) {
+            // try valueOf
+        }
+        String[] methodNames = cls.isEnum() 
+            ? new String[] {"fromString", "fromValue", "valueOf"} 
+            : new String[] {"valueOf", "fromString"};
+        List<Member> methods = new ArrayList<Member>(methodNames.length);
+        for (String mName : methodNames) {
+            try {
+                Method m = cls.getMethod(mName, new Class<?>[]{String.class});
+                if (Modifier.isStatic(m.getModifiers())) {
+                    methods.add(m);
+                }
+            } catch (NoSuchMethodException ex) {
+                // no luck
+            }
+        }
+        return methods.toArray(new Member[methods.size()]);
+    }
+    
+    private static Object evaluateConstructor(String value,
+                                              Class<?> pClass,
+                                              ParameterType pType,
+                                              Constructor<?> c) {
+        try {
+            return c.newInstance(new Object[]{value});
+        } catch (WebApplicationException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            Throwable t = getOrThrowActualException(ex);
+            LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_CONSTRUCTOR_FAILURE", 
+                                                               BUNDLE, 
+                                                               pClass.getName()).toString());
+            throw new ClientErrorException(HttpUtils.getParameterFailureStatus(pType), t);
+        }
+    }
+    
     private static <T> T evaluateFactoryMethod(String value,
                                                 Class<T> pClass, 
                                                 ParameterType pType, 
-                                                String methodName) {
+                                                Method m) {
         try {
-            Method m = pClass.getMethod(methodName, new Class<?>[]{String.class});
-            if (Modifier.isStatic(m.getModifiers())) {
-                return pClass.cast(m.invoke(null, new Object[]{value}));
-            }
-        } catch (NoSuchMethodException ex) {
-            // no luck
+            return pClass.cast(m.invoke(null, new Object[]{value}));
         } catch (Exception ex) {
             Throwable t = getOrThrowActualException(ex);
             LOG.severe(new org.apache.cxf.common.i18n.Message("CLASS_VALUE_OF_FAILURE", 
@@ -475,7 +507,6 @@ public final class InjectionUtils {
                                                                pClass.getName()).toString());
             throw new WebApplicationException(t, HttpUtils.getParameterFailureStatus(pType));
         }
-        return null;
     }
     
     private static Throwable getOrThrowActualException(Throwable ex) {
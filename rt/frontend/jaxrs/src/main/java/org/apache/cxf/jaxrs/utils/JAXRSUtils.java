@@ -143,6 +143,7 @@ import org.apache.cxf.jaxrs.model.OperationResourceInfoStack;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
+import org.apache.cxf.jaxrs.model.ResourceMatchIndex;
 import org.apache.cxf.jaxrs.model.URITemplate;
 import org.apache.cxf.jaxrs.provider.AbstractConfigurableProvider;
 import org.apache.cxf.jaxrs.provider.ProviderFactory;
@@ -326,6 +327,13 @@ public final class JAXRSUtils {
                                                         BUNDLE, 
                                                         path).toString());
         }
+        ResourceMatchIndex index = getResourceMatchIndex(message);
+        if (index != null && index.isIndexOf(resources)) {
+            resources = index.getCandidates(path);
+            if (resources.isEmpty()) {
+                return null;
+            }
+        }
         if (resources.size() == 1) {
             MultivaluedMap<String, String> values = new MetadataMap<String, String>();
             return resources.get(0).getURITemplate().match(path, values)
@@ -585,6 +593,13 @@ public final class JAXRSUtils {
         return ((JAXRSServiceImpl)service).getClassResourceInfos();
     }
     
+    public static ResourceMatchIndex getResourceMatchIndex(Message message) {
+        Service service = message == null || message.getExchange() == null 
+            ? null : message.getExchange().get(Service.class);
+        return service instanceof JAXRSServiceImpl 
+            ? ((JAXRSServiceImpl)service).getResourceMatchIndex() : null;
+    }
+    
     public static boolean noResourceMethodForOptions(Response exResponse, String httpMethod) {
         return exResponse != null && exResponse.getStatus() == 405 
             && "OPTIONS".equalsIgnoreCase(httpMethod);
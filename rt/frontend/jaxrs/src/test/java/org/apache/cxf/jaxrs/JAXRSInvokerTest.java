@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.FaultMode;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageContentsList;
+import org.apache.cxf.message.MessageImpl;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JAXRSInvokerTest extends Assert {
+    
+    private static final String COMPILED_INVOCATION = "org.apache.cxf.jaxrs.compiled.invocation";
+    
+    private InvokedResource resource;
+    private ResourceExceptionMapper mapper;
+    private Server server;
+    private ClassResourceInfo cri;
+    
+    @Before
+    public void setUp() {
+        resource = new InvokedResource();
+        mapper = new ResourceExceptionMapper();
+        JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setResourceClasses(InvokedResource.class);
+        sf.setResourceProvider(InvokedResource.class, new SingletonResourceProvider(resource));
+        sf.setProvider(mapper);
+        sf.setStart(false);
+        server = sf.create();
+        cri = sf.getServiceFactory().getClassResourceInfo().get(0);
+    }
+    
+    @Test
+    public void testCompiledInvocation() throws Exception {
+        Method m = InvokedResource.class.getMethod("getName");
+        MessageContentsList result = invoke(m, true, new MessageImpl());
+        assertEquals("name", result.get(0));
+        assertEquals(cri.getMethodDispatcher().getMethodInvoker(m).getClass().getName(), resource.caller);
+    }
+    
+    @Test
+    public void testReflectionInvocation() throws Exception {
+        Method m = InvokedResource.class.getMethod("getName");
+        MessageContentsList result = invoke(m, false, new MessageImpl());
+        assertEquals("name", result.get(0));
+        assertFalse(resource.caller.startsWith(InvokedResource.class.getName()));
+    }
+    
+    @Test
+    public void testCompiledInvocationExceptionIsMapped() throws Exception {
+        Method m = InvokedResource.class.getMethod("fail");
+        doTestExceptionIsMapped(m, true);
+        assertEquals(cri.getMethodDispatcher().getMethodInvoker(m).getClass().getName(), resource.caller);
+    }
+    
+    @Test
+    public void testReflectionInvocationExceptionIsMapped() throws Exception {
+        doTestExceptionIsMapped(InvokedResource.class.getMethod("fail"), false);
+    }
+    
+    @Test
+    public void testCompiledInvocationWidensArguments() throws Exception {
+        Method m = InvokedResource.class.getMethod("getNumber", long.class);
+        MessageContentsList result = invoke(m, true, new MessageImpl(), Collections.<Object>singletonList(2));
+        assertEquals(2L, result.get(0));
+    }
+    
+    @Test
+    public void testCompiledInvocationRejectsArgumentsLikeReflection() throws Exception {
+        Method m = InvokedResource.class.getMethod("getNumber", long.class);
+        assertEquals(getFailure(m, false, null), getFailure(m, true, null));
+        assertEquals(getFailure(m, false, "2"), getFailure(m, true, "2"));
+        assertNull(resource.caller);
+    }
+    
+    private Class<?> getFailure(Method m, boolean compiled, Object param) {
+        try {
+            invoke(m, compiled, new MessageImpl(), Collections.singletonList(param));
+            fail("Invalid argument accepted");
+            return null;
+        } catch (Fault f) {
+            assertTrue(f.getCause() instanceof IllegalArgumentException);
+            return f.getCause().getClass();
+        }
+    }
+    
+    private void doTestExceptionIsMapped(Method m, boolean compiled) throws Exception {
+        Message inMessage = new MessageImpl();
+        MessageContentsList result = invoke(m, compiled, inMessage);
+        assertEquals(409, ((Response)result.get(0)).getStatus());
+        assertSame(resource.failure, mapper.mapped);
+        assertEquals(FaultMode.CHECKED_APPLICATION_FAULT, inMessage.get(FaultMode.class));
+    }
+    
+    private MessageContentsList invoke(Method m, boolean compiled, Message inMessage) {
+        return invoke(m, compiled, inMessage, Collections.emptyList());
+    }
+    
+    private MessageContentsList invoke(Method m, boolean compiled, Message inMessage, List<Object> params) {
+        OperationResourceInfo ori = cri.getMethodDispatcher().getOperationResourceInfo(m);
+        Exchange exc = new ExchangeImpl();
+        exc.put(Endpoint.class, server.getEndpoint());
+        exc.put(OperationResourceInfo.class, ori);
+        inMessage.put(COMPILED_INVOCATION, compiled);
+        exc.setInMessage(inMessage);
+        return (MessageContentsList)new JAXRSInvoker().invoke(exc, params, resource);
+    }
+    
+    @Path("/")
+    public static class InvokedResource {
+        private String caller;
+        private ResourceException failure;
+        
+        @GET
+        @Path("name")
+        public String getName() {
+            caller = getCaller();
+            return "name";
+        }
+        
+        @GET
+        @Path("number")
+        public Long getNumber(@QueryParam("n") long n) {
+            caller = getCaller();
+            return n;
+        }
+        
+        @GET
+        @Path("fail")
+        public String fail() throws ResourceException {
+            caller = getCaller();
+            failure = new ResourceException();
+            throw failure;
+        }
+        
+        private static String getCaller() {
+            return new Throwable().getStackTrace()[2].getClassName();
+        }
+    }
+    
+    public static class ResourceException extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+    
+    public static class ResourceExceptionMapper implements ExceptionMapper<ResourceException> {
+        private Throwable mapped;
+        
+        public Response toResponse(ResourceException ex) {
+            mapped = ex;
+            return Response.status(409).build();
+        }
+    }
+}
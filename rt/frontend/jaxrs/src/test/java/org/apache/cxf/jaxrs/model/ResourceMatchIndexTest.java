@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.jaxrs.JAXRSServiceFactoryBean;
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.resources.BookStore;
+import org.apache.cxf.jaxrs.resources.BookStoreNoSubResource;
+import org.apache.cxf.jaxrs.resources.TestResourceTemplate1;
+import org.apache.cxf.jaxrs.resources.TestResourceTemplate4;
+import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.Service;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceMatchIndexTest extends Assert {
+    
+    private JAXRSServiceImpl service;
+    private List<ClassResourceInfo> resources;
+    
+    @Before
+    public void setUp() {
+        JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
+        sf.setResourceClasses(BookStoreNoSubResource.class, BookStore.class,
+                              TestResourceTemplate1.class, TestResourceTemplate4.class);
+        sf.setOperationCacheSize(1);
+        sf.create();
+        service = (JAXRSServiceImpl)sf.getService();
+        resources = service.getClassResourceInfos();
+    }
+    
+    @Test
+    public void testLiteralSegments() {
+        assertEquals(Arrays.asList("bookstore", "books"), 
+                     ResourceMatchIndex.getLiteralSegments("/bookstore/books/{id}"));
+        assertEquals(Arrays.asList("bookstore"), ResourceMatchIndex.getLiteralSegments("/bookstore/"));
+        assertEquals(Arrays.asList("a%20b"), ResourceMatchIndex.getLiteralSegments("/a b/c{id}"));
+        assertTrue(ResourceMatchIndex.getLiteralSegments("/").isEmpty());
+        assertTrue(ResourceMatchIndex.getLiteralSegments("/{id}/foo").isEmpty());
+        assertTrue(ResourceMatchIndex.getLiteralSegments("/a?b").isEmpty());
+    }
+    
+    @Test
+    public void testCandidates() {
+        ResourceMatchIndex index = service.getResourceMatchIndex();
+        assertNotNull(index);
+        assertTrue(index.isIndexOf(resources));
+        
+        assertEquals(resources.subList(0, 3), index.getCandidates("/bookstore/bar"));
+        assertEquals(resources.subList(0, 3), index.getCandidates("/bookstore"));
+        assertEquals(resources.subList(2, 4), index.getCandidates("/test/1"));
+        assertEquals(resources.subList(2, 3), index.getCandidates("/"));
+        assertEquals(resources.subList(2, 3), index.getCandidates("/other"));
+        assertSame(resources, index.getCandidates("/bookstore;a=b/bar"));
+    }
+    
+    @Test
+    public void testSameSelectionAsFullScan() {
+        Message m = createMessage();
+        for (String path : new String[] {"/bookstore", "/bookstore/", "/bookstore/bar", "/bookstore/bar/baz", 
+                                         "/test", "/test/", "/1", "/1/foo", "/", "/bookstore;a=b"}) {
+            Map<ClassResourceInfo, MultivaluedMap<String, String>> expected = 
+                JAXRSUtils.selectResourceClass(resources, path, null);
+            Map<ClassResourceInfo, MultivaluedMap<String, String>> actual = 
+                JAXRSUtils.selectResourceClass(resources, path, m);
+            assertEquals(path, expected, actual);
+        }
+    }
+    
+    @Test
+    public void testOperationCache() {
+        ResourceMatchIndex index = service.getResourceMatchIndex();
+        assertTrue(index.isOperationCacheEnabled());
+        OperationResourceInfo ori = 
+            resources.get(1).getMethodDispatcher().getOperationResourceInfos().iterator().next();
+        MultivaluedMap<String, String> values = new MetadataMap<String, String>();
+        values.putSingle("id", "1");
+        index.cacheOperation("/bookstore/1", "GET", "*/*", "*/*", ori, values, "text/plain");
+        values.putSingle("id", "2");
+        
+        assertNull(index.getCachedOperation("/bookstore/1", "POST", "*/*", "*/*"));
+        ResourceMatchIndex.OperationMatch match = 
+            index.getCachedOperation("/bookstore/1", "GET", "*/*", "*/*");
+        assertSame(ori, match.getOperationResourceInfo());
+        assertEquals("text/plain", match.getResponseContentType());
+        assertEquals("1", match.getTemplateValues().getFirst("id"));
+        match.getTemplateValues().putSingle("id", "3");
+        assertEquals("1", match.getTemplateValues().getFirst("id"));
+        
+        index.cacheOperation("/bookstore/2", "GET", "*/*", "*/*", ori, values, "text/plain");
+        assertNull("Least recently used entry should have been evicted", 
+                   index.getCachedOperation("/bookstore/1", "GET", "*/*", "*/*"));
+        assertNotNull(index.getCachedOperation("/bookstore/2", "GET", "*/*", "*/*"));
+    }
+    
+    private Message createMessage() {
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        EasyMock.expect(endpoint.get("org.apache.cxf.jaxrs.comparator")).andReturn(null).anyTimes();
+        EasyMock.replay(endpoint);
+        Message m = new MessageImpl();
+        Exchange e = new ExchangeImpl();
+        e.setInMessage(m);
+        e.put(Service.class, service);
+        e.put(Endpoint.class, endpoint);
+        return m;
+    }
+}
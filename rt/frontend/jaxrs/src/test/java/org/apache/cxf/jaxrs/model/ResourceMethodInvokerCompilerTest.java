@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.model;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResourceMethodInvokerCompilerTest extends Assert {
+    
+    @Test
+    public void testInvokePrimitivesAndArrays() throws Exception {
+        Method m = Calculator.class.getMethod("add", int.class, long.class, double[].class);
+        ResourceMethodInvoker invoker = ResourceMethodInvokerCompiler.compileInvoker(m);
+        assertNotNull(invoker);
+        Object result = invoker.invoke(new Calculator(), 
+                                       new Object[] {1, 2L, new double[] {0.5, 0.25}});
+        assertEquals(Double.valueOf(3.75), result);
+    }
+    
+    @Test
+    public void testInvokeObjectsAndVoid() throws Exception {
+        Calculator calc = new Calculator();
+        ResourceMethodInvoker invoker = ResourceMethodInvokerCompiler.compileInvoker(
+            Calculator.class.getMethod("join", String.class, List.class));
+        assertEquals("a:b,c", invoker.invoke(calc, new Object[] {"a", Arrays.asList("b", "c")}));
+        
+        invoker = ResourceMethodInvokerCompiler.compileInvoker(
+            Calculator.class.getMethod("reset", Object.class));
+        assertNull(invoker.invoke(calc, new Object[] {"x"}));
+        assertEquals("x", calc.last);
+    }
+    
+    @Test
+    public void testInvokeInterface() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvokerCompiler.compileInvoker(
+            Operations.class.getMethod("negate", boolean.class));
+        assertEquals(Boolean.FALSE, invoker.invoke(new Calculator(), new Object[] {true}));
+    }
+    
+    @Test
+    public void testExceptionIsNotWrapped() throws Exception {
+        ResourceMethodInvoker invoker = ResourceMethodInvokerCompiler.compileInvoker(
+            Calculator.class.getMethod("fail"));
+        try {
+            invoker.invoke(new Calculator(), new Object[] {});
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+    }
+    
+    @Test
+    public void testNonPublicTypesAreNotCompiled() throws Exception {
+        assertNull(ResourceMethodInvokerCompiler.compileInvoker(
+            HiddenCalculator.class.getMethod("get")));
+        assertNull(ResourceMethodInvokerCompiler.compileInvoker(
+            Calculator.class.getMethod("hidden", Hidden.class)));
+        assertNull(ResourceMethodInvokerCompiler.compileInvoker(
+            Calculator.class.getMethod("create")));
+    }
+    
+    public interface Operations {
+        boolean negate(boolean value);
+    }
+    
+    public static class Calculator implements Operations {
+        private Object last;
+        
+        public double add(int a, long b, double[] c) {
+            double result = a + b;
+            for (double d : c) {
+                result += d;
+            }
+            return result;
+        }
+        
+        public String join(String prefix, List<String> values) {
+            StringBuilder sb = new StringBuilder(prefix).append(':');
+            for (int i = 0; i < values.size(); i++) {
+                sb.append(i == 0 ? "" : ",").append(values.get(i));
+            }
+            return sb.toString();
+        }
+        
+        public void reset(Object value) {
+            last = value;
+        }
+        
+        public boolean negate(boolean value) {
+            return !value;
+        }
+        
+        public void fail() throws IOException {
+            throw new IOException("failed");
+        }
+        
+        public void hidden(Hidden h) {
+        }
+        
+        public static Calculator create() {
+            return new Calculator();
+        }
+    }
+    
+    static class HiddenCalculator {
+        public String get() {
+            return null;
+        }
+    }
+    
+    static class Hidden {
+    }
+}
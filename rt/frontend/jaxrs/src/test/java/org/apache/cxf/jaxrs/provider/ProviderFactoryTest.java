@@ -55,6 +55,7 @@ import org.apache.cxf.jaxrs.Customer;
 import org.apache.cxf.jaxrs.CustomerParameterHandler;
 import org.apache.cxf.jaxrs.JAXBContextProvider;
 import org.apache.cxf.jaxrs.JAXBContextProvider2;
+import org.apache.cxf.jaxrs.ext.CacheableEntityProvider;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.cxf.jaxrs.impl.WebApplicationExceptionMapper;
 import org.apache.cxf.jaxrs.model.AbstractResourceInfo;
@@ -577,6 +578,73 @@ public class ProviderFactoryTest extends Assert {
 
     }
     
+    @Test
+    public void testCacheableWriterSelection() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        CacheableBookWriter provider = new CacheableBookWriter();
+        pf.registerUserProvider(provider);
+        MediaType mt = MediaType.valueOf("application/counted");
+        for (int i = 0; i < 3; i++) {
+            assertSame(provider, pf.createMessageBodyWriter(Book.class, Book.class, new Annotation[]{}, 
+                                                            mt, new MessageImpl()));
+        }
+        assertEquals(1, provider.getCount());
+        
+        pf.registerUserProvider(new BookReaderWriter());
+        assertSame(provider, pf.createMessageBodyWriter(Book.class, Book.class, new Annotation[]{}, 
+                                                        mt, new MessageImpl()));
+        assertEquals("Registering a provider should reset the selection", 2, provider.getCount());
+        
+        assertNull(pf.createMessageBodyWriter(String.class, String.class, new Annotation[]{}, 
+                                              mt, new MessageImpl()));
+        assertNull(pf.createMessageBodyWriter(String.class, String.class, new Annotation[]{}, 
+                                              mt, new MessageImpl()));
+        assertEquals(3, provider.getCount());
+    }
+    
+    @Test
+    public void testNonCacheableWriterSelection() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        CountingBookWriter provider = new CountingBookWriter();
+        pf.registerUserProvider(provider);
+        MediaType mt = MediaType.valueOf("application/counted");
+        for (int i = 0; i < 3; i++) {
+            assertSame(provider, pf.createMessageBodyWriter(Book.class, Book.class, new Annotation[]{}, 
+                                                            mt, new MessageImpl()));
+        }
+        assertEquals(3, provider.getCount());
+    }
+    
+    @Produces("application/counted")
+    private static class CountingBookWriter implements MessageBodyWriter<Book> {
+        private int count;
+        
+        public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, 
+                                   MediaType mediaType) {
+            count++;
+            return type == Book.class;
+        }
+        
+        public long getSize(Book t, Class<?> type, Type genericType, Annotation[] annotations, 
+                            MediaType mediaType) {
+            return -1;
+        }
+        
+        public void writeTo(Book arg0, Class<?> arg1, Type arg2, Annotation[] arg3, 
+                            MediaType arg4, MultivaluedMap<String, Object> arg5, OutputStream arg6) {
+            //Dummy
+        }
+        
+        public int getCount() {
+            return count;
+        }
+    }
+    
+    @Produces("application/counted")
+    private static class CacheableBookWriter extends CountingBookWriter implements CacheableEntityProvider {
+        
+    }
+    
     @Test
     public void testSetSchemasFromClasspath() {
         JAXBElementProvider<?> provider = new JAXBElementProvider<Object>();
@@ -19,6 +19,8 @@
 package org.apache.cxf.jaxrs.utils;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -67,6 +69,30 @@ public class InjectionUtilsTest extends Assert {
         assertEquals(value, ((Id)id).getId());
     }
     
+    @Test
+    public void testHandleParameterCachesFactories() throws Exception {
+        Message m = createMessage();
+        ServerProviderFactory pf = ServerProviderFactory.getInstance(m);
+        assertNull(pf.getParameterFactories(Side.class));
+        
+        Side side = InjectionUtils.handleParameter("left", false, Side.class, 
+                                                   new Annotation[] {}, ParameterType.QUERY, m);
+        assertSame(Side.LEFT, side);
+        Member[] factories = pf.getParameterFactories(Side.class);
+        assertEquals(2, factories.length);
+        assertEquals("fromValue", factories[0].getName());
+        assertEquals("valueOf", factories[1].getName());
+        
+        assertSame(Side.RIGHT, InjectionUtils.handleParameter("RIGHT", false, Side.class, 
+                                                              new Annotation[] {}, ParameterType.QUERY, m));
+        assertSame(factories, pf.getParameterFactories(Side.class));
+        
+        StringBuilder sb = InjectionUtils.handleParameter("3", false, StringBuilder.class, 
+                                                          new Annotation[] {}, ParameterType.QUERY, m);
+        assertEquals("3", sb.toString());
+        assertTrue(pf.getParameterFactories(StringBuilder.class)[0] instanceof Constructor);
+    }
+    
     public void testCollectionTypeFromArray() {
         assertNull(InjectionUtils.getCollectionType(String[].class));
     }
@@ -250,6 +276,15 @@ public class InjectionUtilsTest extends Assert {
         }
     }
     
+    public enum Side {
+        LEFT, 
+        RIGHT;
+        
+        public static Side fromValue(String value) {
+            return "left".equals(value) ? LEFT : null;
+        }
+    }
+    
     @XmlJavaTypeAdapter(Adapter.class)
     public interface Id {
         String getId();
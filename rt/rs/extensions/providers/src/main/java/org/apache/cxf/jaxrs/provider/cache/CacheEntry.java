@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialized response kept by {@link ResponseCache}. The entity is either
+ * kept on the heap or, once the entry has been moved to the off-heap tier,
+ * in a direct buffer.
+ */
+public final class CacheEntry {
+    private final int status;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final ByteBuffer offHeapBody;
+    private final long created;
+    private final long expires;
+    private final int size;
+    
+    public CacheEntry(int status, Map<String, List<String>> headers, byte[] body, 
+                      long created, long expires) {
+        this(status, headers, body, null, created, expires);
+    }
+    
+    private CacheEntry(int status, Map<String, List<String>> headers, byte[] body, 
+                       ByteBuffer offHeapBody, long created, long expires) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.offHeapBody = offHeapBody;
+        this.created = created;
+        this.expires = expires;
+        this.size = calculateSize();
+    }
+    
+    public int getStatus() {
+        return status;
+    }
+    
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+    
+    public String getHeader(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns a copy of the serialized entity
+     */
+    public byte[] getBody() {
+        if (offHeapBody == null) {
+            return body.clone();
+        }
+        byte[] bytes = new byte[offHeapBody.capacity()];
+        offHeapBody.duplicate().get(bytes);
+        return bytes;
+    }
+    
+    public long getCreated() {
+        return created;
+    }
+    
+    public long getExpires() {
+        return expires;
+    }
+    
+    public boolean isExpired(long now) {
+        return now >= expires;
+    }
+    
+    /**
+     * Approximate number of bytes used by this entry 
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    public boolean isOffHeap() {
+        return offHeapBody != null;
+    }
+    
+    CacheEntry toOffHeap() {
+        if (offHeapBody != null) {
+            return this;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(body.length);
+        buffer.put(body);
+        buffer.flip();
+        return new CacheEntry(status, headers, null, buffer, created, expires);
+    }
+    
+    CacheEntry toHeap() {
+        if (offHeapBody == null) {
+            return this;
+        }
+        return new CacheEntry(status, headers, getBody(), null, created, expires);
+    }
+    
+    private int calculateSize() {
+        int total = body != null ? body.length : offHeapBody.capacity();
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            for (String value : entry.getValue()) {
+                total += 2 * (entry.getKey().length() + value.length());
+            }
+        }
+        return total;
+    }
+}
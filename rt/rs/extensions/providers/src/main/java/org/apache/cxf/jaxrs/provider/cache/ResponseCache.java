@@ -0,0 +1,253 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store of serialized responses bounded by the total size of the entries.
+ * Least recently used entries are evicted first. If the off-heap tier is enabled
+ * then the entries evicted from the heap are moved to direct buffers and
+ * brought back to the heap on the next hit.
+ * <p/>
+ * Lookups go through a concurrent index without locking, a hit only marks the entry
+ * as used. The eviction order is kept under a lock by the updates: an entry used 
+ * since it was queued is given a second chance and queued again, expired entries are
+ * dropped as they are found.
+ */
+public class ResponseCache {
+    public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+    
+    private final Map<String, Node> index = new ConcurrentHashMap<String, Node>();
+    private final Map<String, Node> heap = new LinkedHashMap<String, Node>();
+    private final Map<String, Node> offHeap = new LinkedHashMap<String, Node>();
+    private long maxSize = DEFAULT_MAX_SIZE;
+    private long maxOffHeapSize;
+    private long heapSize;
+    private long offHeapSize;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public CacheEntry get(String key) {
+        return get(key, System.currentTimeMillis());
+    }
+    
+    public CacheEntry get(String key, long now) {
+        CacheEntry entry = doGet(key, now);
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+    
+    private CacheEntry doGet(String key, long now) {
+        Node node = index.get(key);
+        if (node == null) {
+            return null;
+        }
+        CacheEntry entry = node.entry;
+        if (entry.isExpired(now)) {
+            remove(node);
+            return null;
+        }
+        if (entry.isOffHeap()) {
+            // copy the body back before taking the lock
+            CacheEntry heapEntry = entry.toHeap();
+            promote(node, entry, heapEntry, now);
+            return heapEntry;
+        }
+        node.used = true;
+        return entry;
+    }
+    
+    /**
+     * Stores the entry, entries which are larger than the heap limit are ignored
+     * @return true if the entry has been stored
+     */
+    public synchronized boolean put(String key, CacheEntry entry) {
+        remove(key);
+        if (entry.getSize() > maxSize) {
+            return false;
+        }
+        Node node = new Node(key, entry);
+        index.put(key, node);
+        addToHeap(node, System.currentTimeMillis());
+        return true;
+    }
+    
+    public synchronized void remove(String key) {
+        Node node = index.get(key);
+        if (node != null) {
+            remove(node);
+        }
+    }
+    
+    public synchronized void clear() {
+        index.clear();
+        heap.clear();
+        offHeap.clear();
+        heapSize = 0;
+        offHeapSize = 0;
+    }
+    
+    private synchronized void remove(Node node) {
+        if (index.get(node.key) != node) {
+            return;
+        }
+        index.remove(node.key);
+        if (heap.remove(node.key) != null) {
+            heapSize -= node.entry.getSize();
+        } else if (offHeap.remove(node.key) != null) {
+            offHeapSize -= node.entry.getSize();
+        }
+    }
+    
+    private synchronized void promote(Node node, CacheEntry offHeapEntry, CacheEntry heapEntry, long now) {
+        if (node.entry != offHeapEntry || index.get(node.key) != node) {
+            // updated, evicted or already promoted by another thread
+            return;
+        }
+        offHeap.remove(node.key);
+        offHeapSize -= offHeapEntry.getSize();
+        node.entry = heapEntry;
+        addToHeap(node, now);
+    }
+    
+    private void addToHeap(Node node, long now) {
+        heap.put(node.key, node);
+        heapSize += node.entry.getSize();
+        node.used = false;
+        while (heapSize > maxSize) {
+            Iterator<Node> it = heap.values().iterator();
+            Node eldest = it.next();
+            if (eldest == node) {
+                break;
+            }
+            it.remove();
+            heapSize -= eldest.entry.getSize();
+            if (eldest.entry.isExpired(now)) {
+                index.remove(eldest.key);
+            } else if (eldest.used) {
+                eldest.used = false;
+                heap.put(eldest.key, eldest);
+                heapSize += eldest.entry.getSize();
+            } else {
+                addToOffHeap(eldest, now);
+            }
+        }
+    }
+    
+    private void addToOffHeap(Node node, long now) {
+        if (node.entry.getSize() > maxOffHeapSize) {
+            index.remove(node.key);
+            evictions.incrementAndGet();
+            return;
+        }
+        node.entry = node.entry.toOffHeap();
+        offHeap.put(node.key, node);
+        offHeapSize += node.entry.getSize();
+        for (Iterator<Node> it = offHeap.values().iterator(); offHeapSize > maxOffHeapSize;) {
+            Node eldest = it.next();
+            it.remove();
+            index.remove(eldest.key);
+            offHeapSize -= eldest.entry.getSize();
+            if (!eldest.entry.isExpired(now)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Sets the maximum total size of the entries kept on the heap
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    public synchronized long getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * Sets the maximum total size of the entries kept in direct buffers,
+     * the off-heap tier is disabled by default
+     */
+    public synchronized void setMaxOffHeapSize(long maxOffHeapSize) {
+        this.maxOffHeapSize = maxOffHeapSize;
+    }
+    
+    public synchronized long getMaxOffHeapSize() {
+        return maxOffHeapSize;
+    }
+    
+    public synchronized long getHeapSize() {
+        return heapSize;
+    }
+    
+    public synchronized long getOffHeapSize() {
+        return offHeapSize;
+    }
+    
+    public int getEntryCount() {
+        return index.size();
+    }
+    
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+    
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double)hitCount / total;
+    }
+    
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+    
+    private static final class Node {
+        final String key;
+        volatile CacheEntry entry;
+        volatile boolean used;
+        
+        Node(String key, CacheEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.jaxrs.utils.HttpUtils;
+import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.message.Message;
+
+/**
+ * Caches serialized GET responses in a {@link ResponseCache} and serves the later
+ * matching requests without invoking the resource. Only the responses with
+ * Cache-Control max-age or s-maxage directives are cached, the entries are keyed by
+ * the request method, URI and the headers listed in the Vary response header.
+ * Conditional requests are answered with 304 or 412 responses by evaluating
+ * the preconditions against the ETag and Last-Modified headers of the cached response.
+ * The requests with Cache-Control no-cache or max-age=0 directives are passed to 
+ * the resource, max-age and min-fresh request directives limit the age and 
+ * the remaining freshness of the served entries.
+ * 
+ * The filter has the default user priority, so the authentication and authorization
+ * filters run before it. The statistics of the cache are registered with the 
+ * InstrumentationManager of the bus, if there is one, on the first request.
+ */
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    public static final int DEFAULT_MAX_ENTRY_SIZE = 64 * 1024;
+    
+    private static final Logger LOG = LogUtils.getLogger(ResponseCacheFilter.class);
+    private static final String CACHE_KEY = "response.cache.key";
+    private static final String CACHED_RESPONSE = "response.cache.hit";
+    private static final String AGE = "Age";
+    private static final String PRAGMA = "Pragma";
+    private static final String MIN_FRESH = "min-fresh";
+    private static final String VARY_ANY = "*";
+    private static final List<String> EXCLUDED_HEADERS = Arrays.asList(
+        HttpHeaders.DATE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING, AGE, "Transfer-Encoding");
+    
+    private ResponseCache cache = new ResponseCache();
+    private int maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+    private List<String> varyHeaders = Collections.singletonList(HttpHeaders.ACCEPT);
+    private Map<String, List<String>> responseVaryHeaders = new ConcurrentHashMap<String, List<String>>();
+    private volatile boolean registered;
+    
+    public void filter(ContainerRequestContext context) {
+        if (!registered) {
+            registerMBean(JAXRSUtils.getCurrentMessage());
+        }
+        if (!HttpMethod.GET.equals(context.getMethod())) {
+            return;
+        }
+        CacheControl cc = getCacheControl(context.getHeaderString(HttpHeaders.CACHE_CONTROL));
+        if (cc != null && cc.isNoStore()) {
+            return;
+        }
+        String baseKey = context.getMethod() + " " + context.getUriInfo().getRequestUri().toString();
+        context.setProperty(CACHE_KEY, baseKey);
+        if ((cc != null && (cc.isNoCache() || cc.getMaxAge() == 0)) 
+            || "no-cache".equals(context.getHeaderString(PRAGMA))) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        CacheEntry entry = cache.get(getKey(baseKey, context), now);
+        if (entry != null && isAcceptable(cc, entry, now)) {
+            context.setProperty(CACHED_RESPONSE, Boolean.TRUE);
+            context.abortWith(getCachedResponse(context.getRequest(), entry, now));
+        }
+    }
+    
+    public void filter(ContainerRequestContext reqContext, ContainerResponseContext respContext) {
+        String baseKey = (String)reqContext.getProperty(CACHE_KEY);
+        if (baseKey == null || reqContext.getProperty(CACHED_RESPONSE) != null
+            || respContext.getStatus() != 200 || !respContext.hasEntity()) {
+            return;
+        }
+        MultivaluedMap<String, String> headers = respContext.getStringHeaders();
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return;
+        }
+        CacheControl cc = getCacheControl(headers.getFirst(HttpHeaders.CACHE_CONTROL));
+        if (cc == null || cc.isNoStore() || cc.isNoCache() || cc.isPrivate()) {
+            return;
+        }
+        // shared caches may only store the authorized responses with an explicit s-maxage
+        boolean authorized = reqContext.getHeaderString(HttpHeaders.AUTHORIZATION) != null;
+        int maxAge = cc.getSMaxAge() >= 0 ? cc.getSMaxAge() : authorized ? -1 : cc.getMaxAge();
+        if (maxAge <= 0) {
+            return;
+        }
+        List<String> vary = getVaryHeaders(headers.get(HttpHeaders.VARY));
+        if (vary.contains(VARY_ANY)) {
+            return;
+        }
+        if (vary.equals(varyHeaders)) {
+            responseVaryHeaders.remove(baseKey);
+        } else {
+            responseVaryHeaders.put(baseKey, vary);
+        }
+        
+        Map<String, List<String>> entryHeaders = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (!isExcludedHeader(entry.getKey())) {
+                entryHeaders.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+            }
+        }
+        long now = System.currentTimeMillis();
+        respContext.setEntityStream(new CachingOutputStream(respContext.getEntityStream(),
+                                                            JAXRSUtils.getCurrentMessage(),
+                                                            getKey(baseKey, vary, reqContext),
+                                                            entryHeaders,
+                                                            now,
+                                                            now + maxAge * 1000L));
+    }
+    
+    private Response getCachedResponse(Request request, CacheEntry entry, long now) {
+        EntityTag eTag = getEntityTag(entry);
+        ResponseBuilder rb = evaluatePreconditions(request, eTag, entry);
+        if (rb == null) {
+            rb = Response.status(entry.getStatus()).entity(entry.getBody());
+            for (Map.Entry<String, List<String>> header : entry.getHeaders().entrySet()) {
+                for (String value : header.getValue()) {
+                    rb.header(header.getKey(), value);
+                }
+            }
+        } else {
+            if (eTag != null) {
+                // the preconditions evaluation may have already set it
+                rb.tag(eTag);
+            }
+            for (String name : new String[]{HttpHeaders.LAST_MODIFIED, 
+                                            HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES, 
+                                            HttpHeaders.VARY, HttpHeaders.CONTENT_LOCATION}) {
+                String value = entry.getHeader(name);
+                if (value != null) {
+                    rb.header(name, value);
+                }
+            }
+        }
+        rb.header(AGE, Long.toString((now - entry.getCreated()) / 1000));
+        return rb.build();
+    }
+    
+    private static boolean isAcceptable(CacheControl cc, CacheEntry entry, long now) {
+        if (cc == null) {
+            return true;
+        }
+        if (cc.getMaxAge() > 0 && now - entry.getCreated() > cc.getMaxAge() * 1000L) {
+            return false;
+        }
+        String minFresh = cc.getCacheExtension().get(MIN_FRESH);
+        if (minFresh != null) {
+            try {
+                return entry.getExpires() - now >= Integer.parseInt(minFresh.trim()) * 1000L;
+            } catch (NumberFormatException ex) {
+                // ignore
+            }
+        }
+        return true;
+    }
+    
+    private static EntityTag getEntityTag(CacheEntry entry) {
+        String value = entry.getHeader(HttpHeaders.ETAG);
+        if (value != null) {
+            try {
+                return EntityTag.valueOf(value);
+            } catch (IllegalArgumentException ex) {
+                // ignore
+            }
+        }
+        return null;
+    }
+    
+    private static ResponseBuilder evaluatePreconditions(Request request, EntityTag eTag, CacheEntry entry) {
+        Date lastModified = HttpUtils.getHttpDate(entry.getHeader(HttpHeaders.LAST_MODIFIED));
+        if (eTag != null && lastModified != null) {
+            return request.evaluatePreconditions(lastModified, eTag);
+        } else if (eTag != null) {
+            return request.evaluatePreconditions(eTag);
+        } else if (lastModified != null) {
+            return request.evaluatePreconditions(lastModified);
+        } else {
+            return null;
+        }
+    }
+    
+    private String getKey(String baseKey, ContainerRequestContext context) {
+        List<String> vary = responseVaryHeaders.get(baseKey);
+        return getKey(baseKey, vary == null ? varyHeaders : vary, context);
+    }
+    
+    private static String getKey(String baseKey, List<String> vary, ContainerRequestContext context) {
+        StringBuilder sb = new StringBuilder(baseKey);
+        for (String name : vary) {
+            String value = context.getHeaderString(name);
+            sb.append('\n').append(name).append(':').append(value == null ? "" : value);
+        }
+        return sb.toString();
+    }
+    
+    private List<String> getVaryHeaders(List<String> values) {
+        List<String> vary = new ArrayList<String>(varyHeaders);
+        if (values != null) {
+            for (String value : values) {
+                for (String name : value.split(",")) {
+                    name = name.trim();
+                    if (name.length() > 0 && !containsIgnoreCase(vary, name)) {
+                        vary.add(name);
+                    }
+                }
+            }
+        }
+        return vary;
+    }
+    
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isExcludedHeader(String name) {
+        return containsIgnoreCase(EXCLUDED_HEADERS, name);
+    }
+    
+    private static void removeHeader(Map<String, List<String>> headers, String name) {
+        for (Iterator<String> it = headers.keySet().iterator(); it.hasNext();) {
+            if (it.next().equalsIgnoreCase(name)) {
+                it.remove();
+            }
+        }
+    }
+    
+    private static CacheControl getCacheControl(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return CacheControl.valueOf(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+    
+    private synchronized void registerMBean(Message message) {
+        if (registered || message == null || message.getExchange() == null) {
+            return;
+        }
+        registered = true;
+        Bus bus = message.getExchange().getBus();
+        InstrumentationManager imanager = bus == null ? null : bus.getExtension(InstrumentationManager.class);
+        if (imanager != null) {
+            try {
+                imanager.register(new ResponseCacheMBeanWrapper(this, bus));
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, jmex.getMessage(), jmex);
+            }
+        }
+    }
+    
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    public void setCache(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum size of the serialized entity which can be cached
+     */
+    public void setMaxEntrySize(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public List<String> getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    /**
+     * Sets the request headers which are always added to the cache key,
+     * defaults to Accept
+     */
+    public void setVaryHeaders(List<String> varyHeaders) {
+        this.varyHeaders = varyHeaders;
+        responseVaryHeaders.clear();
+    }
+    
+    private class CachingOutputStream extends OutputStream {
+        private final OutputStream os;
+        private final Message message;
+        private final String key;
+        private final Map<String, List<String>> headers;
+        private final long created;
+        private final long expires;
+        private ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        
+        CachingOutputStream(OutputStream os, Message message, String key, 
+                            Map<String, List<String>> headers, long created, long expires) {
+            this.os = os;
+            this.message = message;
+            this.key = key;
+            this.headers = headers;
+            this.created = created;
+            this.expires = expires;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            os.write(b);
+            if (bos != null) {
+                if (bos.size() < maxEntrySize) {
+                    bos.write(b);
+                } else {
+                    bos = null;
+                }
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            os.write(b, off, len);
+            if (bos != null) {
+                if (bos.size() + len <= maxEntrySize) {
+                    bos.write(b, off, len);
+                } else {
+                    bos = null;
+                }
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            os.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                os.close();
+            } finally {
+                store();
+            }
+        }
+        
+        private void store() {
+            if (bos == null) {
+                return;
+            }
+            byte[] body = bos.toByteArray();
+            bos = null;
+            if (message != null) {
+                // the exception mappers might have replaced the response while it was being written 
+                Object code = message.get(Message.RESPONSE_CODE);
+                if (code != null && !Integer.valueOf(200).equals(code)) {
+                    return;
+                }
+                Object ct = message.get(Message.CONTENT_TYPE);
+                if (ct != null) {
+                    removeHeader(headers, HttpHeaders.CONTENT_TYPE);
+                    headers.put(HttpHeaders.CONTENT_TYPE, Collections.singletonList(ct.toString()));
+                }
+            }
+            cache.put(key, new CacheEntry(200, headers, body, created, expires));
+        }
+    }
+}
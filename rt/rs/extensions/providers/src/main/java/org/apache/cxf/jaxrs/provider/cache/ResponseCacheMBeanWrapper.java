@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider.cache;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedOperation;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+@ManagedResource(componentName = "ResponseCache", 
+                 description = "The response cache of a ResponseCacheFilter", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class ResponseCacheMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "ResponseCache";
+    
+    private ResponseCacheFilter filter;
+    private Bus bus;
+    
+    public ResponseCacheMBeanWrapper(ResponseCacheFilter filter, Bus bus) {
+        this.filter = filter;
+        this.bus = bus;
+    }
+    
+    @ManagedAttribute(description = "The number of cached responses")
+    public int getEntryCount() {
+        return filter.getCache().getEntryCount();
+    }
+    
+    @ManagedAttribute(description = "The total size of the responses kept on the heap")
+    public long getHeapSize() {
+        return filter.getCache().getHeapSize();
+    }
+    
+    @ManagedAttribute(description = "The total size of the responses kept in direct buffers")
+    public long getOffHeapSize() {
+        return filter.getCache().getOffHeapSize();
+    }
+    
+    @ManagedAttribute(description = "The number of requests served from the cache")
+    public long getHitCount() {
+        return filter.getCache().getHitCount();
+    }
+    
+    @ManagedAttribute(description = "The number of requests not found in the cache")
+    public long getMissCount() {
+        return filter.getCache().getMissCount();
+    }
+    
+    @ManagedAttribute(description = "The number of responses evicted to make room for others")
+    public long getEvictionCount() {
+        return filter.getCache().getEvictionCount();
+    }
+    
+    @ManagedAttribute(description = "The share of the lookups served from the cache")
+    public double getHitRatio() {
+        return filter.getCache().getHitRatio();
+    }
+    
+    @ManagedOperation(description = "Reset the hit, miss and eviction counts")
+    public void resetStatistics() {
+        filter.getCache().resetStatistics();
+    }
+    
+    @ManagedOperation(description = "Remove all the cached responses")
+    public void clear() {
+        filter.getCache().clear();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(filter.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
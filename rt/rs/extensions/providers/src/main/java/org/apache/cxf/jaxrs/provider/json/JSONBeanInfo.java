@@ -0,0 +1,711 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider.json;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAnyAttribute;
+import javax.xml.bind.annotation.XmlAnyElement;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementRef;
+import javax.xml.bind.annotation.XmlElementRefs;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlElements;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+import javax.xml.bind.annotation.XmlMixed;
+import javax.xml.bind.annotation.XmlNsForm;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+import javax.xml.bind.annotation.XmlValue;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+import org.apache.cxf.jaxrs.utils.JAXBUtils;
+
+/**
+ * Precomputed view of the JAXB properties of a bean class as used by
+ * StreamingJSONProvider: the JSON names of the attributes and elements 
+ * and the accessors used to read and write them.
+ */
+final class JSONBeanInfo {
+    private static final String JAXB_DEFAULT = "##default";
+    private static final String XML_BIND_PACKAGE = XmlElement.class.getPackage().getName();
+    private static final List<Class<? extends Annotation>> UNSUPPORTED_ANNOTATIONS = 
+        Arrays.<Class<? extends Annotation>>asList(XmlElementRef.class, XmlElementRefs.class, 
+            XmlElements.class, XmlAnyElement.class, XmlAnyAttribute.class, XmlMixed.class, 
+            XmlList.class, XmlIDREF.class);
+    private static final Map<Class<?>, Map<String, Object>> ENUM_CONSTANTS = 
+        new ConcurrentHashMap<Class<?>, Map<String, Object>>();
+    private static final Map<Class<?>, String[]> ENUM_VALUES = new ConcurrentHashMap<Class<?>, String[]>();
+    private static final Set<Class<?>> SIMPLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+        String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, 
+        Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, byte[].class, 
+        UUID.class));
+    
+    private final Class<?> beanClass;
+    private final List<Property> attributes = new ArrayList<Property>();
+    private final List<Property> elements = new ArrayList<Property>();
+    private final Map<String, Property> readNames = new HashMap<String, Property>();
+    private Property valueProperty;
+    private Constructor<?> constructor;
+    private boolean unsupported;
+    private volatile Boolean readable;
+    private volatile Boolean writeable;
+    
+    private JSONBeanInfo(Class<?> beanClass) {
+        this.beanClass = beanClass;
+    }
+    
+    static JSONBeanInfo create(Class<?> cls, 
+                               NamespacePrefixes prefixes,
+                               boolean attributesToElements) {
+        JSONBeanInfo info = new JSONBeanInfo(cls);
+        if (cls.isInterface() || Modifier.isAbstract(cls.getModifiers()) 
+            || Collection.class.isAssignableFrom(cls) || Map.class.isAssignableFrom(cls)
+            || cls.isArray() || cls == Object.class) {
+            info.unsupported = true;
+            return info;
+        }
+        try {
+            info.constructor = cls.getDeclaredConstructor();
+            makeAccessible(info.constructor);
+        } catch (NoSuchMethodException ex) {
+            // can only be written
+        }
+        
+        List<Class<?>> hierarchy = new LinkedList<Class<?>>();
+        for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        for (Class<?> c : hierarchy) {
+            for (Candidate candidate : getCandidates(c)) {
+                info.addProperty(candidate, prefixes, attributesToElements);
+            }
+        }
+        if (info.valueProperty != null && !info.elements.isEmpty()) {
+            info.unsupported = true;
+        }
+        return info;
+    }
+    
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+    
+    List<Property> getAttributes() {
+        return attributes;
+    }
+    
+    List<Property> getElements() {
+        return elements;
+    }
+    
+    List<Property> getProperties() {
+        List<Property> all = new ArrayList<Property>(attributes);
+        all.addAll(elements);
+        if (valueProperty != null) {
+            all.add(valueProperty);
+        }
+        return all;
+    }
+    
+    Property getValueProperty() {
+        return valueProperty;
+    }
+    
+    Property getProperty(String jsonName) {
+        return readNames.get(jsonName);
+    }
+    
+    boolean isUnsupported() {
+        return unsupported;
+    }
+    
+    boolean canInstantiate() {
+        return constructor != null;
+    }
+    
+    Object newInstance() throws Exception {
+        return constructor.newInstance();
+    }
+    
+    Boolean getReadable() {
+        return readable;
+    }
+    
+    void setReadable(Boolean value) {
+        readable = value;
+    }
+    
+    Boolean getWriteable() {
+        return writeable;
+    }
+    
+    void setWriteable(Boolean value) {
+        writeable = value;
+    }
+    
+    static boolean isSimpleType(Class<?> cls) {
+        return cls.isPrimitive()
+            || SIMPLE_TYPES.contains(cls)
+            || cls.isEnum()
+            || Date.class.isAssignableFrom(cls)
+            || Calendar.class.isAssignableFrom(cls)
+            || XMLGregorianCalendar.class.isAssignableFrom(cls);
+    }
+    
+    static String getEnumValue(Enum<?> value) {
+        String[] values = ENUM_VALUES.get(value.getDeclaringClass());
+        if (values == null) {
+            initEnum(value.getDeclaringClass());
+            values = ENUM_VALUES.get(value.getDeclaringClass());
+        }
+        return values[value.ordinal()];
+    }
+    
+    static Object getEnumConstant(Class<?> cls, String value) {
+        Map<String, Object> constants = ENUM_CONSTANTS.get(cls);
+        if (constants == null) {
+            initEnum(cls);
+            constants = ENUM_CONSTANTS.get(cls);
+        }
+        Object constant = constants.get(value);
+        if (constant == null) {
+            throw new IllegalArgumentException("No " + cls.getName() + " constant for " + value);
+        }
+        return constant;
+    }
+    
+    private static void initEnum(Class<?> cls) {
+        Object[] constants = cls.getEnumConstants();
+        String[] values = new String[constants.length];
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (Object constant : constants) {
+            String name = ((Enum<?>)constant).name();
+            String value = name;
+            try {
+                XmlEnumValue enumValue = cls.getField(name).getAnnotation(XmlEnumValue.class);
+                if (enumValue != null) {
+                    value = enumValue.value();
+                }
+            } catch (NoSuchFieldException ex) {
+                // not expected for enum constants
+            }
+            values[((Enum<?>)constant).ordinal()] = value;
+            map.put(value, constant);
+        }
+        ENUM_CONSTANTS.put(cls, map);
+        ENUM_VALUES.put(cls, values);
+    }
+    
+    private void addProperty(Candidate c, NamespacePrefixes prefixes, boolean attributesToElements) {
+        for (Class<? extends Annotation> ann : UNSUPPORTED_ANNOTATIONS) {
+            if (c.getAnnotation(ann) != null) {
+                unsupported = true;
+                return;
+            }
+        }
+        Property p = new Property(c);
+        if (c.getAnnotation(XmlValue.class) != null) {
+            valueProperty = p;
+            return;
+        }
+        String packageNs = getPackageNamespace(c.declaringClass, false);
+        XmlAttribute attr = c.getAnnotation(XmlAttribute.class);
+        if (attr != null) {
+            String ns = JAXB_DEFAULT.equals(attr.namespace()) 
+                ? getPackageNamespace(c.declaringClass, true) : attr.namespace();
+            String local = JAXB_DEFAULT.equals(attr.name()) ? c.name : attr.name();
+            String name = prefixes.getJsonName(ns, local);
+            p.init(attributesToElements ? name : "@" + name, true);
+            attributes.add(p);
+        } else {
+            XmlElement el = c.getAnnotation(XmlElement.class);
+            String ns = el == null || JAXB_DEFAULT.equals(el.namespace()) ? packageNs : el.namespace();
+            String local = el == null || JAXB_DEFAULT.equals(el.name()) ? c.name : el.name();
+            p.init(prefixes.getJsonName(ns, local), false);
+            p.nillable = el != null && el.nillable();
+            XmlElementWrapper wrapper = c.getAnnotation(XmlElementWrapper.class);
+            if (wrapper != null) {
+                String wrapperNs = JAXB_DEFAULT.equals(wrapper.namespace()) ? packageNs : wrapper.namespace();
+                String wrapperLocal = JAXB_DEFAULT.equals(wrapper.name()) ? c.name : wrapper.name();
+                p.wrapperName = prefixes.getJsonName(wrapperNs, wrapperLocal);
+                readNames.put(p.wrapperName, p);
+                if (!readNames.containsKey(wrapperLocal)) {
+                    readNames.put(wrapperLocal, p);
+                }
+            }
+            elements.add(p);
+        }
+        if (p.wrapperName == null) {
+            readNames.put(p.name, p);
+            if (!readNames.containsKey(p.localName)) {
+                readNames.put(p.localName, p);
+            }
+        }
+        if (p.unsupported) {
+            unsupported = true;
+        }
+    }
+    
+    private static String getPackageNamespace(Class<?> cls, boolean attribute) {
+        Package pkg = cls.getPackage();
+        XmlSchema schema = pkg == null ? null : pkg.getAnnotation(XmlSchema.class);
+        if (schema != null) {
+            XmlNsForm form = attribute ? schema.attributeFormDefault() : schema.elementFormDefault();
+            if (form == XmlNsForm.QUALIFIED) {
+                return schema.namespace();
+            }
+        }
+        return "";
+    }
+    
+    private static XmlAccessType getAccessType(Class<?> cls) {
+        XmlAccessorType accessorType = cls.getAnnotation(XmlAccessorType.class);
+        if (accessorType == null && cls.getPackage() != null) {
+            accessorType = cls.getPackage().getAnnotation(XmlAccessorType.class);
+        }
+        return accessorType == null ? XmlAccessType.PUBLIC_MEMBER : accessorType.value();
+    }
+    
+    private static List<Candidate> getCandidates(Class<?> cls) {
+        XmlAccessType access = getAccessType(cls);
+        Map<String, Candidate> candidates = new LinkedHashMap<String, Candidate>();
+        for (Field f : cls.getDeclaredFields()) {
+            int mod = f.getModifiers();
+            if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.isSynthetic()
+                || f.getAnnotation(XmlTransient.class) != null) {
+                continue;
+            }
+            if (hasJaxbAnnotation(f) || access == XmlAccessType.FIELD 
+                || access == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(mod)) {
+                Candidate c = new Candidate(cls, f.getName());
+                c.field = f;
+                candidates.put(c.name, c);
+            }
+        }
+        Map<String, Method[]> accessors = new LinkedHashMap<String, Method[]>();
+        for (Method m : cls.getDeclaredMethods()) {
+            if (Modifier.isStatic(m.getModifiers()) || m.isBridge() || m.isSynthetic()) {
+                continue;
+            }
+            String name = m.getName();
+            int index = -1;
+            int prefix = 0;
+            if (m.getParameterTypes().length == 0 && m.getReturnType() != void.class) {
+                if (name.startsWith("get") && name.length() > 3) {
+                    index = 0;
+                    prefix = 3;
+                } else if (name.startsWith("is") && name.length() > 2 
+                    && (m.getReturnType() == boolean.class || m.getReturnType() == Boolean.class)) {
+                    index = 0;
+                    prefix = 2;
+                }
+            } else if (m.getParameterTypes().length == 1 && m.getReturnType() == void.class
+                && name.startsWith("set") && name.length() > 3) {
+                index = 1;
+                prefix = 3;
+            }
+            if (index == -1) {
+                continue;
+            }
+            String propName = toPropertyName(name.substring(prefix));
+            Method[] pair = accessors.get(propName);
+            if (pair == null) {
+                pair = new Method[2];
+                accessors.put(propName, pair);
+            }
+            pair[index] = m;
+        }
+        for (Map.Entry<String, Method[]> entry : accessors.entrySet()) {
+            Method getter = entry.getValue()[0];
+            Method setter = entry.getValue()[1];
+            if (getter == null 
+                || getter.getAnnotation(XmlTransient.class) != null
+                || setter != null && setter.getAnnotation(XmlTransient.class) != null
+                || setter != null && setter.getParameterTypes()[0] != getter.getReturnType()) {
+                continue;
+            }
+            boolean annotated = hasJaxbAnnotation(getter) || setter != null && hasJaxbAnnotation(setter);
+            boolean collection = Collection.class.isAssignableFrom(getter.getReturnType());
+            boolean included = annotated 
+                || access == XmlAccessType.PROPERTY && (setter != null || collection)
+                || access == XmlAccessType.PUBLIC_MEMBER && setter != null 
+                    && Modifier.isPublic(getter.getModifiers()) && Modifier.isPublic(setter.getModifiers());
+            if (!included || candidates.containsKey(entry.getKey()) && !annotated) {
+                continue;
+            }
+            Candidate c = new Candidate(cls, entry.getKey());
+            c.getter = getter;
+            c.setter = setter;
+            candidates.put(c.name, c);
+        }
+        List<Candidate> result = new ArrayList<Candidate>(candidates.values());
+        sortCandidates(cls, result);
+        return result;
+    }
+    
+    private static void sortCandidates(Class<?> cls, List<Candidate> candidates) {
+        XmlType xmlType = cls.getAnnotation(XmlType.class);
+        if (xmlType != null && xmlType.propOrder().length > 0 && xmlType.propOrder()[0].length() > 0) {
+            final List<String> order = Arrays.asList(xmlType.propOrder());
+            Collections.sort(candidates, new Comparator<Candidate>() {
+                public int compare(Candidate c1, Candidate c2) {
+                    int i1 = getIndex(c1);
+                    int i2 = getIndex(c2);
+                    return i1 < i2 ? -1 : i1 == i2 ? 0 : 1;
+                }
+                
+                private int getIndex(Candidate c) {
+                    int index = order.indexOf(c.name);
+                    return index == -1 ? Integer.MAX_VALUE : index;
+                }
+            });
+            return;
+        }
+        XmlAccessorOrder accessorOrder = cls.getAnnotation(XmlAccessorOrder.class);
+        if (accessorOrder == null && cls.getPackage() != null) {
+            accessorOrder = cls.getPackage().getAnnotation(XmlAccessorOrder.class);
+        }
+        if (accessorOrder != null && accessorOrder.value() == XmlAccessOrder.ALPHABETICAL) {
+            Collections.sort(candidates, new Comparator<Candidate>() {
+                public int compare(Candidate c1, Candidate c2) {
+                    return c1.name.compareTo(c2.name);
+                }
+            });
+        }
+    }
+    
+    private static boolean hasJaxbAnnotation(AccessibleObject member) {
+        for (Annotation a : member.getAnnotations()) {
+            if (a.annotationType().getName().startsWith(XML_BIND_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Converts the getter or setter name suffix to the property name
+     * the way JAXB does: "Name" to "name", "ID" to "id", "URLValue" to "urlValue" 
+     */
+    static String toPropertyName(String name) {
+        int upper = 0;
+        while (upper < name.length() && Character.isUpperCase(name.charAt(upper))) {
+            upper++;
+        }
+        if (upper == 0) {
+            return name;
+        }
+        if (upper > 1 && upper < name.length()) {
+            upper--;
+        }
+        return name.substring(0, upper).toLowerCase() + name.substring(upper);
+    }
+    
+    private static void makeAccessible(AccessibleObject member) {
+        try {
+            member.setAccessible(true);
+        } catch (SecurityException ex) {
+            // public members are still accessible
+        }
+    }
+    
+    /**
+     * Maps the namespaces to the prefixes of the JSON names the way JSONProvider
+     * does: the prefixes of the namespace map are used, the namespaces missing from 
+     * it are given the 'ns2', 'ns3', ... prefixes JAXB generates, in the order 
+     * they are first met.
+     */
+    static final class NamespacePrefixes {
+        // JAXB declares the empty and the xml namespaces first
+        private static final int FIRST_GENERATED_INDEX = 2;
+        
+        private final Map<String, String> namespaceMap;
+        private final boolean ignoreNamespaces;
+        private final Map<String, String> usedPrefixes = new HashMap<String, String>();
+        
+        NamespacePrefixes(Map<String, String> namespaceMap, boolean ignoreNamespaces) {
+            this.namespaceMap = namespaceMap;
+            this.ignoreNamespaces = ignoreNamespaces;
+        }
+        
+        String getJsonName(String namespace, String localName) {
+            if (ignoreNamespaces || namespace == null || namespace.length() == 0) {
+                return localName;
+            }
+            String prefix = getPrefix(namespace);
+            return prefix.length() == 0 ? localName : prefix + "." + localName;
+        }
+        
+        private synchronized String getPrefix(String namespace) {
+            String prefix = usedPrefixes.get(namespace);
+            if (prefix == null) {
+                prefix = namespaceMap.get(namespace);
+                if (prefix == null) {
+                    prefix = "ns" + (FIRST_GENERATED_INDEX + usedPrefixes.size());
+                }
+                usedPrefixes.put(namespace, prefix);
+            }
+            return prefix;
+        }
+    }
+    
+    /**
+     * The field or the getter and setter pair found for a given property name
+     */
+    private static class Candidate {
+        private final Class<?> declaringClass;
+        private final String name;
+        private Field field;
+        private Method getter;
+        private Method setter;
+        
+        Candidate(Class<?> declaringClass, String name) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+        }
+        
+        <A extends Annotation> A getAnnotation(Class<A> cls) {
+            if (field != null) {
+                return field.getAnnotation(cls);
+            }
+            A a = getter.getAnnotation(cls);
+            return a != null || setter == null ? a : setter.getAnnotation(cls);
+        }
+        
+        Annotation[] getAnnotations() {
+            if (field != null) {
+                return field.getAnnotations();
+            }
+            if (setter == null) {
+                return getter.getAnnotations();
+            }
+            List<Annotation> anns = new ArrayList<Annotation>(Arrays.asList(getter.getAnnotations()));
+            anns.addAll(Arrays.asList(setter.getAnnotations()));
+            return anns.toArray(new Annotation[anns.size()]);
+        }
+    }
+    
+    static final class Property {
+        private String name;
+        private String localName;
+        private boolean attribute;
+        private boolean nillable;
+        private String wrapperName;
+        private final Class<?> type;
+        private final Class<?> itemType;
+        private final Class<?> componentType;
+        private final boolean array;
+        private final XmlAdapter<Object, Object> adapter;
+        private final Field field;
+        private final Method getter;
+        private final Method setter;
+        private boolean unsupported;
+        
+        @SuppressWarnings("unchecked")
+        Property(Candidate c) {
+            field = c.field;
+            getter = c.getter;
+            setter = c.setter;
+            localName = c.name;
+            Class<?> declaredType = field != null ? field.getType() : getter.getReturnType();
+            Type genericType = field != null ? field.getGenericType() : getter.getGenericReturnType();
+            
+            boolean isCollection = Collection.class.isAssignableFrom(declaredType);
+            array = declaredType.isArray() && declaredType != byte[].class;
+            Class<?> rawItemType = null;
+            if (isCollection) {
+                rawItemType = InjectionUtils.getActualType(genericType);
+            } else if (array) {
+                rawItemType = declaredType.getComponentType();
+            }
+            componentType = array ? rawItemType : null;
+            Class<?> valueType = rawItemType != null ? rawItemType : declaredType;
+            XmlAdapter<Object, Object> xmlAdapter = null;
+            XmlJavaTypeAdapter adapterAnn = valueType == null ? null 
+                : JAXBUtils.getAdapter(valueType, c.getAnnotations());
+            if (adapterAnn != null) {
+                try {
+                    xmlAdapter = adapterAnn.value().newInstance();
+                    valueType = JAXBUtils.getTypeFromAdapter(adapterAnn, valueType, false);
+                } catch (Exception ex) {
+                    unsupported = true;
+                }
+            }
+            adapter = xmlAdapter;
+            if (rawItemType != null) {
+                type = declaredType;
+                itemType = valueType;
+            } else {
+                type = valueType;
+                itemType = null;
+            }
+            if (valueType == null || Map.class.isAssignableFrom(type)) {
+                unsupported = true;
+            }
+            if (field != null) {
+                makeAccessible(field);
+            } else {
+                makeAccessible(getter);
+                if (setter != null) {
+                    makeAccessible(setter);
+                }
+            }
+        }
+        
+        void init(String jsonName, boolean isAttribute) {
+            this.name = jsonName;
+            this.attribute = isAttribute;
+        }
+        
+        String getName() {
+            return name;
+        }
+        
+        String getWrapperName() {
+            return wrapperName;
+        }
+        
+        boolean isAttribute() {
+            return attribute;
+        }
+        
+        boolean isNillable() {
+            return nillable;
+        }
+        
+        boolean isCollectionOrArray() {
+            return itemType != null;
+        }
+        
+        /**
+         * @return the type of the property value, or the type of the collection item 
+         */
+        Class<?> getValueType() {
+            return itemType != null ? itemType : type;
+        }
+        
+        Object get(Object bean) throws Exception {
+            return field != null ? field.get(bean) : getter.invoke(bean);
+        }
+        
+        Object marshal(Object value) throws Exception {
+            return adapter == null || value == null ? value : adapter.marshal(value);
+        }
+        
+        Object unmarshal(Object value) throws Exception {
+            return adapter == null || value == null ? value : adapter.unmarshal(value);
+        }
+        
+        Iterable<?> getItems(Object value) {
+            if (value instanceof Collection) {
+                return (Collection<?>)value;
+            }
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<Object>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+            return list;
+        }
+        
+        void set(Object bean, Object value) throws Exception {
+            if (value == null && type.isPrimitive()) {
+                return;
+            }
+            if (field != null) {
+                field.set(bean, value);
+            } else if (setter != null) {
+                setter.invoke(bean, value);
+            } else {
+                // getter only collection property
+                @SuppressWarnings("unchecked")
+                Collection<Object> existing = (Collection<Object>)getter.invoke(bean);
+                if (existing != null && value != null) {
+                    existing.addAll((Collection<?>)value);
+                }
+            }
+        }
+        
+        Object createCollectionOrArray(List<Object> items) throws Exception {
+            if (array) {
+                Object result = Array.newInstance(componentType, items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    Array.set(result, i, items.get(i));
+                }
+                return result;
+            }
+            return createCollection(type, items);
+        }
+        
+        @SuppressWarnings("unchecked")
+        static Collection<Object> createCollection(Class<?> type, List<Object> items) throws Exception {
+            if (type.isAssignableFrom(List.class) || type.isAssignableFrom(ArrayList.class)) {
+                return items;
+            } else if (type.isAssignableFrom(SortedSet.class)) {
+                return new TreeSet<Object>(items);
+            } else if (type.isAssignableFrom(Set.class)) {
+                return new LinkedHashSet<Object>(items);
+            }
+            Collection<Object> c = (Collection<Object>)type.newInstance();
+            c.addAll(items);
+            return c;
+        }
+    }
+}
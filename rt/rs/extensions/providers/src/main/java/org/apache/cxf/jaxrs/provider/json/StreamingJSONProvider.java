@@ -0,0 +1,791 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.common.util.Base64Utility;
+import org.apache.cxf.common.util.PrimitiveUtils;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.ext.Nullable;
+import org.apache.cxf.jaxrs.provider.AbstractJAXBProvider;
+import org.apache.cxf.jaxrs.provider.json.utils.JSONStreamReader;
+import org.apache.cxf.jaxrs.provider.json.utils.JSONStreamReader.Event;
+import org.apache.cxf.jaxrs.provider.json.utils.JSONStreamWriter;
+import org.apache.cxf.jaxrs.utils.AnnotationUtils;
+import org.apache.cxf.jaxrs.utils.HttpUtils;
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+import org.apache.cxf.jaxrs.utils.JAXBUtils;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.staxutils.DepthExceededStaxException;
+
+/**
+ * JSON provider which reads and writes JAXB-annotated beans directly from and to 
+ * a JSON token stream, without JAXB marshalling to an intermediate XMLStreamWriter
+ * or XMLStreamReader. The output follows the JSONProvider 'mapped' convention:
+ * the root element name is used as the top level key unless the root is dropped,
+ * attributes are prefixed with '@' unless they are written as elements, the text
+ * value of a bean with attributes is keyed by '$', and the namespace map is used
+ * to prefix the qualified names.
+ * 
+ * By default the output matches the JSONProvider one: collection properties with
+ * a single item are written as a single value unless the serializeAsArray or 
+ * arrayKeys settings require an array, and the values which look like numbers or 
+ * booleans are written as JSON primitives whatever their Java types are.
+ * Setting writeCollectionsAsArrays makes all the collection properties JSON arrays,
+ * setting writeTypedValues writes the values as JSON strings or primitives 
+ * according to their Java types. 
+ * 
+ * Unlike JSONProvider, nil elements are written as JSON nulls and a collection 
+ * without the wrapper element is always written as a JSON array. Beans relying on 
+ * JAXB features such as XmlElementRef, XmlAnyElement, XmlMixed or polymorphic 
+ * properties are not supported by this provider.
+ */
+@Produces({"application/json", "application/*+json" })
+@Consumes({"application/json", "application/*+json" })
+@Provider
+public class StreamingJSONProvider<T> extends AbstractJAXBProvider<T> {
+    
+    private static final String DROP_ROOT_CONTEXT_PROPERTY = "drop.json.root.element";
+    private static final String ARRAY_KEYS_PROPERTY = "json.array.keys";
+    private static final String ROOT_IS_ARRAY_PROPERTY = "json.root.is.array";
+    private static final String VALUE_KEY = "$";
+    private static final String COLLECTION_WRAPPER_PREFIX = "ns1";
+    private static volatile DatatypeFactory datatypeFactory;
+    
+    private final Map<Class<?>, JSONBeanInfo> beanInfos = new ConcurrentHashMap<Class<?>, JSONBeanInfo>();
+    private final Map<Class<?>, String> rootNames = new ConcurrentHashMap<Class<?>, String>();
+    private final Map<String, String> namespaceMap = new ConcurrentHashMap<String, String>();
+    private volatile JSONBeanInfo.NamespacePrefixes namespacePrefixes = 
+        new JSONBeanInfo.NamespacePrefixes(namespaceMap, false);
+    private boolean serializeAsArray;
+    private List<String> arrayKeys;
+    private boolean dropRootElement;
+    private boolean dropCollectionWrapperElement;
+    private boolean ignoreNamespaces;
+    private boolean attributesToElements;
+    private boolean convertTypesToStrings;
+    private boolean writeTypedValues;
+    private boolean writeCollectionsAsArrays;
+    private boolean unwrapped;
+    
+    @Context
+    public void setMessageContext(MessageContext mc) {
+        super.setContext(mc);
+    }
+    
+    @Override
+    public void setAttributesToElements(boolean value) {
+        this.attributesToElements = value;
+        clearBeanInfos();
+    }
+    
+    public void setIgnoreNamespaces(boolean ignoreNamespaces) {
+        this.ignoreNamespaces = ignoreNamespaces;
+        clearBeanInfos();
+    }
+    
+    public void setNamespaceMap(Map<String, String> namespaceMap) {
+        this.namespaceMap.clear();
+        if (namespaceMap != null) {
+            this.namespaceMap.putAll(namespaceMap);
+        }
+        clearBeanInfos();
+    }
+    
+    public void setDropRootElement(boolean drop) {
+        this.dropRootElement = drop;
+    }
+    
+    public void setDropCollectionWrapperElement(boolean drop) {
+        this.dropCollectionWrapperElement = drop;
+    }
+    
+    public void setSerializeAsArray(boolean asArray) {
+        this.serializeAsArray = asArray;
+    }
+    
+    public void setArrayKeys(List<String> keys) {
+        this.arrayKeys = keys;
+    }
+    
+    public void setConvertTypesToStrings(boolean convert) {
+        this.convertTypesToStrings = convert;
+    }
+    
+    /**
+     * Write the numbers and booleans as JSON primitives and all the other values 
+     * as JSON strings, instead of checking if their text looks like a number or a boolean.
+     * 
+     * @param typed true to decide by the Java types of the values
+     */
+    public void setWriteTypedValues(boolean typed) {
+        this.writeTypedValues = typed;
+    }
+    
+    /**
+     * Write all the collection properties as JSON arrays, including the ones with 
+     * a single item.
+     * 
+     * @param asArrays true to always write JSON arrays
+     */
+    public void setWriteCollectionsAsArrays(boolean asArrays) {
+        this.writeCollectionsAsArrays = asArrays;
+    }
+    
+    public void setSupportUnwrapped(boolean unwrap) {
+        this.unwrapped = unwrap;
+    }
+    
+    public void setConsumeMediaTypes(List<String> types) {
+        super.setConsumeMediaTypes(types);
+    }
+    
+    public void setProduceMediaTypes(List<String> types) {
+        super.setProduceMediaTypes(types);
+    }
+    
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        return super.isReadable(type, genericType, anns, mt) && isSupported(type, genericType, anns, true);
+    }
+    
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        return super.isWriteable(type, genericType, anns, mt) && isSupported(type, genericType, anns, false);
+    }
+    
+    public T readFrom(Class<T> type, Type genericType, Annotation[] anns, MediaType mt, 
+        MultivaluedMap<String, String> headers, InputStream is) 
+        throws IOException {
+        if (isPayloadEmpty(headers)) {
+            if (AnnotationUtils.getAnnotation(anns, Nullable.class) != null) {
+                return null;
+            } else {
+                reportEmptyContentLength();
+            }
+        }
+        JSONStreamReader reader = 
+            new JSONStreamReader(new InputStreamReader(is, HttpUtils.getEncoding(mt, "UTF-8")));
+        reader.setDepthProperties(getDepthProperties());
+        try {
+            Object response = null;
+            if (InjectionUtils.isSupportedCollectionOrArray(type)) {
+                Class<?> itemType = getCollectionItemType(type, genericType);
+                XmlJavaTypeAdapter adapter = JAXBUtils.getAdapter(itemType, anns);
+                List<Object> items = readCollection(reader, getActualType(itemType, genericType, anns));
+                for (int i = 0; i < items.size(); i++) {
+                    items.set(i, JAXBUtils.useAdapter(items.get(i), adapter, false));
+                }
+                if (type.isArray()) {
+                    response = Array.newInstance(itemType, items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        Array.set(response, i, items.get(i));
+                    }
+                } else {
+                    response = JSONBeanInfo.Property.createCollection(type, items);
+                }
+            } else {
+                Object value = readRoot(reader, getActualType(type, genericType, anns));
+                response = checkAdapter(value, type, anns, false);
+            }
+            if (reader.next() != Event.END_DOCUMENT) {
+                throw new IOException("Malformed JSON: unexpected content");
+            }
+            return type.cast(response);
+        } catch (DepthExceededStaxException e) {
+            throw new WebApplicationException(413);
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BadRequestException(e);
+        }
+    }
+    
+    public void writeTo(T obj, Class<?> cls, Type genericType, Annotation[] anns,  
+        MediaType m, MultivaluedMap<String, Object> headers, OutputStream os)
+        throws IOException {
+        String enc = HttpUtils.getSetEncoding(m, headers, "UTF-8");
+        Writer out = new OutputStreamWriter(os, enc);
+        JSONStreamWriter writer = new JSONStreamWriter(out);
+        try {
+            List<String> theArrayKeys = getArrayKeys();
+            if (InjectionUtils.isSupportedCollectionOrArray(cls)) {
+                writeCollection(writer, cls, obj, genericType, anns, theArrayKeys);
+            } else {
+                writeRoot(writer, checkAdapter(obj, cls, anns, true), theArrayKeys);
+            }
+            writer.flush();
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalServerErrorException(e);
+        }
+    }
+    
+    protected List<String> getArrayKeys() {
+        MessageContext mc = getContext();
+        if (mc != null) {
+            Object prop = mc.get(ARRAY_KEYS_PROPERTY);
+            if (prop instanceof List) {
+                return CastUtils.cast((List<?>)prop);
+            }
+        }
+        return arrayKeys;
+    }
+    
+    protected boolean getBooleanJsonProperty(String name, boolean defaultValue) {
+        MessageContext mc = getContext();
+        if (mc != null) {
+            Object prop = mc.get(name);
+            if (prop != null) {
+                return MessageUtils.isTrue(prop);
+            }
+        }
+        return defaultValue;
+    }
+    
+    private void clearBeanInfos() {
+        namespacePrefixes = new JSONBeanInfo.NamespacePrefixes(namespaceMap, ignoreNamespaces);
+        beanInfos.clear();
+        rootNames.clear();
+    }
+    
+    private JSONBeanInfo getBeanInfo(Class<?> cls) {
+        JSONBeanInfo info = beanInfos.get(cls);
+        if (info == null) {
+            info = JSONBeanInfo.create(cls, namespacePrefixes, attributesToElements);
+            beanInfos.put(cls, info);
+        }
+        return info;
+    }
+    
+    private String getRootName(Class<?> cls) throws Exception {
+        String name = rootNames.get(cls);
+        if (name == null) {
+            QName qname = getJaxbQName(cls, cls, null, false);
+            name = namespacePrefixes.getJsonName(qname.getNamespaceURI(), qname.getLocalPart());
+            rootNames.put(cls, name);
+        }
+        return name;
+    }
+    
+    private static Class<?> getCollectionItemType(Class<?> type, Type genericType) {
+        return type.isArray() ? type.getComponentType() : InjectionUtils.getActualType(genericType);
+    }
+    
+    private boolean isSupported(Class<?> type, Type genericType, Annotation[] anns, boolean read) {
+        Class<?> cls = type;
+        if (InjectionUtils.isSupportedCollectionOrArray(type)) {
+            cls = getCollectionItemType(type, genericType);
+        }
+        if (cls == null || JAXBElement.class.isAssignableFrom(cls)) {
+            return false;
+        }
+        cls = getActualType(cls, genericType, anns);
+        return cls != null && !JSONBeanInfo.isSimpleType(cls) && isSupportedBean(cls, read);
+    }
+    
+    private boolean isSupportedBean(Class<?> cls, boolean read) {
+        JSONBeanInfo info = getBeanInfo(cls);
+        Boolean supported = read ? info.getReadable() : info.getWriteable();
+        if (supported == null) {
+            supported = checkBean(info, read, new HashSet<Class<?>>());
+            if (read) {
+                info.setReadable(supported);
+            } else {
+                info.setWriteable(supported);
+            }
+        }
+        return supported;
+    }
+    
+    private boolean checkBean(JSONBeanInfo info, boolean read, Set<Class<?>> visited) {
+        if (info.isUnsupported() || read && !info.canInstantiate()) {
+            return false;
+        }
+        if (!visited.add(info.getBeanClass())) {
+            return true;
+        }
+        for (JSONBeanInfo.Property p : info.getProperties()) {
+            Class<?> valueType = p.getValueType();
+            if (JSONBeanInfo.isSimpleType(valueType)) {
+                continue;
+            }
+            if (p.isAttribute() || p == info.getValueProperty()
+                || !checkBean(getBeanInfo(valueType), read, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private Object readRoot(JSONStreamReader reader, Class<?> cls) throws Exception {
+        Event e = reader.next();
+        if (e == Event.START_OBJECT && !unwrapped && !JSONBeanInfo.isSimpleType(cls)) {
+            JSONBeanInfo info = getBeanInfo(cls);
+            if (reader.peek() == Event.NAME && isRootName(reader.getText(), cls, info)) {
+                reader.next();
+                Object value = readValue(reader, reader.next(), cls);
+                if (reader.next() != Event.END_OBJECT) {
+                    throw new IOException("Malformed JSON: single root element expected");
+                }
+                return value;
+            }
+            return readBean(reader, info);
+        }
+        return readValue(reader, e, cls);
+    }
+    
+    private boolean isRootName(String name, Class<?> cls, JSONBeanInfo info) throws Exception {
+        if (info.getProperty(name) != null) {
+            return false;
+        }
+        String rootName = getRootName(cls);
+        return rootName.equals(name) || rootName.endsWith("." + name);
+    }
+    
+    private List<Object> readCollection(JSONStreamReader reader, Class<?> itemType) throws Exception {
+        List<Object> items = new ArrayList<Object>();
+        Event e = reader.next();
+        if (e == Event.START_OBJECT) {
+            // the collection wrapper
+            e = reader.next();
+            if (e == Event.END_OBJECT) {
+                return items;
+            }
+            readItems(reader, reader.next(), itemType, items);
+            if (reader.next() != Event.END_OBJECT) {
+                throw new IOException("Malformed JSON: single collection wrapper expected");
+            }
+        } else {
+            readItems(reader, e, itemType, items);
+        }
+        return items;
+    }
+    
+    private void readItems(JSONStreamReader reader, Event e, Class<?> itemType, List<Object> items) 
+        throws Exception {
+        if (e == Event.START_ARRAY) {
+            for (Event item = reader.next(); item != Event.END_ARRAY; item = reader.next()) {
+                items.add(readValue(reader, item, itemType));
+            }
+        } else if (e != Event.NULL) {
+            items.add(readValue(reader, e, itemType));
+        }
+    }
+    
+    private Object readValue(JSONStreamReader reader, Event e, Class<?> cls) throws Exception {
+        switch (e) {
+        case NULL:
+            return null;
+        case START_OBJECT:
+            if (JSONBeanInfo.isSimpleType(cls)) {
+                throw new IOException("Malformed JSON: " + cls.getName() + " value expected");
+            }
+            return readBean(reader, getBeanInfo(cls));
+        case START_ARRAY:
+            // a single value written as array, see the array keys
+            Object value = null;
+            boolean first = true;
+            for (Event item = reader.next(); item != Event.END_ARRAY; item = reader.next()) {
+                Object itemValue = readValue(reader, item, cls);
+                if (first) {
+                    value = itemValue;
+                    first = false;
+                }
+            }
+            return value;
+        case STRING:
+        case NUMBER:
+        case BOOLEAN:
+            if (JSONBeanInfo.isSimpleType(cls)) {
+                return fromText(cls, reader.getText());
+            }
+            JSONBeanInfo info = getBeanInfo(cls);
+            JSONBeanInfo.Property vp = info.getValueProperty();
+            if (vp == null) {
+                throw new IOException("Malformed JSON: " + cls.getName() + " object expected");
+            }
+            Object bean = info.newInstance();
+            vp.set(bean, vp.unmarshal(fromText(vp.getValueType(), reader.getText())));
+            return bean;
+        default:
+            throw new IOException("Malformed JSON: unexpected " + e);
+        }
+    }
+    
+    private Object readBean(JSONStreamReader reader, JSONBeanInfo info) throws Exception {
+        Object bean = info.newInstance();
+        for (Event e = reader.next(); e == Event.NAME; e = reader.next()) {
+            String name = reader.getText();
+            Event valueEvent = reader.next();
+            JSONBeanInfo.Property p = info.getProperty(name);
+            if (p == null && VALUE_KEY.equals(name)) {
+                p = info.getValueProperty();
+            }
+            if (p == null) {
+                reader.skipValue(valueEvent);
+            } else if (p.getWrapperName() != null) {
+                if (valueEvent == Event.START_OBJECT) {
+                    for (Event inner = reader.next(); inner == Event.NAME; inner = reader.next()) {
+                        readProperty(reader, reader.next(), p, bean);
+                    }
+                } else if (valueEvent == Event.STRING) {
+                    // an empty wrapper element
+                    p.set(bean, p.createCollectionOrArray(new ArrayList<Object>()));
+                } else {
+                    reader.skipValue(valueEvent);
+                }
+            } else {
+                readProperty(reader, valueEvent, p, bean);
+            }
+        }
+        return bean;
+    }
+    
+    private void readProperty(JSONStreamReader reader, Event e, JSONBeanInfo.Property p, Object bean) 
+        throws Exception {
+        if (p.isCollectionOrArray()) {
+            List<Object> items = new ArrayList<Object>();
+            readItems(reader, e, p.getValueType(), items);
+            for (int i = 0; i < items.size(); i++) {
+                items.set(i, p.unmarshal(items.get(i)));
+            }
+            p.set(bean, p.createCollectionOrArray(items));
+        } else {
+            p.set(bean, p.unmarshal(readValue(reader, e, p.getValueType())));
+        }
+    }
+    
+    private void writeCollection(JSONStreamWriter writer, Class<?> cls, Object collection, 
+                                 Type genericType, Annotation[] anns, List<String> theArrayKeys) 
+        throws Exception {
+        Class<?> itemType = getCollectionItemType(cls, genericType);
+        Collection<?> items = cls.isArray() ? Arrays.asList((Object[])collection) : (Collection<?>)collection;
+        XmlJavaTypeAdapter adapter = JAXBUtils.getAdapter(itemType, anns);
+        if (!dropCollectionWrapperElement) {
+            Iterator<?> it = items.iterator();
+            QName qname = getCollectionWrapperQName(getActualType(itemType, genericType, anns), genericType, 
+                                                    it.hasNext() ? it.next() : null, false);
+            writer.writeStartObject();
+            writer.writeName(getCollectionWrapperName(qname));
+        }
+        writer.writeStartArray();
+        for (Object item : items) {
+            writeValue(writer, JAXBUtils.useAdapter(item, adapter, true), theArrayKeys);
+        }
+        writer.writeEndArray();
+        if (!dropCollectionWrapperElement) {
+            writer.writeEndObject();
+        }
+    }
+    
+    private String getCollectionWrapperName(QName qname) {
+        String ns = qname.getNamespaceURI();
+        if (ignoreNamespaces || ns.length() == 0) {
+            return qname.getLocalPart();
+        }
+        String prefix = namespaceMap.get(ns);
+        if (prefix == null) {
+            prefix = COLLECTION_WRAPPER_PREFIX;
+        }
+        return prefix.length() == 0 ? qname.getLocalPart() : prefix + "." + qname.getLocalPart();
+    }
+    
+    private void writeRoot(JSONStreamWriter writer, Object obj, List<String> theArrayKeys) 
+        throws Exception {
+        if (getBooleanJsonProperty(DROP_ROOT_CONTEXT_PROPERTY, dropRootElement)) {
+            writeValue(writer, obj, theArrayKeys);
+            return;
+        }
+        String rootName = getRootName(obj.getClass());
+        boolean rootIsArray = theArrayKeys != null ? theArrayKeys.contains(rootName)
+            : getBooleanJsonProperty(ROOT_IS_ARRAY_PROPERTY, serializeAsArray);
+        writer.writeStartObject();
+        writer.writeName(rootName);
+        if (rootIsArray) {
+            writer.writeStartArray();
+            writeValue(writer, obj, theArrayKeys);
+            writer.writeEndArray();
+        } else {
+            writeValue(writer, obj, theArrayKeys);
+        }
+        writer.writeEndObject();
+    }
+    
+    private void writeValue(JSONStreamWriter writer, Object value, List<String> theArrayKeys) 
+        throws Exception {
+        if (value == null) {
+            writer.writeNull();
+        } else if (JSONBeanInfo.isSimpleType(value.getClass())) {
+            writeSimpleValue(writer, value);
+        } else {
+            JSONBeanInfo info = getBeanInfo(value.getClass());
+            if (info.isUnsupported()) {
+                throw new IOException(value.getClass().getName() + " can not be written as JSON");
+            }
+            writeBean(writer, info, value, theArrayKeys);
+        }
+    }
+    
+    private void writeBean(JSONStreamWriter writer, JSONBeanInfo info, Object bean, 
+                           List<String> theArrayKeys) throws Exception {
+        JSONBeanInfo.Property vp = info.getValueProperty();
+        if (vp != null && info.getAttributes().isEmpty()) {
+            writeValue(writer, vp.marshal(vp.get(bean)), theArrayKeys);
+            return;
+        }
+        writer.writeStartObject();
+        for (JSONBeanInfo.Property p : info.getAttributes()) {
+            Object value = p.marshal(p.get(bean));
+            if (value != null) {
+                writer.writeName(p.getName());
+                writeSimpleValue(writer, value);
+            }
+        }
+        for (JSONBeanInfo.Property p : info.getElements()) {
+            writeElement(writer, p, bean, theArrayKeys);
+        }
+        if (vp != null) {
+            Object value = vp.marshal(vp.get(bean));
+            if (value != null) {
+                writer.writeName(VALUE_KEY);
+                writeSimpleValue(writer, value);
+            }
+        }
+        writer.writeEndObject();
+    }
+    
+    private void writeElement(JSONStreamWriter writer, JSONBeanInfo.Property p, Object bean, 
+                              List<String> theArrayKeys) throws Exception {
+        Object value = p.get(bean);
+        if (p.isCollectionOrArray()) {
+            if (value == null) {
+                return;
+            }
+            Iterator<?> it = p.getItems(value).iterator();
+            if (!it.hasNext()) {
+                if (p.getWrapperName() != null) {
+                    // an empty wrapper element
+                    writer.writeName(p.getWrapperName());
+                    if (writeCollectionsAsArrays) {
+                        writer.writeStartObject();
+                        writer.writeEndObject();
+                    } else {
+                        writer.writeString("");
+                    }
+                }
+                return;
+            }
+            if (p.getWrapperName() != null) {
+                writer.writeName(p.getWrapperName());
+                writer.writeStartObject();
+            }
+            writer.writeName(p.getName());
+            Object first = p.marshal(it.next());
+            if (it.hasNext() || writeCollectionsAsArrays 
+                || theArrayKeys != null && theArrayKeys.contains(p.getName())) {
+                writer.writeStartArray();
+                writeValue(writer, first, theArrayKeys);
+                while (it.hasNext()) {
+                    writeValue(writer, p.marshal(it.next()), theArrayKeys);
+                }
+                writer.writeEndArray();
+            } else {
+                writeValue(writer, first, theArrayKeys);
+            }
+            if (p.getWrapperName() != null) {
+                writer.writeEndObject();
+            }
+            return;
+        }
+        value = p.marshal(value);
+        if (value == null) {
+            if (p.isNillable()) {
+                writer.writeName(p.getName());
+                writer.writeNull();
+            }
+            return;
+        }
+        writer.writeName(p.getName());
+        if (theArrayKeys != null && theArrayKeys.contains(p.getName())) {
+            writer.writeStartArray();
+            writeValue(writer, value, theArrayKeys);
+            writer.writeEndArray();
+        } else {
+            writeValue(writer, value, theArrayKeys);
+        }
+    }
+    
+    private void writeSimpleValue(JSONStreamWriter writer, Object value) throws Exception {
+        if (!writeTypedValues || convertTypesToStrings) {
+            String text = toText(value);
+            String literal = convertTypesToStrings ? null : toJsonLiteral(text);
+            if (literal != null) {
+                writer.writeLiteral(literal);
+            } else {
+                writer.writeString(text);
+            }
+        } else if ((value instanceof Number || value instanceof Boolean) && !isNotFinite(value)) {
+            writer.writeLiteral(value.toString());
+        } else {
+            writer.writeString(toText(value));
+        }
+    }
+    
+    private static String toText(Object value) throws Exception {
+        if (value instanceof String) {
+            return (String)value;
+        } else if (value instanceof Enum) {
+            return JSONBeanInfo.getEnumValue((Enum<?>)value);
+        } else if (value instanceof byte[]) {
+            return Base64Utility.encode((byte[])value);
+        } else if (value instanceof XMLGregorianCalendar) {
+            return ((XMLGregorianCalendar)value).toXMLFormat();
+        } else if (value instanceof Calendar || value instanceof Date) {
+            GregorianCalendar cal = null;
+            if (value instanceof GregorianCalendar) {
+                cal = (GregorianCalendar)value;
+            } else {
+                cal = new GregorianCalendar();
+                cal.setTime(value instanceof Date ? (Date)value : ((Calendar)value).getTime());
+            }
+            return getDatatypeFactory().newXMLGregorianCalendar(cal).toXMLFormat();
+        }
+        return value.toString();
+    }
+    
+    /**
+     * Converts the text to a JSON number or boolean the same way the default
+     * Jettison type converter used by JSONProvider does.
+     * 
+     * @param text the value text
+     * @return the JSON literal or null if the text has to be written as a JSON string
+     */
+    private static String toJsonLiteral(String text) {
+        try {
+            return Long.valueOf(text).toString().equals(text) ? text : null;
+        } catch (NumberFormatException ex) {
+            // not an integer
+        }
+        try {
+            Double d = Double.valueOf(text);
+            if (isNotFinite(d) || !d.toString().equals(text)) {
+                return null;
+            }
+            if (text.indexOf('E') == -1) {
+                // Jettison drops the trailing zeros of the fraction
+                int end = text.length();
+                while (text.charAt(end - 1) == '0') {
+                    end--;
+                }
+                return text.charAt(end - 1) == '.' ? text.substring(0, end - 1) : text.substring(0, end);
+            }
+            return text;
+        } catch (NumberFormatException ex) {
+            // not a number
+        }
+        return "true".equals(text) || "false".equals(text) ? text : null;
+    }
+    
+    private static boolean isNotFinite(Object value) {
+        return value instanceof Double && (((Double)value).isNaN() || ((Double)value).isInfinite())
+            || value instanceof Float && (((Float)value).isNaN() || ((Float)value).isInfinite());
+    }
+    
+    private static Object fromText(Class<?> cls, String text) throws Exception {
+        if (cls == String.class) {
+            return text;
+        } else if (cls.isEnum()) {
+            return JSONBeanInfo.getEnumConstant(cls, text);
+        } else if (cls == BigDecimal.class) {
+            return new BigDecimal(text);
+        } else if (cls == BigInteger.class) {
+            return new BigInteger(text);
+        } else if (cls == byte[].class) {
+            return Base64Utility.decode(text);
+        } else if (cls == UUID.class) {
+            return UUID.fromString(text);
+        } else if (XMLGregorianCalendar.class.isAssignableFrom(cls) 
+            || Calendar.class.isAssignableFrom(cls) || Date.class.isAssignableFrom(cls)) {
+            return fromDateText(cls, text);
+        }
+        return PrimitiveUtils.read(text, cls);
+    }
+    
+    private static Object fromDateText(Class<?> cls, String text) throws Exception {
+        XMLGregorianCalendar xmlCal = getDatatypeFactory().newXMLGregorianCalendar(text);
+        if (XMLGregorianCalendar.class.isAssignableFrom(cls)) {
+            return xmlCal;
+        } 
+        GregorianCalendar cal = xmlCal.toGregorianCalendar();
+        return Calendar.class.isAssignableFrom(cls) ? cal : cal.getTime();
+    }
+    
+    private static DatatypeFactory getDatatypeFactory() throws DatatypeConfigurationException {
+        DatatypeFactory factory = datatypeFactory;
+        if (factory == null) {
+            factory = DatatypeFactory.newInstance();
+            datatypeFactory = factory;
+        }
+        return factory;
+    }
+}
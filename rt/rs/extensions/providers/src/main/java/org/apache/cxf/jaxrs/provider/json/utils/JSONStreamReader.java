@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider.json.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.apache.cxf.staxutils.DepthExceededStaxException;
+import org.apache.cxf.staxutils.DocumentDepthProperties;
+
+/**
+ * Minimal pull parser reporting the JSON tokens one by one. 
+ * The names, strings and the literal values of numbers and booleans 
+ * are available from getText() after the corresponding event has been returned.
+ */
+public class JSONStreamReader {
+    
+    public enum Event {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, 
+        NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+    
+    private final Reader in;
+    private final char[] buf = new char[2048];
+    private int pos;
+    private int limit;
+    private final StringBuilder sb = new StringBuilder();
+    
+    private boolean[] objectScope = new boolean[16];
+    private int[] innerCount = new int[16];
+    private int depth;
+    private boolean expectName;
+    private boolean valueDone;
+    private Event peeked;
+    private String text;
+    
+    private int maxLevel = -1;
+    private int maxInnerCount = -1;
+    private int maxTotalCount = -1;
+    private int totalCount;
+    
+    public JSONStreamReader(Reader in) {
+        this.in = in;
+    }
+    
+    public void setDepthProperties(DocumentDepthProperties props) {
+        if (props != null) {
+            maxLevel = props.getInnerElementLevelThreshold();
+            maxInnerCount = props.getInnerElementCountThreshold();
+            maxTotalCount = props.getElementCountThreshold();
+        }
+    }
+    
+    public Event next() throws IOException {
+        if (peeked != null) {
+            Event e = peeked;
+            peeked = null;
+            return e;
+        }
+        return readEvent();
+    }
+    
+    public Event peek() throws IOException {
+        if (peeked == null) {
+            peeked = readEvent();
+        }
+        return peeked;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * Skips the children of the object or array which has just been started,
+     * does nothing if the last event was not START_OBJECT or START_ARRAY
+     */
+    public void skipValue(Event current) throws IOException {
+        if (current != Event.START_OBJECT && current != Event.START_ARRAY) {
+            return;
+        }
+        int target = depth - 1;
+        while (true) {
+            Event e = next();
+            if ((e == Event.END_OBJECT || e == Event.END_ARRAY) && depth == target) {
+                return;
+            }
+        }
+    }
+    
+    public void close() throws IOException {
+        in.close();
+    }
+    
+    private Event readEvent() throws IOException {
+        int c = skipWhitespace();
+        if (valueDone) {
+            if (depth == 0) {
+                if (c != -1) {
+                    throw syntaxError("Unexpected content after the JSON value");
+                }
+            } else if (c == ',') {
+                c = skipWhitespace();
+                if (c == '}' || c == ']') {
+                    throw syntaxError("Unexpected '" + (char)c + "'");
+                }
+                valueDone = false;
+            } else if (c != '}' && c != ']') {
+                throw syntaxError("',' expected");
+            }
+        }
+        if (c == -1) {
+            if (depth > 0 || !valueDone) {
+                throw syntaxError("Unexpected end of the JSON input");
+            }
+            return Event.END_DOCUMENT;
+        }
+        if (expectName && c != '}') {
+            if (c != '"') {
+                throw syntaxError("Name expected");
+            }
+            text = readString();
+            if (skipWhitespace() != ':') {
+                throw syntaxError("':' expected");
+            }
+            expectName = false;
+            countInner();
+            return Event.NAME;
+        }
+        switch (c) {
+        case '{':
+            startScope(true);
+            return Event.START_OBJECT;
+        case '[':
+            startScope(false);
+            return Event.START_ARRAY;
+        case '}':
+            return endScope(true);
+        case ']':
+            return endScope(false);
+        case '"':
+            countArrayItem();
+            text = readString();
+            afterValue();
+            return Event.STRING;
+        default:
+            countArrayItem();
+            Event e = readLiteral(c);
+            afterValue();
+            return e;
+        }
+    }
+    
+    private void startScope(boolean object) {
+        countArrayItem();
+        if (maxLevel != -1 && depth + 1 > maxLevel) {
+            throw new DepthExceededStaxException("Maximum JSON nesting level exceeded");
+        }
+        if (++depth == objectScope.length) {
+            objectScope = Arrays.copyOf(objectScope, depth * 2);
+            innerCount = Arrays.copyOf(innerCount, depth * 2);
+        }
+        objectScope[depth] = object;
+        innerCount[depth] = 0;
+        expectName = object;
+        valueDone = false;
+    }
+    
+    private Event endScope(boolean object) throws IOException {
+        if (depth == 0 || objectScope[depth] != object || (object && !expectName && !valueDone)) {
+            throw syntaxError("Unexpected '" + (object ? '}' : ']') + "'");
+        }
+        depth--;
+        afterValue();
+        return object ? Event.END_OBJECT : Event.END_ARRAY;
+    }
+    
+    private void afterValue() {
+        valueDone = true;
+        expectName = false;
+        if (depth > 0 && objectScope[depth]) {
+            expectName = true;
+        }
+    }
+    
+    private void countArrayItem() {
+        if (depth > 0 && !objectScope[depth]) {
+            countInner();
+        }
+    }
+    
+    private void countInner() {
+        if (maxInnerCount != -1 && ++innerCount[depth] > maxInnerCount
+            || maxTotalCount != -1 && ++totalCount > maxTotalCount) {
+            throw new DepthExceededStaxException("Maximum JSON element count exceeded");
+        }
+    }
+    
+    private Event readLiteral(int first) throws IOException {
+        sb.setLength(0);
+        sb.append((char)first);
+        int c = read();
+        while (c != -1 && (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '+')) {
+            sb.append((char)c);
+            c = read();
+        }
+        if (c != -1) {
+            pos--;
+        }
+        text = sb.toString();
+        if (first == '-' || first >= '0' && first <= '9') {
+            return Event.NUMBER;
+        } else if ("true".equals(text) || "false".equals(text)) {
+            return Event.BOOLEAN;
+        } else if ("null".equals(text)) {
+            return Event.NULL;
+        }
+        throw syntaxError("Unexpected token " + text);
+    }
+    
+    private String readString() throws IOException {
+        int start = pos;
+        while (pos < limit) {
+            char c = buf[pos++];
+            if (c == '"') {
+                return new String(buf, start, pos - start - 1);
+            } else if (c == '\\') {
+                break;
+            }
+        }
+        sb.setLength(0);
+        pos = start;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            } else if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                sb.append(readEscape());
+            } else {
+                sb.append((char)c);
+            }
+        }
+    }
+    
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit == -1) {
+                    throw syntaxError("Invalid unicode escape");
+                }
+                value = (value << 4) + digit;
+            }
+            return (char)value;
+        case '"':
+        case '\\':
+        case '/':
+            return (char)c;
+        default:
+            throw syntaxError("Invalid escape sequence");
+        }
+    }
+    
+    private int skipWhitespace() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        return c;
+    }
+    
+    private int read() throws IOException {
+        if (pos == limit) {
+            int n = in.read(buf, 0, buf.length);
+            if (n <= 0) {
+                return -1;
+            }
+            pos = 0;
+            limit = n;
+        }
+        return buf[pos++];
+    }
+    
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
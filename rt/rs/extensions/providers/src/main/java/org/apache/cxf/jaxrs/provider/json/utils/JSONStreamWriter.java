@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider.json.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer which keeps track of the separators
+ * between the object members and array items.
+ */
+public class JSONStreamWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final Writer out;
+    private boolean[] firstInScope = new boolean[16];
+    private int depth;
+    private boolean afterName;
+    
+    public JSONStreamWriter(Writer out) {
+        this.out = out;
+    }
+    
+    public void writeStartObject() throws IOException {
+        startScope('{');
+    }
+    
+    public void writeEndObject() throws IOException {
+        endScope('}');
+    }
+    
+    public void writeStartArray() throws IOException {
+        startScope('[');
+    }
+    
+    public void writeEndArray() throws IOException {
+        endScope(']');
+    }
+    
+    public void writeName(String name) throws IOException {
+        beforeValue();
+        writeQuoted(name);
+        out.write(':');
+        afterName = true;
+    }
+    
+    public void writeString(String value) throws IOException {
+        beforeValue();
+        writeQuoted(value);
+    }
+    
+    /**
+     * Writes the number or boolean value as is
+     */
+    public void writeLiteral(String value) throws IOException {
+        beforeValue();
+        out.write(value);
+    }
+    
+    public void writeNull() throws IOException {
+        writeLiteral("null");
+    }
+    
+    public void flush() throws IOException {
+        out.flush();
+    }
+    
+    private void startScope(char c) throws IOException {
+        beforeValue();
+        out.write(c);
+        if (++depth == firstInScope.length) {
+            firstInScope = Arrays.copyOf(firstInScope, depth * 2);
+        }
+        firstInScope[depth] = true;
+    }
+    
+    private void endScope(char c) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No JSON object or array to close");
+        }
+        depth--;
+        out.write(c);
+    }
+    
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            if (firstInScope[depth]) {
+                firstInScope[depth] = false;
+            } else {
+                out.write(',');
+            }
+        }
+    }
+    
+    private void writeQuoted(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (!needsEscaping(c)) {
+                continue;
+            }
+            if (i > start) {
+                out.write(value, start, i - start);
+            }
+            start = i + 1;
+            switch (c) {
+            case '"':
+                out.write("\\\"");
+                break;
+            case '\\':
+                out.write("\\\\");
+                break;
+            case '/':
+                out.write("\\/");
+                break;
+            case '\n':
+                out.write("\\n");
+                break;
+            case '\r':
+                out.write("\\r");
+                break;
+            case '\t':
+                out.write("\\t");
+                break;
+            case '\b':
+                out.write("\\b");
+                break;
+            case '\f':
+                out.write("\\f");
+                break;
+            default:
+                out.write("\\u");
+                out.write(HEX[(c >> 12) & 0xF]);
+                out.write(HEX[(c >> 8) & 0xF]);
+                out.write(HEX[(c >> 4) & 0xF]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+        if (len > start) {
+            out.write(value, start, len - start);
+        }
+        out.write('"');
+    }
+    
+    // the characters escaped by Jettison, the output has to match the JSONProvider one
+    private static boolean needsEscaping(char c) {
+        return c < 0x20 || c == '"' || c == '\\' || c == '/'
+            || c >= '\u0080' && c < '\u00a0' || c >= '\u2000' && c < '\u2100';
+    }
+}
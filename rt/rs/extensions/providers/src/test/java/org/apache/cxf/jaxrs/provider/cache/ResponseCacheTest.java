@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagementConstants;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResponseCacheTest extends Assert {
+    
+    @Test
+    public void testGetAndExpire() {
+        ResponseCache cache = new ResponseCache();
+        cache.put("a", createEntry(10, 1000L));
+        assertNull(cache.get("b", 0));
+        CacheEntry entry = cache.get("a", 999L);
+        assertNotNull(entry);
+        assertEquals(10, entry.getBody().length);
+        assertEquals("text/plain", entry.getHeader("content-type"));
+        
+        assertNull(cache.get("a", 1000L));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getHeapSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1d / 3, cache.getHitRatio(), 0.0001);
+    }
+    
+    @Test
+    public void testSizeAwareEviction() {
+        ResponseCache cache = new ResponseCache();
+        int size = createEntry(100, 1000L).getSize();
+        cache.setMaxSize(size * 2);
+        cache.put("a", createEntry(100, 1000L));
+        cache.put("b", createEntry(100, 1000L));
+        assertNotNull(cache.get("a", 0));
+        cache.put("c", createEntry(100, 1000L));
+        
+        assertNull(cache.get("b", 0));
+        assertNotNull(cache.get("a", 0));
+        assertNotNull(cache.get("c", 0));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(size * 2, cache.getHeapSize());
+        
+        assertFalse(cache.put("d", createEntry(size * 2, 1000L)));
+        assertEquals(2, cache.getEntryCount());
+    }
+    
+    @Test
+    public void testOffHeapTier() {
+        ResponseCache cache = new ResponseCache();
+        int size = createEntry(100, 1000L).getSize();
+        cache.setMaxSize(size);
+        cache.setMaxOffHeapSize(size);
+        cache.put("a", createEntry(100, 1000L));
+        cache.put("b", createEntry(100, 1000L));
+        assertEquals(size, cache.getHeapSize());
+        assertEquals(size, cache.getOffHeapSize());
+        
+        CacheEntry entry = cache.get("a", 0);
+        assertFalse(entry.isOffHeap());
+        assertEquals(100, entry.getBody().length);
+        assertEquals(2, cache.getEntryCount());
+        
+        cache.put("c", createEntry(100, 1000L));
+        assertNull(cache.get("b", 0));
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("a", 0));
+        assertNotNull(cache.get("c", 0));
+        
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getOffHeapSize());
+    }
+    
+    @Test
+    public void testExpiredEntriesPurgedOnEviction() {
+        ResponseCache cache = new ResponseCache();
+        int size = createEntry(100, 1L).getSize();
+        cache.setMaxSize(size * 2);
+        cache.setMaxOffHeapSize(size * 2);
+        cache.put("a", createEntry(100, 1L));
+        cache.put("b", createEntry(100, Long.MAX_VALUE));
+        cache.put("c", createEntry(100, Long.MAX_VALUE));
+        
+        // the expired entry is dropped instead of being moved off-heap
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(0, cache.getOffHeapSize());
+        assertEquals(0, cache.getEvictionCount());
+        assertNotNull(cache.get("b", 0));
+        assertNotNull(cache.get("c", 0));
+    }
+    
+    @Test
+    public void testMBeanWrapper() throws Exception {
+        ResponseCacheFilter filter = new ResponseCacheFilter();
+        filter.getCache().put("a", createEntry(100, Long.MAX_VALUE));
+        assertNotNull(filter.getCache().get("a"));
+        assertNull(filter.getCache().get("b"));
+        
+        Bus bus = EasyMock.createMock(Bus.class);
+        EasyMock.expect(bus.getId()).andReturn("cache-bus").anyTimes();
+        EasyMock.replay(bus);
+        ResponseCacheMBeanWrapper mbean = new ResponseCacheMBeanWrapper(filter, bus);
+        assertEquals(1, mbean.getEntryCount());
+        assertEquals(1, mbean.getHitCount());
+        assertEquals(0.5d, mbean.getHitRatio(), 0.0001);
+        ObjectName name = mbean.getObjectName();
+        assertEquals("cache-bus", name.getKeyProperty(ManagementConstants.BUS_ID_PROP));
+        assertEquals("ResponseCache", name.getKeyProperty(ManagementConstants.TYPE_PROP));
+        
+        mbean.resetStatistics();
+        assertEquals(0, mbean.getHitCount());
+        mbean.clear();
+        assertEquals(0, mbean.getEntryCount());
+    }
+    
+    @Test
+    public void testOffHeapEntry() {
+        CacheEntry entry = createEntry(3, 1000L);
+        CacheEntry offHeap = entry.toOffHeap();
+        assertTrue(offHeap.isOffHeap());
+        assertEquals(entry.getSize(), offHeap.getSize());
+        assertArrayEquals(entry.getBody(), offHeap.getBody());
+        assertArrayEquals(entry.getBody(), offHeap.toHeap().getBody());
+    }
+    
+    private static CacheEntry createEntry(int length, long expires) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte)i;
+        }
+        Map<String, List<String>> headers = 
+            Collections.singletonMap("Content-Type", Collections.singletonList("text/plain"));
+        return new CacheEntry(200, headers, body, 0, expires);
+    }
+}
@@ -0,0 +1,408 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.bind.annotation.XmlType;
+
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.resources.Book;
+import org.apache.cxf.staxutils.DocumentDepthProperties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingJSONProviderTest extends Assert {
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[]{};
+
+    @Test
+    public void testWriteItem() throws Exception {
+        StreamingJSONProvider<Item> p = new StreamingJSONProvider<Item>();
+        String s = write(p, new Item(123L, "CXF \"in\" action"), Item.class, Item.class);
+        assertEquals("{\"item\":{\"id\":123,\"name\":\"CXF \\\"in\\\" action\"}}", s);
+    }
+
+    @Test
+    public void testWriteNillableNull() throws Exception {
+        StreamingJSONProvider<Item> p = new StreamingJSONProvider<Item>();
+        String s = write(p, new Item(123L, null), Item.class, Item.class);
+        assertEquals("{\"item\":{\"id\":123,\"name\":null}}", s);
+    }
+
+    @Test
+    public void testWriteItemDropRootElement() throws Exception {
+        StreamingJSONProvider<Item> p = new StreamingJSONProvider<Item>();
+        p.setDropRootElement(true);
+        p.setConvertTypesToStrings(true);
+        String s = write(p, new Item(123L, "CXF"), Item.class, Item.class);
+        assertEquals("{\"id\":\"123\",\"name\":\"CXF\"}", s);
+    }
+
+    @Test
+    public void testWriteItemRootAsArray() throws Exception {
+        StreamingJSONProvider<Item> p = new StreamingJSONProvider<Item>();
+        p.setSerializeAsArray(true);
+        p.setArrayKeys(Collections.singletonList("item"));
+        String s = write(p, new Item(123L, "CXF"), Item.class, Item.class);
+        assertEquals("{\"item\":[{\"id\":123,\"name\":\"CXF\"}]}", s);
+    }
+
+    @Test
+    public void testReadBook() throws Exception {
+        StreamingJSONProvider<Book> p = new StreamingJSONProvider<Book>();
+        Book book = read(p, Book.class, Book.class, "{\"Book\":{\"id\":123,\"name\":\"CXF\"}}");
+        assertEquals(123L, book.getId());
+        assertEquals("CXF", book.getName());
+
+        book = read(p, Book.class, Book.class, "{\"name\":\"CXF\", \"id\":\"124\", \"unknown\":{\"a\":[1]}}");
+        assertEquals(124L, book.getId());
+        assertEquals("CXF", book.getName());
+    }
+
+    @Test
+    public void testReadMalformedJson() throws Exception {
+        StreamingJSONProvider<Book> p = new StreamingJSONProvider<Book>();
+        for (String input : new String[]{"junk", "{\"Book\":{\"id\":1,}}", "{\"Book\":{\"id\":1}} {}",
+                                         "{\"Book\":{\"id\":\"one\"}}"}) {
+            try {
+                read(p, Book.class, Book.class, input);
+                fail("400 is expected for " + input);
+            } catch (WebApplicationException ex) {
+                assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), ex.getResponse().getStatus());
+            }
+        }
+    }
+
+    @Test
+    public void testReadTooDeepJson() throws Exception {
+        StreamingJSONProvider<Shelf> p = new StreamingJSONProvider<Shelf>() {
+            @Override
+            protected DocumentDepthProperties getDepthProperties() {
+                DocumentDepthProperties props = new DocumentDepthProperties();
+                props.setInnerElementLevelThreshold(2);
+                return props;
+            }
+        };
+        try {
+            read(p, Shelf.class, Shelf.class, "{\"shelf\":{\"itemList\":{\"item\":[{\"id\":1}]}}}");
+            fail("413 is expected");
+        } catch (WebApplicationException ex) {
+            assertEquals(413, ex.getResponse().getStatus());
+        }
+    }
+
+    @Test
+    public void testWriteReadBeanGraph() throws Exception {
+        Shelf shelf = new Shelf();
+        shelf.label = "top";
+        shelf.items = Arrays.asList(new Item(1L, "a"), new Item(2L, "b"));
+        shelf.tags = new String[]{"x", "y"};
+        shelf.color = Color.BLUE;
+        shelf.price = 1.5;
+
+        StreamingJSONProvider<Shelf> p = new StreamingJSONProvider<Shelf>();
+        p.setNamespaceMap(Collections.singletonMap("http://shelves", "s"));
+        String s = write(p, shelf, Shelf.class, Shelf.class);
+        assertEquals("{\"s.shelf\":{\"@label\":\"top\",\"itemList\":{\"item\":["
+                     + "{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]},"
+                     + "\"tags\":[\"x\",\"y\"],\"color\":\"blue\",\"price\":1.5}}", s);
+
+        Shelf shelf2 = read(p, Shelf.class, Shelf.class, s);
+        assertEquals("top", shelf2.label);
+        assertEquals(2, shelf2.items.size());
+        assertEquals("b", shelf2.items.get(1).getName());
+        assertTrue(Arrays.equals(shelf.tags, shelf2.tags));
+        assertSame(Color.BLUE, shelf2.color);
+        assertEquals(Double.valueOf(1.5), shelf2.price);
+        assertEquals(0, shelf2.count);
+    }
+
+    @Test
+    public void testWriteSingleItemCollections() throws Exception {
+        Shelf shelf = new Shelf();
+        shelf.items = Collections.singletonList(new Item(1L, "a"));
+        shelf.tags = new String[]{"x"};
+
+        StreamingJSONProvider<Shelf> p = new StreamingJSONProvider<Shelf>();
+        assertEquals("{\"ns2.shelf\":{\"itemList\":{\"item\":{\"id\":1,\"name\":\"a\"}},\"tags\":\"x\"}}",
+                     write(p, shelf, Shelf.class, Shelf.class));
+        Shelf shelf2 = read(p, Shelf.class, Shelf.class, write(p, shelf, Shelf.class, Shelf.class));
+        assertEquals(1, shelf2.items.size());
+        assertTrue(Arrays.equals(shelf.tags, shelf2.tags));
+
+        p.setArrayKeys(Collections.singletonList("tags"));
+        assertEquals("{\"ns2.shelf\":{\"itemList\":{\"item\":{\"id\":1,\"name\":\"a\"}},\"tags\":[\"x\"]}}",
+                     write(p, shelf, Shelf.class, Shelf.class));
+
+        p.setArrayKeys(null);
+        p.setWriteCollectionsAsArrays(true);
+        assertEquals("{\"ns2.shelf\":{\"itemList\":{\"item\":[{\"id\":1,\"name\":\"a\"}]},\"tags\":[\"x\"]}}",
+                     write(p, shelf, Shelf.class, Shelf.class));
+    }
+
+    @Test
+    public void testWriteEmptyWrapper() throws Exception {
+        Shelf shelf = new Shelf();
+        shelf.items = Collections.emptyList();
+
+        StreamingJSONProvider<Shelf> p = new StreamingJSONProvider<Shelf>();
+        String s = write(p, shelf, Shelf.class, Shelf.class);
+        assertEquals("{\"ns2.shelf\":{\"itemList\":\"\"}}", s);
+        assertEquals(0, read(p, Shelf.class, Shelf.class, s).items.size());
+
+        p.setWriteCollectionsAsArrays(true);
+        assertEquals("{\"ns2.shelf\":{\"itemList\":{}}}", write(p, shelf, Shelf.class, Shelf.class));
+    }
+
+    @Test
+    public void testWriteTypedValues() throws Exception {
+        StreamingJSONProvider<Item> p = new StreamingJSONProvider<Item>();
+        Item item = new Item(123L, "true");
+        assertEquals("{\"item\":{\"id\":123,\"name\":true}}", write(p, item, Item.class, Item.class));
+        item.setName("007");
+        assertEquals("{\"item\":{\"id\":123,\"name\":\"007\"}}", write(p, item, Item.class, Item.class));
+
+        p.setWriteTypedValues(true);
+        item.setName("true");
+        assertEquals("{\"item\":{\"id\":123,\"name\":\"true\"}}", write(p, item, Item.class, Item.class));
+
+        p.setConvertTypesToStrings(true);
+        assertEquals("{\"item\":{\"id\":\"123\",\"name\":\"true\"}}", write(p, item, Item.class, Item.class));
+    }
+
+    @Test
+    public void testSameOutputAsJSONProvider() throws Exception {
+        Shelf shelf = new Shelf();
+        shelf.label = "top/1";
+        shelf.items = Arrays.asList(new Item(1L, "12"), new Item(2L, "b"));
+        shelf.tags = new String[]{"x", "y"};
+        shelf.color = Color.BLUE;
+        shelf.price = 1.5;
+        Shelf singleItemShelf = new Shelf();
+        singleItemShelf.items = Collections.singletonList(new Item(3L, "c"));
+        singleItemShelf.tags = new String[]{"z"};
+        singleItemShelf.color = Color.RED;
+        Shelf emptyShelf = new Shelf();
+        emptyShelf.items = Collections.emptyList();
+        emptyShelf.price = 2.0;
+
+        Map<String, String> namespaceMap = Collections.singletonMap("http://shelves", "s");
+        List<String> arrayKeys = Arrays.asList("item", "tags");
+        for (Shelf bean : new Shelf[]{shelf, singleItemShelf, emptyShelf}) {
+            assertSameOutput(bean, Shelf.class, Shelf.class, null, null);
+            assertSameOutput(bean, Shelf.class, Shelf.class, namespaceMap, null);
+            assertSameOutput(bean, Shelf.class, Shelf.class, namespaceMap, arrayKeys);
+        }
+        for (Item item : new Item[]{new Item(123L, "CXF"), new Item(124L, "007"), new Item(125L, "false")}) {
+            assertSameOutput(item, Item.class, Item.class, null, null);
+            assertSameOutput(item, Item.class, Item.class, null, Collections.singletonList("item"));
+        }
+
+        Method m = StreamingJSONProviderTest.class.getMethod("getItems");
+        assertSameOutput(Arrays.asList(new Item(1L, "a"), new Item(2L, "b")),
+                         List.class, m.getGenericReturnType(), null, null);
+        assertSameOutput(Collections.singletonList(new Item(1L, "a")),
+                         List.class, m.getGenericReturnType(), null, null);
+    }
+
+    @Test
+    public void testReadSameAsJSONProvider() throws Exception {
+        Map<String, String> namespaceMap = Collections.singletonMap("http://shelves", "s");
+        JSONProvider<Shelf> json = new JSONProvider<Shelf>();
+        json.setNamespaceMap(namespaceMap);
+        StreamingJSONProvider<Shelf> streaming = new StreamingJSONProvider<Shelf>();
+        streaming.setNamespaceMap(namespaceMap);
+
+        for (String input : new String[]{
+            "{\"s.shelf\":{\"@label\":\"top\",\"itemList\":{\"item\":[{\"id\":1,\"name\":\"a\"},"
+                + "{\"id\":2,\"name\":\"b\"}]},\"tags\":[\"x\",\"y\"],\"color\":\"blue\",\"price\":1.5}}",
+            "{\"s.shelf\":{\"itemList\":{\"item\":{\"id\":\"1\",\"name\":12}},\"tags\":\"x\","
+                + "\"price\":\"2\"}}",
+            "{\"s.shelf\":{\"itemList\":\"\"}}"}) {
+            Shelf expected = read(json, Shelf.class, Shelf.class, input);
+            Shelf actual = read(streaming, Shelf.class, Shelf.class, input);
+            assertEquals(input, expected.label, actual.label);
+            assertEquals(input, expected.items.size(), actual.items.size());
+            for (int i = 0; i < expected.items.size(); i++) {
+                assertEquals(input, expected.items.get(i).getId(), actual.items.get(i).getId());
+                assertEquals(input, expected.items.get(i).getName(), actual.items.get(i).getName());
+            }
+            assertTrue(input, Arrays.equals(expected.tags, actual.tags));
+            assertSame(input, expected.color, actual.color);
+            assertEquals(input, expected.price, actual.price);
+        }
+    }
+
+    @Test
+    public void testWriteReadCollection() throws Exception {
+        Method m = StreamingJSONProviderTest.class.getMethod("getBooks");
+        List<Book> books = Arrays.asList(new Book("a", 1), new Book("b", 2));
+        StreamingJSONProvider<List<Book>> p = new StreamingJSONProvider<List<Book>>();
+        String s = write(p, books, List.class, m.getGenericReturnType());
+        assertTrue(s.startsWith("{\"Book\":[{"));
+        List<Book> books2 = CastUtils.cast((List<?>)read(p, List.class, m.getGenericReturnType(), s));
+        assertEquals(books, books2);
+
+        books2 = CastUtils.cast((List<?>)read(p, List.class, m.getGenericReturnType(),
+                                              "[{\"id\":3,\"name\":\"c\"}]"));
+        assertEquals(Collections.singletonList(new Book("c", 3)), books2);
+    }
+
+    @Test
+    public void testUnsupportedTypes() throws Exception {
+        StreamingJSONProvider<Object> p = new StreamingJSONProvider<Object>();
+        assertTrue(p.isWriteable(Book.class, Book.class, NO_ANNOTATIONS, null));
+        assertFalse(p.isWriteable(Map.class, Map.class, NO_ANNOTATIONS, null));
+        assertFalse(p.isReadable(MapHolder.class, MapHolder.class, NO_ANNOTATIONS, null));
+    }
+
+    public List<Book> getBooks() {
+        return null;
+    }
+
+    public List<Item> getItems() {
+        return null;
+    }
+
+    private static void assertSameOutput(Object obj, Class<?> cls, Type type,
+                                         Map<String, String> namespaceMap, List<String> arrayKeys)
+        throws Exception {
+        JSONProvider<Object> json = new JSONProvider<Object>();
+        StreamingJSONProvider<Object> streaming = new StreamingJSONProvider<Object>();
+        if (namespaceMap != null) {
+            json.setNamespaceMap(namespaceMap);
+            streaming.setNamespaceMap(namespaceMap);
+        }
+        if (arrayKeys != null) {
+            json.setSerializeAsArray(true);
+            json.setArrayKeys(arrayKeys);
+            streaming.setSerializeAsArray(true);
+            streaming.setArrayKeys(arrayKeys);
+        }
+        assertEquals(write(json, obj, cls, type), write(streaming, obj, cls, type));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    private static <T> T read(MessageBodyReader p, Class<T> cls, Type type, String input)
+        throws Exception {
+        return (T)p.readFrom(cls, type, NO_ANNOTATIONS, null, null,
+                             new ByteArrayInputStream(input.getBytes("UTF-8")));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    private static String write(MessageBodyWriter p, Object obj, Class<?> cls, Type type)
+        throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        p.writeTo(obj, cls, type, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE,
+                  new MetadataMap<String, Object>(), bos);
+        return bos.toString("UTF-8");
+    }
+
+    public enum Color {
+        RED,
+        @XmlEnumValue("blue")
+        BLUE
+    }
+
+    @XmlRootElement(name = "shelf", namespace = "http://shelves")
+    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlType(propOrder = {"items", "tags", "color", "price" })
+    public static class Shelf {
+        @XmlAttribute
+        private String label;
+        @XmlElementWrapper(name = "itemList")
+        @XmlElement(name = "item")
+        private List<Item> items;
+        private String[] tags;
+        private Color color;
+        private Double price;
+        @XmlTransient
+        private int count;
+    }
+
+    @XmlRootElement
+    @XmlType(propOrder = {"id", "name" })
+    public static class Item {
+        private Long id;
+        private String name;
+
+        public Item() {
+        }
+
+        public Item(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        @XmlElement(nillable = true)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @XmlRootElement
+    public static class MapHolder {
+        private Map<String, String> values;
+
+        public Map<String, String> getValues() {
+            return values;
+        }
+
+        public void setValues(Map<String, String> values) {
+            this.values = values;
+        }
+    }
+}
@@ -79,6 +79,7 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.concurrent.BasicFuture;
 import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
@@ -102,6 +103,7 @@ public class AsyncHTTPConduit extends URLConnectionHTTPConduit {
     volatile SSLContext sslContext;
     volatile SSLSession session;
     volatile CloseableHttpAsyncClient client;
+    volatile PoolLimits appliedPoolLimits;
 
     public AsyncHTTPConduit(Bus b,
                             EndpointInfo ei, 
@@ -210,17 +212,46 @@ public class AsyncHTTPConduit extends URLConnectionHTTPConduit {
             .setSocketTimeout((int) csPolicy.getReceiveTimeout())
             .setConnectTimeout((int) csPolicy.getConnectionTimeout());
         Proxy p = proxyFactory.createProxy(csPolicy , uri);
+        HttpHost proxy = null;
         if (p != null) {
             InetSocketAddress isa = (InetSocketAddress)p.address();
-            HttpHost proxy = new HttpHost(isa.getHostName(), isa.getPort());
+            proxy = new HttpHost(isa.getHostName(), isa.getPort());
             b.setProxy(proxy);
         }
         e.setConfig(b.build());
+        applyPoolLimits(uri, proxy, csPolicy);
 
         message.put(CXFHttpRequest.class, e);
     }
     
     
+    /**
+     * Hands the pool limits of the client policy to the factory the first time this
+     * conduit uses them for a host, rather than on every request.
+     */
+    private void applyPoolLimits(URI uri, HttpHost proxy, HTTPClientPolicy csPolicy) {
+        if (csPolicy.getMaxConnections() <= 0 && csPolicy.getMaxConnectionsPerHost() <= 0) {
+            return;
+        }
+        PoolLimits limits = appliedPoolLimits;
+        int generation = factory.getRouteLimitsGeneration();
+        if (limits == null || !limits.matches(uri, proxy, csPolicy, generation)) {
+            factory.applyClientLimits(createRoute(uri, proxy), csPolicy);
+            appliedPoolLimits = new PoolLimits(uri, proxy, csPolicy, generation);
+        }
+    }
+
+    private static HttpRoute createRoute(URI uri, HttpHost proxy) {
+        boolean secure = "https".equals(uri.getScheme());
+        int port = uri.getPort();
+        if (port <= 0) {
+            port = secure ? 443 : 80;
+        }
+        HttpHost target = new HttpHost(uri.getHost(), port, uri.getScheme());
+        return proxy == null 
+            ? new HttpRoute(target, null, secure) : new HttpRoute(target, null, proxy, secure);
+    }
+    
     protected OutputStream createOutputStream(Message message, 
                                               boolean needToCacheRequest, 
                                               boolean isChunking,
@@ -890,5 +921,37 @@ public class AsyncHTTPConduit extends URLConnectionHTTPConduit {
         return keyManagers;
     }
 
+    /**
+     * The host and pool limits a conduit last handed to its factory.
+     */
+    static final class PoolLimits {
+        final String scheme;
+        final String host;
+        final int port;
+        final HttpHost proxy;
+        final int maxConnections;
+        final int maxConnectionsPerHost;
+        final int generation;
+
+        PoolLimits(URI uri, HttpHost proxy, HTTPClientPolicy csPolicy, int generation) {
+            this.scheme = uri.getScheme();
+            this.host = uri.getHost();
+            this.port = uri.getPort();
+            this.proxy = proxy;
+            this.maxConnections = csPolicy.getMaxConnections();
+            this.maxConnectionsPerHost = csPolicy.getMaxConnectionsPerHost();
+            this.generation = generation;
+        }
+
+        boolean matches(URI uri, HttpHost p, HTTPClientPolicy csPolicy, int gen) {
+            return port == uri.getPort()
+                && generation == gen
+                && maxConnections == csPolicy.getMaxConnections()
+                && maxConnectionsPerHost == csPolicy.getMaxConnectionsPerHost()
+                && scheme.equals(uri.getScheme())
+                && (host == null ? uri.getHost() == null : host.equals(uri.getHost()))
+                && (proxy == null ? p == null : proxy.equals(p));
+        }
+    }
 
 }
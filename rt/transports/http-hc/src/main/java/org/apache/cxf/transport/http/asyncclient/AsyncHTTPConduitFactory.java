@@ -20,16 +20,23 @@
 package org.apache.cxf.transport.http.asyncclient;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.annotation.Resource;
+import javax.management.JMException;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.buslifecycle.BusLifeCycleListener;
 import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.SystemPropertyAction;
+import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.http.HTTPConduit;
 import org.apache.cxf.transport.http.HTTPConduitFactory;
@@ -44,6 +51,7 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.conn.DefaultSchemePortResolver;
@@ -60,6 +68,7 @@ import org.apache.http.nio.conn.SchemeIOSessionStrategy;
 import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
 
 /**
@@ -79,6 +88,10 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
     public static final String MAX_PER_HOST_CONNECTIONS 
         = "org.apache.cxf.transport.http.async.MAX_PER_HOST_CONNECTIONS";
     public static final String CONNECTION_TTL = "org.apache.cxf.transport.http.async.CONNECTION_TTL";
+    public static final String CONNECTION_IDLE_TIMEOUT 
+        = "org.apache.cxf.transport.http.async.CONNECTION_IDLE_TIMEOUT";
+    public static final String CONNECTION_EVICTION_INTERVAL 
+        = "org.apache.cxf.transport.http.async.CONNECTION_EVICTION_INTERVAL";
     
     //AsycClient specific props
     public static final String THREAD_COUNT = "org.apache.cxf.transport.http.async.ioThreadCount";
@@ -92,15 +105,25 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
     public static enum UseAsyncPolicy {
         ALWAYS, ASYNC_ONLY, NEVER
     };
+    
+    private static final Logger LOG = LogUtils.getLogger(AsyncHTTPConduitFactory.class);
         
     volatile PoolingNHttpClientConnectionManager connectionManager;
     volatile CloseableHttpAsyncClient client;
+    volatile IdleConnectionEvictor evictor;
+    final Map<HttpRoute, Integer> routeLimits = new ConcurrentHashMap<HttpRoute, Integer>();
+    volatile int routeLimitsGeneration;
+    Bus bus;
+    boolean registered;
 
     boolean isShutdown;
     UseAsyncPolicy policy;
     int maxConnections = 5000;
     int maxPerRoute = 1000;
+    int clientMaxConnections = -1;
     int connectionTTL = 60000;
+    volatile int connectionIdleTimeout = 60000;
+    volatile int evictionInterval = 5000;
 
     int ioThreadCount = IOReactorConfig.DEFAULT.getIoThreadCount();
     long selectInterval = IOReactorConfig.DEFAULT.getSelectInterval();
@@ -143,6 +166,7 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
     private synchronized void resetVars() {
         client = null;
         connectionManager = null;
+        stopEvictor();
     }
     
 
@@ -164,9 +188,11 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
         maxConnections = getInt(s.get(MAX_CONNECTIONS), maxConnections);
         connectionTTL = getInt(s.get(CONNECTION_TTL), connectionTTL);
         maxPerRoute = getInt(s.get(MAX_PER_HOST_CONNECTIONS), maxPerRoute);
+        connectionIdleTimeout = getInt(s.get(CONNECTION_IDLE_TIMEOUT), connectionIdleTimeout);
+        evictionInterval = getInt(s.get(CONNECTION_EVICTION_INTERVAL), evictionInterval);
 
         if (connectionManager != null) {
-            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setMaxTotal(getMaxTotal());
             connectionManager.setDefaultMaxPerRoute(maxPerRoute);
         }
         
@@ -268,8 +294,16 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
             connectionManager = null;
             client = null;
         }
+        stopEvictor();
         isShutdown = true;
     }
+    
+    private void stopEvictor() {
+        if (evictor != null) {
+            evictor.shutdown();
+            evictor = null;
+        }
+    }
 
     private static void shutdown(CloseableHttpAsyncClient client) {
         try {
@@ -281,8 +315,130 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
 
 
     private void addListener(Bus b) {
+        bus = b;
         b.getExtension(BusLifeCycleManager.class).registerLifeCycleListener(this);
     }
+    
+    /**
+     * Limits the number of pooled connections to a route, this overrides the
+     * per host limit of the factory for that route.
+     */
+    public synchronized void setMaxConnectionsPerRoute(HttpRoute route, int max) {
+        Integer old = routeLimits.put(route, max);
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        if (cm != null && (old == null || old.intValue() != max)) {
+            cm.setMaxPerRoute(route, max);
+        }
+    }
+
+    /**
+     * Applies the MaxConnections and MaxConnectionsPerHost of a client policy.  The 
+     * connection pool is shared by all the conduits of the bus, so these limits apply 
+     * to the whole pool: the first client configuring a limit sets it, a different 
+     * value from another client is ignored with a warning.
+     */
+    synchronized void applyClientLimits(HttpRoute route, HTTPClientPolicy clientPolicy) {
+        int max = clientPolicy.getMaxConnections();
+        if (max > 0) {
+            if (clientMaxConnections <= 0) {
+                clientMaxConnections = max;
+                if (connectionManager != null) {
+                    connectionManager.setMaxTotal(max);
+                }
+            } else if (clientMaxConnections != max) {
+                LOG.warning("Ignoring MaxConnections " + max + ", the shared connection pool is already "
+                            + "limited to " + clientMaxConnections + " connections by another client");
+            }
+        }
+        max = clientPolicy.getMaxConnectionsPerHost();
+        if (max > 0 && route != null) {
+            Integer old = routeLimits.get(route);
+            if (old == null) {
+                setMaxConnectionsPerRoute(route, max);
+            } else if (old.intValue() != max) {
+                LOG.warning("Ignoring MaxConnectionsPerHost " + max + " for " + route 
+                            + ", the shared connection pool is already limited to " + old 
+                            + " connections for it");
+            }
+        }
+    }
+
+    /**
+     * Drops the limits of the routes that no longer have any pooled connection so
+     * the limits do not pile up for every host ever called.  The conduits still 
+     * using such a route apply their limit again, see {@link #getRouteLimitsGeneration()}.
+     */
+    synchronized void pruneRouteLimits(PoolingNHttpClientConnectionManager cm) {
+        boolean pruned = false;
+        for (Iterator<Map.Entry<HttpRoute, Integer>> it = routeLimits.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<HttpRoute, Integer> e = it.next();
+            PoolStats stats = cm.getStats(e.getKey());
+            if (stats.getLeased() == 0 && stats.getAvailable() == 0 && stats.getPending() == 0) {
+                it.remove();
+                cm.setMaxPerRoute(e.getKey(), maxPerRoute);
+                pruned = true;
+            }
+        }
+        if (pruned) {
+            routeLimitsGeneration++;
+        }
+    }
+    
+    /**
+     * @return a number that changes whenever route limits have been dropped
+     */
+    int getRouteLimitsGeneration() {
+        return routeLimitsGeneration;
+    }
+
+    private int getMaxTotal() {
+        return clientMaxConnections > 0 ? clientMaxConnections : maxConnections;
+    }
+    
+    /**
+     * @return the statistics of the connection pool or null if the client has not been started
+     */
+    public PoolStats getPoolStats() {
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        return cm == null ? null : cm.getTotalStats();
+    }
+
+    public PoolStats getPoolStats(HttpRoute route) {
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        return cm == null ? null : cm.getStats(route);
+    }
+    
+    public int getMaxConnections() {
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        return cm == null ? maxConnections : cm.getMaxTotal();
+    }
+    
+    public int getMaxPerHostConnections() {
+        return maxPerRoute;
+    }
+    
+    public int getConnectionTTL() {
+        return connectionTTL;
+    }
+    
+    public int getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+    
+    private void registerMBean() {
+        if (registered || bus == null) {
+            return;
+        }
+        registered = true;
+        InstrumentationManager imanager = bus.getExtension(InstrumentationManager.class);
+        if (imanager != null) {
+            try {
+                imanager.register(new ConnectionPoolMBeanWrapper(this, bus));
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING , jmex.getMessage(), jmex);
+            }
+        }
+    }
 
     public synchronized void setupNIOClient(HTTPClientPolicy clientPolicy) throws IOReactorException {
         if (client != null) {
@@ -323,8 +479,12 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
                 SystemDefaultDnsResolver.INSTANCE,
                 connectionTTL, TimeUnit.MILLISECONDS);
 
+        applyClientLimits(null, clientPolicy);
         connectionManager.setDefaultMaxPerRoute(maxPerRoute);
-        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setMaxTotal(getMaxTotal());
+        for (Map.Entry<HttpRoute, Integer> e : routeLimits.entrySet()) {
+            connectionManager.setMaxPerRoute(e.getKey(), e.getValue());
+        }
 
         ConnectionConfig connectionConfig = ConnectionConfig.custom()
                 .setBufferSize(clientPolicy.getChunkLength() > 0 ? clientPolicy.getChunkLength() : 16332)
@@ -355,6 +515,10 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
             .build();
         // Start the client thread
         client.start();
+        
+        evictor = new IdleConnectionEvictor(connectionManager);
+        evictor.start();
+        registerMBean();
     }
 
     public CloseableHttpAsyncClient createClient(final AsyncHTTPConduit c) throws IOException {
@@ -363,5 +527,45 @@ public class AsyncHTTPConduitFactory implements BusLifeCycleListener, HTTPCondui
         }
         return client;
     }
+    
+    /**
+     * Closes pooled connections that have expired or have been idle for longer
+     * than the idle timeout, the I/O reactor does not do that on its own, and 
+     * drops the limits of the routes left without connections.
+     */
+    class IdleConnectionEvictor extends Thread {
+        private final PoolingNHttpClientConnectionManager manager;
+        private volatile boolean shutdown;
+        
+        IdleConnectionEvictor(PoolingNHttpClientConnectionManager manager) {
+            super("CXF HTTP Connection Evictor");
+            setDaemon(true);
+            this.manager = manager;
+        }
+        
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(evictionInterval);
+                    }
+                    if (!shutdown) {
+                        manager.closeExpiredConnections();
+                        if (connectionIdleTimeout > 0) {
+                            manager.closeIdleConnections(connectionIdleTimeout, TimeUnit.MILLISECONDS);
+                        }
+                        pruneRouteLimits(manager);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // shutting down
+            }
+        }
+        
+        public synchronized void shutdown() {
+            shutdown = true;
+            notifyAll();
+        }
+    }
 
 }
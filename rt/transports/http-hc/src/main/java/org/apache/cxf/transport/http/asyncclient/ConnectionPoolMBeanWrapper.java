@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+import org.apache.http.pool.PoolStats;
+
+@ManagedResource(componentName = "HTTPConnectionPool", 
+                 description = "The connection pool of the asynchronous HTTP conduits", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class ConnectionPoolMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "HTTPConnectionPool";
+    
+    private AsyncHTTPConduitFactory factory;
+    private Bus bus;
+    
+    public ConnectionPoolMBeanWrapper(AsyncHTTPConduitFactory factory, Bus bus) {
+        this.factory = factory;
+        this.bus = bus;
+    }
+    
+    @ManagedAttribute(description = "The maximum number of pooled connections")
+    public int getMaxConnections() {
+        return factory.getMaxConnections();
+    }
+    
+    @ManagedAttribute(description = "The default maximum number of pooled connections per host")
+    public int getMaxPerHostConnections() {
+        return factory.getMaxPerHostConnections();
+    }
+    
+    @ManagedAttribute(description = "The time to live of a pooled connection in milliseconds")
+    public int getConnectionTTL() {
+        return factory.getConnectionTTL();
+    }
+    
+    @ManagedAttribute(description = "The time in milliseconds after which idle connections are closed")
+    public int getConnectionIdleTimeout() {
+        return factory.getConnectionIdleTimeout();
+    }
+    
+    @ManagedAttribute(description = "The number of connections currently in use")
+    public int getLeasedConnections() {
+        PoolStats stats = factory.getPoolStats();
+        return stats == null ? 0 : stats.getLeased();
+    }
+    
+    @ManagedAttribute(description = "The number of idle connections in the pool")
+    public int getAvailableConnections() {
+        PoolStats stats = factory.getPoolStats();
+        return stats == null ? 0 : stats.getAvailable();
+    }
+    
+    @ManagedAttribute(description = "The number of requests waiting for a connection")
+    public int getPendingRequests() {
+        PoolStats stats = factory.getPoolStats();
+        return stats == null ? 0 : stats.getPending();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(factory.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -41,6 +41,8 @@ import org.apache.hello_world_soap_http.Greeter;
 import org.apache.hello_world_soap_http.SOAPService;
 import org.apache.hello_world_soap_http.types.GreetMeLaterResponse;
 import org.apache.hello_world_soap_http.types.GreetMeResponse;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -158,6 +160,68 @@ public class AsyncHTTPConduitTest extends AbstractBusClientServerTestBase {
         assertEquals("Get a wrong response", "Hello test", response);
     }
     @Test
+    public void testConnectionPoolLimits() throws Exception {
+        JaxWsProxyFactoryBean factory = new JaxWsProxyFactoryBean();
+        factory.setServiceClass(Greeter.class);
+        factory.setAddress("http://localhost:" + PORT + "/SoapContext/SoapPort");
+        Greeter greeter = factory.create(Greeter.class);
+        HTTPConduit c = (HTTPConduit)ClientProxy.getClient(greeter).getConduit();
+        c.getClient().setMaxConnectionsPerHost(2);
+        assertEquals("Hello test", greeter.greetMe("test"));
+
+        AsyncHTTPConduitFactory conduitFactory = ((AsyncHTTPConduit)c).getAsyncHTTPConduitFactory();
+        HttpRoute route 
+            = new HttpRoute(new HttpHost("localhost", Integer.parseInt(PORT), "http"), null, false);
+        try {
+            assertEquals(2, conduitFactory.getPoolStats(route).getMax());
+            assertNotNull(conduitFactory.getPoolStats());
+            
+            // the pool is shared, another client can't change the limit of the route
+            Greeter greeter2 = factory.create(Greeter.class);
+            HTTPConduit c2 = (HTTPConduit)ClientProxy.getClient(greeter2).getConduit();
+            c2.getClient().setMaxConnectionsPerHost(3);
+            assertEquals("Hello test", greeter2.greetMe("test"));
+            assertEquals(2, conduitFactory.getPoolStats(route).getMax());
+        } finally {
+            conduitFactory.setMaxConnectionsPerRoute(route, conduitFactory.getMaxPerHostConnections());
+            conduitFactory.routeLimits.remove(route);
+        }
+    }
+    @Test
+    public void testIdleRouteLimitsPruned() throws Exception {
+        JaxWsProxyFactoryBean factory = new JaxWsProxyFactoryBean();
+        factory.setServiceClass(Greeter.class);
+        factory.setAddress("http://localhost:" + PORT + "/SoapContext/SoapPort");
+        Greeter greeter = factory.create(Greeter.class);
+        HTTPConduit c = (HTTPConduit)ClientProxy.getClient(greeter).getConduit();
+        c.getClient().setMaxConnectionsPerHost(2);
+        assertEquals("Hello test", greeter.greetMe("test"));
+
+        AsyncHTTPConduitFactory conduitFactory = ((AsyncHTTPConduit)c).getAsyncHTTPConduitFactory();
+        HttpRoute route 
+            = new HttpRoute(new HttpHost("localhost", Integer.parseInt(PORT), "http"), null, false);
+        try {
+            assertTrue(conduitFactory.routeLimits.containsKey(route));
+            // the connection goes back to the pool shortly after the response
+            for (int x = 0; x < 50 && conduitFactory.routeLimits.containsKey(route); x++) {
+                conduitFactory.connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+                conduitFactory.pruneRouteLimits(conduitFactory.connectionManager);
+                Thread.sleep(100);
+            }
+            assertFalse("the limit of an unused route must be dropped", 
+                        conduitFactory.routeLimits.containsKey(route));
+            assertEquals(conduitFactory.getMaxPerHostConnections(), 
+                         conduitFactory.getPoolStats(route).getMax());
+            
+            assertEquals("Hello test", greeter.greetMe("test"));
+            assertEquals("the conduit must apply its limit again", 
+                         2, conduitFactory.getPoolStats(route).getMax());
+        } finally {
+            conduitFactory.setMaxConnectionsPerRoute(route, conduitFactory.getMaxPerHostConnections());
+            conduitFactory.routeLimits.remove(route);
+        }
+    }
+    @Test
     public void testCall() throws Exception {
         updateAddressPort(g, PORT);
         assertEquals("Hello " + request, g.greetMe(request));
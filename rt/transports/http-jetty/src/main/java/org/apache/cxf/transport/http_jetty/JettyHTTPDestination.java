@@ -245,6 +245,10 @@ public class JettyHTTPDestination extends AbstractHTTPDestination {
                 origLoader = ClassLoaderUtils.setThreadContextClassloader(loader);
             }
             invoke(null, context, req, resp);
+            if (isAsyncDispatch()) {
+                // the request may be processed by a work queue thread by now
+                baseRequest.setHandled(true);
+            }
         } finally {
             if (origBus != bus) {
                 BusFactory.setThreadDefaultBus(origBus);
@@ -262,7 +266,10 @@ public class JettyHTTPDestination extends AbstractHTTPDestination {
         resp.flushBuffer();
         Request baseRequest = (req instanceof Request) 
             ? (Request)req : getCurrentRequest();
-        baseRequest.setHandled(true);
+        if (baseRequest != null) {
+            // null when completing an asynchronously dispatched request
+            baseRequest.setHandled(true);
+        }
         super.invokeComplete(context, req, resp, m);
     }
     
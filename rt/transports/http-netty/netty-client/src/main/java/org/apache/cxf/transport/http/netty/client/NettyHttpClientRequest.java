@@ -20,6 +20,7 @@
 package org.apache.cxf.transport.http.netty.client;
 
 import java.net.URI;
+import java.util.Map;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -53,6 +54,19 @@ public class NettyHttpClientRequest {
         request.headers().set("Host", uri.getHost() + ":" + uri.getPort());
     }
 
+    /**
+     * Replaces the content of the request, the headers which have been set so far are kept
+     */
+    public void setContent(ByteBuf content) {
+        HttpRequest newRequest = new DefaultFullHttpRequest(request.getProtocolVersion(),
+                                                            request.getMethod(),
+                                                            request.getUri(), content);
+        for (Map.Entry<String, String> header : request.headers()) {
+            newRequest.headers().add(header.getKey(), header.getValue());
+        }
+        request = newRequest;
+    }
+
     public HttpRequest getRequest() {
         return request;
     }
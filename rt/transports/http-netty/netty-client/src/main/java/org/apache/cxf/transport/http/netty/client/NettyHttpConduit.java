@@ -50,6 +50,7 @@ import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.http.Headers;
 import org.apache.cxf.transport.http.URLConnectionHTTPConduit;
+import org.apache.cxf.transport.http.netty.common.NettyBusResources;
 import org.apache.cxf.transport.https.HttpsURLConnectionInfo;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.apache.cxf.version.Version;
@@ -57,12 +58,14 @@ import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpContent;
@@ -72,8 +75,12 @@ import io.netty.handler.ssl.SslHandler;
 
 public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLifeCycleListener {
     public static final String USE_ASYNC = "use.async.http.conduit";
+    // the request body buffer grows by adding components, so it is not copied while it is written
+    // until it holds more components than this, when the CompositeByteBuf consolidates them
+    private static final int MAX_OUT_BUFFER_COMPONENTS = 256;
     final NettyHttpConduitFactory factory;
     private Bootstrap bootstrap;
+    private ByteBufAllocator allocator;
     
     
     public NettyHttpConduit(Bus b, EndpointInfo ei, EndpointReferenceType t, NettyHttpConduitFactory conduitFactory)
@@ -84,12 +91,18 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
         EventLoopGroup eventLoopGroup = bus.getExtension(EventLoopGroup.class);
         bootstrap.group(eventLoopGroup);
         bootstrap.channel(NioSocketChannel.class);
+        allocator = NettyBusResources.getByteBufAllocator(bus);
+        bootstrap.option(ChannelOption.ALLOCATOR, allocator);
     }
     
     public NettyHttpConduitFactory getNettyHttpConduitFactory() {
         return factory;
     }
     
+    public ByteBufAllocator getByteBufAllocator() {
+        return allocator;
+    }
+    
     // Using Netty API directly
     protected void setupConnection(Message message, URI uri, HTTPClientPolicy csPolicy) throws IOException {
         // need to do some clean up work on the URI address
@@ -141,7 +154,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 chunkThreshold,
                 getConduitName(),
                 entity.getUri());
-        entity.createRequest(out.getOutBuffer());
+        // the pooled body buffer is only allocated once the request is about to be sent
+        entity.createRequest(Unpooled.EMPTY_BUFFER);
         // TODO need to check how to set the Chunked feature
         //request.getRequest().setChunked(true);
         entity.getRequest().headers().set(Message.CONTENT_TYPE, (String)message.get(Message.CONTENT_TYPE));
@@ -166,14 +180,22 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             super(message, possibleRetransmit, isChunking, chunkThreshold, conduitName, url);
             csPolicy = getClient(message);
             entity  = message.get(NettyHttpClientRequest.class);
-            int bufSize = csPolicy.getChunkLength() > 0 ? csPolicy.getChunkLength() : 16320;
-            outBuffer = Unpooled.buffer(bufSize);
-            outputStream = new ByteBufOutputStream(outBuffer);
         }
 
         protected ByteBuf getOutBuffer() {
             return outBuffer;
         }
+        
+        /**
+         * Releases the request body buffer unless it has been handed to the channel,
+         * Netty releases it once it has been written
+         */
+        protected void releaseOutBuffer() {
+            if (outBuffer != null && outBuffer.refCnt() > 0) {
+                outBuffer.release();
+            }
+            outBuffer = null;
+        }
 
 
         protected synchronized HttpResponse getHttpResponse() throws IOException {
@@ -241,6 +263,10 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
         @Override
         protected void setupWrappedStream() throws IOException {
             connect(true);
+            releaseOutBuffer();
+            outBuffer = allocator.compositeBuffer(MAX_OUT_BUFFER_COMPONENTS);
+            outputStream = new ByteBufOutputStream(outBuffer);
+            entity.setContent(outBuffer);
             wrappedStream =  new OutputStream() {
                 public void write(byte b[], int off, int len) throws IOException {
                     outputStream.write(b, off, len);
@@ -258,9 +284,21 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                             }
                         }
                     };
-                    ChannelFuture channelFuture = getChannel().write(entity);
-                    channelFuture.addListener(listener);
+                    Channel ch;
+                    try {
+                        ch = getChannel();
+                    } catch (IOException ex) {
+                        releaseOutBuffer();
+                        throw ex;
+                    } catch (RuntimeException ex) {
+                        releaseOutBuffer();
+                        throw ex;
+                    }
                     outputStream.close();
+                    // the channel owns the body buffer from now on
+                    outBuffer = null;
+                    ChannelFuture channelFuture = ch.write(entity);
+                    channelFuture.addListener(listener);
                 }
             };
 
@@ -435,8 +473,17 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         protected void closeInputStream() throws IOException {
-            //We just clear the buffer
-            getHttpResponseContent().content().clear();
+            // give the pooled response buffer back
+            releaseResponseContent();
+        }
+        
+        private void releaseResponseContent() {
+            if (httpResponse instanceof HttpContent) {
+                ByteBuf content = ((HttpContent)httpResponse).content();
+                if (content.refCnt() > 0) {
+                    content.release();
+                }
+            }
         }
 
         @Override
@@ -447,7 +494,12 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         protected InputStream getInputStream() throws IOException {
-            return new ByteBufInputStream(getHttpResponseContent().content());
+            return new ByteBufInputStream(getHttpResponseContent().content()) {
+                public void close() throws IOException {
+                    super.close();
+                    releaseResponseContent();
+                }
+            };
         }
 
         @Override
@@ -489,6 +541,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         protected void setupNewConnection(String newURL) throws IOException {
+            releaseResponseContent();
+            releaseOutBuffer();
             httpResponse = null;
             isAsync = false;
             exception = null;
@@ -501,9 +555,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 this.url = new URI(newURL);
                 setupConnection(outMessage, this.url, csPolicy);
                 entity = outMessage.get(NettyHttpClientRequest.class);
-                //reset the buffers
-                outBuffer.clear();
-                outputStream = new ByteBufOutputStream(outBuffer);
+                // the new body buffer is allocated by setupWrappedStream when the request is resent
+                entity.createRequest(Unpooled.EMPTY_BUFFER);
 
             } catch (URISyntaxException e) {
                 throw new IOException(e);
@@ -28,10 +28,10 @@ import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.http.HTTPConduit;
 import org.apache.cxf.transport.http.HTTPConduitFactory;
 import org.apache.cxf.transport.http.HTTPTransportFactory;
+import org.apache.cxf.transport.http.netty.common.NettyBusResources;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 
 
 public class NettyHttpConduitFactory implements HTTPConduitFactory {
@@ -45,15 +45,9 @@ public class NettyHttpConduitFactory implements HTTPConduitFactory {
                                      EndpointInfo localInfo,
                                      EndpointReferenceType target)
         throws IOException {
-        // need to check if the EventLoopGroup is created or not
-        // if not create a new EventLoopGroup for it
-        EventLoopGroup eventLoopGroup = bus.getExtension(EventLoopGroup.class);
-        if (eventLoopGroup == null) {
-            final EventLoopGroup group = new NioEventLoopGroup();
-            // register a BusLifeCycleListener for it
-            bus.setExtension(group, EventLoopGroup.class);
-            registerBusLifeListener(bus, group);
-        }
+        // the EventLoopGroup and the ByteBufAllocator are shared by all the Netty transports of the bus
+        NettyBusResources.getEventLoopGroup(bus, 0);
+        NettyBusResources.getByteBufAllocator(bus);
         return new NettyHttpConduit(bus, localInfo, target, this);
     }
     
@@ -25,6 +25,7 @@ import org.apache.cxf.BusFactory;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.service.model.ServiceInfo;
 import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.netty.common.NettyBusResources;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -32,6 +33,9 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.EventLoopGroup;
 
 
@@ -103,4 +107,30 @@ public class NettyHttpConduitFactoryTest extends Assert {
         assertTrue("The eventLoopGroup should be shutdown.", eventLoopGroup.isShutdown());
  
     }
+    
+    @Test
+    public void testByteBufAllocator() throws Exception {
+        bus = BusFactory.getDefaultBus(true);
+        NettyHttpConduitFactory factory = new NettyHttpConduitFactory();
+        NettyHttpConduit conduit = (NettyHttpConduit)factory.createConduit(bus, createEndpointInfo(), null);
+        
+        ByteBufAllocator allocator = bus.getExtension(ByteBufAllocator.class);
+        assertTrue(allocator instanceof PooledByteBufAllocator);
+        assertSame(allocator, conduit.getByteBufAllocator());
+        assertSame(allocator, NettyBusResources.getByteBufAllocator(bus));
+        bus.shutdown(true);
+        
+        bus = BusFactory.newInstance().createBus();
+        bus.setProperty(NettyBusResources.ALLOCATOR_POOLED, "false");
+        assertTrue(NettyBusResources.getByteBufAllocator(bus) instanceof UnpooledByteBufAllocator);
+    }
+    
+    private static EndpointInfo createEndpointInfo() {
+        ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.setName(new QName("bla", "Service"));        
+        EndpointInfo ei = new EndpointInfo(serviceInfo, "");
+        ei.setName(new QName("bla", "Port"));
+        ei.setAddress("netty://foo");
+        return ei;
+    }
 }
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.netty.common;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+import io.netty.buffer.PooledByteBufAllocator;
+
+@ManagedResource(componentName = "NettyByteBufAllocator", 
+                 description = "The pooled ByteBuf allocator of the Netty transports", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class ByteBufAllocatorMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "NettyByteBufAllocator";
+    
+    private final PooledByteBufAllocator allocator;
+    private final Bus bus;
+    private final boolean preferDirect;
+    private final int heapArenas;
+    private final int directArenas;
+    private final int pageSize;
+    private final int maxOrder;
+    
+    public ByteBufAllocatorMBeanWrapper(PooledByteBufAllocator allocator, Bus bus, boolean preferDirect,
+                                        int heapArenas, int directArenas, int pageSize, int maxOrder) {
+        this.allocator = allocator;
+        this.bus = bus;
+        this.preferDirect = preferDirect;
+        this.heapArenas = heapArenas;
+        this.directArenas = directArenas;
+        this.pageSize = pageSize;
+        this.maxOrder = maxOrder;
+    }
+    
+    @ManagedAttribute(description = "Whether direct buffers are allocated by default")
+    public boolean isPreferDirect() {
+        return preferDirect;
+    }
+    
+    @ManagedAttribute(description = "The number of heap arenas")
+    public int getHeapArenas() {
+        return heapArenas;
+    }
+    
+    @ManagedAttribute(description = "The number of direct arenas")
+    public int getDirectArenas() {
+        return directArenas;
+    }
+    
+    @ManagedAttribute(description = "The page size of the arenas in bytes")
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    @ManagedAttribute(description = "The size of the chunks the arenas allocate in bytes")
+    public int getChunkSize() {
+        return pageSize << maxOrder;
+    }
+    
+    @ManagedAttribute(description = "The chunk lists and usage of every arena")
+    public String getArenaStatistics() {
+        return allocator.toString();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(allocator.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.netty.common;
+
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+@ManagedResource(componentName = "NettyEventExecutorGroup", 
+                 description = "An event loop or executor group shared by the Netty transports", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class EventExecutorGroupMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "NettyEventExecutorGroup";
+    
+    private final EventExecutorGroup group;
+    private final String name;
+    private final Bus bus;
+    
+    public EventExecutorGroupMBeanWrapper(EventExecutorGroup group, String name, Bus bus) {
+        this.group = group;
+        this.name = name;
+        this.bus = bus;
+    }
+    
+    @ManagedAttribute(description = "The name of the group")
+    public String getName() {
+        return name;
+    }
+    
+    @ManagedAttribute(description = "The number of threads of the group")
+    public int getThreadCount() {
+        return group.children().size();
+    }
+    
+    @ManagedAttribute(description = "The number of tasks queued on all threads of the group")
+    public int getPendingTasks() {
+        int pending = 0;
+        Set<EventExecutor> executors = group.children();
+        for (EventExecutor executor : executors) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                pending += ((SingleThreadEventExecutor)executor).pendingTasks();
+            }
+        }
+        return pending;
+    }
+    
+    @ManagedAttribute(description = "The largest number of tasks queued on a single thread of the group")
+    public int getMaxPendingTasks() {
+        int max = 0;
+        Set<EventExecutor> executors = group.children();
+        for (EventExecutor executor : executors) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                max = Math.max(max, ((SingleThreadEventExecutor)executor).pendingTasks());
+            }
+        }
+        return max;
+    }
+    
+    @ManagedAttribute(description = "Whether the group is shutting down")
+    public boolean isShuttingDown() {
+        return group.isShuttingDown();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        buffer.append(ManagementConstants.NAME_PROP).append('=').append(ObjectName.quote(name)).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(group.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.common;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.PropertyUtils;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.management.ManagedComponent;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * The ByteBufAllocator and the EventLoopGroup shared by the Netty client and server
+ * transports of a bus.  Both are registered as bus extensions by whichever transport
+ * needs them first, so that the transports end up with the same instances.
+ */
+public final class NettyBusResources {
+
+    /**
+     * Bus properties configuring the ByteBufAllocator shared by the Netty transports of a bus.
+     * Pooling is on by default, set ALLOCATOR_POOLED to false to fall back to unpooled buffers.
+     */
+    public static final String ALLOCATOR_POOLED = "org.apache.cxf.transport.http.netty.allocator.pooled";
+    public static final String ALLOCATOR_PREFER_DIRECT =
+        "org.apache.cxf.transport.http.netty.allocator.preferDirect";
+    public static final String ALLOCATOR_HEAP_ARENAS =
+        "org.apache.cxf.transport.http.netty.allocator.heapArenas";
+    public static final String ALLOCATOR_DIRECT_ARENAS =
+        "org.apache.cxf.transport.http.netty.allocator.directArenas";
+    public static final String ALLOCATOR_PAGE_SIZE = "org.apache.cxf.transport.http.netty.allocator.pageSize";
+    public static final String ALLOCATOR_MAX_ORDER = "org.apache.cxf.transport.http.netty.allocator.maxOrder";
+
+    /**
+     * Bus property holding the number of threads of the event loop group shared by the Netty
+     * transports of a bus, by default twice the number of cores.
+     */
+    public static final String EVENT_LOOP_THREADS = "org.apache.cxf.transport.http.netty.eventLoopThreads";
+
+    private static final Logger LOG = LogUtils.getLogger(NettyBusResources.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 8192;
+    private static final int DEFAULT_MAX_ORDER = 11;
+
+    private NettyBusResources() {
+    }
+
+    /**
+     * Returns the ByteBufAllocator of the bus, creating it from the bus properties
+     * if nobody has registered one yet.
+     */
+    public static ByteBufAllocator getByteBufAllocator(Bus bus) {
+        synchronized (bus) {
+            ByteBufAllocator allocator = bus.getExtension(ByteBufAllocator.class);
+            if (allocator == null) {
+                allocator = createByteBufAllocator(bus);
+                bus.setExtension(allocator, ByteBufAllocator.class);
+            }
+            return allocator;
+        }
+    }
+
+    /**
+     * Returns the EventLoopGroup of the bus, creating it if nobody has registered one yet.
+     * A group created here is shut down with the bus.
+     *
+     * @param threads the number of threads of the group if it is created, if 0 the
+     * EVENT_LOOP_THREADS bus property or the Netty default is used
+     */
+    public static EventLoopGroup getEventLoopGroup(Bus bus, int threads) {
+        synchronized (bus) {
+            EventLoopGroup group = bus.getExtension(EventLoopGroup.class);
+            if (group == null) {
+                group = new NioEventLoopGroup(threads > 0 ? threads : getInt(bus, EVENT_LOOP_THREADS, 0));
+                bus.setExtension(group, EventLoopGroup.class);
+                shutdownWithBus(bus, group);
+                registerGroup(bus, group, "event-loop");
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Registers the statistics of an event loop or executor group with the
+     * InstrumentationManager of the bus, if there is one.
+     */
+    public static void registerGroup(Bus bus, EventExecutorGroup group, String name) {
+        registerMBean(bus, new EventExecutorGroupMBeanWrapper(group, name, bus));
+    }
+
+    /**
+     * Returns the value of an integer bus property.
+     */
+    public static int getInt(Bus bus, String name, int defaultValue) {
+        Object value = bus == null ? null : bus.getProperty(name);
+        if (value instanceof Number) {
+            return ((Number)value).intValue();
+        } else if (value != null) {
+            return Integer.parseInt(value.toString().trim());
+        }
+        return defaultValue;
+    }
+
+    private static ByteBufAllocator createByteBufAllocator(Bus bus) {
+        boolean preferDirect = !PropertyUtils.isFalse(bus.getProperty(ALLOCATOR_PREFER_DIRECT));
+        if (PropertyUtils.isFalse(bus.getProperty(ALLOCATOR_POOLED))) {
+            return new UnpooledByteBufAllocator(preferDirect);
+        }
+        int pageSize = getInt(bus, ALLOCATOR_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+        int maxOrder = getInt(bus, ALLOCATOR_MAX_ORDER, DEFAULT_MAX_ORDER);
+        // the same bounds Netty applies to its default number of arenas
+        long chunkSize = (long)pageSize << maxOrder;
+        int defaultArenas = Runtime.getRuntime().availableProcessors() * 2;
+        int heapArenas = getInt(bus, ALLOCATOR_HEAP_ARENAS,
+            (int)Math.min(defaultArenas, Runtime.getRuntime().maxMemory() / chunkSize / 2 / 3));
+        int directArenas = getInt(bus, ALLOCATOR_DIRECT_ARENAS, heapArenas);
+        PooledByteBufAllocator allocator =
+            new PooledByteBufAllocator(preferDirect, heapArenas, directArenas, pageSize, maxOrder);
+        registerMBean(bus, new ByteBufAllocatorMBeanWrapper(allocator, bus, preferDirect,
+                                                            heapArenas, directArenas, pageSize, maxOrder));
+        return allocator;
+    }
+
+    private static void shutdownWithBus(Bus bus, final EventLoopGroup group) {
+        BusLifeCycleManager lifeCycleManager = bus.getExtension(BusLifeCycleManager.class);
+        if (null != lifeCycleManager) {
+            lifeCycleManager.registerLifeCycleListener(new BusLifeCycleListener() {
+                public void initComplete() {
+                    // do nothing here
+                }
+                public void preShutdown() {
+                    // do nothing here
+                }
+                public void postShutdown() {
+                    group.shutdownGracefully().syncUninterruptibly();
+                }
+            });
+        }
+    }
+
+    private static void registerMBean(Bus bus, ManagedComponent component) {
+        InstrumentationManager imanager = bus == null ? null : bus.getExtension(InstrumentationManager.class);
+        if (imanager != null) {
+            try {
+                imanager.register(component);
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, jmex.getMessage(), jmex);
+            }
+        }
+    }
+}
@@ -21,20 +21,29 @@ package org.apache.cxf.transport.http.netty.server;
 
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
 import org.apache.cxf.transport.HttpUriMapper;
+import org.apache.cxf.transport.http.PathTrie;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 
 public class NettyHttpServerEngine implements ServerEngine {
 
@@ -60,6 +69,8 @@ public class NettyHttpServerEngine implements ServerEngine {
     
     private Map<String, NettyHttpContextHandler> handlerMap = new ConcurrentHashMap<String, NettyHttpContextHandler>();
     
+    private PathTrie<NettyHttpContextHandler> handlerIndex = new PathTrie<NettyHttpContextHandler>();
+    
     /**
      * This field holds the TLS ServerParameters that are programatically
      * configured. The tlsServerParamers (due to JAXB) holds the struct
@@ -77,9 +88,18 @@ public class NettyHttpServerEngine implements ServerEngine {
     
     private boolean sessionSupport;
     
-    // TODO need to setup configuration about them
-    private EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private boolean requestStreaming;
+    
+    private ByteBufAllocator byteBufAllocator;
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup applicationExecutor;
+    private Executor requestExecutor;
+    private ExecutorService ownedRequestExecutor;
+    
+    // the groups created by this engine, the ones set from outside are shared with others
+    private final List<EventExecutorGroup> ownedGroups = new ArrayList<EventExecutorGroup>();
     
     public NettyHttpServerEngine() {
         
@@ -135,10 +155,33 @@ public class NettyHttpServerEngine implements ServerEngine {
       
     protected Channel startServer() {
           
+        if (bossGroup == null) {
+            bossGroup = new NioEventLoopGroup(1);
+            ownedGroups.add(bossGroup);
+        }
+        if (workerGroup == null) {
+            workerGroup = new NioEventLoopGroup(threadingParameters.getIoThreadCount());
+            ownedGroups.add(workerGroup);
+        }
+        if (applicationExecutor == null) {
+            applicationExecutor = new DefaultEventExecutorGroup(threadingParameters.isSeThreadPoolSize()
+                ? threadingParameters.getThreadPoolSize() 
+                : NettyHttpServletPipelineFactory.DEFAULT_APPLICATION_THREADS);
+            ownedGroups.add(applicationExecutor);
+        }
+        if (requestStreaming && requestExecutor == null) {
+            ownedRequestExecutor = Executors.newFixedThreadPool(threadingParameters.isSeThreadPoolSize()
+                ? threadingParameters.getThreadPoolSize() 
+                : NettyHttpServletPipelineFactory.DEFAULT_APPLICATION_THREADS);
+            requestExecutor = ownedRequestExecutor;
+        }
         final ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
             .channel(NioServerSocketChannel.class)
             .option(ChannelOption.SO_REUSEADDR, true);
+        if (byteBufAllocator != null) {
+            bootstrap.childOption(ChannelOption.ALLOCATOR, byteBufAllocator);
+        }
                 
         // Set up the idle handler
         IdleStateHandler idleStateHandler = 
@@ -147,9 +190,8 @@ public class NettyHttpServerEngine implements ServerEngine {
         servletPipeline = 
             new NettyHttpServletPipelineFactory(
                  tlsServerParameters, sessionSupport, 
-                 threadingParameters.getThreadPoolSize(),
-                 maxChunkContentSize,
-                 handlerMap, idleStateHandler);
+                 maxChunkContentSize, requestStreaming,
+                 handlerMap, handlerIndex, idleStateHandler, applicationExecutor, requestExecutor);
         // Start the servletPipeline's timer
         servletPipeline.start();
         bootstrap.childHandler(servletPipeline);
@@ -182,6 +224,7 @@ public class NettyHttpServerEngine implements ServerEngine {
         if (contextHandler == null) {
             contextHandler = new NettyHttpContextHandler(contextName);
             handlerMap.put(contextName, contextHandler);
+            handlerIndex.put(contextName, contextHandler);
         }
         contextHandler.addNettyHttpHandler(handler);
     }
@@ -195,6 +238,7 @@ public class NettyHttpServerEngine implements ServerEngine {
             if (contextHandler.isEmpty()) {
                 // remove the contextHandler from handlerMap
                 handlerMap.remove(contextName);
+                handlerIndex.remove(contextName);
             }
         }
     }
@@ -220,8 +264,17 @@ public class NettyHttpServerEngine implements ServerEngine {
             serverChannel.close();
         }
         
-        bossGroup.shutdownGracefully();
-        workerGroup.shutdownGracefully();
+        for (EventExecutorGroup group : ownedGroups) {
+            group.shutdownGracefully();
+        }
+        ownedGroups.clear();
+        if (ownedRequestExecutor != null) {
+            ownedRequestExecutor.shutdown();
+            if (requestExecutor == ownedRequestExecutor) {
+                requestExecutor = null;
+            }
+            ownedRequestExecutor = null;
+        }
        
     }
 
@@ -257,6 +310,74 @@ public class NettyHttpServerEngine implements ServerEngine {
         this.maxChunkContentSize = maxChunkContentSize;
     }
     
+    public boolean isRequestStreaming() {
+        return requestStreaming;
+    }
+
+    /**
+     * When set, the request content is streamed to the application as it arrives
+     * instead of being aggregated up to maxChunkContentSize first.  In this mode
+     * maxChunkContentSize bounds the content buffered ahead of the application.
+     */
+    public void setRequestStreaming(boolean requestStreaming) {
+        this.requestStreaming = requestStreaming;
+    }
+    
+    public EventLoopGroup getBossGroup() {
+        return bossGroup;
+    }
+
+    public EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+    
+    /**
+     * Sets the event loop groups accepting and serving the connections, they are not shut down 
+     * with this engine.  If not set the engine creates its own groups, sized from the 
+     * ThreadingParameters.
+     */
+    public void setEventLoopGroups(EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+    }
+    
+    public EventExecutorGroup getApplicationExecutor() {
+        return applicationExecutor;
+    }
+
+    /**
+     * Sets the executor group the requests are handled on, it is not shut down with this engine.
+     */
+    public void setApplicationExecutor(EventExecutorGroup applicationExecutor) {
+        this.applicationExecutor = applicationExecutor;
+    }
+    
+    public Executor getRequestExecutor() {
+        return requestExecutor;
+    }
+
+    /**
+     * Sets the thread pool the requests are handled on in the request streaming mode, it is 
+     * not shut down with this engine.  The handling of a request may block while its content
+     * arrives, so a pool rather than an event executor group is used.  If not set the engine 
+     * creates its own pool, sized from the ThreadingParameters.
+     */
+    public void setRequestExecutor(Executor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+    
+    public ByteBufAllocator getByteBufAllocator() {
+        return byteBufAllocator;
+    }
+
+    /**
+     * Sets the allocator of the buffers used for the accepted connections, the engines 
+     * created by the NettyHttpServerEngineFactory share the pooled allocator of the bus.
+     */
+    public void setByteBufAllocator(ByteBufAllocator byteBufAllocator) {
+        this.byteBufAllocator = byteBufAllocator;
+    }
+    
     public int getPort() {
         return port;
     }
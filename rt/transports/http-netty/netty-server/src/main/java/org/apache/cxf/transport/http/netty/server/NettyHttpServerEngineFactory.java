@@ -21,6 +21,7 @@ package org.apache.cxf.transport.http.netty.server;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -35,13 +36,20 @@ import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
+import org.apache.cxf.transport.http.netty.common.NettyBusResources;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 
 
 @NoJSR250Annotations(unlessNull = "bus")
 public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
+    
     private static final Logger LOG =
             LogUtils.getL7dLogger(NettyHttpServerEngineFactory.class);
-
+    
     private static ConcurrentHashMap<Integer, NettyHttpServerEngine> portMap =
             new ConcurrentHashMap<Integer, NettyHttpServerEngine>();
 
@@ -58,6 +66,17 @@ public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
     
     private Map<String, TLSServerParameters> tlsServerParametersMap = 
         new TreeMap<String, TLSServerParameters>();
+    
+    /**
+     * The threading parameters of the groups shared by the engines which have not
+     * been given their own ThreadingParameters.
+     */
+    private ThreadingParameters threadingParameters = new ThreadingParameters();
+    
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup applicationExecutor;
+    private final List<EventExecutorGroup> ownedGroups = new ArrayList<EventExecutorGroup>();
 
     public NettyHttpServerEngineFactory() {
         // Empty
@@ -112,6 +131,14 @@ public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
         this.threadingParametersMap = parameterMap;
     }
     
+    public ThreadingParameters getThreadingParameters() {
+        return threadingParameters;
+    }
+    
+    public void setThreadingParameters(ThreadingParameters threadingParameters) {
+        this.threadingParameters = threadingParameters;
+    }
+    
     public void setEnginesList(List<NettyHttpServerEngine> enginesList) {
         for (NettyHttpServerEngine engine : enginesList) {
             portMap.putIfAbsent(engine.getPort(), engine);
@@ -135,6 +162,7 @@ public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
         portMap.clear();
         threadingParametersMap.clear();
         tlsServerParametersMap.clear();
+        shutdownSharedGroups();
     }
 
     public void preShutdown() {
@@ -177,6 +205,14 @@ public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
             tlsServerParameters = tlsServerParametersMap.get(port);
         }
         NettyHttpServerEngine ref = getOrCreate(this, host, port, tlsServerParameters);
+        if (ref.getByteBufAllocator() == null && bus != null) {
+            ref.setByteBufAllocator(NettyBusResources.getByteBufAllocator(bus));
+        }
+        if (ref.getWorkerGroup() == null && !hasOwnThreading(ref)) {
+            createSharedGroups();
+            ref.setEventLoopGroups(bossGroup, workerGroup);
+            ref.setApplicationExecutor(applicationExecutor);
+        }
         // checking the protocol
         if (!protocol.equals(ref.getProtocol())) {
             throw new IOException("Protocol mismatch for port " + port + ": "
@@ -193,6 +229,52 @@ public class NettyHttpServerEngineFactory implements BusLifeCycleListener {
         return createNettyHttpServerEngine(null, port, protocol);
     }
 
+    private static boolean hasOwnThreading(NettyHttpServerEngine engine) {
+        ThreadingParameters params = engine.getThreadingParameters();
+        return params != null && (params.isSeThreadPoolSize() || params.isSetIoThreadCount());
+    }
+    
+    /**
+     * Creates the groups shared by the engines of this factory, the I/O threads are the ones of 
+     * the EventLoopGroup of the bus, which the Netty client conduits use as well.
+     */
+    private void createSharedGroups() {
+        if (workerGroup != null) {
+            return;
+        }
+        bossGroup = new NioEventLoopGroup(1);
+        ownedGroups.add(bossGroup);
+        registerGroup(bossGroup, "server-boss");
+        int ioThreads = threadingParameters.isSetIoThreadCount() ? threadingParameters.getIoThreadCount() : 0;
+        if (bus == null) {
+            workerGroup = new NioEventLoopGroup(ioThreads);
+            ownedGroups.add(workerGroup);
+        } else {
+            workerGroup = NettyBusResources.getEventLoopGroup(bus, ioThreads);
+        }
+        applicationExecutor = new DefaultEventExecutorGroup(threadingParameters.isSeThreadPoolSize()
+            ? threadingParameters.getThreadPoolSize() 
+            : NettyHttpServletPipelineFactory.DEFAULT_APPLICATION_THREADS);
+        ownedGroups.add(applicationExecutor);
+        registerGroup(applicationExecutor, "server-application");
+    }
+    
+    private void registerGroup(EventExecutorGroup group, String name) {
+        if (bus != null) {
+            NettyBusResources.registerGroup(bus, group, name);
+        }
+    }
+    
+    private synchronized void shutdownSharedGroups() {
+        for (EventExecutorGroup group : ownedGroups) {
+            group.shutdownGracefully();
+        }
+        ownedGroups.clear();
+        bossGroup = null;
+        workerGroup = null;
+        applicationExecutor = null;
+    }
+    
     /**
      * This method removes the Server Engine from the port map and stops it.
      */
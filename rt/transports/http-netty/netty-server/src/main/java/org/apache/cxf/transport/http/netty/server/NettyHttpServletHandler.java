@@ -19,14 +19,20 @@
 
 package org.apache.cxf.transport.http.netty.server;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.transport.http.netty.server.interceptor.NettyInterceptor;
 import org.apache.cxf.transport.http.netty.server.servlet.NettyHttpServletRequest;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyServletInputStream;
 import org.apache.cxf.transport.http.netty.server.servlet.NettyServletResponse;
 
 import io.netty.buffer.ByteBuf;
@@ -41,28 +47,45 @@ import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders.Names;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 
 public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     private static final Logger LOG =
             LogUtils.getL7dLogger(NettyHttpServletHandler.class);
+    
+    private static final int MAX_RESPONSE_COMPONENTS = 256;
    
     private final ChannelGroup allChannels;
 
     private final NettyHttpServletPipelineFactory pipelineFactory;
 
     private List<NettyInterceptor> interceptors;
+    
+    // used in the request streaming mode only, one handler is created per channel 
+    private final Executor requestExecutor;
+    
+    // the requests of the channel waiting to be handled, in order
+    private final Queue<Runnable> pendingRequests = new ArrayDeque<Runnable>();
+    
+    private boolean handlingRequests;
+    
+    private NettyServletInputStream requestContent;
 
     public NettyHttpServletHandler(NettyHttpServletPipelineFactory pipelineFactory) {
         this.allChannels = pipelineFactory.getAllChannels();
         this.pipelineFactory = pipelineFactory;
+        this.requestExecutor = pipelineFactory.isRequestStreaming() 
+            ? pipelineFactory.getRequestExecutor() : null;
     }
 
     public NettyHttpServletHandler addInterceptor(
@@ -95,8 +118,21 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     }
     
     
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (requestContent != null) {
+            requestContent.fail(new IOException("The connection has been closed"));
+            requestContent = null;
+        }
+        super.channelInactive(ctx);
+    }
+    
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (requestExecutor != null) {
+            streamHttpRequest(ctx, msg);
+            return;
+        }
         HttpRequest request = (HttpRequest) msg;
         if (HttpHeaders.is100ContinueExpected(request)) {
             ctx.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
@@ -104,15 +140,129 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
 
         // find the nettyHttpContextHandler by lookup the request url
         NettyHttpContextHandler nettyHttpContextHandler = pipelineFactory.getNettyHttpHandler(request.getUri());
-        if (nettyHttpContextHandler != null) {
-            handleHttpServletRequest(ctx, request, nettyHttpContextHandler);
-        } else {
-            throw new RuntimeException(
-                    "No handler found for uri: " + request.getUri());
+        try {
+            if (nettyHttpContextHandler != null) {
+                handleHttpServletRequest(ctx, request, nettyHttpContextHandler);
+            } else {
+                throw new RuntimeException(
+                        "No handler found for uri: " + request.getUri());
+            }
+        } finally {
+            // the aggregated content may come from a pooled allocator
+            ReferenceCountUtil.release(msg);
         }
     }
 
     
+    /**
+     * Starts the handling of a request on the request executor as soon as its headers 
+     * have arrived, the content is handed to the request stream chunk by chunk.  Only
+     * the feeding of the stream happens on the I/O thread, the handler blocking on the
+     * stream runs on a thread of the request executor.
+     */
+    private void streamHttpRequest(final ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            final HttpRequest request = (HttpRequest) msg;
+            requestContent = null;
+            final NettyHttpContextHandler nettyHttpContextHandler = 
+                pipelineFactory.getNettyHttpHandler(request.getUri());
+            if (nettyHttpContextHandler == null) {
+                LOG.log(Level.FINE, "No handler found for uri: {0}", request.getUri());
+                // the content of the request, if any, is released as it arrives
+                dispatch(new Runnable() {
+                    public void run() {
+                        sendError(ctx, HttpResponseStatus.NOT_FOUND);
+                    }
+                });
+            } else {
+                if (HttpHeaders.is100ContinueExpected(request)) {
+                    ctx.writeAndFlush(new DefaultHttpResponse(HttpVersion.HTTP_1_1, 
+                                                              HttpResponseStatus.CONTINUE));
+                }
+                final NettyServletInputStream content = 
+                    new NettyServletInputStream(ctx.channel(), pipelineFactory.getMaxChunkContentSize());
+                requestContent = content;
+                dispatch(new Runnable() {
+                    public void run() {
+                        try {
+                            handleHttpServletRequest(ctx, request, nettyHttpContextHandler, content);
+                            ctx.flush();
+                        } catch (Throwable t) {
+                            try {
+                                exceptionCaught(ctx, t);
+                            } catch (Exception ex) {
+                                LOG.log(Level.WARNING, "Failed to handle the exception", ex);
+                            }
+                        } finally {
+                            try {
+                                content.close();
+                            } catch (IOException ex) {
+                                // ignore
+                            }
+                        }
+                    }
+                });
+            }
+        }
+        if (msg instanceof HttpContent) {
+            HttpContent content = (HttpContent) msg;
+            if (requestContent != null) {
+                requestContent.offer(content);
+            } else {
+                content.release();
+            }
+            if (content instanceof LastHttpContent) {
+                requestContent = null;
+            }
+        }
+    }
+    
+    /**
+     * Hands a request to the request executor.  The requests of the channel are handled 
+     * one after the other so that the responses are written in order, but the channel does
+     * not hold on to a thread while it has no request to handle.
+     */
+    private void dispatch(Runnable task) {
+        synchronized (pendingRequests) {
+            pendingRequests.add(task);
+            if (handlingRequests) {
+                return;
+            }
+            handlingRequests = true;
+        }
+        try {
+            requestExecutor.execute(new Runnable() {
+                public void run() {
+                    handlePendingRequests();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            synchronized (pendingRequests) {
+                pendingRequests.clear();
+                handlingRequests = false;
+            }
+            throw ex;
+        }
+    }
+    
+    private void handlePendingRequests() {
+        while (true) {
+            Runnable task;
+            synchronized (pendingRequests) {
+                task = pendingRequests.poll();
+                if (task == null) {
+                    handlingRequests = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Failed to handle the request", ex);
+            }
+        }
+    }
+    
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         ctx.flush();
@@ -121,14 +271,42 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     protected void handleHttpServletRequest(ChannelHandlerContext ctx,
                                             HttpRequest request, NettyHttpContextHandler nettyHttpContextHandler)
         throws Exception {
+        handleHttpServletRequest(ctx, request, nettyHttpContextHandler, null);
+    }
+    
+    protected void handleHttpServletRequest(ChannelHandlerContext ctx,
+                                            HttpRequest request, NettyHttpContextHandler nettyHttpContextHandler,
+                                            NettyServletInputStream content)
+        throws Exception {
 
         interceptOnRequestReceived(ctx, request);
         
-        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        // the response content grows by adding buffers of the channel allocator, so it is
+        // not copied while it is written until it holds more than MAX_RESPONSE_COMPONENTS 
+        // buffers, when the CompositeByteBuf consolidates them
+        FullHttpResponse response = 
+            new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                                        ctx.alloc().compositeBuffer(MAX_RESPONSE_COMPONENTS));
+        boolean written = false;
+        try {
+            writeHttpServletResponse(ctx, request, nettyHttpContextHandler, content, response);
+            written = true;
+        } finally {
+            if (!written) {
+                response.release();
+            }
+        }
+    }
+    
+    private void writeHttpServletResponse(ChannelHandlerContext ctx, HttpRequest request,
+                                          NettyHttpContextHandler nettyHttpContextHandler,
+                                          NettyServletInputStream content, FullHttpResponse response)
+        throws Exception {
 
         NettyServletResponse nettyServletResponse = buildHttpServletResponse(response);
-        NettyHttpServletRequest nettyServletRequest = 
-            buildHttpServletRequest(request, nettyHttpContextHandler.getContextPath(), ctx);
+        NettyHttpServletRequest nettyServletRequest = content == null
+            ? buildHttpServletRequest(request, nettyHttpContextHandler.getContextPath(), ctx)
+            : buildHttpServletRequest(request, nettyHttpContextHandler.getContextPath(), ctx, content);
 
         nettyHttpContextHandler.handle(nettyServletRequest.getRequestURI(), nettyServletRequest, nettyServletResponse);
         interceptOnRequestSuccessed(ctx, response);
@@ -190,7 +368,7 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
                                                                 content);
         response.headers().set(Names.CONTENT_TYPE, "text/plain; charset=UTF-8");
         
-        ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
     }
 
     private void interceptOnRequestReceived(ChannelHandlerContext ctx, HttpRequest request) {
@@ -234,4 +412,10 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
         return new NettyHttpServletRequest(request, contextPath, ctx);
     }
     
+    protected NettyHttpServletRequest buildHttpServletRequest(
+            HttpRequest request, String contextPath, ChannelHandlerContext ctx,
+            NettyServletInputStream content) {
+        return new NettyHttpServletRequest(request, contextPath, ctx, content);
+    }
+    
 }
@@ -21,6 +21,9 @@ package org.apache.cxf.transport.http.netty.server;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +31,7 @@ import javax.net.ssl.SSLEngine;
 
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
+import org.apache.cxf.transport.http.PathTrie;
 import org.apache.cxf.transport.http.netty.server.interceptor.ChannelInterceptor;
 import org.apache.cxf.transport.http.netty.server.interceptor.HttpSessionInterceptor;
 import org.apache.cxf.transport.http.netty.server.session.DefaultHttpSessionStore;
@@ -54,6 +58,8 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     private static final Logger LOG =
         LogUtils.getL7dLogger(NettyHttpServletPipelineFactory.class);
     
+    static final int DEFAULT_APPLICATION_THREADS = 16;
+    
     //TODO how to manage the allChannels
     private final ChannelGroup allChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);;
 
@@ -67,22 +73,78 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     
     private final Map<String, NettyHttpContextHandler> handlerMap;
     
+    private final PathTrie<NettyHttpContextHandler> handlerIndex;
+    
     private final int maxChunkContentSize;
     
+    private final boolean requestStreaming;
+    
     private final EventExecutorGroup applicationExecutor;
+    
+    private final boolean sharedApplicationExecutor;
+    
+    private final Executor requestExecutor;
+    
+    private final ExecutorService ownedRequestExecutor;
 
     public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
                                            boolean supportSession, int threadPoolSize, int maxChunkContentSize,
                                            Map<String, NettyHttpContextHandler> handlerMap,
                                            IdleStateHandler idleStateHandler) {
+        this(tlsServerParameters, supportSession, threadPoolSize, maxChunkContentSize, false,
+             handlerMap, idleStateHandler);
+    }
+    
+    public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
+                                           boolean supportSession, int threadPoolSize, int maxChunkContentSize,
+                                           boolean requestStreaming,
+                                           Map<String, NettyHttpContextHandler> handlerMap,
+                                           IdleStateHandler idleStateHandler) {
+        this(tlsServerParameters, supportSession, maxChunkContentSize, requestStreaming, 
+             handlerMap, null, idleStateHandler, null, null);
+    }
+    
+    public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
+                                           boolean supportSession, int maxChunkContentSize,
+                                           boolean requestStreaming,
+                                           Map<String, NettyHttpContextHandler> handlerMap,
+                                           PathTrie<NettyHttpContextHandler> handlerIndex,
+                                           IdleStateHandler idleStateHandler,
+                                           EventExecutorGroup applicationExecutor) {
+        this(tlsServerParameters, supportSession, maxChunkContentSize, requestStreaming, 
+             handlerMap, handlerIndex, idleStateHandler, applicationExecutor, null);
+    }
+    
+    /**
+     * @param handlerIndex the context handlers of handlerMap indexed by their context path, 
+     * if null the handler of a request is looked up by scanning handlerMap
+     * @param applicationExecutor the executor group the servlet handler runs on, it is not 
+     * shut down with this factory; if null a private group is created
+     * @param requestExecutor the thread pool the requests are handled on in the request 
+     * streaming mode, it is not shut down with this factory; if null a private pool is created
+     */
+    public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
+                                           boolean supportSession, int maxChunkContentSize,
+                                           boolean requestStreaming,
+                                           Map<String, NettyHttpContextHandler> handlerMap,
+                                           PathTrie<NettyHttpContextHandler> handlerIndex,
+                                           IdleStateHandler idleStateHandler,
+                                           EventExecutorGroup applicationExecutor,
+                                           Executor requestExecutor) {
+        this.handlerIndex = handlerIndex;
         this.supportSession = supportSession;
+        this.requestStreaming = requestStreaming;
         this.idleStateHandler = idleStateHandler;
         this.watchdog = new HttpSessionWatchdog();
         this.handlerMap = handlerMap;
         this.tlsServerParameters = tlsServerParameters;
         this.maxChunkContentSize = maxChunkContentSize;
-        //TODO need to configure the thread size of EventExecutorGroup
-        applicationExecutor = new DefaultEventExecutorGroup(16);
+        this.sharedApplicationExecutor = applicationExecutor != null;
+        this.applicationExecutor = sharedApplicationExecutor 
+            ? applicationExecutor : new DefaultEventExecutorGroup(DEFAULT_APPLICATION_THREADS);
+        this.ownedRequestExecutor = requestStreaming && requestExecutor == null
+            ? Executors.newFixedThreadPool(DEFAULT_APPLICATION_THREADS) : null;
+        this.requestExecutor = ownedRequestExecutor != null ? ownedRequestExecutor : requestExecutor;
     }
 
 
@@ -93,8 +155,38 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     public ChannelGroup getAllChannels() {
         return allChannels;
     }
+    
+    /**
+     * @return true if the request content is handed to the application as it arrives
+     * instead of being aggregated first
+     */
+    public boolean isRequestStreaming() {
+        return requestStreaming;
+    }
+    
+    /**
+     * @return the maximum size of an aggregated request, or of the request content
+     * buffered ahead of the application when streaming
+     */
+    public int getMaxChunkContentSize() {
+        return maxChunkContentSize;
+    }
+    
+    public EventExecutorGroup getApplicationExecutor() {
+        return applicationExecutor;
+    }
+    
+    /**
+     * @return the thread pool the requests are handled on in the request streaming mode
+     */
+    public Executor getRequestExecutor() {
+        return requestExecutor;
+    }
 
     public NettyHttpContextHandler getNettyHttpHandler(String url) {
+        if (handlerIndex != null) {
+            return handlerIndex.getLongestMatch(stripQuery(url));
+        }
         Set<String> keySet = handlerMap.keySet();
         for (String key : keySet) {
             // Here just check the context path first
@@ -105,6 +197,11 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
         return null;
     }
     
+    private static String stripQuery(String url) {
+        int idx = url.indexOf('?');
+        return idx == -1 ? url : url.substring(0, idx);
+    }
+    
     public void start() {
         if (supportSession) {
             new Thread(watchdog).start();
@@ -114,7 +211,12 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     public void shutdown() {
         allChannels.close();
         watchdog.stopWatching();
-        applicationExecutor.shutdownGracefully();
+        if (!sharedApplicationExecutor) {
+            applicationExecutor.shutdownGracefully();
+        }
+        if (ownedRequestExecutor != null) {
+            ownedRequestExecutor.shutdown();
+        }
     }
 
     protected HttpSessionStore getHttpSessionStore() {
@@ -145,7 +247,9 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
         }
 
         pipeline.addLast("decoder", new HttpRequestDecoder());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        if (!requestStreaming) {
+            pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        }
         pipeline.addLast("encoder", new HttpResponseEncoder());
 
         // Remove the following line if you don't want automatic content
@@ -199,7 +303,13 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     protected void initChannel(Channel ch) throws Exception {
         ChannelPipeline pipeline = getDefaulHttpChannelPipeline(ch);
         
-        pipeline.addLast(applicationExecutor, "handler", this.getServletHandler());
+        if (requestStreaming) {
+            // the handler feeds the request content on the I/O thread and 
+            // dispatches the requests to the request executor itself
+            pipeline.addLast("handler", this.getServletHandler());
+        } else {
+            pipeline.addLast(applicationExecutor, "handler", this.getServletHandler());
+        }
     }
 
 }
@@ -26,6 +26,8 @@ public class ThreadingParameters {
 
     private int threadPoolSize = 200;
     private boolean threadPoolSizeSet;
+    private int ioThreadCount;
+    private boolean ioThreadCountSet;
     
     
     public void setThreadPoolSize(int number) {
@@ -41,4 +43,20 @@ public class ThreadingParameters {
         return threadPoolSizeSet;
     }
     
+    /**
+     * Sets the number of I/O threads, 0 lets Netty use twice the number of cores.
+     */
+    public void setIoThreadCount(int number) {
+        ioThreadCountSet = true;
+        ioThreadCount = number;
+    }
+    
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+    
+    public boolean isSetIoThreadCount() {
+        return ioThreadCountSet;
+    }
+    
 }
@@ -84,6 +84,9 @@ public class NettyHttpServerEngineFactoryHolder {
                     ThreadingParameters rThreads = new ThreadingParameters();
                     String id = threads.getId();
                     rThreads.setThreadPoolSize(threads.getThreadingParameters().getThreadPoolSize());
+                    if (threads.getThreadingParameters().getIoThreadCount() != null) {
+                        rThreads.setIoThreadCount(threads.getThreadingParameters().getIoThreadCount());
+                    }
                     threadingParametersMap.put(id, rThreads);
                 }
 
@@ -123,6 +126,9 @@ public class NettyHttpServerEngineFactoryHolder {
                 if (engine.getMaxChunkContentSize() != null) {
                     eng.setMaxChunkContentSize(engine.getMaxChunkContentSize());
                 }
+                if (engine.isRequestStreaming() != null) {
+                    eng.setRequestStreaming(engine.isRequestStreaming());
+                }
                 if (engine.getPort() != null) {
                     eng.setPort(engine.getPort());
                 }
@@ -133,6 +139,9 @@ public class NettyHttpServerEngineFactoryHolder {
                     ThreadingParametersType threads = engine.getThreadingParameters();
                     ThreadingParameters rThreads = new ThreadingParameters();
                     rThreads.setThreadPoolSize(threads.getThreadPoolSize());
+                    if (threads.getIoThreadCount() != null) {
+                        rThreads.setIoThreadCount(threads.getIoThreadCount());
+                    }
                     eng.setThreadingParameters(rThreads);
                 }
 
@@ -20,34 +20,189 @@
 package org.apache.cxf.transport.http.netty.server.servlet;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
 
 import javax.servlet.ServletInputStream;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
 
 
 public class NettyServletInputStream extends ServletInputStream {
 
     private final ByteBufInputStream in;
+    
+    // streaming mode, the content is fed chunk by chunk by the I/O thread
+    private final Channel channel;
+    private final int maxBufferedSize;
+    private final LinkedList<ByteBuf> chunks = new LinkedList<ByteBuf>();
+    private ByteBuf current;
+    private int bufferedSize;
+    private boolean last;
+    private boolean closed;
+    private boolean suspended;
+    private IOException failure;
 
     public NettyServletInputStream(HttpContent httpContent) {
         this.in = new ByteBufInputStream(httpContent.content());
+        this.channel = null;
+        this.maxBufferedSize = 0;
+    }
+    
+    /**
+     * Creates a stream that is fed with the {@link HttpContent} of the request as it arrives.
+     * Reading from the channel is suspended while more than maxBufferedSize bytes are 
+     * waiting to be read.
+     */
+    public NettyServletInputStream(Channel channel, int maxBufferedSize) {
+        this.in = null;
+        this.channel = channel;
+        this.maxBufferedSize = maxBufferedSize;
+    }
+    
+    /**
+     * Hands the next chunk of the request content to the stream, the stream takes 
+     * over the reference to the content.
+     */
+    public synchronized void offer(HttpContent httpContent) {
+        if (httpContent instanceof LastHttpContent) {
+            last = true;
+        }
+        ByteBuf buf = httpContent.content();
+        if (closed || !buf.isReadable()) {
+            buf.release();
+        } else {
+            chunks.add(buf);
+            bufferedSize += buf.readableBytes();
+            if (bufferedSize > maxBufferedSize && !last && !suspended) {
+                suspended = true;
+                channel.config().setAutoRead(false);
+            }
+        }
+        notifyAll();
+    }
+    
+    /**
+     * Wakes up the reader with the given exception, for instance when the connection
+     * has been closed before the request has been read completely.
+     */
+    public synchronized void fail(IOException ex) {
+        if (!last) {
+            failure = ex;
+            notifyAll();
+        }
     }
 
     @Override
     public int read() throws IOException {
-        return this.in.read();
+        if (in != null) {
+            return this.in.read();
+        }
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xff;
     }
 
     @Override
     public int read(byte[] buf) throws IOException {
-        return this.in.read(buf);
+        return read(buf, 0, buf.length);
     }
 
     @Override
     public int read(byte[] buf, int offset, int len) throws IOException {
-        return this.in.read(buf, offset, len);
+        if (in != null) {
+            return this.in.read(buf, offset, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        synchronized (this) {
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = Math.min(len, current.readableBytes());
+            current.readBytes(buf, offset, n);
+            return n;
+        }
+    }
+    
+    @Override
+    public int available() throws IOException {
+        if (in != null) {
+            return this.in.available();
+        }
+        synchronized (this) {
+            return (current == null ? 0 : current.readableBytes()) + bufferedSize;
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            this.in.close();
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            releaseChunk();
+            for (ByteBuf buf : chunks) {
+                buf.release();
+            }
+            chunks.clear();
+            bufferedSize = 0;
+            // keep reading, the rest of the request is discarded
+            resume();
+            notifyAll();
+        }
+    }
+    
+    private boolean nextChunk() throws IOException {
+        while (current == null || !current.isReadable()) {
+            releaseChunk();
+            while (chunks.isEmpty() && !last && !closed && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (chunks.isEmpty()) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+            current = chunks.removeFirst();
+            bufferedSize -= current.readableBytes();
+            if (bufferedSize <= maxBufferedSize / 2) {
+                resume();
+            }
+        }
+        return true;
+    }
+    
+    private void releaseChunk() {
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+    
+    private void resume() {
+        if (suspended) {
+            suspended = false;
+            channel.config().setAutoRead(true);
+        }
     }
     
 }
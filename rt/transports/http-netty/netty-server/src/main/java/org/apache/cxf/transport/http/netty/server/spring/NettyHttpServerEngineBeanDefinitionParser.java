@@ -90,6 +90,11 @@ public class NettyHttpServerEngineBeanDefinitionParser extends AbstractBeanDefin
             bean.addPropertyValue("maxChunkContentSize", maxChunkContentSizeStr);
         }
         
+        String requestStreamingStr = element.getAttribute("requestStreaming");
+        if (requestStreamingStr != null && !"".equals(requestStreamingStr.trim())) {
+            bean.addPropertyValue("requestStreaming", requestStreamingStr);
+        }
+        
         
         ValueHolder busValue = ctx.getContainingBeanDefinition()
             .getConstructorArgumentValues().getArgumentValue(0, Bus.class);
@@ -309,6 +314,9 @@ public class NettyHttpServerEngineBeanDefinitionParser extends AbstractBeanDefin
         if (paramtype.getThreadPoolSize() != null) {
             params.setThreadPoolSize(paramtype.getThreadPoolSize());
         }
+        if (paramtype.getIoThreadCount() != null) {
+            params.setIoThreadCount(paramtype.getIoThreadCount());
+        }
 
         return params;
     }
@@ -64,6 +64,9 @@ public final class NettySpringTypesFactory {
     private static ThreadingParameters toThreadingParameters(ThreadingParametersType paramtype) {
         ThreadingParameters params = new ThreadingParameters();
         params.setThreadPoolSize(paramtype.getThreadPoolSize());
+        if (paramtype.getIoThreadCount() != null) {
+            params.setIoThreadCount(paramtype.getIoThreadCount());
+        }
         return params;
     }
         
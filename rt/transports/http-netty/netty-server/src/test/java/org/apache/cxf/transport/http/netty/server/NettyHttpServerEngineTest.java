@@ -21,10 +21,18 @@ package org.apache.cxf.transport.http.netty.server;
 
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Collections;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.cxf.Bus;
 import org.apache.cxf.configuration.Configurer;
 import org.apache.cxf.helpers.IOUtils;
@@ -39,6 +47,8 @@ import org.junit.Test;
 public class NettyHttpServerEngineTest extends Assert {
     private static final int PORT1 
         = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 1));
+    private static final int PORT2 
+        = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 2));
     private static final int PORT3 
         = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 3));
     
@@ -137,6 +147,78 @@ public class NettyHttpServerEngineTest extends Assert {
         NettyHttpServerEngineFactory.destroyForPort(PORT3);
     }
 
+    @Test
+    public void testRequestStreaming() throws Exception {
+        String urlStr = "http://localhost:" + PORT2 + "/hello/upload";
+        NettyHttpServerEngine engine =
+            factory.createNettyHttpServerEngine(PORT2, "http");
+        engine.setRequestStreaming(true);
+        // far smaller than the request, which would be rejected if it was aggregated
+        engine.setMaxChunkContentSize(1024);
+        engine.addServant(new URL(urlStr), new NettyHttpHandler(null, true) {
+            @Override
+            public void handle(String target, HttpServletRequest request, HttpServletResponse resp)
+                throws IOException, ServletException {
+                InputStream in = request.getInputStream();
+                long count = 0;
+                byte[] buffer = new byte[4096];
+                for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+                    count += n;
+                }
+                resp.getOutputStream().write(Long.toString(count).getBytes());
+                resp.flushBuffer();
+            }
+        });
+        
+        int size = 4 * 1024 * 1024;
+        HttpURLConnection connection = (HttpURLConnection)new URL(urlStr).openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setChunkedStreamingMode(8192);
+        OutputStream out = connection.getOutputStream();
+        byte[] chunk = new byte[8192];
+        for (int x = 0; x < size / chunk.length; x++) {
+            out.write(chunk);
+        }
+        out.close();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        IOUtils.copy(connection.getInputStream(), buffer);
+        assertEquals(Integer.toString(size), buffer.toString());
+        
+        connection = (HttpURLConnection)new URL("http://localhost:" + PORT2 + "/unknown").openConnection();
+        assertEquals(404, connection.getResponseCode());
+
+        NettyHttpServerEngineFactory.destroyForPort(PORT2);
+    }
+
+    @Test
+    public void testSharedEventLoopGroups() throws Exception {
+        NettyHttpServerEngine engine1 = factory.createNettyHttpServerEngine(PORT1, "http");
+        NettyHttpServerEngine engine2 = factory.createNettyHttpServerEngine(PORT2, "http");
+        assertNotNull(engine1.getWorkerGroup());
+        assertSame(engine1.getBossGroup(), engine2.getBossGroup());
+        assertSame(engine1.getWorkerGroup(), engine2.getWorkerGroup());
+        assertSame(engine1.getApplicationExecutor(), engine2.getApplicationExecutor());
+        
+        // an engine with its own threading parameters gets its own groups
+        NettyHttpServerEngine engine3 = new NettyHttpServerEngine(null, PORT3);
+        ThreadingParameters params = new ThreadingParameters();
+        params.setIoThreadCount(2);
+        engine3.setThreadingParameters(params);
+        factory.setEnginesList(Collections.singletonList(engine3));
+        assertSame(engine3, factory.createNettyHttpServerEngine(PORT3, "http"));
+        assertNull(engine3.getWorkerGroup());
+
+        NettyHttpServerEngineFactory.destroyForPort(PORT1);
+        NettyHttpServerEngineFactory.destroyForPort(PORT2);
+        NettyHttpServerEngineFactory.destroyForPort(PORT3);
+        assertFalse("The shared groups should outlive the engines", 
+                    engine1.getWorkerGroup().isShuttingDown());
+        factory.postShutdown();
+        assertTrue(engine1.getWorkerGroup().isShuttingDown());
+        assertTrue(engine1.getApplicationExecutor().isShuttingDown());
+    }
+
     private String getResponse(String target) throws Exception {
         URL url = new URL(target);
 
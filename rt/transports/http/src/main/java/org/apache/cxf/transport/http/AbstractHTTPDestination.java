@@ -44,6 +44,7 @@ import org.apache.cxf.attachment.AttachmentDataSource;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.Base64Exception;
 import org.apache.cxf.common.util.Base64Utility;
+import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.configuration.Configurable;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
@@ -97,6 +98,11 @@ public abstract class AbstractHTTPDestination
     public static final String CXF_ASYNC_CONTEXT = "cxf.async.context";
 
     public static final String SERVICE_REDIRECTION = "http.service.redirection";
+
+    /**
+     * Bus property enabling {@link #setAsyncDispatch(boolean) asynchronous dispatch}
+     */
+    public static final String ASYNC_DISPATCH = "org.apache.cxf.transport.http.async.dispatch";
     private static final String HTTP_BASE_PATH = "http.base.path";
 
     private static final String SSL_CIPHER_SUITE_ATTRIBUTE = "javax.servlet.request.cipher_suite";
@@ -116,6 +122,7 @@ public abstract class AbstractHTTPDestination
     protected CertConstraints certConstraints;
     protected boolean isServlet3;
     protected ContinuationProviderFactory cproviderFactory;
+    protected boolean asyncDispatch;
 
     private volatile boolean serverPolicyCalced; 
 
@@ -218,22 +225,40 @@ public abstract class AbstractHTTPDestination
                        final HttpServletResponse resp) throws IOException {
         Message inMessage = retrieveFromContinuation(req);
         if (inMessage == null) {
-            LOG.fine("Create a new message for processing");
-            inMessage = new MessageImpl();
-            ExchangeImpl exchange = new ExchangeImpl();
-            exchange.setInMessage(inMessage);
-            setupMessage(inMessage,
-                     config,
-                     context,
-                     req,
-                     resp);
-
-            exchange.setSession(new HTTPSession(req));
-            ((MessageImpl)inMessage).setDestination(this);
+            if (asyncDispatch && isServlet3
+                && new Servlet3AsyncDispatcher(this).dispatch(config, context, req, resp)) {
+                return;
+            }
+            inMessage = createInMessage(config, context, req, resp);
         } else {
             LOG.fine("Get the message from the request for processing");
         }
+        invokeMessage(inMessage, context, req, resp);
+    }
 
+    protected Message createInMessage(final ServletConfig config, 
+                                      final ServletContext context, 
+                                      final HttpServletRequest req, 
+                                      final HttpServletResponse resp) throws IOException {
+        LOG.fine("Create a new message for processing");
+        Message inMessage = new MessageImpl();
+        ExchangeImpl exchange = new ExchangeImpl();
+        exchange.setInMessage(inMessage);
+        setupMessage(inMessage,
+                 config,
+                 context,
+                 req,
+                 resp);
+
+        exchange.setSession(new HTTPSession(req));
+        ((MessageImpl)inMessage).setDestination(this);
+        return inMessage;
+    }
+
+    protected void invokeMessage(Message inMessage,
+                                 final ServletContext context, 
+                                 final HttpServletRequest req, 
+                                 final HttpServletResponse resp) throws IOException {
         copyKnownRequestAttributes(req, inMessage);
         
         try {    
@@ -503,6 +528,7 @@ public abstract class AbstractHTTPDestination
     private void initConfig() {
         
         cproviderFactory = bus.getExtension(ContinuationProviderFactory.class);
+        asyncDispatch = PropertyUtils.isTrue(bus.getProperty(ASYNC_DISPATCH));
     }
 
     private void calcServerPolicy(Message m) {
@@ -853,6 +879,21 @@ public abstract class AbstractHTTPDestination
         this.fixedParameterOrder = fixedParameterOrder;
     }
 
+    public boolean isAsyncDispatch() {
+        return asyncDispatch;
+    }
+
+    /**
+     * If set, a Servlet 3 request is put into asynchronous mode right away and
+     * its body is read into a CachedOutputStream and processed on the
+     * "http-dispatch" (or the default) work queue, releasing the container
+     * thread. When the queue is full the request is processed on the calling
+     * thread.
+     */
+    public void setAsyncDispatch(boolean asyncDispatch) {
+        this.asyncDispatch = asyncDispatch;
+    }
+
     public boolean isMultiplexWithAddress() {
         return multiplexWithAddress;
     }
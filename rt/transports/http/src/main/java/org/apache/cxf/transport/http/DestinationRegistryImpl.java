@@ -33,11 +33,12 @@ import java.util.concurrent.ConcurrentMap;
 import org.apache.cxf.transport.AbstractDestination;
 
 public class DestinationRegistryImpl implements DestinationRegistry {
-    private static final String SLASH = "/";
     private ConcurrentMap<String, AbstractHTTPDestination> destinations 
         = new ConcurrentHashMap<String, AbstractHTTPDestination>();
     private Map<String, AbstractHTTPDestination> decodedDestinations = 
         new ConcurrentHashMap<String, AbstractHTTPDestination>();
+    // maps the destination paths without their trailing slash to the paths
+    private PathTrie<String> restfulPaths = new PathTrie<String>();
 
     public DestinationRegistryImpl() {
     }
@@ -48,6 +49,9 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         if (dest != null && dest != destination) {
             throw new RuntimeException("Already a destination on " + path);
         }
+        if (restfulPaths.get(path) == null) {
+            restfulPaths.put(path, path);
+        }
         try {
             String path2 = URLDecoder.decode(path, "ISO-8859-1");
             if (!path.equals(path2)) {
@@ -60,6 +64,15 @@ public class DestinationRegistryImpl implements DestinationRegistry {
 
     public synchronized void removeDestination(String path) {
         destinations.remove(path);
+        if (path.equals(restfulPaths.get(path))) {
+            restfulPaths.remove(path);
+            // "/foo" and "/foo/" share an entry, let the remaining one take it over
+            for (String other : destinations.keySet()) {
+                if (restfulPaths.get(other) == null) {
+                    restfulPaths.put(other, other);
+                }
+            }
+        }
         try {
             String path2 = URLDecoder.decode(path, "ISO-8859-1");
             if (!path.equals(path2)) {
@@ -85,20 +98,8 @@ public class DestinationRegistryImpl implements DestinationRegistry {
     }
     
     public AbstractHTTPDestination checkRestfulRequest(String address) {
-        int len = -1;
-        AbstractHTTPDestination ret = null;
-        for (String path : getDestinationsPaths()) {
-            String thePath = path.length() > 1 && path.endsWith(SLASH) 
-                ? path.substring(0, path.length() - 1) : path;
-            if ((address.equals(thePath) 
-                || SLASH.equals(thePath)
-                || (address.length() > thePath.length() 
-                    && address.startsWith(thePath) && address.charAt(thePath.length()) == '/'))
-                && thePath.length() > len) {
-                ret = getDestinationForPath(path);
-                len = path.length();
-            }
-        }
+        String path = restfulPaths.getLongestMatch(address);
+        AbstractHTTPDestination ret = path == null ? null : getDestinationForPath(path);
         if (ret != null && ret.getMessageObserver() == null) {
             return null;
         }
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps paths to values by their '/' separated segments, so that the value registered for 
+ * the longest prefix of a request path can be found without comparing the path against 
+ * every registered one.  A registered path matches a request path which is equal to it 
+ * or continues with a '/', a single trailing '/' of a registered path is ignored and "/" 
+ * as well as "" match every path.
+ * 
+ * Lookups do not block and may run concurrently with modifications.
+ */
+public class PathTrie<V> {
+    private static final char SEPARATOR = '/';
+    
+    private final Node<V> root = new Node<V>();
+    
+    public synchronized V put(String path, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        Node<V> node = root;
+        String key = normalize(path);
+        int start = 0;
+        while (start <= key.length() && key.length() > 0) {
+            int end = nextSeparator(key, start);
+            node = node.getOrCreateChild(key.substring(start, end));
+            start = end + 1;
+        }
+        V old = node.value;
+        node.value = value;
+        return old;
+    }
+    
+    public synchronized V remove(String path) {
+        return remove(root, normalize(path), 0);
+    }
+    
+    private V remove(Node<V> node, String key, int start) {
+        if (key.length() == 0 || start > key.length()) {
+            V old = node.value;
+            node.value = null;
+            return old;
+        }
+        int end = nextSeparator(key, start);
+        String segment = key.substring(start, end);
+        Node<V> child = node.getChild(segment);
+        if (child == null) {
+            return null;
+        }
+        V old = remove(child, key, end + 1);
+        if (child.isEmpty()) {
+            node.children.remove(segment);
+        }
+        return old;
+    }
+    
+    public synchronized void clear() {
+        root.value = null;
+        root.children.clear();
+    }
+    
+    /**
+     * @return the value registered for exactly this path
+     */
+    public V get(String path) {
+        Node<V> node = root;
+        String key = normalize(path);
+        int start = 0;
+        while (node != null && start <= key.length() && key.length() > 0) {
+            int end = nextSeparator(key, start);
+            node = node.getChild(key.substring(start, end));
+            start = end + 1;
+        }
+        return node == null ? null : node.value;
+    }
+    
+    /**
+     * @return the value registered for the longest path which matches the given one, 
+     * null if none matches
+     */
+    public V getLongestMatch(String path) {
+        Node<V> node = root;
+        V match = node.value;
+        int start = 0;
+        while (start <= path.length() && path.length() > 0) {
+            int end = nextSeparator(path, start);
+            node = node.getChild(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            V value = node.value;
+            if (value != null) {
+                match = value;
+            }
+            start = end + 1;
+        }
+        return match;
+    }
+    
+    private static String normalize(String path) {
+        if (path == null) {
+            return "";
+        }
+        if (path.length() > 0 && path.charAt(path.length() - 1) == SEPARATOR) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.length() == 1 && path.charAt(0) == SEPARATOR ? "" : path;
+    }
+    
+    private static int nextSeparator(String path, int start) {
+        int end = path.indexOf(SEPARATOR, start);
+        return end == -1 ? path.length() : end;
+    }
+    
+    private static final class Node<V> {
+        final ConcurrentMap<String, Node<V>> children = new ConcurrentHashMap<String, Node<V>>(4);
+        volatile V value;
+        
+        Node<V> getChild(String segment) {
+            return children.isEmpty() ? null : children.get(segment);
+        }
+        
+        Node<V> getOrCreateChild(String segment) {
+            Node<V> child = children.get(segment);
+            if (child == null) {
+                child = new Node<V>();
+                children.put(segment, child);
+            }
+            return child;
+        }
+        
+        boolean isEmpty() {
+            return value == null && children.isEmpty();
+        }
+    }
+}
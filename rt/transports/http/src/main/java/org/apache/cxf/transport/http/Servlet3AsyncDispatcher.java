@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
+import org.apache.cxf.common.classloader.ClassLoaderUtils.ClassLoaderHolder;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.interceptor.InterceptorChain;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.io.DelegatingInputStream;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
+
+/**
+ * Puts a Servlet 3 request into asynchronous mode and processes it on a CXF
+ * work queue, so the container thread is released before the body is read.
+ * The body is cached before the interceptor chain runs, the AsyncContext is
+ * completed by the {@link Servlet3ContinuationProvider} once the exchange is
+ * done, or later if the service suspends it.
+ * <p/>
+ * Servlet 3.0 has no non-blocking I/O, so reading the body and writing the
+ * response still block, but on a work queue thread instead of a container
+ * thread.
+ */
+class Servlet3AsyncDispatcher {
+    static final String WORK_QUEUE = "http-dispatch";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(Servlet3AsyncDispatcher.class);
+
+    private final AbstractHTTPDestination destination;
+
+    Servlet3AsyncDispatcher(AbstractHTTPDestination destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * @return false if the request can not be dispatched asynchronously and
+     *         has to be processed by the caller
+     */
+    boolean dispatch(final ServletConfig config,
+                     final ServletContext context,
+                     final HttpServletRequest req,
+                     final HttpServletResponse resp) {
+        try {
+            if (!req.isAsyncSupported() || req.isAsyncStarted()) {
+                return false;
+            }
+        } catch (Throwable ex) {
+            // the request may not implement the Servlet3 API
+            return false;
+        }
+        Executor queue = getWorkQueue(destination.getBus());
+        if (queue == null) {
+            return false;
+        }
+        final AsyncContext asyncContext = req.startAsync(req, resp);
+        // how long the invocation may take is up to the service
+        asyncContext.setTimeout(0);
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Runnable runnable = new Runnable() {
+            public void run() {
+                process(config, context, req, resp, asyncContext, loader);
+            }
+        };
+        try {
+            queue.execute(runnable);
+        } catch (RejectedExecutionException ex) {
+            LOG.fine("Work queue is full, processing the request on the container thread");
+            runnable.run();
+        }
+        return true;
+    }
+
+    void process(ServletConfig config, ServletContext context,
+                 HttpServletRequest req, HttpServletResponse resp,
+                 AsyncContext asyncContext, ClassLoader loader) {
+        Bus origBus = BusFactory.getAndSetThreadDefaultBus(destination.getBus());
+        ClassLoaderHolder origLoader = ClassLoaderUtils.setThreadContextClassloader(loader);
+        CachedOutputStream cache = null;
+        InputStream in = null;
+        Message inMessage = null;
+        try {
+            cache = new CachedOutputStream();
+            IOUtils.copy(req.getInputStream(), cache);
+            in = cache.getInputStream();
+
+            inMessage = destination.createInMessage(config, context, req, resp);
+            inMessage.getContent(DelegatingInputStream.class).setInputStream(in);
+            inMessage.put(ContinuationProvider.class.getName(),
+                          new Servlet3ContinuationProvider(req, resp, inMessage, asyncContext));
+            destination.invokeMessage(inMessage, context, req, resp);
+        } catch (Throwable ex) {
+            LOG.log(Level.WARNING, "Asynchronously dispatched request failed", ex);
+            try {
+                if (!resp.isCommitted()) {
+                    resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } catch (IOException ioe) {
+                // nothing more we can do
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException ise) {
+                // already completed
+            }
+        } finally {
+            if (cache != null && !isSuspended(inMessage)) {
+                try {
+                    if (in != null) {
+                        in.close();
+                    }
+                    cache.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+            if (origBus != destination.getBus()) {
+                BusFactory.setThreadDefaultBus(origBus);
+            }
+            if (origLoader != null) {
+                origLoader.reset();
+            }
+        }
+    }
+
+    private static boolean isSuspended(Message inMessage) {
+        InterceptorChain chain = inMessage == null ? null : inMessage.getInterceptorChain();
+        return chain != null && chain.getState() == InterceptorChain.State.SUSPENDED;
+    }
+
+    private static Executor getWorkQueue(Bus bus) {
+        WorkQueueManager mgr = bus.getExtension(WorkQueueManager.class);
+        if (mgr == null) {
+            return null;
+        }
+        AutomaticWorkQueue queue = mgr.getNamedWorkQueue(WORK_QUEUE);
+        if (queue == null) {
+            queue = mgr.getAutomaticWorkQueue();
+        }
+        return queue;
+    }
+}
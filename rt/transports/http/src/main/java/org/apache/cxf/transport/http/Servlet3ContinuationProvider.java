@@ -40,6 +40,7 @@ public class Servlet3ContinuationProvider implements ContinuationProvider {
     HttpServletResponse resp; 
     Message inMessage;
     Servlet3Continuation continuation;
+    AsyncContext asyncContext;
     
     public Servlet3ContinuationProvider(HttpServletRequest req,
                                         HttpServletResponse resp, 
@@ -49,11 +50,26 @@ public class Servlet3ContinuationProvider implements ContinuationProvider {
         this.resp = resp;
     }
     
+    /**
+     * For a request which is already in asynchronous mode, the context is
+     * completed along with the exchange even if it has not been suspended.
+     */
+    public Servlet3ContinuationProvider(HttpServletRequest req,
+                                        HttpServletResponse resp, 
+                                        Message inMessage,
+                                        AsyncContext asyncContext) {
+        this(req, resp, inMessage);
+        this.asyncContext = asyncContext;
+    }
+    
     public void complete() {
         if (continuation != null) {
             continuation.reset();
             continuation = null;
+        } else if (asyncContext != null) {
+            asyncContext.complete();
         }
+        asyncContext = null;
     }
     
 
@@ -82,7 +98,7 @@ public class Servlet3ContinuationProvider implements ContinuationProvider {
             req.setAttribute(AbstractHTTPDestination.CXF_CONTINUATION_MESSAGE,
                              inMessage.getExchange().getInMessage());
             callback = inMessage.getExchange().get(ContinuationCallback.class);
-            context = req.startAsync(req, resp);
+            context = asyncContext != null ? asyncContext : req.startAsync(req, resp);
             context.addListener(this);
         }
 
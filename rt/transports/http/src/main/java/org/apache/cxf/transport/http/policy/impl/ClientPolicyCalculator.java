@@ -146,6 +146,16 @@ public class ClientPolicyCalculator implements PolicyCalculator<HTTPClientPolicy
         } else if (p2.isSetReceiveTimeout()) {
             p.setReceiveTimeout(p2.getReceiveTimeout());
         }
+        if (p1.isSetMaxConnections()) {
+            p.setMaxConnections(p1.getMaxConnections());
+        } else if (p2.isSetMaxConnections()) {
+            p.setMaxConnections(p2.getMaxConnections());
+        }
+        if (p1.isSetMaxConnectionsPerHost()) {
+            p.setMaxConnectionsPerHost(p1.getMaxConnectionsPerHost());
+        } else if (p2.isSetMaxConnectionsPerHost()) {
+            p.setMaxConnectionsPerHost(p2.getMaxConnectionsPerHost());
+        }
 
         return p;
     }
@@ -121,6 +121,19 @@ public class DestinationRegistryImplTest extends Assert {
         
     }
 
+    @Test
+    public void testCheckRestfulRequestAfterRemoval() throws Exception {
+        setUpDestinations();
+        AbstractHTTPDestination soap = registry.getDestinationForPath("/soap");
+        EasyMock.expect(soap.getMessageObserver()).andReturn(observer).anyTimes();
+        control.replay();
+        
+        registry.removeDestination("/soap/test");
+        assertSame(soap, registry.checkRestfulRequest("/soap/test"));
+        registry.removeDestination("/soap");
+        assertNull(registry.checkRestfulRequest("/soap/test"));
+    }
+
     private void setUpDestinations() {
         for (int i = 0; i < REGISTERED_PATHS.length; i++) {
             AbstractHTTPDestination destination = control.createMock(AbstractHTTPDestination.class);
@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathTrieTest extends Assert {
+
+    @Test
+    public void testLongestMatch() {
+        PathTrie<String> trie = new PathTrie<String>();
+        trie.put("/soap", "soap");
+        trie.put("/soap/test", "soap/test");
+        trie.put("/test2/", "test2");
+
+        assertEquals("soap", trie.getLongestMatch("/soap"));
+        assertEquals("soap", trie.getLongestMatch("/soap/"));
+        assertEquals("soap", trie.getLongestMatch("/soap/tst"));
+        assertEquals("soap/test", trie.getLongestMatch("/soap/test"));
+        assertEquals("soap/test", trie.getLongestMatch("/soap/test/more"));
+        assertEquals("test2", trie.getLongestMatch("/test2"));
+        assertEquals("test2", trie.getLongestMatch("/test2/3"));
+        assertNull(trie.getLongestMatch("/soap2"));
+        assertNull(trie.getLongestMatch("/so"));
+        assertNull(trie.getLongestMatch(""));
+
+        trie.put("/", "root");
+        assertEquals("root", trie.getLongestMatch("/soap2"));
+        assertEquals("root", trie.getLongestMatch(""));
+        assertEquals("soap", trie.getLongestMatch("/soap/tst"));
+    }
+
+    @Test
+    public void testGetAndRemove() {
+        PathTrie<String> trie = new PathTrie<String>();
+        assertNull(trie.put("/a/b", "ab"));
+        assertEquals("ab", trie.put("/a/b/", "ab2"));
+        assertEquals("ab2", trie.get("/a/b"));
+        assertNull(trie.get("/a"));
+        assertNull(trie.getLongestMatch("/a"));
+
+        trie.put("/a", "a");
+        assertEquals("ab2", trie.remove("/a/b"));
+        assertNull(trie.remove("/a/b"));
+        assertNull(trie.get("/a/b"));
+        assertEquals("a", trie.getLongestMatch("/a/b/c"));
+
+        trie.clear();
+        assertNull(trie.getLongestMatch("/a/b/c"));
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.io.DelegatingInputStream;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Servlet3AsyncDispatcherTest extends Assert {
+    private HttpServletRequest req;
+    private HttpServletResponse resp;
+    private AsyncContext asyncContext;
+    private Bus bus;
+    private WorkQueueManager workQueueManager;
+    private AutomaticWorkQueue workQueue;
+    private AbstractHTTPDestination destination;
+
+    @Before
+    public void setUp() {
+        req = EasyMock.createMock(HttpServletRequest.class);
+        resp = EasyMock.createMock(HttpServletResponse.class);
+        asyncContext = EasyMock.createMock(AsyncContext.class);
+        bus = EasyMock.createNiceMock(Bus.class);
+        workQueueManager = EasyMock.createMock(WorkQueueManager.class);
+        workQueue = EasyMock.createMock(AutomaticWorkQueue.class);
+        destination = EasyMock.createMock(AbstractHTTPDestination.class);
+        EasyMock.expect(destination.getBus()).andReturn(bus).anyTimes();
+        EasyMock.expect(bus.getExtension(WorkQueueManager.class)).andReturn(workQueueManager).anyTimes();
+    }
+
+    @After
+    public void tearDown() {
+        BusFactory.setThreadDefaultBus(null);
+    }
+
+    @Test
+    public void testDispatchOnWorkQueue() throws Exception {
+        EasyMock.expect(req.isAsyncSupported()).andReturn(true);
+        EasyMock.expect(req.isAsyncStarted()).andReturn(false);
+        EasyMock.expect(req.startAsync(req, resp)).andReturn(asyncContext);
+        asyncContext.setTimeout(0);
+        EasyMock.expect(workQueueManager.getNamedWorkQueue(Servlet3AsyncDispatcher.WORK_QUEUE))
+            .andReturn(workQueue);
+        Capture<Runnable> runnable = new Capture<Runnable>();
+        workQueue.execute(EasyMock.capture(runnable));
+        EasyMock.replay(req, resp, asyncContext, bus, workQueueManager, workQueue, destination);
+
+        assertTrue(new Servlet3AsyncDispatcher(destination).dispatch(null, null, req, resp));
+        EasyMock.verify(req, asyncContext, workQueue);
+
+        // the body is cached before the chain runs on the work queue thread
+        EasyMock.reset(req, asyncContext, destination);
+        EasyMock.expect(destination.getBus()).andReturn(bus).anyTimes();
+        EasyMock.expect(req.getInputStream()).andReturn(new TestServletInputStream("<body/>"));
+        final Message inMessage = new MessageImpl();
+        new ExchangeImpl().setInMessage(inMessage);
+        DelegatingInputStream in = new DelegatingInputStream(null);
+        inMessage.setContent(DelegatingInputStream.class, in);
+        inMessage.setContent(InputStream.class, in);
+        EasyMock.expect(destination.createInMessage(null, null, req, resp)).andReturn(inMessage);
+        destination.invoke(inMessage, null, req, resp);
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+            public Object answer() throws Throwable {
+                assertEquals("<body/>", IOUtils.toString(inMessage.getContent(InputStream.class)));
+                inMessage.get(ContinuationProvider.class).complete();
+                return null;
+            }
+        });
+        asyncContext.complete();
+        EasyMock.expectLastCall().once();
+        EasyMock.replay(req, asyncContext, destination);
+
+        runnable.getValue().run();
+        EasyMock.verify(req, asyncContext, destination);
+    }
+
+    @Test
+    public void testNotDispatchedWhenAlreadyAsync() throws Exception {
+        EasyMock.expect(req.isAsyncSupported()).andReturn(true);
+        EasyMock.expect(req.isAsyncStarted()).andReturn(true);
+        EasyMock.replay(req, resp, asyncContext, bus, workQueueManager, workQueue, destination);
+
+        assertFalse(new Servlet3AsyncDispatcher(destination).dispatch(null, null, req, resp));
+        EasyMock.verify(req);
+    }
+
+    private static class TestServletInputStream extends ServletInputStream {
+        private final InputStream in;
+
+        TestServletInputStream(String s) {
+            in = new ByteArrayInputStream(s.getBytes());
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+    }
+}